@@ -0,0 +1,114 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import hec.io.TimeSeriesContainer;
+import org.opendcs.ratings.AbstractRating;
+import org.opendcs.ratings.AbstractRatingSet;
+import org.opendcs.ratings.RatingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rates the rating set XML files the core module's tests parse, which include expression, transitional and virtual
+ * ratings. Each file is rated through its rating set, which selects the rating by effective date, and directly through
+ * its latest rating. The USGS stream rating file holds a lone rating rather than a rating set, so that rating type is
+ * covered by {@link UsgsStreamTableRatingBenchmark} instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FixtureRatingBenchmark {
+	/**
+	 * The ratings XML file, relative to {@link RatingFixtures#XML_PATH}
+	 */
+	@Param({
+			"table_rating.xml",
+			"table_rating_multi_ind_param.xml",
+			"expression_rating.xml",
+			"transitional_rating.xml",
+			"virtual_rating.xml"})
+	public String fixture;
+	/**
+	 * The number of values rated per invocation
+	 */
+	@Param({"1000"})
+	public int valueCount;
+
+	private AbstractRatingSet ratingSet;
+	private AbstractRating rating;
+	private long[] valTimes;
+	private double[][] valueSets;
+	private TimeSeriesContainer[] timeSeries;
+
+	@Setup
+	public void setup() throws IOException, RatingException {
+		ratingSet = RatingFixtures.ratingSet(fixture);
+		AbstractRating[] ratings = ratingSet.getRatings();
+		rating = ratings[ratings.length - 1];
+		long valueTime = RatingFixtures.valueTime(ratingSet);
+		valueSets = RatingFixtures.rateableInputs(ratingSet, valueTime, valueCount, 5L);
+		valTimes = SyntheticRatings.hourly(valueCount, valueTime);
+		String[] units = ratingSet.getDataUnits();
+		if (units == null) {
+			units = ratingSet.getRatingUnits();
+		}
+		String[] params = ratingSet.getRatingSpec().getIndParameters();
+		timeSeries = new TimeSeriesContainer[params.length];
+		for (int j = 0; j < params.length; ++j) {
+			double[] values = new double[valueCount];
+			for (int i = 0; i < valueCount; ++i) {
+				values[i] = valueSets[i][j];
+			}
+			timeSeries[j] = SyntheticRatings.timeSeries(params[j], units[j], valTimes, values);
+		}
+		ratingSet.rate(valueSets, valTimes);
+		rating.rate(valTimes, valueSets);
+	}
+
+	@Benchmark
+	public void rateSetSingle(Blackhole blackhole) throws RatingException {
+		for (int i = 0; i < valueCount; ++i) {
+			blackhole.consume(ratingSet.rateOne(valueSets[i], valTimes[i]));
+		}
+	}
+
+	@Benchmark
+	public double[] rateSetArray() throws RatingException {
+		return ratingSet.rate(valueSets, valTimes);
+	}
+
+	@Benchmark
+	public TimeSeriesContainer rateSetTimeSeries() throws RatingException {
+		return ratingSet.rate(timeSeries);
+	}
+
+	@Benchmark
+	public double[] rateRatingArray() throws RatingException {
+		return rating.rate(valTimes, valueSets);
+	}
+}
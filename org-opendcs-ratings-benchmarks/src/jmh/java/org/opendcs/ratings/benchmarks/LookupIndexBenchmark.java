@@ -0,0 +1,102 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import org.opendcs.ratings.RatingConst.RatingMethod;
+import org.opendcs.ratings.RatingException;
+import org.opendcs.ratings.TableRating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups that use the bucket index of a table with lookups that bisect the whole table, over a range of
+ * table sizes, to show where {@link TableRating#setLookupIndexThreshold(int)} should be set. The values looked up are
+ * uniformly distributed so that consecutive lookups are unrelated, which is the case the index is meant for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LookupIndexBenchmark {
+	/**
+	 * The number of values in the table
+	 */
+	@Param({"16", "64", "256", "1024", "4096", "16384", "65536"})
+	public int tableSize;
+	/**
+	 * Specifies whether lookups use an index (true) or bisect the table (false)
+	 */
+	@Param({"true", "false"})
+	public boolean indexed;
+	/**
+	 * The number of values looked up per invocation
+	 */
+	@Param({"1000"})
+	public int valueCount;
+
+	private int savedThreshold;
+	private TableRating rating;
+	private long[] valTimes;
+	private double[] values;
+	private double[] flows;
+
+	@Setup
+	public void setup() throws RatingException {
+		savedThreshold = TableRating.getLookupIndexThreshold();
+		TableRating.setLookupIndexThreshold(indexed ? 0 : Integer.MAX_VALUE);
+		rating = SyntheticRatings.tableRating(tableSize, RatingMethod.LINEAR);
+		values = SyntheticRatings.uniform(valueCount, SyntheticRatings.FIRST, SyntheticRatings.last(tableSize), 3L);
+		flows = rating.rate(values);
+		valTimes = SyntheticRatings.hourly(valueCount, SyntheticRatings.SHIFT_DATE + 86400000L);
+		//---------------------------------------------------------------//
+		// compile the table and build its index under the threshold set //
+		//---------------------------------------------------------------//
+		rating.rate(values[0]);
+		rating.reverseRate(valTimes, flows);
+	}
+
+	@TearDown
+	public void tearDown() {
+		TableRating.setLookupIndexThreshold(savedThreshold);
+	}
+
+	@Benchmark
+	public void rateSingle(Blackhole blackhole) throws RatingException {
+		for (int i = 0; i < valueCount; ++i) {
+			blackhole.consume(rating.rate(values[i]));
+		}
+	}
+
+	@Benchmark
+	public double[] rateArray() throws RatingException {
+		return rating.rate(valTimes, values);
+	}
+
+	@Benchmark
+	public double[] reverseRateArray() throws RatingException {
+		return rating.reverseRate(valTimes, flows);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import org.opendcs.ratings.AbstractRatingSet;
+import org.opendcs.ratings.RatingException;
+import org.opendcs.ratings.io.xml.RatingXmlFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the ratings XML files that the core module's tests parse and generates input values that they rate
+ */
+final class RatingFixtures {
+	/**
+	 * The resource path of the ratings XML files
+	 */
+	static final String XML_PATH = "/org/opendcs/ratings/io/xml/";
+	/**
+	 * The range sampled for an independent parameter that has no finite extents
+	 */
+	private static final double[] DEFAULT_RANGE = {0., 100.};
+
+	private RatingFixtures() {}
+
+	/**
+	 * Reads a ratings XML file
+	 * @param name The file name, relative to {@link #XML_PATH}
+	 * @return The XML text
+	 * @throws IOException if the file can't be read
+	 */
+	static String loadXml(String name) throws IOException {
+		try (InputStream in = RatingFixtures.class.getResourceAsStream(XML_PATH + name)) {
+			if (in == null) {
+				throw new IOException("No such ratings file: " + XML_PATH + name);
+			}
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+				return reader.lines().collect(Collectors.joining("\n"));
+			}
+		}
+	}
+	/**
+	 * Parses a ratings XML file into a rating set
+	 * @param name The file name, relative to {@link #XML_PATH}
+	 * @return The rating set
+	 * @throws IOException if the file can't be read
+	 * @throws RatingException if the file can't be parsed
+	 */
+	static AbstractRatingSet ratingSet(String name) throws IOException, RatingException {
+		return RatingXmlFactory.ratingSet(loadXml(name), false);
+	}
+	/**
+	 * Returns a value time at which the latest rating in a rating set is in effect
+	 * @param ratingSet The rating set
+	 * @return The value time, one day after the latest effective date
+	 */
+	static long valueTime(AbstractRatingSet ratingSet) {
+		long[] effectiveDates = ratingSet.getEffectiveDates();
+		long latest = SyntheticRatings.EFFECTIVE_DATE;
+		for (long effectiveDate : effectiveDates) {
+			latest = Math.max(latest, effectiveDate);
+		}
+		return latest + 86400000L;
+	}
+	/**
+	 * Generates slowly varying input value sets that a rating set rates without error. Candidates are sampled within
+	 * the rating extents (or a default range where the extents aren't finite), and those the rating set rejects, such
+	 * as values outside of the range of a nested table, are discarded.
+	 * @param ratingSet The rating set
+	 * @param valueTime The time at which the values are rated
+	 * @param count The number of value sets
+	 * @param seed The random seed
+	 * @return The value sets, indexed by value then by independent parameter
+	 * @throws RatingException if the rating set has no independent parameters
+	 */
+	static double[][] rateableInputs(AbstractRatingSet ratingSet, long valueTime, int count, long seed) throws RatingException {
+		int indParamCount = ratingSet.getIndParamCount();
+		double[][] extents = null;
+		try {
+			extents = ratingSet.getRatingExtents(valueTime);
+		}
+		catch (RatingException e) {
+			//-----------------------------------------------//
+			// not all rating types can report their extents //
+			//-----------------------------------------------//
+		}
+		int candidateCount = count * 20;
+		double[][] candidates = new double[indParamCount][];
+		for (int j = 0; j < indParamCount; ++j) {
+			double[] range = DEFAULT_RANGE;
+			if (extents != null && isFinite(extents[0][j]) && isFinite(extents[1][j]) && extents[1][j] > extents[0][j]) {
+				range = new double[] {extents[0][j], extents[1][j]};
+			}
+			candidates[j] = SyntheticRatings.hydrograph(candidateCount, range[0], range[1], seed + j);
+		}
+		double[][] inputs = new double[count][];
+		int found = 0;
+		for (int i = 0; i < candidateCount && found < count; ++i) {
+			double[] valueSet = new double[indParamCount];
+			for (int j = 0; j < indParamCount; ++j) {
+				valueSet[j] = candidates[j][i];
+			}
+			try {
+				ratingSet.rateOne(valueSet, valueTime);
+				inputs[found++] = valueSet;
+			}
+			catch (RatingException e) {
+				//--------------------------------//
+				// not rateable, try the next one //
+				//--------------------------------//
+			}
+		}
+		if (found == 0) {
+			throw new IllegalStateException("No rateable values found for " + ratingSet.getName());
+		}
+		//------------------------------------------------------------//
+		// repeat the rateable values if there weren't enough of them //
+		//------------------------------------------------------------//
+		for (int i = found; i < count; ++i) {
+			inputs[i] = inputs[i % found];
+		}
+		return inputs;
+	}
+
+	private static boolean isFinite(double v) {
+		return !Double.isNaN(v) && !Double.isInfinite(v);
+	}
+}
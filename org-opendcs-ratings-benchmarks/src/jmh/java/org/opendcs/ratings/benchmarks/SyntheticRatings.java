@@ -0,0 +1,248 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import hec.heclib.util.HecTime;
+import hec.heclib.util.HecTimeArray;
+import hec.io.TimeSeriesContainer;
+import org.opendcs.ratings.RatingConst.RatingMethod;
+import org.opendcs.ratings.RatingException;
+import org.opendcs.ratings.RatingValue;
+import org.opendcs.ratings.TableRating;
+import org.opendcs.ratings.UsgsStreamTableRating;
+import org.opendcs.ratings.io.RatingValueContainer;
+import org.opendcs.ratings.io.TableRatingContainer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates ratings and input values of arbitrary size for the benchmarks. Tables are stage-discharge style power
+ * curves whose independent and dependent values are all positive so that every interpolation method, including the
+ * logarithmic ones, is valid over the whole table.
+ */
+final class SyntheticRatings {
+	/**
+	 * The effective date of the generated ratings (01Jan2020 0000 UTC)
+	 */
+	static final long EFFECTIVE_DATE = 1577836800000L;
+	/**
+	 * The effective date of the generated USGS shifts, one day after the rating becomes effective
+	 */
+	static final long SHIFT_DATE = EFFECTIVE_DATE + 86400000L;
+	/**
+	 * The spacing of the independent values of the generated tables
+	 */
+	static final double STEP = .01;
+	/**
+	 * The first independent value of the generated tables
+	 */
+	static final double FIRST = 1.;
+
+	private SyntheticRatings() {}
+
+	/**
+	 * Returns the last independent value of a generated table
+	 * @param size The number of values in the table
+	 * @return The last independent value
+	 */
+	static double last(int size) {
+		return FIRST + (size - 1) * STEP;
+	}
+	/**
+	 * Generates the values of a single-parameter table
+	 * @param size The number of values
+	 * @param coefficient The coefficient of the power curve
+	 * @return The table values
+	 */
+	static RatingValue[] values(int size, double coefficient) {
+		RatingValue[] values = new RatingValue[size];
+		for (int i = 0; i < size; ++i) {
+			double ind = FIRST + i * STEP;
+			values[i] = new RatingValue(ind, coefficient * Math.pow(ind, 2.5));
+		}
+		return values;
+	}
+	/**
+	 * Generates a single-parameter table rating
+	 * @param size The number of values in the table
+	 * @param method The in-range rating method
+	 * @return The rating
+	 * @throws RatingException on error
+	 */
+	static TableRating tableRating(int size, RatingMethod method) throws RatingException {
+		return tableRating(values(size, 10.), method, "Bench.Stage;Flow.Synthetic.Bench", "ft;cfs");
+	}
+	/**
+	 * Generates a table rating with two independent parameters. Each opening has its own table of elevations.
+	 * @param openings The number of values of the first independent parameter
+	 * @param size The number of values in the table for each opening
+	 * @param method The in-range rating method of the outer and the nested tables
+	 * @return The rating
+	 * @throws RatingException on error
+	 */
+	static TableRating multiParameterTableRating(int openings, int size, RatingMethod method) throws RatingException {
+		RatingValue[] values = new RatingValue[openings];
+		for (int i = 0; i < openings; ++i) {
+			TableRating elevTable = tableRating(values(size, 10. * (i + 1)), method, "Bench.Elev;Flow.Synthetic.Bench", "ft;cfs");
+			values[i] = new RatingValue(FIRST + i, elevTable);
+		}
+		return tableRating(values, method, "Bench.Opening,Elev;Flow.Synthetic.Bench", "ft,ft;cfs");
+	}
+	/**
+	 * Generates a USGS stream rating with logarithmic interpolation
+	 * @param size The number of values in the table
+	 * @param shifts Specifies whether the rating has a shift effective after {@link #SHIFT_DATE}
+	 * @param offsets Specifies whether the rating has logarithmic interpolation offsets
+	 * @return The rating
+	 * @throws RatingException on error
+	 */
+	static UsgsStreamTableRating usgsRating(int size, boolean shifts, boolean offsets) throws RatingException {
+		UsgsStreamTableRating rating = new UsgsStreamTableRating(
+				values(size, 10.),
+				null,
+				RatingMethod.LOGARITHMIC,
+				RatingMethod.NEAREST,
+				RatingMethod.NEAREST,
+				"SWT",
+				"Bench.Stage;Flow.Synthetic.Bench",
+				"ft;cfs",
+				EFFECTIVE_DATE,
+				EFFECTIVE_DATE,
+				null,
+				null,
+				true,
+				"benchmarking");
+		double last = last(size);
+		if (shifts) {
+			List<RatingValueContainer> shiftValues = new ArrayList<>();
+			shiftValues.add(ratingValue(FIRST, .05));
+			shiftValues.add(ratingValue((FIRST + last) / 2., -.02));
+			shiftValues.add(ratingValue(last, 0.));
+			rating.addShift(new Date(SHIFT_DATE), shiftValues, true);
+		}
+		if (offsets) {
+			TableRatingContainer trc = new TableRatingContainer();
+			trc.values = new RatingValueContainer[] {
+					ratingValue(FIRST, .5),
+					ratingValue((FIRST + last) / 2., .8)};
+			trc.inRangeMethod = "PREVIOUS";
+			trc.outRangeLowMethod = "NEXT";
+			trc.outRangeHighMethod = "PREVIOUS";
+			rating.setOffsets(new TableRating(trc));
+		}
+		return rating;
+	}
+	/**
+	 * Generates a slowly varying series of values, like a hydrograph, that stays within a range
+	 * @param count The number of values
+	 * @param lo The lower end of the range
+	 * @param hi The upper end of the range
+	 * @param seed The random seed
+	 * @return The values
+	 */
+	static double[] hydrograph(int count, double lo, double hi, long seed) {
+		Random random = new Random(seed);
+		double[] values = new double[count];
+		double mid = (lo + hi) / 2.;
+		double amplitude = (hi - lo) * .45;
+		double phase = random.nextDouble() * 2. * Math.PI;
+		for (int i = 0; i < count; ++i) {
+			double noise = (random.nextDouble() - .5) * (hi - lo) * .01;
+			values[i] = Math.max(lo, Math.min(hi, mid + amplitude * Math.sin(phase + 6. * Math.PI * i / count) + noise));
+		}
+		return values;
+	}
+	/**
+	 * Generates values uniformly distributed within a range, so that each lookup is unrelated to the previous one
+	 * @param count The number of values
+	 * @param lo The lower end of the range
+	 * @param hi The upper end of the range
+	 * @param seed The random seed
+	 * @return The values
+	 */
+	static double[] uniform(int count, double lo, double hi, long seed) {
+		Random random = new Random(seed);
+		double[] values = new double[count];
+		for (int i = 0; i < count; ++i) {
+			values[i] = lo + random.nextDouble() * (hi - lo);
+		}
+		return values;
+	}
+	/**
+	 * Generates hourly value times
+	 * @param count The number of times
+	 * @param start The first time, in Java milliseconds
+	 * @return The times, in Java milliseconds
+	 */
+	static long[] hourly(int count, long start) {
+		long[] times = new long[count];
+		for (int i = 0; i < count; ++i) {
+			times[i] = start + i * 3600000L;
+		}
+		return times;
+	}
+	/**
+	 * Generates a time series
+	 * @param parameter The parameter of the time series
+	 * @param units The units of the time series
+	 * @param valTimes The times of the time series, in Java milliseconds
+	 * @param values The values of the time series
+	 * @return The time series
+	 */
+	static TimeSeriesContainer timeSeries(String parameter, String units, long[] valTimes, double[] values) {
+		HecTimeArray times = new HecTimeArray(values.length);
+		for (int i = 0; i < values.length; ++i) {
+			HecTime time = new HecTime();
+			time.setTimeInMillis(valTimes[i]);
+			times.set(i, time);
+		}
+		TimeSeriesContainer tsc = new TimeSeriesContainer();
+		tsc.set(values.clone(), times);
+		tsc.fullName = String.format("Bench.%s.Inst.1Hour.0.Synthetic", parameter);
+		tsc.location = "Bench";
+		tsc.parameter = parameter;
+		tsc.units = units;
+		tsc.timeZoneID = "UTC";
+		return tsc;
+	}
+
+	private static TableRating tableRating(RatingValue[] values, RatingMethod method, String ratingSpecId, String unitsId) throws RatingException {
+		return new TableRating(
+				values,
+				null,
+				method,
+				RatingMethod.NEAREST,
+				RatingMethod.NEAREST,
+				"SWT",
+				ratingSpecId,
+				unitsId,
+				EFFECTIVE_DATE,
+				EFFECTIVE_DATE,
+				true,
+				"benchmarking");
+	}
+
+	private static RatingValueContainer ratingValue(double ind, double dep) {
+		RatingValueContainer rvc = new RatingValueContainer();
+		rvc.indValue = ind;
+		rvc.depValue = dep;
+		return rvc;
+	}
+}
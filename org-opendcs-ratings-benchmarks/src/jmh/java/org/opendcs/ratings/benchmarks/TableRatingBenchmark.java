@@ -0,0 +1,117 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import hec.io.TimeSeriesContainer;
+import org.opendcs.ratings.RatingConst.RatingMethod;
+import org.opendcs.ratings.RatingException;
+import org.opendcs.ratings.TableRating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rates slowly varying values through the single-value, bulk-array and time series entry points of synthetic table
+ * ratings, for each in-range rating method that interpolates or selects between table values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableRatingBenchmark {
+	/**
+	 * The in-range rating method
+	 */
+	@Param({"LINEAR", "LOGARITHMIC", "LIN_LOG", "LOG_LIN", "PREVIOUS", "NEXT", "LOWER", "HIGHER", "CLOSEST"})
+	public RatingMethod method;
+	/**
+	 * The number of values in each table
+	 */
+	@Param({"100", "10000"})
+	public int tableSize;
+	/**
+	 * The number of independent parameters. Ratings with two parameters have ten openings.
+	 */
+	@Param({"1", "2"})
+	public int indParamCount;
+	/**
+	 * The number of values rated per invocation
+	 */
+	@Param({"1000"})
+	public int valueCount;
+
+	private TableRating rating;
+	private long[] valTimes;
+	private double[][] valueSets;
+	private TimeSeriesContainer[] timeSeries;
+
+	@Setup
+	public void setup() throws RatingException {
+		double lo = SyntheticRatings.FIRST;
+		double hi = SyntheticRatings.last(tableSize);
+		double[] stages = SyntheticRatings.hydrograph(valueCount, lo, hi, 1L);
+		valTimes = SyntheticRatings.hourly(valueCount, SyntheticRatings.SHIFT_DATE + 86400000L);
+		if (indParamCount == 1) {
+			rating = SyntheticRatings.tableRating(tableSize, method);
+			timeSeries = new TimeSeriesContainer[] {SyntheticRatings.timeSeries("Stage", "ft", valTimes, stages)};
+			valueSets = new double[valueCount][];
+			for (int i = 0; i < valueCount; ++i) {
+				valueSets[i] = new double[] {stages[i]};
+			}
+		}
+		else {
+			int openings = 10;
+			rating = SyntheticRatings.multiParameterTableRating(openings, tableSize, method);
+			double[] gates = SyntheticRatings.hydrograph(valueCount, SyntheticRatings.FIRST, SyntheticRatings.FIRST + openings - 1, 2L);
+			timeSeries = new TimeSeriesContainer[] {
+					SyntheticRatings.timeSeries("Opening", "ft", valTimes, gates),
+					SyntheticRatings.timeSeries("Elev", "ft", valTimes, stages)};
+			valueSets = new double[valueCount][];
+			for (int i = 0; i < valueCount; ++i) {
+				valueSets[i] = new double[] {gates[i], stages[i]};
+			}
+		}
+		//-------------------------------------------------------------------//
+		// rate once so that compiling the table isn't part of the benchmark //
+		//-------------------------------------------------------------------//
+		rating.rate(valTimes, valueSets);
+	}
+
+	@Benchmark
+	public void rateSingle(Blackhole blackhole) throws RatingException {
+		for (int i = 0; i < valueCount; ++i) {
+			blackhole.consume(rating.rateOne(valTimes[i], valueSets[i]));
+		}
+	}
+
+	@Benchmark
+	public double[] rateArray() throws RatingException {
+		return rating.rate(valTimes, valueSets);
+	}
+
+	@Benchmark
+	public TimeSeriesContainer rateTimeSeries() throws RatingException {
+		return rating.rate(timeSeries);
+	}
+}
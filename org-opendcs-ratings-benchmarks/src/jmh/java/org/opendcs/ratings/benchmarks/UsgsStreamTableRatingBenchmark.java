@@ -0,0 +1,107 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings.benchmarks;
+
+import hec.io.TimeSeriesContainer;
+import org.opendcs.ratings.RatingException;
+import org.opendcs.ratings.UsgsStreamTableRating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rates and reverse rates slowly varying values through synthetic USGS stream ratings, with and without shifts and
+ * logarithmic interpolation offsets. All value times are after the shift becomes effective.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsgsStreamTableRatingBenchmark {
+	/**
+	 * Specifies whether the rating has a shift
+	 */
+	@Param({"false", "true"})
+	public boolean shifts;
+	/**
+	 * Specifies whether the rating has logarithmic interpolation offsets
+	 */
+	@Param({"false", "true"})
+	public boolean offsets;
+	/**
+	 * The number of values in the table
+	 */
+	@Param({"200", "2000"})
+	public int tableSize;
+	/**
+	 * The number of values rated per invocation
+	 */
+	@Param({"1000"})
+	public int valueCount;
+
+	private UsgsStreamTableRating rating;
+	private long[] valTimes;
+	private double[] stages;
+	private double[] flows;
+	private TimeSeriesContainer stageSeries;
+	private TimeSeriesContainer flowSeries;
+
+	@Setup
+	public void setup() throws RatingException {
+		rating = SyntheticRatings.usgsRating(tableSize, shifts, offsets);
+		valTimes = SyntheticRatings.hourly(valueCount, SyntheticRatings.SHIFT_DATE + 86400000L);
+		stages = SyntheticRatings.hydrograph(valueCount, SyntheticRatings.FIRST, SyntheticRatings.last(tableSize), 4L);
+		flows = rating.rate(valTimes, stages);
+		stageSeries = SyntheticRatings.timeSeries("Stage", "ft", valTimes, stages);
+		flowSeries = SyntheticRatings.timeSeries("Flow", "cfs", valTimes, flows);
+		rating.reverseRate(valTimes, flows);
+	}
+
+	@Benchmark
+	public void rateSingle(Blackhole blackhole) throws RatingException {
+		for (int i = 0; i < valueCount; ++i) {
+			blackhole.consume(rating.rate(valTimes[i], stages[i]));
+		}
+	}
+
+	@Benchmark
+	public double[] rateArray() throws RatingException {
+		return rating.rate(valTimes, stages);
+	}
+
+	@Benchmark
+	public double[] reverseRateArray() throws RatingException {
+		return rating.reverseRate(valTimes, flows);
+	}
+
+	@Benchmark
+	public TimeSeriesContainer rateTimeSeries() throws RatingException {
+		return rating.rate(stageSeries);
+	}
+
+	@Benchmark
+	public TimeSeriesContainer reverseRateTimeSeries() throws RatingException {
+		return rating.reverseRate(flowSeries);
+	}
+}
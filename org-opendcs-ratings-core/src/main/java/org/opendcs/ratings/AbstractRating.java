@@ -118,6 +118,10 @@ public abstract class AbstractRating implements Observer, ICwmsRating , Vertical
 	 * Flag specifying whether this object outputs messages about "risky" operations such as using mismatched units, unknown parameters, etc.
 	 */
 	protected boolean warnUnsafe = true;
+	/**
+	 * The conversions from data units to rating units and back for each parameter, compiled for the current units
+	 */
+	private volatile CompiledUnits unitConversions = null;
 	/**
 	 * Generates a new AbstractRating object from XML text
 	 * @param xmlText The XML text to generate the rating object from
@@ -248,6 +252,7 @@ public abstract class AbstractRating implements Observer, ICwmsRating , Vertical
 		synchronized(this) {
 			this.ratingUnitsId = ratingUnitsId;
 			ratingUnits = null;
+			unitConversions = null;
 		}
 	}
 	/* (non-Javadoc)
@@ -392,6 +397,7 @@ public abstract class AbstractRating implements Observer, ICwmsRating , Vertical
 	@Override
 	public void setDataUnits(String[] units) throws RatingException {
 		synchronized(this) {
+			unitConversions = null;
 			if (units == null) {
 				this.dataUnitsId = null;
 				this.dataUnits = null;
@@ -1035,6 +1041,7 @@ public abstract class AbstractRating implements Observer, ICwmsRating , Vertical
 			officeId = arc.officeId;
 			ratingSpecId = arc.ratingSpecId;
 			ratingUnitsId = arc.unitsId;
+			unitConversions = null;
 			effectiveDate = arc.effectiveDateMillis;
 			transitionStartDate = arc.transitionStartDateMillis;
 			createDate = arc.createDateMillis;
@@ -1047,14 +1054,86 @@ public abstract class AbstractRating implements Observer, ICwmsRating , Vertical
 	}
 	
 	protected double convertUnits(double val, String fromUnit, String toUnit) throws RatingException {
-		if (fromUnit != null && toUnit != null) {
-			try {
-				val = UnitUtil.convertUnits(val, fromUnit, toUnit);
-			} catch (UnitsConversionException e) {
-				throw new RatingException(e); // shouldn't happen - filtered out earlier
+		return UnitConversion.get(fromUnit, toUnit).convert(val);
+	}
+	/**
+	 * Retrieves the units to perform lookups with. Units are nulled out where the data and rating units are the same
+	 * or no data unit is set, so that no conversion is performed.
+	 * @return The data units and the rating units, in that order. If no data units are set, the rating units are
+	 *         used for both.
+	 * @throws RatingException if the rating units are not set or the data units cannot be converted to the rating units
+	 */
+	protected String[][] getLookupUnits() throws RatingException {
+		synchronized(this) {
+			String[] ratingUnits = getRatingUnits();
+			if (ratingUnits == null) {
+				throw new RatingException("Rating units have not been set");
+			}
+			String[] dataUnits = getDataUnits();
+			if (dataUnits == null) {
+				return new String[][] {ratingUnits, ratingUnits};
+			}
+			for (int i = 0; i < ratingUnits.length; ++i) {
+				if (dataUnits[i] == null || TextUtil.equals(dataUnits[i], ratingUnits[i])) {
+					dataUnits[i] = ratingUnits[i] = null;
+				}
+				else if(!UnitUtil.canConvertBetweenUnits(dataUnits[i], ratingUnits[i])){
+					String msg = String.format("Cannot convert from \"%s\" to \"%s\".", dataUnits[i], ratingUnits[i]);
+					if (!allowUnsafe) throw new RatingException(msg);
+					if (warnUnsafe) logger.warning(msg + "  Rating will be performed on unconverted values.");
+				}
 			}
+			return new String[][] {dataUnits, ratingUnits};
+		}
+	}
+	/**
+	 * Retrieves the conversions between the lookup units of each parameter. The conversions are compiled once for the
+	 * current data and rating units and recompiled when either changes; conversions that are current are returned
+	 * without locking the rating. The returned arrays must not be modified.
+	 * @return The conversions from data units to rating units and from rating units to data units, in that order,
+	 *         each indexed by parameter
+	 * @throws RatingException if the rating units are not set or the data units cannot be converted to the rating units
+	 * @see #getLookupUnits()
+	 */
+	UnitConversion[][] getUnitConversions() throws RatingException {
+		//-------------------------------------------------------//
+		// the units identifiers are compared by reference since //
+		// sub-classes may assign them without calling setters   //
+		//-------------------------------------------------------//
+		CompiledUnits compiled = unitConversions;
+		if (compiled != null && compiled.isFor(dataUnitsId, ratingUnitsId, allowUnsafe)) {
+			return compiled.conversions;
+		}
+		synchronized(this) {
+			String[][] units = getLookupUnits();
+			UnitConversion[][] conversions = new UnitConversion[2][units[0].length];
+			for (int i = 0; i < units[0].length; ++i) {
+				conversions[0][i] = UnitConversion.get(units[0][i], units[1][i]);
+				conversions[1][i] = UnitConversion.get(units[1][i], units[0][i]);
+			}
+			unitConversions = new CompiledUnits(dataUnitsId, ratingUnitsId, allowUnsafe, conversions);
+			return conversions;
+		}
+	}
+	/**
+	 * The unit conversions of a rating together with the settings they were compiled for, published as a unit so
+	 * that lookups can use them without locking the rating
+	 */
+	private static final class CompiledUnits {
+		final String dataUnitsId;
+		final String ratingUnitsId;
+		final boolean allowUnsafe;
+		final UnitConversion[][] conversions;
+
+		CompiledUnits(String dataUnitsId, String ratingUnitsId, boolean allowUnsafe, UnitConversion[][] conversions) {
+			this.dataUnitsId = dataUnitsId;
+			this.ratingUnitsId = ratingUnitsId;
+			this.allowUnsafe = allowUnsafe;
+			this.conversions = conversions;
+		}
+		boolean isFor(String dataUnitsId, String ratingUnitsId, boolean allowUnsafe) {
+			return this.dataUnitsId == dataUnitsId && this.ratingUnitsId == ratingUnitsId && this.allowUnsafe == allowUnsafe;
 		}
-		return val;
 	}
 	
 	/**
@@ -27,6 +27,7 @@ import java.sql.Connection;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -69,9 +70,24 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
     protected TreeMap<Long, AbstractRating> ratings = new TreeMap<>();
     /**
      * The time series of active ratings in this set.  A rating may be inactive by being explicitly marked as such
-     * or by having a creation date later than the current value of the "ratingTime" field.
+     * or by having a creation date later than the current value of the "ratingTime" field.  Values are rated from an
+     * index of these ratings, so subclasses that modify this map directly must call invalidateActiveRatingIndex().
      */
     protected TreeMap<Long, AbstractRating> activeRatings = new TreeMap<>();
+    /**
+     * The active ratings indexed by effective date, built on demand and discarded whenever the active ratings change
+     */
+    private EffectiveDateIndex activeRatingIndex = null;
+    /**
+     * The properties of the ratings that values are checked against before rating, computed on demand and discarded
+     * whenever the ratings or data units change
+     */
+    private volatile RatingChecks ratingChecks = null;
+    /**
+     * Incremented whenever the ratings or data units change, so that properties computed from ratings that have
+     * changed since are never published or used
+     */
+    private final AtomicInteger ratingChecksGeneration = new AtomicInteger();
     /**
      * A time to associate with all values that don't specify their own times.  This time, along with the rating
      * effective dates, is used to determine which ratings to use to rate values.
@@ -282,6 +298,7 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
             } else {
                 this.ratings.put(rating.getEffectiveDate(), rating);
             }
+            invalidateActiveRatingIndex();
             AbstractRating ar = this.ratings.get(rating.getEffectiveDate());
             ar.ratingSpec = ratingSpec;
             ar.setDefaultValueTime(getDefaultValueTime());
@@ -325,6 +342,7 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         cwmsRating.deleteObserver(this);
         ratings.remove(effectiveDate);
         activeRatings.remove(effectiveDate);
+        invalidateActiveRatingIndex();
         if (observationTarget != null) {
             observationTarget.setChanged();
             observationTarget.notifyObservers();
@@ -341,6 +359,7 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         }
         ratings.clear();
         activeRatings.clear();
+        invalidateActiveRatingIndex();
         if (observationTarget != null) {
             observationTarget.setChanged();
             observationTarget.notifyObservers();
@@ -386,9 +405,13 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
             }
         }
         ratings.put(effectiveDate, rating).deleteObserver(this);
-        if (rating.isActive()) {
+        if (rating.isActive() && rating.createDate <= ratingTime) {
             activeRatings.put(effectiveDate, rating);
         }
+        else {
+            activeRatings.remove(effectiveDate);
+        }
+        invalidateActiveRatingIndex();
         rating.deleteObserver(this);
         rating.addObserver(this);
         validate();
@@ -448,6 +471,10 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
             if (rating.isActive() && rating.createDate <= ratingTime) {
                 activeRatings.put(rating.getEffectiveDate(), rating);
             }
+            else {
+                activeRatings.remove(rating.getEffectiveDate());
+            }
+            invalidateActiveRatingIndex();
             rating.deleteObserver(this);
             rating.addObserver(this);
         }
@@ -533,178 +560,423 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
      * @throws RatingException on error
      */
     @Override
-    public synchronized double[] rate(double[][] valueSets, long[] valueTimes) throws RatingException {
+    public double[] rate(double[][] valueSets, long[] valueTimes) throws RatingException {
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        synchronized (this) {
+            if (activeRatings.isEmpty()) {
+                throw new RatingException("No active ratings.");
+            }
+            checkValueSets(valueSets, valueTimes);
+            checkDataUnits();
+            index = getActiveRatingIndex();
+            methods = getRatingMethods();
+        }
         double[] y = new double[valueSets.length];
-        int activeRatingCount = activeRatings.size();
-        if (activeRatingCount == 0) {
+        index.rate(methods[0], methods[1], methods[2], valueSets, valueTimes, y);
+        return y;
+    }
+
+    /**
+     * Rates a range of the value sets of a batch. Runs of values are rated through the batch, so ratings that support
+     * batches read the columns in place. Value sets without times are rated at the default value time.
+     *
+     * @param batch     The batch
+     * @param offset    The position in the batch of the first value set to rate
+     * @param length    The number of value sets to rate
+     * @param out       The buffer to receive the rated values
+     * @param outOffset The position in out of the first rated value
+     * @throws RatingException on error
+     * @see IRating#rate(RatingBatch, int, int, double[], int)
+     */
+    @Override
+    public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+        RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        long[] valueTimes;
+        synchronized (this) {
+            valueTimes = checkBatch(batch, offset, length);
+            index = getActiveRatingIndex();
+            methods = getRatingMethods();
+        }
+        index.rate(methods[0], methods[1], methods[2], batch.withTimes(valueTimes), valueTimes, offset, length, out, outOffset, null, 0);
+    }
+
+    /**
+     * Rates a range of the value sets of a batch, reporting value sets that can't be rated, whether because of their
+     * times or their values, in a status array instead of throwing exceptions for them. Value sets without times are
+     * rated at the default value time.
+     *
+     * @param batch     The batch
+     * @param offset    The position in the batch of the first value set to rate
+     * @param length    The number of value sets to rate
+     * @param out       The buffer to receive the rated values
+     * @param status    The buffer to receive the {@link RatingStatus} of each rated value, indexed the same as out
+     * @param outOffset The position in out and status of the first rated value
+     * @throws RatingException if the call itself is invalid
+     * @see IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+     */
+    @Override
+    public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+        RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+        RatingUtil.checkStatusRange(status, outOffset, length);
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        long[] valueTimes;
+        synchronized (this) {
+            valueTimes = checkBatch(batch, offset, length);
+            index = getActiveRatingIndex();
+            methods = getRatingMethods();
+        }
+        index.rateWithStatus(methods[0], methods[1], methods[2], batch.withTimes(valueTimes), valueTimes, offset, length, out, status, outOffset);
+    }
+
+    /**
+     * Checks a batch against the active ratings and resolves the times of its value sets. Must be called while
+     * holding the lock on this rating set.
+     *
+     * @param batch  The batch
+     * @param offset The position in the batch of the first value set to rate
+     * @param length The number of value sets to rate
+     * @return the times of the batch, or the default value time for each value set if the batch has no times
+     * @throws RatingException if the batch can't be rated
+     */
+    private long[] checkBatch(RatingBatch batch, int offset, int length) throws RatingException {
+        if (activeRatings.isEmpty()) {
             throw new RatingException("No active ratings.");
         }
+        if (batch.getParamCount() != getRatingChecks().indParamCount) {
+            throw new RatingException("Value sets have different parameter counts than ratings.");
+        }
+        checkDataUnits();
+        long[] valueTimes = batch.getTimes();
+        if (valueTimes == null) {
+            if (defaultValueTime == Const.UNDEFINED_TIME) {
+                throw new RatingException("Default value time is not set");
+            }
+            valueTimes = new long[offset + length];
+            Arrays.fill(valueTimes, defaultValueTime);
+        }
+        return valueTimes;
+    }
+
+    /**
+     * Retrieves the out of range low, in range and out of range high methods of the rating specification. Must be
+     * called while holding the lock on this rating set.
+     *
+     * @return the methods, in that order
+     */
+    private RatingMethod[] getRatingMethods() {
+        return new RatingMethod[] {
+            ratingSpec.getOutRangeLowMethod(), ratingSpec.getInRangeMethod(), ratingSpec.getOutRangeHighMethod()};
+    }
+
+    /**
+     * Retrieves rated values for specified multiple input value sets and times, using the units, rating time, default
+     * value time and unsafe flags of a context instead of those of this rating set. Ratings with a creation date later
+     * than the rating time of the context are not used. This rating set is not modified and is locked only while the
+     * ratings to use are selected, so any number of threads may rate it with their own contexts at once.
+     *
+     * @param context   The context to rate with
+     * @param valTimes  The times associated with the value sets, in Java milliseconds, or null to use the default
+     *                  value time of the context
+     * @param indVals   The value sets to rate, in the units of the context
+     * @return the rated values, in the unit of the context
+     * @throws RatingException on error
+     */
+    @Override
+    public double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+        long[] valueTimes = context.valueTimes(valTimes, indVals.length);
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        synchronized (this) {
+            index = getActiveRatingIndex(context.getRatingTime());
+            checkValueSets(indVals, valueTimes);
+            if (!context.specifiesUnits()) {
+                checkDataUnits();
+            }
+            methods = getRatingMethods();
+        }
+        double[] y = new double[indVals.length];
+        index.inUnits(context).rate(methods[0], methods[1], methods[2], indVals, valueTimes, y, context.getPool(),
+            context.getMinChunkSize());
+        return y;
+    }
+
+    /**
+     * Rates the members of an ensemble, such as an ensemble forecast, which are sequences of values of the single
+     * independent parameter that share the same value times. The ratings and interpolation weights for each time are
+     * determined once and applied to every member, so rating an ensemble is cheaper than rating each member in turn.
+     * Each member is rated exactly as {@link #rate(double[][], long[])} would rate it.
+     *
+     * @param valueTimes The times shared by the members, in Java milliseconds
+     * @param members    The values of each member, one for each time
+     * @return the rated values of each member, one for each time
+     * @throws RatingException on error
+     */
+    public double[][] rateEnsemble(long[] valueTimes, double[][] members) throws RatingException {
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        synchronized (this) {
+            if (activeRatings.isEmpty()) {
+                throw new RatingException("No active ratings.");
+            }
+            checkEnsemble(valueTimes, members);
+            checkDataUnits();
+            index = getActiveRatingIndex();
+            methods = getRatingMethods();
+        }
+        double[][] y = new double[members.length][valueTimes.length];
+        index.rateEnsemble(methods[0], methods[1], methods[2], valueTimes, members, y, null, 0);
+        return y;
+    }
+
+    /**
+     * Rates the members of an ensemble with a context, as {@link #rateEnsemble(long[], double[][])} does. If the
+     * context has a pool, groups of members are rated in parallel. This rating set is locked only while the ratings to
+     * use are selected.
+     *
+     * @param context   The context to rate with
+     * @param valTimes  The times shared by the members, in Java milliseconds, or null to use the default value time
+     *                  of the context
+     * @param members   The values of each member, one for each time, in the unit of the context
+     * @return the rated values of each member, in the unit of the context
+     * @throws RatingException on error
+     */
+    public double[][] rateEnsemble(RatingContext context, long[] valTimes, double[][] members) throws RatingException {
+        long[] valueTimes = context.valueTimes(valTimes, members.length == 0 ? 0 : members[0].length);
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        synchronized (this) {
+            index = getActiveRatingIndex(context.getRatingTime());
+            checkEnsemble(valueTimes, members);
+            if (!context.specifiesUnits()) {
+                checkDataUnits();
+            }
+            methods = getRatingMethods();
+        }
+        double[][] y = new double[members.length][valueTimes.length];
+        index.inUnits(context).rateEnsemble(methods[0], methods[1], methods[2], valueTimes, members, y, context.getPool(),
+            context.getMinChunkSize());
+        return y;
+    }
+
+    /**
+     * Verifies that the members of an ensemble can be rated by this rating set
+     *
+     * @param valueTimes The times shared by the members
+     * @param members    The values of each member
+     * @throws RatingException if the ratings have more than one independent parameter or a member doesn't have a
+     *                         value for each time
+     */
+    protected final void checkEnsemble(long[] valueTimes, double[][] members) throws RatingException {
+        if (getRatingChecks().indParamCount != 1) {
+            throw new RatingException("Ensembles can only be rated by ratings with a single independent parameter.");
+        }
+        for (double[] member : members) {
+            if (member.length != valueTimes.length) {
+                throw new RatingException("Ensemble members and times have different lengths");
+            }
+        }
+    }
+
+    /**
+     * Verifies that value sets can be rated by this rating set
+     *
+     * @param valueSets  The value sets to rate
+     * @param valueTimes The times associated with the values
+     * @throws RatingException if the values and times have different lengths or the value sets don't match the ratings
+     */
+    protected final void checkValueSets(double[][] valueSets, long[] valueTimes) throws RatingException {
         if (valueSets.length != valueTimes.length) {
             throw new RatingException("Values and times have different lengths");
         }
-        for (int i = 1; i < valueSets.length; ++i) {
-            if (valueSets[i].length != valueSets[0].length) {
-                throw new RatingException("Value sets are not all of same length.");
-            }
-            if (valueSets[i].length != ratings.firstEntry().getValue().getIndParamCount()) {
+        int indParamCount = getRatingChecks().indParamCount;
+        for (double[] valueSet : valueSets) {
+            if (valueSet.length != indParamCount) {
                 throw new RatingException("Value sets have different parameter counts than ratings.");
             }
         }
-        if (getDataUnits() == null) {
-            Entry<Long, AbstractRating> entry1 = ratings.firstEntry();
-            Entry<Long, AbstractRating> entry2 = ratings.higherEntry(entry1.getKey());
-            while (entry2 != null) {
-                if (!(entry1.getValue().getRatingUnitsId().equalsIgnoreCase(entry2.getValue().getRatingUnitsId()))) {
-                    throw new RatingException("Data units must be specified when rating set has multiple rating units.");
+    }
+
+    /**
+     * Verifies that data units are specified if the ratings don't all have the same rating units
+     *
+     * @throws RatingException if the data units are required and not specified
+     */
+    protected final void checkDataUnits() throws RatingException {
+        if (getRatingChecks().dataUnitsRequired) {
+            throw new RatingException("Data units must be specified when rating set has multiple rating units.");
+        }
+    }
+
+    /**
+     * Retrieves the properties of the ratings that values are checked against, computing them if the ratings or data
+     * units have changed since they were last computed. Properties that are current are returned without locking
+     * this rating set.
+     *
+     * @return The properties of the ratings
+     * @throws RatingException if there are no ratings
+     */
+    private RatingChecks getRatingChecks() throws RatingException {
+        RatingChecks checks = ratingChecks;
+        if (checks != null && checks.generation == ratingChecksGeneration.get()) {
+            return checks;
+        }
+        synchronized (this) {
+            int generation = ratingChecksGeneration.get();
+            if (ratings.isEmpty()) {
+                throw new RatingException("No ratings.");
+            }
+            AbstractRating first = ratings.firstEntry().getValue();
+            boolean mixedRatingUnits = false;
+            for (AbstractRating rating : ratings.values()) {
+                if (!first.getRatingUnitsId().equalsIgnoreCase(rating.getRatingUnitsId())) {
+                    mixedRatingUnits = true;
+                    break;
                 }
-                entry1 = entry2;
-                entry2 = ratings.higherEntry(entry1.getKey());
             }
+            checks = new RatingChecks(generation, first.getIndParamCount(), mixedRatingUnits && getDataUnits() == null);
+            //------------------------------------------------------//
+            // a rating may have changed without the lock meanwhile //
+            //------------------------------------------------------//
+            if (ratingChecksGeneration.get() == generation) {
+                ratingChecks = checks;
+            }
+            return checks;
         }
+    }
 
-        Entry<Long, AbstractRating> lowerRating;
-        Entry<Long, AbstractRating> upperRating;
-        IRating lastUsedRating = null;
-        RatingMethod method;
-        for (int i = 0; i < valueSets.length; ++i) {
-            if (i > 0 && valueTimes[i] == valueTimes[i - 1] && lastUsedRating != null) {
-                y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                continue;
-            } else {
-                lowerRating = activeRatings.floorEntry(valueTimes[i]);
-                upperRating = activeRatings.ceilingEntry(valueTimes[i]);
-                //-------------------------//
-                // handle out of range low //
-                //-------------------------//
-                if (lowerRating == null) {
-                    method = ratingSpec.getOutRangeLowMethod();
-                    switch (method) {
-                        case ERROR:
-                            throw new RatingException("Effective date is before earliest rating");
-                        case NULL:
-                            y[i] = Const.UNDEFINED_DOUBLE;
-                            lastUsedRating = null;
-                            continue;
-                        case NEXT:
-                        case NEAREST:
-                        case HIGHER:
-                        case CLOSEST:
-                            lastUsedRating = activeRatings.firstEntry().getValue();
-                            y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                            continue;
-                        default:
-                            break;
-                    }
-                    if (activeRatings.size() == 1) {
-                        throw new RatingException(String.format("Cannot use rating method %s with only one active rating.", method));
-                    }
-                    lowerRating = activeRatings.firstEntry();
-                    upperRating = activeRatings.higherEntry(lowerRating.getKey());
-                }
-                //--------------------------//
-                // handle out of range high //
-                //--------------------------//
-                if (upperRating == null) {
-                    method = ratingSpec.getOutRangeHighMethod();
-                    switch (method) {
-                        case ERROR:
-                            throw new RatingException("Effective date is after latest rating");
-                        case NULL:
-                            y[i] = Const.UNDEFINED_DOUBLE;
-                            lastUsedRating = null;
-                            continue;
-                        case PREVIOUS:
-                        case NEAREST:
-                        case LOWER:
-                        case CLOSEST:
-                            lastUsedRating = activeRatings.lastEntry().getValue();
-                            y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                            continue;
-                        default:
-                            break;
-                    }
-                    if (activeRatings.size() == 1) {
-                        if (method == RatingMethod.LINEAR) {
-                            //-----------------------------------------------------------------//
-                            // allow LINEAR out of range high method with single active rating //
-                            //-----------------------------------------------------------------//
-                            lastUsedRating = activeRatings.lastEntry().getValue();
-                            y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                            continue;
-                        }
-                        throw new RatingException(String.format("Cannot use rating method %s with only one active rating.", method));
-                    }
-                    upperRating = activeRatings.lastEntry();
-                    lowerRating = activeRatings.lowerEntry(upperRating.getKey());
-                }
-                //-----------------------------------//
-                // handle in-range and extrapolation //
-                //-----------------------------------//
-                if (lowerRating.getKey() == valueTimes[i]) {
-                    y[i] = lowerRating.getValue().rateOne(valueTimes[i], valueSets[i]);
-                    continue;
-                }
-                if (upperRating.getKey() == valueTimes[i]) {
-                    lastUsedRating = upperRating.getValue();
-                    y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                    continue;
-                }
-                switch (ratingSpec.getInRangeMethod()) {
-                    case ERROR:
-                        throw new RatingException("Effective date is between existing rating");
-                    case NULL:
-                        y[i] = Const.UNDEFINED_DOUBLE;
-                        lastUsedRating = null;
-                        continue;
-                    case PREVIOUS:
-                    case LOWER:
-                        lastUsedRating = lowerRating.getValue();
-                        y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                        continue;
-                    case NEXT:
-                    case HIGHER:
-                        lastUsedRating = upperRating.getValue();
-                        y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                        continue;
-                    case CLOSEST:
-                        if (valueTimes[i] - lowerRating.getKey() < upperRating.getKey() - valueTimes[i]) {
-                            lastUsedRating = lowerRating.getValue();
-                        } else {
-                            lastUsedRating = upperRating.getValue();
-                        }
-                        y[i] = lastUsedRating.rateOne(valueTimes[i], valueSets[i]);
-                        continue;
-                    default:
-                        break;
-                }
-                //------------------------------------//
-                // handle interpolation/extrapolation //
-                //------------------------------------//
-                method = ratingSpec.getInRangeMethod();
-            }
-            lastUsedRating = null;
-            long transitionStartMillis = upperRating.getValue().getTransitionStartDate();
-            long t = valueTimes[i];
-            long t1 = lowerRating.getKey();
-            long t2 = upperRating.getKey();
-            double y1 = lowerRating.getValue().rateOne(valueTimes[i], valueSets[i]);
-            double y2 = upperRating.getValue().rateOne(valueTimes[i], valueSets[i]);
-            if (y1 == Const.UNDEFINED_DOUBLE || y2 == Const.UNDEFINED_DOUBLE) {
-                y[i] = Const.UNDEFINED_DOUBLE;
-            } else {
-                if (lowerRating.getValue() instanceof UsgsStreamTableRating) {
-                    t1 = ((UsgsStreamTableRating) lowerRating.getValue()).getLatestEffectiveDate(t2);
+    /**
+     * The properties of the ratings that values are checked against before rating, so that the checks don't have to
+     * examine every rating on every call
+     */
+    private static final class RatingChecks {
+        /**
+         * The generation of the ratings the properties were computed from
+         */
+        final int generation;
+        /**
+         * The number of independent parameters of the ratings
+         */
+        final int indParamCount;
+        /**
+         * Flag specifying whether the ratings have different rating units and no data units are specified
+         */
+        final boolean dataUnitsRequired;
+
+        RatingChecks(int generation, int indParamCount, boolean dataUnitsRequired) {
+            this.generation = generation;
+            this.indParamCount = indParamCount;
+            this.dataUnitsRequired = dataUnitsRequired;
+        }
+    }
+
+    /**
+     * Retrieves the active ratings indexed by effective date, building the index if it has been invalidated since it
+     * was last built
+     *
+     * @return The index of the active ratings
+     */
+    synchronized EffectiveDateIndex getActiveRatingIndex() {
+        if (activeRatingIndex == null) {
+            activeRatingIndex = new EffectiveDateIndex(activeRatings);
+        }
+        return activeRatingIndex;
+    }
+
+    /**
+     * Retrieves the ratings that are active at a rating time, indexed by effective date
+     *
+     * @param ratingTime The rating time in Java milliseconds
+     * @return The index of the active ratings at the rating time
+     * @throws RatingException if no ratings are active at the rating time
+     */
+    private synchronized EffectiveDateIndex getActiveRatingIndex(long ratingTime) throws RatingException {
+        EffectiveDateIndex index;
+        if (ratingTime == this.ratingTime) {
+            index = getActiveRatingIndex();
+        }
+        else {
+            TreeMap<Long, AbstractRating> active = new TreeMap<>();
+            for (AbstractRating rating : ratings.values()) {
+                if (rating.isActive() && rating.createDate <= ratingTime) {
+                    active.put(rating.getEffectiveDate(), rating);
                 }
-                if (transitionStartMillis > t1 && transitionStartMillis < t2) {
-                    t1 = transitionStartMillis;
+            }
+            index = new EffectiveDateIndex(active);
+        }
+        if (index.size() == 0) {
+            throw new RatingException("No active ratings.");
+        }
+        return index;
+    }
+
+    /**
+     * Brings the ratings and active ratings up to date with the effective dates, active flags and creation dates of the
+     * ratings and with the rating time. Only the entries that have changed are moved, and the observers of the ratings
+     * are left alone, so this is cheap when little or nothing has changed.
+     */
+    protected final synchronized void refreshActiveRatings() {
+        boolean changed = false;
+        //-------------------------------------------------------//
+        // re-key any ratings whose effective dates have changed //
+        //-------------------------------------------------------//
+        List<AbstractRating> moved = null;
+        Iterator<Entry<Long, AbstractRating>> it = ratings.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<Long, AbstractRating> entry = it.next();
+            AbstractRating rating = entry.getValue();
+            if (entry.getKey() != rating.getEffectiveDate()) {
+                if (moved == null) {
+                    moved = new ArrayList<>();
                 }
-                y[i] = y1;
-                if (t > t1) {
-                    y[i] += (((double) t - t1) / (t2 - t1)) * (y2 - y1);
+                moved.add(rating);
+                it.remove();
+                activeRatings.remove(entry.getKey(), rating);
+            }
+        }
+        if (moved != null) {
+            for (AbstractRating rating : moved) {
+                ratings.put(rating.getEffectiveDate(), rating);
+            }
+            changed = true;
+        }
+        //-----------------------------------------------------------//
+        // add or remove only the ratings whose activity has changed //
+        //-----------------------------------------------------------//
+        for (Entry<Long, AbstractRating> entry : ratings.entrySet()) {
+            AbstractRating rating = entry.getValue();
+            AbstractRating active = activeRatings.get(entry.getKey());
+            if (rating.isActive() && rating.createDate <= ratingTime) {
+                if (active != rating) {
+                    activeRatings.put(entry.getKey(), rating);
+                    changed = true;
                 }
             }
+            else if (active != null) {
+                activeRatings.remove(entry.getKey());
+                changed = true;
+            }
         }
-        return y;
+        if (activeRatings.size() > ratings.size() || changed) {
+            changed |= activeRatings.keySet().retainAll(ratings.keySet());
+        }
+        if (changed) {
+            invalidateActiveRatingIndex();
+        }
+    }
+
+    /**
+     * Discards the index of the active ratings and the properties of the ratings that values are checked against, so
+     * that they are rebuilt the next time values are rated. Subclasses that modify the ratings or active ratings
+     * directly must call this afterward.
+     */
+    protected synchronized void invalidateActiveRatingIndex() {
+        activeRatingIndex = null;
+        ratingChecksGeneration.incrementAndGet();
+        ratingChecks = null;
     }
 
     /**
@@ -1381,6 +1653,20 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         return count;
     }
 
+    /**
+     * Compiles the active ratings of this set into an immutable rating set that can rate values from any number of
+     * threads without locking. The compiled rating set has its own copies of the active ratings, and keeps the effective
+     * date methods, data units, rating time, default value time and unsafe flags this set has now. Later changes to this
+     * set or its ratings do not affect it.
+     *
+     * @return The compiled rating set
+     * @throws RatingException if there are no active ratings or a rating cannot be copied
+     */
+    @Override
+    public synchronized CompiledRatingSet compile() throws RatingException {
+        return new CompiledRatingSet(this);
+    }
+
     /**
      * Retrieves the default value time. This is used for rating values that have no inherent times.
      *
@@ -1410,6 +1696,7 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         for (AbstractRating rating : ratings.values()) {
             rating.setRatingTime(ratingTime);
         }
+        refreshActiveRatings();
     }
 
     /* (non-Javadoc)
@@ -1422,6 +1709,7 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         for (Long effectiveDate : effectiveDates) {
             ratings.get(effectiveDate).resetRatingTime();
         }
+        refreshActiveRatings();
     }
 
     /**
@@ -1558,6 +1846,8 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
             rating.setDataUnits(units);
         }
         dataUnits = units == null ? null : Arrays.copyOf(units, units.length);
+        ratingChecksGeneration.incrementAndGet();
+        ratingChecks = null;
     }
 
     /* (non-Javadoc)
@@ -1804,187 +2094,40 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
         if (activeRatings.isEmpty()) {
             throw new RatingException("No active ratings.");
         }
-        if (getDataUnits() == null) {
-            Entry<Long, AbstractRating> entry1 = ratings.firstEntry();
-            Entry<Long, AbstractRating> entry2 = ratings.higherEntry(entry1.getKey());
-            while (entry2 != null) {
-                if (!(entry1.getValue().getRatingUnitsId().equalsIgnoreCase(entry2.getValue().getRatingUnitsId()))) {
-                    throw new RatingException("Data units must be specified when rating set has multiple rating units.");
-                }
-                entry1 = entry2;
-                entry2 = ratings.higherEntry(entry1.getKey());
-            }
-        }
-        Entry<Long, AbstractRating> lowerRating;
-        Entry<Long, AbstractRating> upperRating;
-        IRating lastUsedRating = null;
-        RatingMethod method;
-        for (int i = 0; i < depVals.length; ++i) {
-            if (i > 0 && valTimes[i] == valTimes[i - 1]) {
-                if (lastUsedRating == null) {
-                    Y[i] = Y[i - 1];
-                } else {
-                    Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                }
-                continue;
-            } else {
-                lowerRating = activeRatings.floorEntry(valTimes[i]);
-                upperRating = activeRatings.ceilingEntry(valTimes[i]);
-                //-------------------------//
-                // handle out of range low //
-                //-------------------------//
-                if (lowerRating == null) {
-                    method = ratingSpec.getOutRangeLowMethod();
-                    switch (method) {
-                        case ERROR:
-                            throw new RatingException("Effective date is before earliest rating");
-                        case NULL:
-                            Y[i] = Const.UNDEFINED_DOUBLE;
-                            lastUsedRating = null;
-                            continue;
-                        case NEXT:
-                        case NEAREST:
-                        case HIGHER:
-                        case CLOSEST:
-                            lastUsedRating = activeRatings.firstEntry().getValue();
-                            Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                            continue;
-                        default:
-                            break;
-                    }
-                    if (activeRatings.size() == 1) {
-                        throw new RatingException(String.format("Cannot use rating method %s with only one active rating.", method));
-                    }
-                    lowerRating = activeRatings.firstEntry();
-                    upperRating = activeRatings.higherEntry(lowerRating.getKey());
-                }
-                //--------------------------//
-                // handle out of range high //
-                //--------------------------//
-                if (upperRating == null) {
-                    method = ratingSpec.getOutRangeHighMethod();
-                    switch (method) {
-                        case ERROR:
-                            throw new RatingException("Effective date is after latest rating");
-                        case NULL:
-                            Y[i] = Const.UNDEFINED_DOUBLE;
-                            lastUsedRating = null;
-                            continue;
-                        case PREVIOUS:
-                        case NEAREST:
-                        case LOWER:
-                        case CLOSEST:
-                            lastUsedRating = activeRatings.lastEntry().getValue();
-                            Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                            continue;
-                        default:
-                            break;
-                    }
-                    if (activeRatings.size() == 1) {
-                        if (method == RatingMethod.LINEAR) {
-                            //-----------------------------------------------------------------//
-                            // allow LINEAR out of range high method with single active rating //
-                            //-----------------------------------------------------------------//
-                            lastUsedRating = activeRatings.lastEntry().getValue();
-                            Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                            continue;
-                        }
-                        throw new RatingException(String.format("Cannot use rating method %s with only one active rating.", method));
-                    }
-                    upperRating = activeRatings.lastEntry();
-                    lowerRating = activeRatings.lowerEntry(upperRating.getKey());
-                }
-                //-----------------------------------//
-                // handle in-range and extrapolation //
-                //-----------------------------------//
-                if (lowerRating.getKey() == valTimes[i]) {
-                    Y[i] = lowerRating.getValue().reverseRate(valTimes[i], depVals[i]);
-                    continue;
-                }
-                if (upperRating.getKey() == valTimes[i]) {
-                    lastUsedRating = upperRating.getValue();
-                    Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                    continue;
-                }
-                switch (ratingSpec.getInRangeMethod()) {
-                    case ERROR:
-                        throw new RatingException("Effective date is between existing rating");
-                    case NULL:
-                        Y[i] = Const.UNDEFINED_DOUBLE;
-                        lastUsedRating = null;
-                        continue;
-                    case PREVIOUS:
-                    case LOWER:
-                        lastUsedRating = lowerRating.getValue();
-                        Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                        continue;
-                    case NEXT:
-                    case HIGHER:
-                        lastUsedRating = upperRating.getValue();
-                        Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                        continue;
-                    case CLOSEST:
-                        if (valTimes[i] - lowerRating.getKey() < upperRating.getKey() - valTimes[i]) {
-                            lastUsedRating = lowerRating.getValue();
-                        } else {
-                            lastUsedRating = upperRating.getValue();
-                        }
-                        Y[i] = lastUsedRating.reverseRate(valTimes[i], depVals[i]);
-                        continue;
-                    default:
-                        break;
-                }
-                //------------------------------------//
-                // handle interpolation/extrapolation //
-                //------------------------------------//
-                method = ratingSpec.getInRangeMethod();
-            }
-            lastUsedRating = null;
-            boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
-            boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
-            double x = valTimes[i];
-            double x1 = lowerRating.getKey();
-            double x2 = upperRating.getKey();
-            double Y1 = lowerRating.getValue().reverseRate(valTimes[i], depVals[i]);
-            double Y2 = upperRating.getValue().reverseRate(valTimes[i], depVals[i]);
-            double y1 = Y1;
-            double y2 = Y2;
-            if (ind_log) {
-                x = Math.log10(x);
-                x1 = Math.log10(x1);
-                x2 = Math.log10(x2);
-                if (Double.isNaN(x) || Double.isInfinite(x) || Double.isNaN(x1) || Double.isInfinite(x1) || Double.isNaN(x2) ||
-                    Double.isInfinite(x2)) {
-                    //-------------------------------------------------//
-                    // fall back from LOGARITHMIC or LOG_LIN to LINEAR //
-                    //-------------------------------------------------//
-                    x = valTimes[i];
-                    x1 = lowerRating.getKey();
-                    x2 = upperRating.getKey();
-                    dep_log = false;
-                }
-            }
-            if (dep_log) {
-                y1 = Math.log10(y1);
-                y2 = Math.log10(y2);
-                if (Double.isNaN(y1) || Double.isInfinite(y1) || Double.isNaN(y2) || Double.isInfinite(y2)) {
-                    //-------------------------------------------------//
-                    // fall back from LOGARITHMIC or LIN_LOG to LINEAR //
-                    //-------------------------------------------------//
-                    x = valTimes[i];
-                    x1 = lowerRating.getKey();
-                    x2 = upperRating.getKey();
-                    y1 = Y1;
-                    y2 = Y2;
-                    dep_log = false;
-                }
-            }
-            double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
-            if (dep_log) {
-                y = Math.pow(10, y);
+        checkDataUnits();
+        getActiveRatingIndex().reverseRate(ratingSpec.getOutRangeLowMethod(), ratingSpec.getInRangeMethod(),
+            ratingSpec.getOutRangeHighMethod(), valTimes, depVals, Y);
+        return Y;
+    }
+
+    /**
+     * Retrieves reverse rated values for specified multiple dependent values and times, using the units, rating time,
+     * default value time and unsafe flags of a context instead of those of this rating set. The rating set must be for
+     * a single independent parameter. Ratings with a creation date later than the rating time of the context are not
+     * used. This rating set is not modified and is locked only while the ratings to use are selected.
+     *
+     * @param context  The context to reverse rate with
+     * @param valTimes The times associated with the values, in Java milliseconds, or null to use the default value
+     *                 time of the context
+     * @param depVals  The dependent values to reverse rate, in the unit of the context
+     * @return the independent values, in the unit of the context
+     * @throws RatingException on error
+     */
+    @Override
+    public double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+        long[] valueTimes = context.valueTimes(valTimes, depVals.length);
+        EffectiveDateIndex index;
+        RatingMethod[] methods;
+        synchronized (this) {
+            index = getActiveRatingIndex(context.getRatingTime());
+            if (!context.specifiesUnits()) {
+                checkDataUnits();
             }
-            Y[i] = y;
+            methods = getRatingMethods();
         }
+        double[] Y = new double[depVals.length];
+        index.inUnits(context).reverseRate(methods[0], methods[1], methods[2], valueTimes, depVals, Y, context.getPool(),
+            context.getMinChunkSize());
         return Y;
     }
 
@@ -2060,6 +2203,12 @@ public abstract class AbstractRatingSet extends RatingSet implements CwmsRatingS
      */
     @Override
     public void update(java.util.Observable arg0, Object arg1) {
+        //------------------------------------------------------------//
+        // a rating changed - discard the properties derived from it  //
+        // without locking, since the rating may be locked by now too //
+        //------------------------------------------------------------//
+        ratingChecksGeneration.incrementAndGet();
+        ratingChecks = null;
         observationTarget.setChanged();
         observationTarget.notifyObservers();
     }
@@ -0,0 +1,108 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+/**
+ * Uniform bucket directory over a monotonic range of table values. The span of the values is divided into equal
+ * buckets, each of which records the segments that values in the bucket can fall in, so a lookup bisects only a few
+ * segments instead of the whole range. The segment found for a value is the same as the one found by
+ * {@link SearchCursor#bisect(double[], int, int, double, boolean)}.
+ */
+final class BucketIndex {
+	/**
+	 * The table values
+	 */
+	private final double[] ind;
+	/**
+	 * The position of the first value in the range
+	 */
+	private final int first;
+	/**
+	 * The position of the last value in the range
+	 */
+	private final int last;
+	/**
+	 * Specifies whether the table values increase (true) or decrease (false)
+	 */
+	private final boolean ascending;
+	/**
+	 * The number of buckets per unit of distance from the first value
+	 */
+	private final double scale;
+	/**
+	 * The lowest segment each bucket can fall in, with a final element for the end of the last bucket
+	 */
+	private final int[] bucketSegment;
+
+	private BucketIndex(double[] ind, int first, int last, boolean ascending) {
+		this.ind = ind;
+		this.first = first;
+		this.last = last;
+		this.ascending = ascending;
+		int buckets = last - first;
+		scale = buckets / Math.abs(ind[last] - ind[first]);
+		bucketSegment = new int[buckets + 1];
+		int segment = first;
+		for (int b = 0; b <= buckets; ++b) {
+			double bucketStart = b / scale;
+			while (segment < last - 1 && distance(ind[segment+1]) <= bucketStart) ++segment;
+			bucketSegment[b] = segment;
+		}
+	}
+	/**
+	 * Builds an index for a range of table values if the range is large enough to benefit from one
+	 * @param ind The table values
+	 * @param first The position of the first value in the range
+	 * @param last The position of the last value in the range
+	 * @param ascending Specifies whether the table values increase (true) or decrease (false)
+	 * @param threshold The minimum number of values to build an index for
+	 * @return The index, or null if the range has fewer values than the threshold or cannot be indexed
+	 */
+	static BucketIndex build(double[] ind, int first, int last, boolean ascending, int threshold) {
+		if (last - first + 1 < Math.max(threshold, 3)) return null;
+		double span = Math.abs(ind[last] - ind[first]);
+		if (span == 0. || Double.isNaN(span) || Double.isInfinite(span)) return null;
+		return new BucketIndex(ind, first, last, ascending);
+	}
+	/**
+	 * Finds the segment containing a value. The value must not be out of range of the table values.
+	 * @param v The value to find
+	 * @return The position of the lower end of the segment
+	 */
+	int find(double v) {
+		double d = distance(v) * scale;
+		int b = d < 0. ? 0 : d >= bucketSegment.length - 1 ? bucketSegment.length - 2 : (int)d;
+		int lo = bucketSegment[b];
+		int hi = Math.min(bucketSegment[b+1] + 1, last);
+		//---------------------------------------------------------//
+		// values within the comparison tolerance of a bucket edge //
+		// may fall outside the bucket, so search the whole range  //
+		//---------------------------------------------------------//
+		if ((lo > first && SearchCursor.before(v, ind[lo], ascending))
+				|| (hi < last && !SearchCursor.before(v, ind[hi], ascending))) {
+			lo = first;
+			hi = last;
+		}
+		return SearchCursor.narrow(ind, lo, hi, v, ascending);
+	}
+	/**
+	 * Computes the distance of a value from the first table value in the direction of the table
+	 */
+	private double distance(double v) {
+		return ascending ? v - ind[first] : ind[first] - v;
+	}
+}
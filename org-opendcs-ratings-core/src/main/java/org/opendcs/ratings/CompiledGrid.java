@@ -0,0 +1,700 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import org.opendcs.ratings.RatingConst.RatingMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static hec.lang.Const.UNDEFINED_DOUBLE;
+import static org.opendcs.ratings.RatingOutOfRangeException.OutOfRangeEnum.OUT_OF_RANGE_HIGH;
+import static org.opendcs.ratings.RatingOutOfRangeException.OutOfRangeEnum.OUT_OF_RANGE_LOW;
+
+/**
+ * Flattened N-dimensional form of a TableRating and all of its dependent tables. Each table in the tree is a node
+ * whose values occupy a contiguous range of the flattened value arrays; nodes are stored breadth first so the nodes
+ * for each independent parameter are contiguous as well. Child tables may have differing numbers of values.
+ * <p>
+ * Lookups walk the tree iteratively with a stack of one frame per independent parameter, converting each
+ * independent value once and without locking the dependent tables, whose lookup methods are read as the tree is
+ * walked.
+ */
+final class CompiledGrid {
+	/**
+	 * Selection code for a lookup that yields an undefined value
+	 */
+	private static final int UNDEFINED = -1;
+	/**
+	 * Pair kind for an in-range interpolation
+	 */
+	private static final int IN_RANGE = 0;
+	/**
+	 * Pair kind for an extrapolation below the first value
+	 */
+	private static final int BELOW = 1;
+	/**
+	 * Pair kind for an extrapolation above the last value
+	 */
+	private static final int ABOVE = 2;
+	/**
+	 * Frame state for selecting the entries of a node
+	 */
+	private static final int SELECT = 0;
+	/**
+	 * Frame state awaiting the value of a single entry
+	 */
+	private static final int SINGLE = 1;
+	/**
+	 * Frame state awaiting the value of the low entry of a pair
+	 */
+	private static final int LOW = 2;
+	/**
+	 * Frame state awaiting the value of the high entry of a pair
+	 */
+	private static final int HIGH = 3;
+	/**
+	 * The independent values of all nodes
+	 */
+	final double[] ind;
+	/**
+	 * The dependent values of all nodes - valid only where the entry has no child node
+	 */
+	final double[] dep;
+	/**
+	 * The child node of each entry, or -1 for entries with dependent values
+	 */
+	final int[] child;
+	/**
+	 * The position of the first entry of each node
+	 */
+	final int[] start;
+	/**
+	 * The number of entries of each node
+	 */
+	final int[] size;
+	/**
+	 * The independent parameter (relative to the root) of each node
+	 */
+	final int[] dim;
+	/**
+	 * The first node for each independent parameter, with a final element of the total number of nodes
+	 */
+	final int[] dimStart;
+	/**
+	 * The number of independent parameters
+	 */
+	final int dims;
+	/**
+	 * The rating of each node, which supplies the lookup methods
+	 */
+	private final TableRating[] ratings;
+	/**
+	 * Flags specifying whether each node has only dependent values
+	 */
+	private final boolean[] leaf;
+	/**
+	 * Flags specifying whether the independent values of each node increase (or the node has a single value)
+	 */
+	private final boolean[] ascending;
+	/**
+	 * Flags specifying whether each node has any increasing independent values
+	 */
+	private final boolean[] increasing;
+	/**
+	 * Flags specifying whether each node has any decreasing independent values
+	 */
+	private final boolean[] decreasing;
+	/**
+	 * Flags specifying whether the independent values of each node never reverse the node's search direction
+	 */
+	private final boolean[] monotonic;
+	/**
+	 * The lookup index of each node, or null for nodes too small for one or not monotonic
+	 */
+	private final BucketIndex[] index;
+	/**
+	 * The interpolation segments of the entries for each combination of logarithmic independent and dependent values,
+	 * built on demand. Segments are immutable, so lookups racing to build them are harmless.
+	 */
+	private final InterpolationSegments[] segments = new InterpolationSegments[4];
+
+	/**
+	 * Compiles a rating and all of its dependent tables
+	 * @param owner The rating to compile
+	 * @param table The compiled form of the rating's effective values
+	 */
+	CompiledGrid(TableRating owner, CompiledTable table) {
+		List<TableRating> nodeRatings = new ArrayList<>();
+		List<CompiledTable> nodeTables = new ArrayList<>();
+		List<Integer> nodeDims = new ArrayList<>();
+		nodeRatings.add(owner);
+		nodeTables.add(table);
+		nodeDims.add(0);
+		int entryCount = 0;
+		for (int n = 0; n < nodeTables.size(); ++n) {
+			CompiledTable t = nodeTables.get(n);
+			entryCount += t.size();
+			for (int i = 0; i < t.size(); ++i) {
+				TableRating depTable = t.depTable(i);
+				if (depTable != null) {
+					nodeRatings.add(depTable);
+					nodeTables.add(depTable.getCompiled());
+					nodeDims.add(nodeDims.get(n) + 1);
+				}
+			}
+		}
+		int nodeCount = nodeTables.size();
+		ind = new double[entryCount];
+		dep = new double[entryCount];
+		child = new int[entryCount];
+		start = new int[nodeCount];
+		size = new int[nodeCount];
+		dim = new int[nodeCount];
+		ratings = nodeRatings.toArray(new TableRating[0]);
+		leaf = new boolean[nodeCount];
+		ascending = new boolean[nodeCount];
+		increasing = new boolean[nodeCount];
+		decreasing = new boolean[nodeCount];
+		monotonic = new boolean[nodeCount];
+		index = new BucketIndex[nodeCount];
+		int threshold = TableRating.getLookupIndexThreshold();
+		dims = nodeDims.get(nodeCount - 1) + 1;
+		dimStart = new int[dims + 1];
+		int entry = 0;
+		int nextChild = 1;
+		for (int n = 0; n < nodeCount; ++n) {
+			CompiledTable t = nodeTables.get(n);
+			start[n] = entry;
+			size[n] = t.size();
+			dim[n] = nodeDims.get(n);
+			if (n == 0 || dim[n] != dim[n-1]) dimStart[dim[n]] = n;
+			leaf[n] = t.depTables == null;
+			ascending[n] = t.ascending;
+			increasing[n] = t.increasing;
+			decreasing[n] = t.decreasing;
+			monotonic[n] = t.monotonic;
+			for (int i = 0; i < t.size(); ++i, ++entry) {
+				ind[entry] = t.ind[i];
+				dep[entry] = t.dep[i];
+				child[entry] = t.depTable(i) == null ? -1 : nextChild++;
+			}
+			if (monotonic[n]) index[n] = BucketIndex.build(ind, start[n], entry - 1, ascending[n], threshold);
+		}
+		dimStart[dims] = nodeCount;
+	}
+	/**
+	 * Working storage for lookups, which may be reused for successive lookups by a single thread
+	 */
+	static final class Workspace {
+		/**
+		 * The independent values, in rating units
+		 */
+		final double[] x;
+		/**
+		 * The node of each frame
+		 */
+		final int[] frameNode;
+		/**
+		 * The state of each frame
+		 */
+		final int[] frameState;
+		/**
+		 * The selection code of each frame
+		 */
+		final int[] frameCode;
+		/**
+		 * The value of the low entry of each frame's pair
+		 */
+		final double[] frameLowValue;
+		/**
+		 * The segment last found in each node, so successive lookups of nearby values search less
+		 */
+		final SearchCursor cursor;
+
+		Workspace(int dims, int nodes) {
+			x = new double[dims];
+			frameNode = new int[dims];
+			frameState = new int[dims];
+			frameCode = new int[dims];
+			frameLowValue = new double[dims];
+			cursor = new SearchCursor(nodes);
+		}
+	}
+	/**
+	 * Creates working storage for lookups against this grid
+	 * @return The working storage
+	 */
+	Workspace newWorkspace() {
+		return new Workspace(dims, size.length);
+	}
+	/**
+	 * Creates a search cursor over the nodes of this grid
+	 * @return The search cursor
+	 */
+	SearchCursor newCursor() {
+		return new SearchCursor(size.length);
+	}
+	/**
+	 * Rates a set of independent values
+	 * @param pIndVals The independent values
+	 * @param conversions The conversions from data units to rating units of each independent value
+	 * @param p_offset The position of the first independent value for the grid
+	 * @return The dependent value, in rating units
+	 * @throws RatingException on error
+	 */
+	double rate(double[] pIndVals, UnitConversion[] conversions, int p_offset) throws RatingException {
+		return rate(pIndVals, conversions, p_offset, dims == 1 ? null : newWorkspace());
+	}
+	/**
+	 * Rates a single independent value against a grid with a single independent parameter
+	 * @param v The independent value, in rating units
+	 * @param cursor The search cursor from {@link #newCursor()}, or null to bisect the table
+	 * @return The dependent value, in rating units
+	 * @throws RatingException on error
+	 */
+	double rate(double v, SearchCursor cursor) throws RatingException {
+		return v == UNDEFINED_DOUBLE ? UNDEFINED_DOUBLE : rateLeaf(0, v, cursor, null);
+	}
+	/**
+	 * Rates a set of independent values using the specified working storage
+	 * @param pIndVals The independent values
+	 * @param conversions The conversions from data units to rating units of each independent value
+	 * @param p_offset The position of the first independent value for the grid
+	 * @param workspace The working storage from {@link #newWorkspace()}, which may be null for a grid with a single independent parameter
+	 * @return The dependent value, in rating units
+	 * @throws RatingException on error
+	 */
+	double rate(double[] pIndVals, UnitConversion[] conversions, int p_offset, Workspace workspace) throws RatingException {
+		if (dims == 1) {
+			double ind_val = pIndVals[p_offset];
+			if (ind_val == UNDEFINED_DOUBLE) return UNDEFINED_DOUBLE;
+			return rateLeaf(0, conversions[p_offset].convert(ind_val), workspace == null ? null : workspace.cursor, null);
+		}
+		double[] x = workspace.x;
+		for (int d = 0; d < dims; ++d) {
+			double ind_val = pIndVals[p_offset + d];
+			x[d] = ind_val == UNDEFINED_DOUBLE ? ind_val : conversions[p_offset + d].convert(ind_val);
+		}
+		return rate(workspace, null);
+	}
+	/**
+	 * Rates a set of independent values held by parameter, as in a {@link RatingBatch}, using the specified working
+	 * storage
+	 * @param columns The independent values of each parameter
+	 * @param index The position of the value set in each parameter's values
+	 * @param conversions The conversions from data units to rating units of each independent value
+	 * @param workspace The working storage from {@link #newWorkspace()}, which may be null for a grid with a single independent parameter
+	 * @param status A single element that receives the {@link RatingStatus} of the value set if it is more severe than
+	 *        the status already there, or null to throw exceptions for conditions of the value set
+	 * @return The dependent value, in rating units
+	 * @throws RatingException on error, or if status is null and the value set cannot be rated
+	 */
+	double rate(double[][] columns, int index, UnitConversion[] conversions, Workspace workspace, byte[] status) throws RatingException {
+		if (dims == 1) {
+			double ind_val = columns[0][index];
+			if (ind_val == UNDEFINED_DOUBLE) {
+				mark(status, RatingStatus.UNDEFINED);
+				return UNDEFINED_DOUBLE;
+			}
+			return rateLeaf(0, conversions[0].convert(ind_val), workspace == null ? null : workspace.cursor, status);
+		}
+		double[] x = workspace.x;
+		for (int d = 0; d < dims; ++d) {
+			double ind_val = columns[d][index];
+			x[d] = ind_val == UNDEFINED_DOUBLE ? ind_val : conversions[d].convert(ind_val);
+		}
+		return rate(workspace, status);
+	}
+	/**
+	 * Rates the converted independent values in the working storage
+	 * @param workspace The working storage, holding the independent values in rating units
+	 * @param status A single element that receives the {@link RatingStatus} of the values, or null to throw exceptions
+	 *        for conditions of the values
+	 * @return The dependent value, in rating units
+	 * @throws RatingException on error
+	 */
+	private double rate(Workspace workspace, byte[] status) throws RatingException {
+		double[] x = workspace.x;
+		//--------------------------------------------------------------//
+		// walk the tree with one frame per non-leaf node being visited //
+		//--------------------------------------------------------------//
+		SearchCursor cursor = workspace.cursor;
+		int[] frameNode = workspace.frameNode;
+		int[] frameState = workspace.frameState;
+		int[] frameCode = workspace.frameCode;
+		double[] frameLowValue = workspace.frameLowValue;
+		int top = 0;
+		frameNode[0] = 0;
+		frameState[0] = SELECT;
+		double value = UNDEFINED_DOUBLE;
+		while (true) {
+			int n = frameNode[top];
+			double v = x[dim[n]];
+			int e;
+			switch (frameState[top]) {
+			case SINGLE:
+				e = -1;
+				break;
+			case LOW:
+				frameLowValue[top] = value;
+				frameState[top] = HIGH;
+				e = pairHigh(n, frameCode[top]);
+				break;
+			case HIGH:
+				value = combine(n, v, frameCode[top], frameLowValue[top], value, status);
+				e = -1;
+				break;
+			default:
+				int code = v == UNDEFINED_DOUBLE ? undefined(status) : select(n, v, cursor, status);
+				if (code == UNDEFINED) {
+					value = UNDEFINED_DOUBLE;
+					e = -1;
+				}
+				else if (code >= 0) {
+					frameState[top] = SINGLE;
+					e = code;
+				}
+				else {
+					frameState[top] = LOW;
+					frameCode[top] = code;
+					e = pairLow(n, code);
+				}
+				break;
+			}
+			if (e < 0) {
+				//-----------------------------------------//
+				// frame is complete, hand value to parent //
+				//-----------------------------------------//
+				if (--top < 0) return value;
+				continue;
+			}
+			int c = child[e];
+			if (c < 0) {
+				value = dep[e];
+			}
+			else if (leaf[c]) {
+				double cv = x[dim[c]];
+				value = cv == UNDEFINED_DOUBLE ? undefined(status) : rateLeaf(c, cv, cursor, status);
+			}
+			else {
+				++top;
+				frameNode[top] = c;
+				frameState[top] = SELECT;
+			}
+		}
+	}
+	/**
+	 * Rates a value against a node that has only dependent values
+	 * @param n The node
+	 * @param v The independent value, in rating units
+	 * @param cursor The search cursor for the nodes, or null to bisect the node
+	 * @param status A single element that receives the {@link RatingStatus} of the value, or null to throw exceptions
+	 *        for conditions of the value
+	 * @return The dependent value
+	 * @throws RatingException on error
+	 */
+	private double rateLeaf(int n, double v, SearchCursor cursor, byte[] status) throws RatingException {
+		int code = select(n, v, cursor, status);
+		if (code == UNDEFINED) return UNDEFINED_DOUBLE;
+		if (code >= 0) return dep[code];
+		return combine(n, v, code, dep[pairLow(n, code)], dep[pairHigh(n, code)], status);
+	}
+	/**
+	 * Determines which entries of a node are used to rate a value. The result is either UNDEFINED, a single entry
+	 * position (non-negative), or an encoded pair of adjacent entries (less than UNDEFINED).
+	 * @param n The node
+	 * @param v The independent value, in rating units
+	 * @param cursor The search cursor for the nodes, or null to bisect each node
+	 * @param status A single element that receives the {@link RatingStatus} of the value, or null to throw exceptions
+	 *        for conditions of the value
+	 * @return The selection code
+	 * @throws RatingException on error
+	 */
+	private int select(int n, double v, SearchCursor cursor, byte[] status) throws RatingException {
+		TableRating rating = ratings[n];
+		int first = start[n];
+		int last = first + size[n] - 1;
+		//--------------------------------------------------- //
+		// find the interpolation/extrapolation value indices //
+		//--------------------------------------------------- //
+		if (ascending[n]) {
+			if (lt(v, ind[first])) {
+				return outRangeLow(n, rating, first, status);
+			}
+			else if (gt(v, ind[last])) {
+				return outRangeHigh(n, rating, last - 1, last, status);
+			}
+		}
+		else if (decreasing[n]) {
+			if (gt(v, ind[first])) {
+				return outRangeLow(n, rating, first, status);
+			}
+			else if (lt(v, ind[last])) {
+				return outRangeHigh(n, rating, last - 1, last, status);
+			}
+		}
+		else {
+			throw new RatingException("Table does not monotonically increase or decrease");
+		}
+		//-------------------------------------------------------//
+		// only a monotonic node is guaranteed the same segment  //
+		// by a cursor or index as by bisecting the whole node   //
+		//-------------------------------------------------------//
+		int lo;
+		if (!monotonic[n]) {
+			lo = SearchCursor.bisect(ind, first, last, v, ascending[n]);
+		}
+		else if (cursor != null) {
+			lo = cursor.find(n, ind, first, last, v, ascending[n]);
+		}
+		else if (index[n] != null) {
+			lo = index[n].find(v);
+		}
+		else {
+			lo = SearchCursor.bisect(ind, first, last, v, ascending[n]);
+		}
+		int hi = lo == last ? lo : lo + 1;
+		//----------------------------------------------------------//
+		// use specific rating (prevent interpolation) if ind value //
+		// matches the ind value of one of the bounding ratings     //
+		//----------------------------------------------------------//
+		if (eq(v, ind[lo])) return lo;
+		if (eq(v, ind[hi])) return hi;
+		return pair(lo, IN_RANGE);
+	}
+	private int outRangeLow(int n, TableRating rating, int first, byte[] status) throws RatingException {
+		RatingMethod method = rating.outRangeLowMethod;
+		switch (method) {
+		case NULL:
+			mark(status, RatingStatus.OUT_OF_RANGE_LOW);
+			return UNDEFINED;
+		case ERROR:
+			if (status == null) throw new RatingOutOfRangeException(OUT_OF_RANGE_LOW);
+			mark(status, RatingStatus.OUT_OF_RANGE_LOW);
+			return UNDEFINED;
+		case LINEAR:
+		case LOGARITHMIC:
+		case LIN_LOG:
+		case LOG_LIN:
+			if (size[n] < 2) return fail(status, RatingStatus.ERROR, "Cannot extrapolate from a table with a single value.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return pair(first, BELOW);
+		case PREVIOUS:
+			return fail(status, RatingStatus.OUT_OF_RANGE_LOW, "No previous value in table.");
+		case NEXT:
+		case NEAREST:
+		case CLOSEST:
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return first;
+		case LOWER:
+			if (increasing[n]) return fail(status, RatingStatus.OUT_OF_RANGE_LOW, "No lower value in table.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return first;
+		case HIGHER:
+			if (decreasing[n]) return fail(status, RatingStatus.OUT_OF_RANGE_LOW, "No higher value in table.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return first;
+		default:
+			throw new RatingException(
+					"Unexpected behavior specified : "
+							+ method
+							+ " : "
+							+ method.description());
+		}
+	}
+	private int outRangeHigh(int n, TableRating rating, int segment, int last, byte[] status) throws RatingException {
+		RatingMethod method = rating.outRangeHighMethod;
+		switch (method) {
+		case NULL:
+			mark(status, RatingStatus.OUT_OF_RANGE_HIGH);
+			return UNDEFINED;
+		case ERROR:
+			if (status == null) throw new RatingOutOfRangeException(OUT_OF_RANGE_HIGH);
+			mark(status, RatingStatus.OUT_OF_RANGE_HIGH);
+			return UNDEFINED;
+		case LINEAR:
+		case LOGARITHMIC:
+		case LIN_LOG:
+		case LOG_LIN:
+			if (size[n] < 2) return fail(status, RatingStatus.ERROR, "Cannot extrapolate from a table with a single value.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return pair(segment, ABOVE);
+		case NEXT:
+			return fail(status, RatingStatus.OUT_OF_RANGE_HIGH, "No next value in table.");
+		case PREVIOUS:
+		case NEAREST:
+		case CLOSEST:
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return last;
+		case LOWER:
+			if (decreasing[n]) return fail(status, RatingStatus.OUT_OF_RANGE_HIGH, "No lower value in table.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return last;
+		case HIGHER:
+			if (increasing[n]) return fail(status, RatingStatus.OUT_OF_RANGE_HIGH, "No higher value in table.");
+			mark(status, RatingStatus.EXTRAPOLATED);
+			return last;
+		default:
+			throw new RatingException(
+					"Unexpected behavior specified : "
+							+ method
+							+ " : "
+							+ method.description());
+		}
+	}
+	/**
+	 * Reports a condition of a value that prevents rating it
+	 * @param status A single element that receives the status of the value, or null to throw an exception
+	 * @param code The {@link RatingStatus} of the condition
+	 * @param message The message of the exception
+	 * @return UNDEFINED, if status is not null
+	 * @throws RatingException if status is null
+	 */
+	private static int fail(byte[] status, byte code, String message) throws RatingException {
+		if (status == null) throw new RatingException(message);
+		mark(status, code);
+		return UNDEFINED;
+	}
+	/**
+	 * Reports an undefined value
+	 * @param status A single element that receives the status of the value, or null
+	 * @return UNDEFINED
+	 */
+	private static int undefined(byte[] status) {
+		mark(status, RatingStatus.UNDEFINED);
+		return UNDEFINED;
+	}
+	/**
+	 * Records a condition of a value if it is more severe than those already recorded
+	 * @param status A single element that receives the status of the value, or null
+	 * @param code The {@link RatingStatus} of the condition
+	 */
+	private static void mark(byte[] status, byte code) {
+		if (status != null && code > status[0]) status[0] = code;
+	}
+	/**
+	 * Combines the values of a pair of entries
+	 * @param n The node
+	 * @param v The independent value, in rating units
+	 * @param code The encoded pair
+	 * @param loVal The value of the low entry of the pair
+	 * @param hiVal The value of the high entry of the pair
+	 * @param status A single element that receives the {@link RatingStatus} of the value, or null to throw exceptions
+	 *        for conditions of the value
+	 * @return The dependent value
+	 * @throws RatingException on error
+	 */
+	private double combine(int n, double v, int code, double loVal, double hiVal, byte[] status) throws RatingException {
+		if (loVal == UNDEFINED_DOUBLE || hiVal == UNDEFINED_DOUBLE) {
+			return UNDEFINED_DOUBLE;
+		}
+		int lo = pairLow(n, code);
+		int hi = pairHigh(n, code);
+		TableRating rating = ratings[n];
+		RatingMethod method;
+		switch (pairKind(code)) {
+		case BELOW:
+			method = rating.outRangeLowMethod;
+			break;
+		case ABOVE:
+			method = rating.outRangeHighMethod;
+			break;
+		default:
+			method = rating.inRangeMethod;
+			break;
+		}
+		switch (method) {
+		case NULL:
+			return UNDEFINED_DOUBLE;
+		case ERROR:
+			fail(status, RatingStatus.ERROR, "No such value in table.");
+			return UNDEFINED_DOUBLE;
+		case PREVIOUS:
+			return loVal;
+		case NEXT:
+			return hiVal;
+		case LOWER:
+			return increasing[n] ? loVal : hiVal;
+		case HIGHER:
+			return decreasing[n] ? loVal : hiVal;
+		case CLOSEST:
+			return lt(Math.abs(v - ind[lo]), Math.abs(ind[hi] - v)) ? loVal : hiVal;
+		default:
+			break;
+		}
+		//---------------------------//
+		// interpolate / extrapolate //
+		//---------------------------//
+		boolean indLog = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
+		boolean depLog = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
+		if (leaf[n]) {
+			return segments(indLog, depLog).interpolate(pairSegment(code), v);
+		}
+		return InterpolationSegments.interpolate(v, ind[lo], ind[hi], loVal, hiVal, indLog, depLog);
+	}
+	/**
+	 * Retrieves the interpolation segments of the entries, building them on first use
+	 * @param indLog Specifies whether the independent values are interpolated logarithmically
+	 * @param depLog Specifies whether the dependent values are interpolated logarithmically
+	 * @return The interpolation segments
+	 */
+	private InterpolationSegments segments(boolean indLog, boolean depLog) {
+		int key = (indLog ? 2 : 0) + (depLog ? 1 : 0);
+		InterpolationSegments s = segments[key];
+		if (s == null) {
+			s = segments[key] = InterpolationSegments.build(ind, dep, indLog, depLog, null);
+		}
+		return s;
+	}
+	private static int pair(int segment, int kind) {
+		return UNDEFINED - 1 - (segment * 3 + kind);
+	}
+	private static int pairSegment(int code) {
+		return (UNDEFINED - 1 - code) / 3;
+	}
+	private static int pairKind(int code) {
+		return (UNDEFINED - 1 - code) % 3;
+	}
+	/**
+	 * Determines whether a pair runs from the second entry of its segment to the first, as for extrapolation from
+	 * a decreasing node
+	 * @param n The node
+	 * @param code The encoded pair
+	 * @return Whether the pair is reversed
+	 */
+	private boolean pairReversed(int n, int code) {
+		return decreasing[n] && !ascending[n] && pairKind(code) != IN_RANGE;
+	}
+	private int pairLow(int n, int code) {
+		int segment = pairSegment(code);
+		return pairReversed(n, code) ? segment + 1 : segment;
+	}
+	private int pairHigh(int n, int code) {
+		int segment = pairSegment(code);
+		return pairReversed(n, code) ? segment : segment + 1;
+	}
+	private static boolean eq(double v1, double v2) {
+		return Math.abs(v2-v1) < 1.e-8;
+	}
+	private static boolean gt(double v1, double v2) {
+		return !eq(v1, v2) && v1 > v2;
+	}
+	private static boolean lt(double v1, double v2) {
+		return !eq(v1, v2) && v1 < v2;
+	}
+}
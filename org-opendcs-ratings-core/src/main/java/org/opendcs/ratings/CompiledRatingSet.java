@@ -0,0 +1,766 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import hec.hecmath.TimeSeriesMath;
+import hec.io.TimeSeriesContainer;
+import hec.lang.Const;
+import org.opendcs.ratings.RatingConst.RatingMethod;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable rating set, compiled from the active ratings of a rating set by {@link AbstractRatingSet#compile()}.
+ * <p>
+ * A compiled rating set holds its own copies of the active ratings, with the effective date methods of the rating
+ * specification and the data units, rating time, default value time and unsafe flags that the rating set had when it
+ * was compiled. Nothing can change them afterward, so the rating methods take no locks and a single compiled rating set can be shared by any number of
+ * threads. Methods of {@link IRating} that would modify the rating throw an exception instead. To rate with different
+ * settings, change the rating set and compile it again.
+ */
+public final class CompiledRatingSet implements IRating {
+	/**
+	 * The name of the rating set
+	 */
+	private final String name;
+	/**
+	 * The method for values before the earliest effective date
+	 */
+	private final RatingMethod outRangeLowMethod;
+	/**
+	 * The method for values between effective dates
+	 */
+	private final RatingMethod inRangeMethod;
+	/**
+	 * The method for values after the latest effective date
+	 */
+	private final RatingMethod outRangeHighMethod;
+	/**
+	 * The independent and dependent parameters
+	 */
+	private final String[] ratingParameters;
+	/**
+	 * The rating units
+	 */
+	private final String[] ratingUnits;
+	/**
+	 * The units of the data to rate and of the rated values
+	 */
+	private final String[] dataUnits;
+	/**
+	 * The number of independent parameters
+	 */
+	private final int indParamCount;
+	/**
+	 * The time associated with values that don't specify their own times
+	 */
+	private final long defaultValueTime;
+	/**
+	 * The time the active ratings were selected for
+	 */
+	private final long ratingTime;
+	/**
+	 * Flag specifying whether "risky" behavior such as using mismatched units, unknown parameters, etc. is allowed
+	 */
+	private final boolean allowUnsafe;
+	/**
+	 * Flag specifying whether messages are output about "risky" behavior such as using mismatched units, unknown parameters, etc.
+	 */
+	private final boolean warnUnsafe;
+	/**
+	 * Flag specifying whether the ratings have different rating units and no data units were specified to rate in
+	 */
+	private final boolean dataUnitsRequired;
+	/**
+	 * The copies of the active ratings, indexed by effective date
+	 */
+	private final EffectiveDateIndex index;
+
+	/**
+	 * Compiles the active ratings of a rating set. The caller must hold the lock of the rating set.
+	 * @param ratingSet The rating set to compile
+	 * @throws RatingException if the rating set has no active ratings or a rating cannot be copied
+	 */
+	CompiledRatingSet(AbstractRatingSet ratingSet) throws RatingException {
+		if (ratingSet.ratingSpec == null) {
+			throw new RatingException("Rating set has no rating specification.");
+		}
+		if (ratingSet.activeRatings.isEmpty()) {
+			throw new RatingException("No active ratings.");
+		}
+		RatingSpec ratingSpec = ratingSet.ratingSpec;
+		name = ratingSet.getName();
+		outRangeLowMethod = ratingSpec.getOutRangeLowMethod();
+		inRangeMethod = ratingSpec.getInRangeMethod();
+		outRangeHighMethod = ratingSpec.getOutRangeHighMethod();
+		ratingParameters = ratingSpec.getParameters();
+		ratingUnits = ratingSet.getRatingUnits();
+		String[] units = ratingSet.getDataUnits();
+		dataUnits = units == null ? ratingUnits : units;
+		indParamCount = ratingSpec.getIndParamCount();
+		defaultValueTime = ratingSet.defaultValueTime;
+		ratingTime = ratingSet.ratingTime;
+		allowUnsafe = ratingSet.allowUnsafe;
+		warnUnsafe = ratingSet.warnUnsafe;
+		boolean mixedUnits = false;
+		String unitsId = null;
+		for (AbstractRating rating : ratingSet.ratings.values()) {
+			if (unitsId == null) {
+				unitsId = rating.getRatingUnitsId();
+			}
+			else if (!unitsId.equalsIgnoreCase(rating.getRatingUnitsId())) {
+				mixedUnits = true;
+			}
+		}
+		dataUnitsRequired = units == null && mixedUnits;
+		//---------------------------------------------------------------------//
+		// copy the active ratings so that later changes to them don't show up //
+		//---------------------------------------------------------------------//
+		int count = ratingSet.activeRatings.size();
+		long[] effectiveDates = new long[count];
+		AbstractRating[] copies = new AbstractRating[count];
+		int i = 0;
+		for (Map.Entry<Long, AbstractRating> entry : ratingSet.activeRatings.entrySet()) {
+			effectiveDates[i] = entry.getKey();
+			copies[i++] = copyOf(entry.getValue(), ratingSpec);
+		}
+		index = new EffectiveDateIndex(effectiveDates, copies);
+	}
+
+	/**
+	 * Copies a rating with the settings that affect how it rates values
+	 * @param rating The rating to copy
+	 * @param ratingSpec The rating specification of the rating set
+	 * @return The copy
+	 * @throws RatingException if the rating cannot be copied
+	 */
+	private static AbstractRating copyOf(AbstractRating rating, RatingSpec ratingSpec) throws RatingException {
+		AbstractRating copy = rating.getData().newRating();
+		copy.ratingSpec = ratingSpec;
+		if (rating.getDataUnitsId() != null) {
+			copy.setDataUnits(rating.getDataUnits());
+		}
+		copy.setRatingTime(rating.getRatingTime());
+		copy.setAllowUnsafe(rating.doesAllowUnsafe());
+		copy.setWarnUnsafe(rating.doesWarnUnsafe());
+		//--------------------------------------------------------//
+		// resolve the unit conversions before the copy is shared //
+		//--------------------------------------------------------//
+		copy.getUnitConversions();
+		return copy;
+	}
+
+	/**
+	 * Retrieves the number of active ratings that were compiled
+	 * @return The number of ratings
+	 */
+	public int getRatingCount() {
+		return index.size();
+	}
+
+	/**
+	 * Retrieves whether this rating set allows "risky" behavior such as using mismatched units, unknown parameters, etc.
+	 * @return A flag specifying whether this rating set allows "risky" behavior
+	 */
+	public boolean doesAllowUnsafe() {
+		return allowUnsafe;
+	}
+
+	/**
+	 * Retrieves whether this rating set outputs messages about "risky" behavior such as using mismatched units, unknown parameters, etc.
+	 * @return A flag specifying whether this rating set outputs messages about "risky" behavior
+	 */
+	public boolean doesWarnUnsafe() {
+		return warnUnsafe;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getName()
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#setName(java.lang.String)
+	 */
+	@Override
+	public void setName(String name) throws RatingException {
+		throw new RatingException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getRatingParameters()
+	 */
+	@Override
+	public String[] getRatingParameters() {
+		return Arrays.copyOf(ratingParameters, ratingParameters.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getRatingUnits()
+	 */
+	@Override
+	public String[] getRatingUnits() {
+		return ratingUnits == null ? null : Arrays.copyOf(ratingUnits, ratingUnits.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getDataUnits()
+	 */
+	@Override
+	public String[] getDataUnits() {
+		return dataUnits == null ? null : Arrays.copyOf(dataUnits, dataUnits.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#setDataUnits(java.lang.String[])
+	 */
+	@Override
+	public void setDataUnits(String[] units) throws RatingException {
+		throw new RatingException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getDefaultValueTime()
+	 */
+	@Override
+	public long getDefaultValueTime() {
+		return defaultValueTime;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#setDefaultValueTime(long)
+	 */
+	@Override
+	public void setDefaultValueTime(long defaultValueTime) {
+		throw new UnsupportedOperationException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#resetDefaultValueTime()
+	 */
+	@Override
+	public void resetDefaultValueTime() {
+		throw new UnsupportedOperationException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getRatingTime()
+	 */
+	@Override
+	public long getRatingTime() {
+		return ratingTime;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#setRatingTime(long)
+	 */
+	@Override
+	public void setRatingTime(long ratingTime) {
+		throw new UnsupportedOperationException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#resetRatingTime()
+	 */
+	@Override
+	public void resetRatingTime() {
+		throw new UnsupportedOperationException("Cannot modify a compiled rating set.");
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getRatingExtents()
+	 */
+	@Override
+	public double[][] getRatingExtents() throws RatingException {
+		return getRatingExtents(ratingTime);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getRatingExtents(long)
+	 */
+	@Override
+	public double[][] getRatingExtents(long ratingTime) throws RatingException {
+		int pos = index.floor(ratingTime);
+		return index.ratings[pos < 0 ? 0 : pos].getRatingExtents();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getEffectiveDates()
+	 */
+	@Override
+	public long[] getEffectiveDates() {
+		return Arrays.copyOf(index.effectiveDates, index.effectiveDates.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getCreateDates()
+	 */
+	@Override
+	public long[] getCreateDates() {
+		long[] createDates = new long[index.size()];
+		for (int i = 0; i < createDates.length; ++i) {
+			createDates[i] = index.ratings[i].getCreateDate();
+		}
+		return createDates;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(double)
+	 */
+	@Override
+	public double rate(double indVal) throws RatingException {
+		return rate(defaultValueTime(), indVal);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rateOne(double[])
+	 */
+	@Override
+	public double rateOne(double... indVals) throws RatingException {
+		return rateOne(defaultValueTime(), indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rateOne2(double[])
+	 */
+	@Override
+	public double rateOne2(double[] indVals) throws RatingException {
+		return rateOne(defaultValueTime(), indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(double[])
+	 */
+	@Override
+	public double[] rate(double[] indVals) throws RatingException {
+		return rate(defaultValueTime(), indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(double[][])
+	 */
+	@Override
+	public double[] rate(double[][] indVals) throws RatingException {
+		return rate(defaultValueTime(), indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(long, double)
+	 */
+	@Override
+	public double rate(long valTime, double indVal) throws RatingException {
+		return rate(new long[] {valTime}, new double[][] {{indVal}})[0];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rateOne(long, double[])
+	 */
+	@Override
+	public double rateOne(long valTime, double... indVals) throws RatingException {
+		return rate(new long[] {valTime}, new double[][] {indVals})[0];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rateOne2(long, double[])
+	 */
+	@Override
+	public double rateOne2(long valTime, double[] indVals) throws RatingException {
+		return rateOne(valTime, indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(long, double[])
+	 */
+	@Override
+	public double[] rate(long valTime, double[] indVals) throws RatingException {
+		long[] valTimes = new long[indVals.length];
+		Arrays.fill(valTimes, valTime);
+		return rate(valTimes, indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(long[], double[])
+	 */
+	@Override
+	public double[] rate(long[] valTimes, double[] indVals) throws RatingException {
+		double[][] valueSets = new double[indVals.length][1];
+		for (int i = 0; i < indVals.length; ++i) {
+			valueSets[i][0] = indVals[i];
+		}
+		return rate(valTimes, valueSets);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(long, double[][])
+	 */
+	@Override
+	public double[] rate(long valTime, double[][] indVals) throws RatingException {
+		long[] valTimes = new long[indVals.length];
+		Arrays.fill(valTimes, valTime);
+		return rate(valTimes, indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(long[], double[][])
+	 */
+	@Override
+	public double[] rate(long[] valTimes, double[][] indVals) throws RatingException {
+		checkValueSets(valTimes, indVals);
+		checkDataUnits(null);
+		double[] depVals = new double[indVals.length];
+		index.rate(outRangeLowMethod, inRangeMethod, outRangeHighMethod, indVals, valTimes, depVals);
+		return depVals;
+	}
+
+	/**
+	 * Rates a range of the value sets of a batch. Runs of values are rated through the batch, so ratings that support
+	 * batches read the columns in place. Value sets without times are rated at the default value time.
+	 *
+	 * @see IRating#rate(RatingBatch, int, int, double[], int)
+	 */
+	@Override
+	public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		if (batch.getParamCount() != indParamCount) {
+			throw new RatingException("Value sets have different parameter counts than ratings.");
+		}
+		checkDataUnits(null);
+		long[] valTimes = batch.getTimes();
+		if (valTimes == null) {
+			if (defaultValueTime == Const.UNDEFINED_TIME) {
+				throw new RatingException("Default value time is not set");
+			}
+			valTimes = new long[offset + length];
+			Arrays.fill(valTimes, defaultValueTime);
+		}
+		index.rate(outRangeLowMethod, inRangeMethod, outRangeHighMethod, batch.withTimes(valTimes), valTimes, offset, length, out, outOffset,
+			null, 0);
+	}
+
+	/**
+	 * Rates a range of the value sets of a batch, reporting value sets that can't be rated, whether because of their
+	 * times or their values, in a status array instead of throwing exceptions for them. Value sets without times are
+	 * rated at the default value time.
+	 *
+	 * @see IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+	 */
+	@Override
+	public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		RatingUtil.checkStatusRange(status, outOffset, length);
+		if (batch.getParamCount() != indParamCount) {
+			throw new RatingException("Value sets have different parameter counts than ratings.");
+		}
+		checkDataUnits(null);
+		long[] valTimes = batch.getTimes();
+		if (valTimes == null) {
+			if (defaultValueTime == Const.UNDEFINED_TIME) {
+				throw new RatingException("Default value time is not set");
+			}
+			valTimes = new long[offset + length];
+			Arrays.fill(valTimes, defaultValueTime);
+		}
+		index.rateWithStatus(outRangeLowMethod, inRangeMethod, outRangeHighMethod, batch.withTimes(valTimes), valTimes, offset, length, out,
+			status, outOffset);
+	}
+
+	/**
+	 * Rates value sets with the units, rating time, default value time and unsafe flags of a context. Since only the
+	 * ratings that were active when this rating set was compiled are available, a rating time in the context can only
+	 * exclude ratings, not include others.
+	 *
+	 * @see IRating#rate(RatingContext, long[], double[][])
+	 */
+	@Override
+	public double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+		long[] times = context.valueTimes(valTimes, indVals.length);
+		checkValueSets(times, indVals);
+		checkDataUnits(context);
+		EffectiveDateIndex ratings = createdBy(context.getRatingTime()).inUnits(context);
+		double[] depVals = new double[indVals.length];
+		ratings.rate(outRangeLowMethod, inRangeMethod, outRangeHighMethod, indVals, times, depVals, context.getPool(), context.getMinChunkSize());
+		return depVals;
+	}
+
+	/**
+	 * Rates the members of an ensemble, which are sequences of values of the single independent parameter that share
+	 * the same value times, selecting the ratings for the times once for all the members
+	 *
+	 * @see AbstractRatingSet#rateEnsemble(long[], double[][])
+	 */
+	public double[][] rateEnsemble(long[] valTimes, double[][] members) throws RatingException {
+		checkEnsemble(valTimes, members);
+		checkDataUnits(null);
+		double[][] depVals = new double[members.length][valTimes.length];
+		index.rateEnsemble(outRangeLowMethod, inRangeMethod, outRangeHighMethod, valTimes, members, depVals, null, 0);
+		return depVals;
+	}
+
+	/**
+	 * Rates the members of an ensemble with a context. Since only the ratings that were active when this rating set
+	 * was compiled are available, a rating time in the context can only exclude ratings, not include others.
+	 *
+	 * @see AbstractRatingSet#rateEnsemble(RatingContext, long[], double[][])
+	 */
+	public double[][] rateEnsemble(RatingContext context, long[] valTimes, double[][] members) throws RatingException {
+		long[] times = context.valueTimes(valTimes, members.length == 0 ? 0 : members[0].length);
+		checkEnsemble(times, members);
+		checkDataUnits(context);
+		EffectiveDateIndex ratings = createdBy(context.getRatingTime()).inUnits(context);
+		double[][] depVals = new double[members.length][times.length];
+		ratings.rateEnsemble(outRangeLowMethod, inRangeMethod, outRangeHighMethod, times, members, depVals, context.getPool(),
+			context.getMinChunkSize());
+		return depVals;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(hec.io.TimeSeriesContainer)
+	 */
+	@Override
+	public TimeSeriesContainer rate(TimeSeriesContainer tsc) throws RatingException {
+		return rate(new TimeSeriesContainer[] {tsc});
+	}
+
+	/**
+	 * Rates the values in a set of TimeSeriesContainers and returns the results in a new TimeSeriesContainer. The
+	 * values of each TimeSeriesContainer are converted from its own unit to the data unit of its parameter, and the
+	 * rated values are in the data unit of the dependent parameter. The rated TimeSeriesContainer has values only at
+	 * times that are common to all the input TimeSeriesContainers.
+	 *
+	 * @param tscs The TimeSeriesContainers to rate, in order of the independent parameters of the rating.
+	 * @return A TimeSeriesContainer of the rated values
+	 * @throws RatingException on error
+	 */
+	@Override
+	public TimeSeriesContainer rate(TimeSeriesContainer[] tscs) throws RatingException {
+		return new TimeSeriesRater(this, allowUnsafe, warnUnsafe).rate(tscs);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(hec.hecmath.TimeSeriesMath)
+	 */
+	@Override
+	public TimeSeriesMath rate(TimeSeriesMath tsm) throws RatingException {
+		try {
+			return new TimeSeriesMath(rate((TimeSeriesContainer) tsm.getData()));
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException) t;
+			throw new RatingException(t);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(hec.hecmath.TimeSeriesMath[])
+	 */
+	@Override
+	public TimeSeriesMath rate(TimeSeriesMath[] tsms) throws RatingException {
+		TimeSeriesContainer[] tscs = new TimeSeriesContainer[tsms.length];
+		try {
+			for (int i = 0; i < tsms.length; ++i) {
+				tscs[i] = (TimeSeriesContainer) tsms[i].getData();
+			}
+			return new TimeSeriesMath(rate(tscs));
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException) t;
+			throw new RatingException(t);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(double)
+	 */
+	@Override
+	public double reverseRate(double depVal) throws RatingException {
+		return reverseRate(defaultValueTime(), depVal);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(double[])
+	 */
+	@Override
+	public double[] reverseRate(double[] depVals) throws RatingException {
+		return reverseRate(defaultValueTime(), depVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(long, double)
+	 */
+	@Override
+	public double reverseRate(long valTime, double depVal) throws RatingException {
+		return reverseRate(new long[] {valTime}, new double[] {depVal})[0];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(long, double[])
+	 */
+	@Override
+	public double[] reverseRate(long valTime, double[] depVals) throws RatingException {
+		long[] valTimes = new long[depVals.length];
+		Arrays.fill(valTimes, valTime);
+		return reverseRate(valTimes, depVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(long[], double[])
+	 */
+	@Override
+	public double[] reverseRate(long[] valTimes, double[] depVals) throws RatingException {
+		if (depVals.length != valTimes.length) {
+			throw new RatingException("Values and times have different lengths");
+		}
+		checkDataUnits(null);
+		double[] indVals = new double[depVals.length];
+		index.reverseRate(outRangeLowMethod, inRangeMethod, outRangeHighMethod, valTimes, depVals, indVals);
+		return indVals;
+	}
+
+	/**
+	 * Reverse rates values with the units, rating time, default value time and unsafe flags of a context. Since only
+	 * the ratings that were active when this rating set was compiled are available, a rating time in the context can
+	 * only exclude ratings, not include others.
+	 *
+	 * @see IRating#reverseRate(RatingContext, long[], double[])
+	 */
+	@Override
+	public double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+		long[] times = context.valueTimes(valTimes, depVals.length);
+		checkDataUnits(context);
+		EffectiveDateIndex ratings = createdBy(context.getRatingTime()).inUnits(context);
+		double[] indVals = new double[depVals.length];
+		ratings.reverseRate(outRangeLowMethod, inRangeMethod, outRangeHighMethod, times, depVals, indVals, context.getPool(),
+			context.getMinChunkSize());
+		return indVals;
+	}
+
+	/**
+	 * Reverse rates the values in a TimeSeriesContainer and returns the results in a new TimeSeriesContainer. The
+	 * values are converted from the unit of the TimeSeriesContainer to the data unit of the dependent parameter, and
+	 * the reverse rated values are in the data unit of the independent parameter.
+	 *
+	 * @param tsc The TimeSeriesContainer to reverse rate
+	 * @return A TimeSeriesContainer of the reverse rated values
+	 * @throws RatingException on error
+	 */
+	@Override
+	public TimeSeriesContainer reverseRate(TimeSeriesContainer tsc) throws RatingException {
+		if (indParamCount != 1) {
+			throw new RatingException(String.format("Cannot reverse rate a TimeSeriesContainer with a rating that has %d independent parameters", indParamCount));
+		}
+		return new TimeSeriesRater(this, allowUnsafe, warnUnsafe).reverseRate(tsc);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#reverseRate(hec.hecmath.TimeSeriesMath)
+	 */
+	@Override
+	public TimeSeriesMath reverseRate(TimeSeriesMath tsm) throws RatingException {
+		try {
+			return new TimeSeriesMath(reverseRate((TimeSeriesContainer) tsm.getData()));
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException) t;
+			throw new RatingException(t);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#getIndParamCount()
+	 */
+	@Override
+	public int getIndParamCount() {
+		return indParamCount;
+	}
+
+	/**
+	 * Retrieves the default value time for rating values that have no times of their own
+	 * @return The default value time
+	 * @throws RatingException if the default value time is not set
+	 */
+	private long defaultValueTime() throws RatingException {
+		if (defaultValueTime == Const.UNDEFINED_TIME) {
+			throw new RatingException("Default value time is not set");
+		}
+		return defaultValueTime;
+	}
+
+	/**
+	 * Verifies that value sets can be rated by this rating set
+	 * @param valTimes The times of the value sets
+	 * @param indVals The value sets
+	 * @throws RatingException if the values and times have different lengths or the value sets don't match the ratings
+	 */
+	private void checkValueSets(long[] valTimes, double[][] indVals) throws RatingException {
+		if (indVals.length != valTimes.length) {
+			throw new RatingException("Values and times have different lengths");
+		}
+		for (double[] valueSet : indVals) {
+			if (valueSet.length != indParamCount) {
+				throw new RatingException("Value sets have different parameter counts than ratings.");
+			}
+		}
+	}
+
+	/**
+	 * Verifies that the members of an ensemble can be rated
+	 * @param valTimes The times shared by the members
+	 * @param members The values of each member
+	 * @throws RatingException if the ratings have more than one independent parameter or a member doesn't have a value
+	 *         for each time
+	 */
+	private void checkEnsemble(long[] valTimes, double[][] members) throws RatingException {
+		if (indParamCount != 1) {
+			throw new RatingException("Ensembles can only be rated by ratings with a single independent parameter.");
+		}
+		for (double[] member : members) {
+			if (member.length != valTimes.length) {
+				throw new RatingException("Ensemble members and times have different lengths");
+			}
+		}
+	}
+
+	/**
+	 * Verifies that values can be rated in the units of a context
+	 * @param context The context, or null to rate in the data units of this rating set
+	 * @throws RatingException if the ratings have different rating units and neither this rating set nor the context
+	 *         specifies the units to rate in
+	 */
+	private void checkDataUnits(RatingContext context) throws RatingException {
+		if (dataUnitsRequired && (context == null || !context.specifiesUnits())) {
+			throw new RatingException("Data units must be specified when rating set has multiple rating units.");
+		}
+	}
+
+	/**
+	 * Retrieves the compiled ratings that were created by a rating time
+	 * @param ratingTime The rating time, in Java milliseconds
+	 * @return The index of the ratings
+	 * @throws RatingException if none of the ratings were created by the rating time
+	 */
+	private EffectiveDateIndex createdBy(long ratingTime) throws RatingException {
+		EffectiveDateIndex ratings = index.createdBy(ratingTime);
+		if (ratings.size() == 0) {
+			throw new RatingException("No active ratings.");
+		}
+		return ratings;
+	}
+}
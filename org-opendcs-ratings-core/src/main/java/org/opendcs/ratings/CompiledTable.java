@@ -0,0 +1,198 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+/**
+ * Immutable primitive (struct-of-arrays) form of the effective values of a TableRating. Lookups are performed
+ * against the parallel independent and dependent value arrays instead of the RatingValue objects, which remain
+ * the editable representation of the table.
+ * <p>
+ * Lookups use a compiled table without locking its rating, so the parts built on demand are published such that a
+ * lookup racing with the build either sees the finished part or builds an identical one itself.
+ */
+final class CompiledTable {
+	/**
+	 * The independent values, in table order
+	 */
+	final double[] ind;
+	/**
+	 * The dependent values, in table order - valid only where the corresponding dependent table is null
+	 */
+	final double[] dep;
+	/**
+	 * The dependent tables, in table order, for multiple independent parameter ratings, otherwise null
+	 */
+	final TableRating[] depTables;
+	/**
+	 * Flag specifying whether the independent values increase (or the table has a single value)
+	 */
+	final boolean ascending;
+	/**
+	 * Flag specifying whether the rating values have any increasing independent values
+	 */
+	final boolean increasing;
+	/**
+	 * Flag specifying whether the rating values have any decreasing independent values
+	 */
+	final boolean decreasing;
+	/**
+	 * Flag specifying whether the independent values never reverse the search direction of the table
+	 */
+	final boolean monotonic;
+	/**
+	 * The number of rating values (not including extension values)
+	 */
+	final int valueCount;
+	/**
+	 * The interpolation segments for each combination of logarithmic independent and dependent values, built on demand
+	 */
+	private final InterpolationSegments[] segments = new InterpolationSegments[4];
+	/**
+	 * One flag for each combination specifying whether its interpolation segments have been built. The flags are
+	 * set after the segments are stored so that a lookup seeing a flag also sees the segments; a flag lost to a
+	 * concurrent build only causes the segments to be built again.
+	 */
+	private volatile int segmentsBuilt = 0;
+	/**
+	 * The flattened form of the table and its dependent tables, built on demand
+	 */
+	private volatile CompiledGrid grid = null;
+	/**
+	 * The lookup index over the independent values, built on demand
+	 */
+	private volatile BucketIndex index = null;
+	/**
+	 * Flag specifying whether the lookup index over the independent values has been built
+	 */
+	private volatile boolean indexBuilt = false;
+	/**
+	 * The lookup index over the dependent values, built on demand
+	 */
+	private volatile DepIndex depIndex = null;
+
+	/**
+	 * Compiles the specified effective values
+	 * @param effectiveValues The combination of rating and extension values used to perform lookups
+	 * @param props The properties of the sequence of independent rating values
+	 * @param valueCount The number of rating values (not including extension values)
+	 */
+	CompiledTable(RatingValue[] effectiveValues, SequenceProperties props, int valueCount) {
+		int count = effectiveValues.length;
+		ind = new double[count];
+		dep = new double[count];
+		TableRating[] tables = null;
+		for (int i = 0; i < count; ++i) {
+			RatingValue value = effectiveValues[i];
+			ind[i] = value.indValue;
+			dep[i] = value.depValue;
+			if (value.hasDepTable()) {
+				if (tables == null) tables = new TableRating[count];
+				tables[i] = value.depTable;
+			}
+		}
+		depTables = tables;
+		increasing = props != null && props.hasIncreasing();
+		decreasing = props != null && props.hasDecreasing();
+		ascending = increasing || valueCount == 1;
+		this.valueCount = valueCount;
+		monotonic = SearchCursor.isMonotonic(ind, 0, count - 1, ascending);
+	}
+	/**
+	 * Retrieves the number of values in the table
+	 * @return The number of values in the table
+	 */
+	int size() {
+		return ind.length;
+	}
+	/**
+	 * Retrieves the dependent table at the specified position
+	 * @param i The position in the table
+	 * @return The dependent table at the specified position, or null if the position has a dependent value
+	 */
+	TableRating depTable(int i) {
+		return depTables == null ? null : depTables[i];
+	}
+	/**
+	 * Retrieves the interpolation segments for the table, building them on first use
+	 * @param owner The rating that owns the table, which determines how the segments are built
+	 * @param indLog Specifies whether the independent values are interpolated logarithmically
+	 * @param depLog Specifies whether the dependent values are interpolated logarithmically
+	 * @return The interpolation segments, or null if the owner cannot pre-compute segments for the table
+	 * @throws RatingException on error
+	 */
+	InterpolationSegments segments(TableRating owner, boolean indLog, boolean depLog) throws RatingException {
+		int key = (indLog ? 2 : 0) + (depLog ? 1 : 0);
+		if ((segmentsBuilt & (1 << key)) == 0) {
+			segments[key] = owner.buildSegments(this, indLog, depLog);
+			segmentsBuilt |= 1 << key;
+		}
+		return segments[key];
+	}
+	/**
+	 * Retrieves the lookup index over the independent values, building it on first use
+	 * @return The lookup index, or null if the table is too small for one or is not monotonic
+	 */
+	BucketIndex index() {
+		if (!indexBuilt) {
+			index = monotonic ? BucketIndex.build(ind, 0, ind.length - 1, ascending, TableRating.getLookupIndexThreshold()) : null;
+			indexBuilt = true;
+		}
+		return index;
+	}
+	/**
+	 * Retrieves a lookup index over the dependent values, building it on first use
+	 * @param last The position of the last dependent value to index
+	 * @param ascending Specifies whether the dependent values are searched as increasing (true) or decreasing (false)
+	 * @return The lookup index, or null if the range is too small for one or is not monotonic in the specified direction
+	 */
+	BucketIndex depIndex(int last, boolean ascending) {
+		DepIndex built = depIndex;
+		if (built == null || last != built.last || ascending != built.ascending) {
+			BucketIndex index = depTables == null && SearchCursor.isMonotonic(dep, 0, last, ascending)
+					? BucketIndex.build(dep, 0, last, ascending, TableRating.getLookupIndexThreshold())
+					: null;
+			depIndex = built = new DepIndex(last, ascending, index);
+		}
+		return built.index;
+	}
+	/**
+	 * Retrieves the flattened form of the table and its dependent tables, building it on first use
+	 * @param owner The rating that owns the table
+	 * @return The flattened form of the table
+	 */
+	CompiledGrid grid(TableRating owner) {
+		CompiledGrid built = grid;
+		if (built == null) {
+			grid = built = new CompiledGrid(owner, this);
+		}
+		return built;
+	}
+	/**
+	 * A lookup index over the dependent values together with the range it was built for
+	 */
+	private static final class DepIndex {
+		final int last;
+		final boolean ascending;
+		final BucketIndex index;
+
+		DepIndex(int last, boolean ascending, BucketIndex index) {
+			this.last = last;
+			this.ascending = ascending;
+			this.index = index;
+		}
+	}
+}
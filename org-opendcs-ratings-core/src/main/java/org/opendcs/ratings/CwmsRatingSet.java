@@ -30,6 +30,8 @@ public interface CwmsRatingSet extends VerticalDatum {
 
     void addRatings(Iterable<AbstractRating> ratings)  throws RatingException;
 
+    CompiledRatingSet compile() throws RatingException;
+
     boolean doesAllowUnsafe();
 
     boolean doesWarnUnsafe();
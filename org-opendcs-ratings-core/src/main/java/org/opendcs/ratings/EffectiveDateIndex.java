@@ -0,0 +1,1143 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import hec.lang.Const;
+import org.opendcs.ratings.RatingConst.RatingMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The active ratings of a rating set in primitive form: the effective dates in ascending order and the ratings in the
+ * same order. Lookups by value time don't box the time or navigate a tree, and a {@link Cursor} finds the ratings for
+ * time-ordered values by advancing from the last position instead of searching all the effective dates. An index is
+ * a snapshot of the active ratings when it was built and must be rebuilt whenever they change.
+ * <p>
+ * The index also selects and blends the ratings for values by the effective date methods of a rating specification,
+ * so that a rating set and its compiled form rate values the same way.
+ */
+final class EffectiveDateIndex {
+	/**
+	 * The number of effective dates a cursor steps through before it searches instead
+	 */
+	private static final int MAX_STEPS = 8;
+	/**
+	 * The result of {@link #ratingsFor(RatingMethod, RatingMethod, RatingMethod, long, Cursor)} for values that are
+	 * rated as undefined
+	 */
+	static final long NO_RATING = -1L;
+	/**
+	 * The effective dates, in ascending order
+	 */
+	final long[] effectiveDates;
+	/**
+	 * The rating for each effective date
+	 */
+	final AbstractRating[] ratings;
+	/**
+	 * The context whose units values are rated in, or null if values are rated in the units each rating is called with
+	 */
+	private final RatingContext context;
+	/**
+	 * The conversions between the units of the context and the units each rating is called with, indexed by rating,
+	 * resolved when a rating is first used. Null if values are rated in the units each rating is called with.
+	 */
+	private final UnitConversion[][][] conversions;
+
+	/**
+	 * Builds an index of active ratings
+	 * @param activeRatings The active ratings, keyed by effective date
+	 */
+	EffectiveDateIndex(NavigableMap<Long, AbstractRating> activeRatings) {
+		int count = activeRatings.size();
+		effectiveDates = new long[count];
+		ratings = new AbstractRating[count];
+		int i = 0;
+		for (Map.Entry<Long, AbstractRating> entry : activeRatings.entrySet()) {
+			effectiveDates[i] = entry.getKey();
+			ratings[i++] = entry.getValue();
+		}
+		context = null;
+		conversions = null;
+	}
+	/**
+	 * Builds an index of ratings that are already in effective date order
+	 * @param effectiveDates The effective dates, in ascending order. The array is not copied.
+	 * @param ratings The rating for each effective date. The array is not copied.
+	 */
+	EffectiveDateIndex(long[] effectiveDates, AbstractRating[] ratings) {
+		this(effectiveDates, ratings, null);
+	}
+	/**
+	 * Builds an index of ratings that are already in effective date order, rating values in the units of a context
+	 * @param effectiveDates The effective dates, in ascending order. The array is not copied.
+	 * @param ratings The rating for each effective date. The array is not copied.
+	 * @param context The context whose units values are rated in, or null to rate in the units each rating is called with
+	 */
+	private EffectiveDateIndex(long[] effectiveDates, AbstractRating[] ratings, RatingContext context) {
+		this.effectiveDates = effectiveDates;
+		this.ratings = ratings;
+		this.context = context;
+		conversions = context == null ? null : new UnitConversion[ratings.length][][];
+	}
+	/**
+	 * Returns the number of active ratings
+	 * @return The number of active ratings
+	 */
+	int size() {
+		return effectiveDates.length;
+	}
+	/**
+	 * Finds the latest effective date that is not after a time
+	 * @param valueTime The time
+	 * @return The position of the effective date, or -1 if all effective dates are after the time
+	 */
+	int floor(long valueTime) {
+		int pos = Arrays.binarySearch(effectiveDates, valueTime);
+		return pos >= 0 ? pos : -pos - 2;
+	}
+	/**
+	 * Returns the position of the earliest effective date that is not before a time, given the position of the latest
+	 * effective date that is not after it
+	 * @param floor The position returned by {@link #floor(long)} or {@link Cursor#floor(long)} for the time
+	 * @param valueTime The time
+	 * @return The position of the effective date, or {@link #size()} if all effective dates are before the time
+	 */
+	int ceiling(int floor, long valueTime) {
+		return floor >= 0 && effectiveDates[floor] == valueTime ? floor : floor + 1;
+	}
+	/**
+	 * Returns the index of the ratings that were created by a rating time
+	 * @param ratingTime The rating time, in Java milliseconds
+	 * @return This index if all its ratings were created by the rating time, otherwise a new index of those that were
+	 */
+	EffectiveDateIndex createdBy(long ratingTime) {
+		int count = 0;
+		for (AbstractRating rating : ratings) {
+			if (rating.createDate <= ratingTime) ++count;
+		}
+		if (count == ratings.length) {
+			return this;
+		}
+		long[] dates = new long[count];
+		AbstractRating[] created = new AbstractRating[count];
+		count = 0;
+		for (int i = 0; i < ratings.length; ++i) {
+			if (ratings[i].createDate <= ratingTime) {
+				dates[count] = effectiveDates[i];
+				created[count++] = ratings[i];
+			}
+		}
+		return new EffectiveDateIndex(dates, created);
+	}
+	/**
+	 * Returns an index of the same ratings that rates values in the units of a context. Each rating is called with
+	 * values converted directly from the units of the context to the units it is called with, so the ratings need not
+	 * share units, and the conversions follow the unsafe flags of the context.
+	 * @param context The context
+	 * @return This index if the context doesn't specify units, otherwise a new index that rates in its units
+	 */
+	EffectiveDateIndex inUnits(RatingContext context) {
+		if (context.getDataUnits() == null) {
+			return this;
+		}
+		return new EffectiveDateIndex(effectiveDates, ratings, context);
+	}
+	/**
+	 * Retrieves the conversions between the units of the context and the units a rating is called with, resolving
+	 * them if the rating hasn't been used yet. Conversions resolved by several threads at once are identical, so
+	 * whichever is stored last is used.
+	 * @param pos The position of the rating
+	 * @return The conversions from the units of the context and to the units of the context, in that order, each
+	 *         indexed by parameter
+	 * @throws RatingException if the units cannot be converted and the context doesn't allow "risky" behavior
+	 */
+	private UnitConversion[][] conversionsFor(int pos) throws RatingException {
+		UnitConversion[][] c = conversions[pos];
+		if (c == null) {
+			String[] units = ratings[pos].getDataUnits();
+			c = new UnitConversion[2][units.length];
+			for (int p = 0; p < units.length; ++p) {
+				c[0][p] = context.toUnits(p, units);
+				c[1][p] = context.fromUnits(p, units);
+			}
+			conversions[pos] = c;
+		}
+		return c;
+	}
+	/**
+	 * Rates value sets with the ratings selected for their times. Contiguous values that are rated by the same rating,
+	 * or interpolated between the same pair of ratings, are rated together through the bulk rate method of each rating.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueSets The value sets to rate
+	 * @param valueTimes The times of the value sets, in Java milliseconds
+	 * @param out The array to receive the rated values
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void rate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, double[][] valueSets, long[] valueTimes,
+			double[] out) throws RatingException {
+		rate(outRangeLow, inRange, outRangeHigh, valueSets, null, valueTimes, out, 0, 0, valueSets.length);
+	}
+	/**
+	 * Rates value sets with the ratings selected for their times, splitting large batches into chunks that are rated
+	 * in parallel. Chunk boundaries are placed where the ratings for the values change when that can be done without
+	 * making the chunks much larger, so that few runs of values are split. Each value is rated exactly as
+	 * {@link #rate(RatingMethod, RatingMethod, RatingMethod, double[][], long[], double[])} rates it, so the results are
+	 * identical, and the exception reported is the one the first failing chunk throws.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueSets The value sets to rate
+	 * @param valueTimes The times of the value sets, in Java milliseconds
+	 * @param out The array to receive the rated values
+	 * @param pool The pool to rate the chunks in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values to rate in a chunk
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void rate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, double[][] valueSets, long[] valueTimes,
+			double[] out, ForkJoinPool pool, int minChunkSize) throws RatingException {
+		rate(outRangeLow, inRange, outRangeHigh, valueSets, null, valueTimes, 0, valueSets.length, out, 0, pool, minChunkSize);
+	}
+	/**
+	 * Rates a range of the value sets of a batch with the ratings selected for their times, as
+	 * {@link #rate(RatingMethod, RatingMethod, RatingMethod, double[][], long[], double[], ForkJoinPool, int)} rates value
+	 * sets held as rows. Each run of values is rated through the batch, so ratings read the columns in place.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param batch The batch
+	 * @param valueTimes The times of the value sets of the batch, in Java milliseconds
+	 * @param offset The position of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param out The array to receive the rated values
+	 * @param outOffset The position in out of the first rated value
+	 * @param pool The pool to rate the chunks in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values to rate in a chunk
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void rate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, RatingBatch batch, long[] valueTimes,
+			int offset, int length, double[] out, int outOffset, ForkJoinPool pool, int minChunkSize) throws RatingException {
+		rate(outRangeLow, inRange, outRangeHigh, null, batch, valueTimes, offset, length, out, outOffset, pool, minChunkSize);
+	}
+	/**
+	 * Rates a range of value sets held either as rows or in a batch, splitting large ranges into chunks that are rated
+	 * in parallel
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueSets The value sets to rate, or null to rate the value sets of the batch
+	 * @param batch The batch to rate if valueSets is null
+	 * @param valueTimes The times of the value sets, in Java milliseconds
+	 * @param offset The position of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param out The array to receive the rated values
+	 * @param outOffset The position in out of the first rated value
+	 * @param pool The pool to rate the chunks in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values to rate in a chunk
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	private void rate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, double[][] valueSets, RatingBatch batch,
+			long[] valueTimes, int offset, int length, double[] out, int outOffset, ForkJoinPool pool, int minChunkSize) throws RatingException {
+		int shift = outOffset - offset;
+		int[] bounds = chunkBounds(outRangeLow, inRange, outRangeHigh, valueTimes, offset, offset + length, pool, minChunkSize, true);
+		if (bounds == null) {
+			rate(outRangeLow, inRange, outRangeHigh, valueSets, batch, valueTimes, out, shift, offset, offset + length);
+			return;
+		}
+		List<Callable<RatingException>> chunks = new ArrayList<>(bounds.length - 1);
+		for (int k = 1; k < bounds.length; ++k) {
+			int start = bounds[k - 1];
+			int end = bounds[k];
+			chunks.add(() -> {
+				try {
+					rate(outRangeLow, inRange, outRangeHigh, valueSets, batch, valueTimes, out, shift, start, end);
+					return null;
+				}
+				catch (RatingException e) {
+					return e;
+				}
+			});
+		}
+		invokeAll(pool, chunks);
+	}
+	/**
+	 * Rates a range of value sets with the ratings selected for their times
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueSets The value sets to rate, or null to rate the value sets of the batch
+	 * @param batch The batch to rate if valueSets is null
+	 * @param valueTimes The times of the value sets, in Java milliseconds
+	 * @param out The array to receive the rated values
+	 * @param shift The position in out of the rated value of each value set, less the position of the value set
+	 * @param start The position of the first value set to rate
+	 * @param stop The position after the last value set to rate
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	private void rate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, double[][] valueSets, RatingBatch batch,
+			long[] valueTimes, double[] out, int shift, int start, int stop) throws RatingException {
+		Cursor cursor = new Cursor();
+		double[] upperVals = null;
+		int i = start;
+		while (i < stop) {
+			//-------------------------------------------------------------//
+			// find the run of values that are rated by the same rating(s) //
+			//-------------------------------------------------------------//
+			long pair = ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[i], cursor);
+			int end = i + 1;
+			while (end < stop
+				&& (valueTimes[end] == valueTimes[end - 1] || ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[end], cursor) == pair)) {
+				++end;
+			}
+			int length = end - i;
+			int lower = (int) (pair >> 32);
+			int upper = (int) pair;
+			if (pair == NO_RATING) {
+				Arrays.fill(out, i + shift, end + shift, Const.UNDEFINED_DOUBLE);
+			}
+			else if (lower == upper) {
+				rateRun(lower, valueSets, batch, i, length, valueTimes, out, i + shift);
+			}
+			else {
+				//------------------------------------//
+				// handle interpolation/extrapolation //
+				//------------------------------------//
+				if (upperVals == null) {
+					//--------------------------------------------------//
+					// no later run is longer than the values remaining //
+					//--------------------------------------------------//
+					upperVals = new double[stop - i];
+				}
+				rateRun(lower, valueSets, batch, i, length, valueTimes, out, i + shift);
+				rateRun(upper, valueSets, batch, i, length, valueTimes, upperVals, 0);
+				long t1 = interpolationStart(lower, upper);
+				long t2 = effectiveDates[upper];
+				for (int j = 0; j < length; ++j) {
+					double y1 = out[i + j + shift];
+					double y2 = upperVals[j];
+					if (y1 == Const.UNDEFINED_DOUBLE || y2 == Const.UNDEFINED_DOUBLE) {
+						out[i + j + shift] = Const.UNDEFINED_DOUBLE;
+					}
+					else {
+						long t = valueTimes[i + j];
+						if (t > t1) {
+							out[i + j + shift] = y1 + (((double) t - t1) / (t2 - t1)) * (y2 - y1);
+						}
+					}
+				}
+			}
+			i = end;
+		}
+	}
+	/**
+	 * Rates a run of value sets held either as rows or in a batch with a single rating, converting them between the
+	 * units of the context and the units of the rating if this index rates in the units of a context
+	 * @param pos The position of the rating
+	 * @param valueSets The value sets to rate, or null to rate the value sets of the batch
+	 * @param batch The batch to rate if valueSets is null
+	 * @param offset The position of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param valueTimes The times of the value sets, in Java milliseconds
+	 * @param out The array to receive the rated values
+	 * @param outOffset The position in out of the first rated value
+	 * @throws RatingException on a rating error
+	 */
+	private void rateRun(int pos, double[][] valueSets, RatingBatch batch, int offset, int length, long[] valueTimes,
+			double[] out, int outOffset) throws RatingException {
+		AbstractRating rating = ratings[pos];
+		if (conversions == null) {
+			if (valueSets != null) {
+				rating.rate(valueSets, offset, length, valueTimes, out, outOffset);
+			}
+			else {
+				rating.rate(batch, offset, length, out, outOffset);
+			}
+			return;
+		}
+		UnitConversion[][] c = conversionsFor(pos);
+		double[][] columns = valueSets == null ? batch.columns() : null;
+		int paramCount = valueSets == null ? batch.getParamCount() : 0;
+		double[][] converted = new double[length][];
+		for (int i = 0; i < length; ++i) {
+			double[] valueSet;
+			if (valueSets != null) {
+				valueSet = Arrays.copyOf(valueSets[offset + i], valueSets[offset + i].length);
+			}
+			else {
+				valueSet = new double[paramCount];
+				for (int p = 0; p < paramCount; ++p) {
+					valueSet[p] = columns[p][offset + i];
+				}
+			}
+			for (int p = 0; p < valueSet.length && p < c[0].length; ++p) {
+				if (valueSet[p] != Const.UNDEFINED_DOUBLE) {
+					valueSet[p] = c[0][p].convert(valueSet[p]);
+				}
+			}
+			converted[i] = valueSet;
+		}
+		rating.rate(converted, 0, length, Arrays.copyOfRange(valueTimes, offset, offset + length), out, outOffset);
+		c[1][c[1].length - 1].convert(out, outOffset, outOffset + length);
+	}
+	/**
+	 * Rates a range of the value sets of a batch with the ratings selected for their times, reporting the outcome of
+	 * each value set in a status array instead of throwing exceptions for value sets that can't be rated, whether
+	 * because of their times or their values. Each value that is rated is rated exactly as
+	 * {@link #rate(RatingMethod, RatingMethod, RatingMethod, RatingBatch, long[], int, int, double[], int, ForkJoinPool, int)}
+	 * rates it.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param batch The batch
+	 * @param valueTimes The times of the value sets of the batch, in Java milliseconds
+	 * @param offset The position of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param out The array to receive the rated values
+	 * @param status The array to receive the {@link RatingStatus} of each rated value, indexed the same as out
+	 * @param outOffset The position in out and status of the first rated value
+	 * @throws RatingException if a rating can't rate the batch at all
+	 */
+	void rateWithStatus(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, RatingBatch batch, long[] valueTimes,
+			int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+		int shift = outOffset - offset;
+		int stop = offset + length;
+		Cursor cursor = new Cursor();
+		byte[] outcome = new byte[1];
+		byte[] timeStatus = new byte[length];
+		double[] upperVals = null;
+		byte[] upperStatus = null;
+		int i = offset;
+		while (i < stop) {
+			//-------------------------------------------------------------//
+			// find the run of values that are rated by the same rating(s) //
+			//-------------------------------------------------------------//
+			long pair = ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[i], cursor, outcome);
+			timeStatus[i - offset] = outcome[0];
+			int end = i + 1;
+			while (end < stop) {
+				if (valueTimes[end] == valueTimes[end - 1]) {
+					outcome[0] = timeStatus[end - 1 - offset];
+				}
+				else if (ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[end], cursor, outcome) != pair) {
+					break;
+				}
+				timeStatus[end - offset] = outcome[0];
+				++end;
+			}
+			int runLength = end - i;
+			int lower = (int) (pair >> 32);
+			int upper = (int) pair;
+			if (pair == NO_RATING) {
+				Arrays.fill(out, i + shift, end + shift, Const.UNDEFINED_DOUBLE);
+				Arrays.fill(status, i + shift, end + shift, RatingStatus.OK);
+			}
+			else if (lower == upper) {
+				ratings[lower].rateWithStatus(batch, i, runLength, out, status, i + shift);
+			}
+			else {
+				//------------------------------------//
+				// handle interpolation/extrapolation //
+				//------------------------------------//
+				if (upperVals == null) {
+					//--------------------------------------------------//
+					// no later run is longer than the values remaining //
+					//--------------------------------------------------//
+					upperVals = new double[stop - i];
+					upperStatus = new byte[stop - i];
+				}
+				ratings[lower].rateWithStatus(batch, i, runLength, out, status, i + shift);
+				ratings[upper].rateWithStatus(batch, i, runLength, upperVals, upperStatus, 0);
+				long t1 = interpolationStart(lower, upper);
+				long t2 = effectiveDates[upper];
+				for (int j = 0; j < runLength; ++j) {
+					double y1 = out[i + j + shift];
+					double y2 = upperVals[j];
+					status[i + j + shift] = RatingStatus.worse(status[i + j + shift], upperStatus[j]);
+					if (y1 == Const.UNDEFINED_DOUBLE || y2 == Const.UNDEFINED_DOUBLE) {
+						out[i + j + shift] = Const.UNDEFINED_DOUBLE;
+					}
+					else {
+						long t = valueTimes[i + j];
+						if (t > t1) {
+							out[i + j + shift] = y1 + (((double) t - t1) / (t2 - t1)) * (y2 - y1);
+						}
+					}
+				}
+			}
+			//--------------------------------------------------//
+			// combine the statuses of the times and the values //
+			//--------------------------------------------------//
+			for (int j = i; j < end; ++j) {
+				byte combined = RatingStatus.worse(status[j + shift], timeStatus[j - offset]);
+				if (out[j + shift] == Const.UNDEFINED_DOUBLE) {
+					combined = RatingStatus.worse(combined, RatingStatus.UNDEFINED);
+				}
+				status[j + shift] = combined;
+			}
+			i = end;
+		}
+	}
+	/**
+	 * Rates the members of an ensemble, which are sequences of values of a single independent parameter that share
+	 * the same value times. The ratings and interpolation weights for the value times are determined once and applied
+	 * to every member, and each member is rated exactly as
+	 * {@link #rate(RatingMethod, RatingMethod, RatingMethod, double[][], long[], double[])} rates it. With a pool, groups
+	 * of members are rated in parallel.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueTimes The times of the values, in Java milliseconds
+	 * @param members The values of each member, one for each value time
+	 * @param out The arrays to receive the rated values of each member
+	 * @param pool The pool to rate the members in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values to rate in a chunk
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void rateEnsemble(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valueTimes, double[][] members,
+			double[][] out, ForkJoinPool pool, int minChunkSize) throws RatingException {
+		Schedule schedule = new Schedule(outRangeLow, inRange, outRangeHigh, valueTimes);
+		int groupSize = members.length;
+		if (pool != null && pool.getParallelism() >= 2 && valueTimes.length > 0) {
+			//-------------------------------------------------------//
+			// a few groups per thread, each at least the chunk size //
+			//-------------------------------------------------------//
+			groupSize = Math.max((Math.max(minChunkSize, 1) + valueTimes.length - 1) / valueTimes.length,
+				(int) Math.ceil((double) members.length / (4 * pool.getParallelism())));
+		}
+		if (members.length < 2 * groupSize) {
+			schedule.rate(members, out, 0, members.length);
+			return;
+		}
+		List<Callable<RatingException>> groups = new ArrayList<>();
+		for (int start = 0; start < members.length; start += groupSize) {
+			int first = start;
+			int stop = Math.min(start + groupSize, members.length);
+			groups.add(() -> {
+				try {
+					schedule.rate(members, out, first, stop);
+					return null;
+				}
+				catch (RatingException e) {
+					return e;
+				}
+			});
+		}
+		invokeAll(pool, groups);
+	}
+	/**
+	 * Reverse rates values with the ratings selected for their times.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valTimes The times of the values, in Java milliseconds
+	 * @param depVals The values to reverse rate
+	 * @param out The array to receive the reverse rated values
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void reverseRate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valTimes, double[] depVals,
+			double[] out) throws RatingException {
+		reverseRate(outRangeLow, inRange, outRangeHigh, valTimes, depVals, out, 0, depVals.length);
+	}
+	/**
+	 * Reverse rates values with the ratings selected for their times, splitting large batches into chunks that are
+	 * reverse rated in parallel. Each value is reverse rated exactly as
+	 * {@link #reverseRate(RatingMethod, RatingMethod, RatingMethod, long[], double[], double[])} reverse rates it.
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valTimes The times of the values, in Java milliseconds
+	 * @param depVals The values to reverse rate
+	 * @param out The array to receive the reverse rated values
+	 * @param pool The pool to reverse rate the chunks in, or null to reverse rate on the calling thread
+	 * @param minChunkSize The smallest number of values to reverse rate in a chunk
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	void reverseRate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valTimes, double[] depVals,
+			double[] out, ForkJoinPool pool, int minChunkSize) throws RatingException {
+		int[] bounds = chunkBounds(outRangeLow, inRange, outRangeHigh, valTimes, 0, depVals.length, pool, minChunkSize, false);
+		if (bounds == null) {
+			reverseRate(outRangeLow, inRange, outRangeHigh, valTimes, depVals, out, 0, depVals.length);
+			return;
+		}
+		List<Callable<RatingException>> chunks = new ArrayList<>(bounds.length - 1);
+		for (int k = 1; k < bounds.length; ++k) {
+			int start = bounds[k - 1];
+			int end = bounds[k];
+			chunks.add(() -> {
+				try {
+					reverseRate(outRangeLow, inRange, outRangeHigh, valTimes, depVals, out, start, end);
+					return null;
+				}
+				catch (RatingException e) {
+					return e;
+				}
+			});
+		}
+		invokeAll(pool, chunks);
+	}
+	/**
+	 * Reverse rates a range of values with the ratings selected for their times
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valTimes The times of the values, in Java milliseconds
+	 * @param depVals The values to reverse rate
+	 * @param out The array to receive the reverse rated values
+	 * @param start The position of the first value to reverse rate
+	 * @param stop The position after the last value to reverse rate
+	 * @throws RatingException if the rating specification doesn't allow rating a value at its time, or on a rating error
+	 */
+	private void reverseRate(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valTimes,
+			double[] depVals, double[] out, int start, int stop) throws RatingException {
+		Cursor cursor = new Cursor();
+		for (int i = start; i < stop; ++i) {
+			long pair = ratingsFor(outRangeLow, inRange, outRangeHigh, valTimes[i], cursor);
+			int lower = (int) (pair >> 32);
+			int upper = (int) pair;
+			if (pair == NO_RATING) {
+				out[i] = Const.UNDEFINED_DOUBLE;
+				continue;
+			}
+			if (lower == upper) {
+				out[i] = reverseRate(lower, valTimes[i], depVals[i]);
+				continue;
+			}
+			//------------------------------------//
+			// handle interpolation/extrapolation //
+			//------------------------------------//
+			boolean ind_log = inRange == RatingMethod.LOGARITHMIC || inRange == RatingMethod.LIN_LOG;
+			boolean dep_log = inRange == RatingMethod.LOGARITHMIC || inRange == RatingMethod.LOG_LIN;
+			double x = valTimes[i];
+			double x1 = effectiveDates[lower];
+			double x2 = effectiveDates[upper];
+			double Y1 = reverseRate(lower, valTimes[i], depVals[i]);
+			double Y2 = reverseRate(upper, valTimes[i], depVals[i]);
+			double y1 = Y1;
+			double y2 = Y2;
+			if (ind_log) {
+				x = Math.log10(x);
+				x1 = Math.log10(x1);
+				x2 = Math.log10(x2);
+				if (Double.isNaN(x) || Double.isInfinite(x) || Double.isNaN(x1) || Double.isInfinite(x1) || Double.isNaN(x2) ||
+					Double.isInfinite(x2)) {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
+					//-------------------------------------------------//
+					x = valTimes[i];
+					x1 = effectiveDates[lower];
+					x2 = effectiveDates[upper];
+					dep_log = false;
+				}
+			}
+			if (dep_log) {
+				y1 = Math.log10(y1);
+				y2 = Math.log10(y2);
+				if (Double.isNaN(y1) || Double.isInfinite(y1) || Double.isNaN(y2) || Double.isInfinite(y2)) {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
+					//-------------------------------------------------//
+					x = valTimes[i];
+					x1 = effectiveDates[lower];
+					x2 = effectiveDates[upper];
+					y1 = Y1;
+					y2 = Y2;
+					dep_log = false;
+				}
+			}
+			double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
+			if (dep_log) {
+				y = Math.pow(10, y);
+			}
+			out[i] = y;
+		}
+	}
+	/**
+	 * Reverse rates a value with a single rating, converting it between the units of the context and the units of the
+	 * rating if this index rates in the units of a context
+	 * @param pos The position of the rating
+	 * @param valTime The time of the value, in Java milliseconds
+	 * @param depVal The value to reverse rate
+	 * @return The reverse rated value
+	 * @throws RatingException on a rating error
+	 */
+	private double reverseRate(int pos, long valTime, double depVal) throws RatingException {
+		if (conversions == null) {
+			return ratings[pos].reverseRate(valTime, depVal);
+		}
+		UnitConversion[][] c = conversionsFor(pos);
+		if (depVal != Const.UNDEFINED_DOUBLE) {
+			depVal = c[0][c[0].length - 1].convert(depVal);
+		}
+		double indVal = ratings[pos].reverseRate(valTime, depVal);
+		return indVal == Const.UNDEFINED_DOUBLE ? indVal : c[1][0].convert(indVal);
+	}
+	/**
+	 * Divides a batch of values into chunks to rate in parallel
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueTimes The times of the values, in Java milliseconds
+	 * @param first The position of the first value
+	 * @param stop The position after the last value
+	 * @param pool The pool to rate the chunks in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values in a chunk
+	 * @param alignToRuns Specifies whether to move chunk boundaries to where the ratings for the values change
+	 * @return The positions of the chunk boundaries, starting with first and ending with stop, or null if the values are
+	 *         to be rated in a single chunk on the calling thread
+	 */
+	private int[] chunkBounds(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valueTimes, int first,
+			int stop, ForkJoinPool pool, int minChunkSize, boolean alignToRuns) {
+		if (pool == null || pool.getParallelism() < 2) {
+			return null;
+		}
+		int count = stop - first;
+		//-------------------------------------------------------------//
+		// a few chunks per thread lets idle threads take up the slack //
+		//-------------------------------------------------------------//
+		int chunkSize = Math.max(Math.max(minChunkSize, 1), (int) Math.ceil((double) count / (4 * pool.getParallelism())));
+		if (count < 2 * chunkSize) {
+			return null;
+		}
+		int[] bounds = new int[count / chunkSize + 2];
+		int chunks = 0;
+		int start = first;
+		Cursor cursor = new Cursor();
+		while (start < stop) {
+			bounds[chunks++] = start;
+			int end = start + chunkSize;
+			if (end >= stop - chunkSize / 2) {
+				break;
+			}
+			if (alignToRuns) {
+				//---------------------------------------------------------------//
+				// look a short way ahead for the end of the run at the boundary //
+				//---------------------------------------------------------------//
+				try {
+					long pair = ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[end - 1], cursor);
+					int limit = Math.min(end + chunkSize / 4, stop);
+					for (int i = end; i < limit; ++i) {
+						if (valueTimes[i] != valueTimes[i - 1] && ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[i], cursor) != pair) {
+							end = i;
+							break;
+						}
+					}
+				}
+				catch (RatingException e) {
+					//---------------------------------------------------------//
+					// leave the boundary - rating the chunk reports the error //
+					//---------------------------------------------------------//
+				}
+			}
+			start = end;
+		}
+		bounds[chunks++] = stop;
+		return Arrays.copyOf(bounds, chunks);
+	}
+	/**
+	 * Runs the chunks of a batch in a pool and waits for them all to finish
+	 * @param pool The pool to run the chunks in
+	 * @param chunks The chunks, in the order of the values they rate. Each returns the exception it failed with, or null.
+	 * @throws RatingException the exception of the first chunk that failed, in the order of the values
+	 */
+	private static void invokeAll(ForkJoinPool pool, List<Callable<RatingException>> chunks) throws RatingException {
+		List<Future<RatingException>> futures = pool.invokeAll(chunks);
+		for (Future<RatingException> future : futures) {
+			RatingException failure;
+			try {
+				failure = future.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RatingException(e);
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RatingException) throw (RatingException) cause;
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				if (cause instanceof Error) throw (Error) cause;
+				throw new RatingException(cause);
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+	/**
+	 * Determines the rating or ratings used to rate a value at the specified time
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueTime The time of the value
+	 * @param cursor The cursor to find the effective dates with
+	 * @return The positions of the lower rating (in the upper 32 bits) and the upper rating (in the lower 32 bits),
+	 *         which are the same if the value is rated by a single rating, or {@link #NO_RATING} if the value is rated
+	 *         as undefined
+	 * @throws RatingException if the rating specification doesn't allow rating a value at the specified time
+	 */
+	long ratingsFor(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long valueTime, Cursor cursor)
+			throws RatingException {
+		return ratingsFor(outRangeLow, inRange, outRangeHigh, valueTime, cursor, null);
+	}
+	/**
+	 * Determines the rating or ratings used to rate a value at the specified time, optionally reporting a time that
+	 * the rating specification doesn't allow rating at as a status instead of throwing an exception
+	 * @param outRangeLow The method for values before the earliest effective date
+	 * @param inRange The method for values between effective dates
+	 * @param outRangeHigh The method for values after the latest effective date
+	 * @param valueTime The time of the value
+	 * @param cursor The cursor to find the effective dates with
+	 * @param outcome A single element that receives the {@link RatingStatus} of the time, or null to throw exceptions
+	 * @return The positions of the lower rating (in the upper 32 bits) and the upper rating (in the lower 32 bits),
+	 *         which are the same if the value is rated by a single rating, or {@link #NO_RATING} if the value is rated
+	 *         as undefined or, with an outcome, can't be rated
+	 * @throws RatingException if outcome is null and the rating specification doesn't allow rating a value at the
+	 *         specified time
+	 */
+	private long ratingsFor(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long valueTime, Cursor cursor,
+			byte[] outcome) throws RatingException {
+		if (outcome != null) {
+			outcome[0] = RatingStatus.OK;
+		}
+		int last = effectiveDates.length - 1;
+		int lower = cursor.floor(valueTime);
+		int upper = ceiling(lower, valueTime);
+		RatingMethod method;
+		//-------------------------//
+		// handle out of range low //
+		//-------------------------//
+		if (lower < 0) {
+			method = outRangeLow;
+			switch (method) {
+				case ERROR:
+					return unrated(outcome, RatingStatus.OUT_OF_RANGE_LOW, "Effective date is before earliest rating");
+				case NULL:
+					return unrated(outcome, RatingStatus.OUT_OF_RANGE_LOW, null);
+				case NEXT:
+				case NEAREST:
+				case HIGHER:
+				case CLOSEST:
+					return ratingPair(0, 0);
+				default:
+					break;
+			}
+			if (last == 0) {
+				return unrated(outcome, RatingStatus.ERROR, String.format("Cannot use rating method %s with only one active rating.", method));
+			}
+			extrapolated(outcome);
+			lower = 0;
+			upper = 1;
+		}
+		//--------------------------//
+		// handle out of range high //
+		//--------------------------//
+		if (upper > last) {
+			method = outRangeHigh;
+			switch (method) {
+				case ERROR:
+					return unrated(outcome, RatingStatus.OUT_OF_RANGE_HIGH, "Effective date is after latest rating");
+				case NULL:
+					return unrated(outcome, RatingStatus.OUT_OF_RANGE_HIGH, null);
+				case PREVIOUS:
+				case NEAREST:
+				case LOWER:
+				case CLOSEST:
+					return ratingPair(last, last);
+				default:
+					break;
+			}
+			if (last == 0) {
+				if (method == RatingMethod.LINEAR) {
+					//-----------------------------------------------------------------//
+					// allow LINEAR out of range high method with single active rating //
+					//-----------------------------------------------------------------//
+					extrapolated(outcome);
+					return ratingPair(last, last);
+				}
+				return unrated(outcome, RatingStatus.ERROR, String.format("Cannot use rating method %s with only one active rating.", method));
+			}
+			extrapolated(outcome);
+			upper = last;
+			lower = last - 1;
+		}
+		//-----------------------------------//
+		// handle in-range and extrapolation //
+		//-----------------------------------//
+		if (effectiveDates[lower] == valueTime) {
+			return ratingPair(lower, lower);
+		}
+		if (effectiveDates[upper] == valueTime) {
+			return ratingPair(upper, upper);
+		}
+		switch (inRange) {
+			case ERROR:
+				return unrated(outcome, RatingStatus.ERROR, "Effective date is between existing rating");
+			case NULL:
+				return unrated(outcome, RatingStatus.UNDEFINED, null);
+			case PREVIOUS:
+			case LOWER:
+				return ratingPair(lower, lower);
+			case NEXT:
+			case HIGHER:
+				return ratingPair(upper, upper);
+			case CLOSEST:
+				if (valueTime - effectiveDates[lower] < effectiveDates[upper] - valueTime) {
+					return ratingPair(lower, lower);
+				}
+				return ratingPair(upper, upper);
+			default:
+				return ratingPair(lower, upper);
+		}
+	}
+	/**
+	 * Reports a time that no rating is used for
+	 * @param outcome A single element that receives the status of the time, or null to throw an exception
+	 * @param status The {@link RatingStatus} of the time
+	 * @param message The message of the exception, or null if the time is rated as undefined without one
+	 * @return {@link #NO_RATING}
+	 * @throws RatingException if outcome is null and message is not
+	 */
+	private static long unrated(byte[] outcome, byte status, String message) throws RatingException {
+		if (outcome == null) {
+			if (message != null) throw new RatingException(message);
+		}
+		else {
+			outcome[0] = status;
+		}
+		return NO_RATING;
+	}
+	/**
+	 * Reports a time outside the effective dates that is rated by extrapolating between ratings
+	 * @param outcome A single element that receives the status of the time, or null
+	 */
+	private static void extrapolated(byte[] outcome) {
+		if (outcome != null) {
+			outcome[0] = RatingStatus.EXTRAPOLATED;
+		}
+	}
+	/**
+	 * Determines the time from which values are interpolated between a pair of ratings. Values at or before this time
+	 * are rated by the lower rating alone.
+	 * @param lower The position of the lower rating
+	 * @param upper The position of the upper rating
+	 * @return The time, in Java milliseconds
+	 */
+	long interpolationStart(int lower, int upper) {
+		long transitionStartMillis = ratings[upper].getTransitionStartDate();
+		long t1 = effectiveDates[lower];
+		long t2 = effectiveDates[upper];
+		if (ratings[lower] instanceof UsgsStreamTableRating) {
+			t1 = ((UsgsStreamTableRating) ratings[lower]).getLatestEffectiveDate(t2);
+		}
+		if (transitionStartMillis > t1 && transitionStartMillis < t2) {
+			t1 = transitionStartMillis;
+		}
+		return t1;
+	}
+	/**
+	 * Packs the positions of a lower and upper rating into the form returned by
+	 * {@link #ratingsFor(RatingMethod, RatingMethod, RatingMethod, long, Cursor)}
+	 * @param lower The position of the lower rating
+	 * @param upper The position of the upper rating
+	 * @return The packed positions
+	 */
+	private static long ratingPair(int lower, int upper) {
+		return ((long) lower << 32) | (upper & 0xffffffffL);
+	}
+
+	/**
+	 * The ratings and interpolation weights for a sequence of value times, determined once so that any number of
+	 * value sequences sharing the times can be rated without selecting the ratings again. A schedule is immutable and
+	 * may be used by several threads at once.
+	 */
+	private final class Schedule {
+		/**
+		 * The value times, in Java milliseconds
+		 */
+		private final long[] valueTimes;
+		/**
+		 * The position of the first value of each run of values rated by the same rating(s), followed by the number
+		 * of values
+		 */
+		private final int[] runStarts;
+		/**
+		 * The rating(s) for each run, as returned by {@link #ratingsFor(RatingMethod, RatingMethod, RatingMethod, long, Cursor)}
+		 */
+		private final long[] pairs;
+		/**
+		 * The weight of the upper rating for each value interpolated between ratings, or 0 if the value is rated by the
+		 * lower rating alone
+		 */
+		private final double[] weights;
+
+		/**
+		 * Determines the ratings and weights for a sequence of value times
+		 * @param outRangeLow The method for values before the earliest effective date
+		 * @param inRange The method for values between effective dates
+		 * @param outRangeHigh The method for values after the latest effective date
+		 * @param valueTimes The times of the values, in Java milliseconds
+		 * @throws RatingException if the rating specification doesn't allow rating a value at its time
+		 */
+		Schedule(RatingMethod outRangeLow, RatingMethod inRange, RatingMethod outRangeHigh, long[] valueTimes) throws RatingException {
+			int count = valueTimes.length;
+			int[] starts = new int[count + 1];
+			long[] runPairs = new long[count];
+			this.valueTimes = valueTimes;
+			weights = new double[count];
+			Cursor cursor = new Cursor();
+			int runs = 0;
+			int i = 0;
+			while (i < count) {
+				long pair = ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[i], cursor);
+				int end = i + 1;
+				while (end < count
+					&& (valueTimes[end] == valueTimes[end - 1] || ratingsFor(outRangeLow, inRange, outRangeHigh, valueTimes[end], cursor) == pair)) {
+					++end;
+				}
+				int lower = (int) (pair >> 32);
+				int upper = (int) pair;
+				if (pair != NO_RATING && lower != upper) {
+					long t1 = interpolationStart(lower, upper);
+					long t2 = effectiveDates[upper];
+					for (int j = i; j < end; ++j) {
+						long t = valueTimes[j];
+						if (t > t1) {
+							weights[j] = ((double) t - t1) / (t2 - t1);
+						}
+					}
+				}
+				starts[runs] = i;
+				runPairs[runs++] = pair;
+				i = end;
+			}
+			starts[runs] = count;
+			runStarts = Arrays.copyOf(starts, runs + 1);
+			pairs = Arrays.copyOf(runPairs, runs);
+		}
+		/**
+		 * Rates a range of value sequences
+		 * @param members The value sequences, one value for each value time
+		 * @param out The arrays to receive the rated values of each sequence
+		 * @param start The position of the first sequence to rate
+		 * @param stop The position after the last sequence to rate
+		 * @throws RatingException on a rating error
+		 */
+		void rate(double[][] members, double[][] out, int start, int stop) throws RatingException {
+			int count = valueTimes.length;
+			double[][] valueSets = new double[count][1];
+			double[] upperVals = new double[count];
+			for (int m = start; m < stop; ++m) {
+				double[] member = members[m];
+				double[] y = out[m];
+				for (int i = 0; i < count; ++i) {
+					valueSets[i][0] = member[i];
+				}
+				for (int k = 0; k < pairs.length; ++k) {
+					int first = runStarts[k];
+					int length = runStarts[k + 1] - first;
+					int lower = (int) (pairs[k] >> 32);
+					int upper = (int) pairs[k];
+					if (pairs[k] == NO_RATING) {
+						Arrays.fill(y, first, first + length, Const.UNDEFINED_DOUBLE);
+						continue;
+					}
+					rateRun(lower, member, valueSets, first, length, y, first);
+					if (lower == upper) {
+						continue;
+					}
+					rateRun(upper, member, valueSets, first, length, upperVals, 0);
+					for (int j = 0; j < length; ++j) {
+						double y1 = y[first + j];
+						double y2 = upperVals[j];
+						if (y1 == Const.UNDEFINED_DOUBLE || y2 == Const.UNDEFINED_DOUBLE) {
+							y[first + j] = Const.UNDEFINED_DOUBLE;
+						}
+						else if (weights[first + j] != 0.) {
+							y[first + j] = y1 + weights[first + j] * (y2 - y1);
+						}
+					}
+				}
+			}
+		}
+		/**
+		 * Rates a run of the values of a sequence with a single rating, converting them between the units of the
+		 * context and the units of the rating if the index rates in the units of a context
+		 * @param pos The position of the rating
+		 * @param member The value sequence
+		 * @param valueSets The values of the sequence as single-value sets, which are converted in place
+		 * @param first The position of the first value of the run
+		 * @param length The number of values in the run
+		 * @param y The array to receive the rated values
+		 * @param yOffset The position in y of the first rated value
+		 * @throws RatingException on a rating error
+		 */
+		private void rateRun(int pos, double[] member, double[][] valueSets, int first, int length, double[] y, int yOffset)
+				throws RatingException {
+			if (conversions == null) {
+				ratings[pos].rate(valueSets, first, length, valueTimes, y, yOffset);
+				return;
+			}
+			UnitConversion[][] c = conversionsFor(pos);
+			for (int i = first; i < first + length; ++i) {
+				valueSets[i][0] = member[i] == Const.UNDEFINED_DOUBLE ? member[i] : c[0][0].convert(member[i]);
+			}
+			ratings[pos].rate(valueSets, first, length, valueTimes, y, yOffset);
+			c[1][c[1].length - 1].convert(y, yOffset, yOffset + length);
+		}
+	}
+
+	/**
+	 * Finds effective dates for a sequence of times, stepping forward from the position last found when the times
+	 * increase. Times that decrease or jump over many effective dates are searched for instead, so a cursor finds the
+	 * same positions as {@link EffectiveDateIndex#floor(long)} for times in any order. A cursor is not thread-safe and
+	 * is meant to be used for the duration of a single bulk rating.
+	 */
+	final class Cursor {
+		/**
+		 * The position last found
+		 */
+		private int pos = -1;
+
+		/**
+		 * Finds the latest effective date that is not after a time
+		 * @param valueTime The time
+		 * @return The position of the effective date, or -1 if all effective dates are after the time
+		 */
+		int floor(long valueTime) {
+			if (pos >= 0 && valueTime < effectiveDates[pos]) {
+				return pos = EffectiveDateIndex.this.floor(valueTime);
+			}
+			int last = effectiveDates.length - 1;
+			for (int steps = 0; pos < last && effectiveDates[pos + 1] <= valueTime; ++steps) {
+				if (steps == MAX_STEPS) {
+					return pos = EffectiveDateIndex.this.floor(valueTime);
+				}
+				++pos;
+			}
+			return pos;
+		}
+	}
+}
@@ -8,12 +8,11 @@
 
 package org.opendcs.ratings;
 
+import hec.hecmath.computation.ComputationException;
 import hec.hecmath.computation.MathExpression;
 import hec.hecmath.computation.Variable;
 import hec.hecmath.computation.VariableSet;
 import hec.lang.Observable;
-import hec.util.TextUtil;
-import mil.army.usace.hec.metadata.UnitUtil;
 import org.opendcs.ratings.io.AbstractRatingContainer;
 import org.opendcs.ratings.io.ExpressionRatingContainer;
 import org.opendcs.ratings.io.RatingContainerXmlCompatUtil;
@@ -41,6 +40,14 @@ public class ExpressionRating extends AbstractRating {
 	 * The variables for the "expression" field - one variable for each independent parameter
 	 */
 	protected Variable[] variables = null;
+	/**
+	 * The expression text, as given to the parser, that each thread's copy of the expression is parsed from
+	 */
+	private volatile String expressionSource = null;
+	/**
+	 * Each thread's copy of the expression, so that lookups neither lock the rating nor share variable values
+	 */
+	private final ThreadLocal<Evaluator> evaluators = new ThreadLocal<>();
 
 	/**
 	 * Public Constructor
@@ -112,15 +119,9 @@ public class ExpressionRating extends AbstractRating {
 			try {
 				String expr2 = replaceAll(expr, "(^|\\W)(arg|i)([1-9])", "$1\\$$2$3", "i");
 				expression = new MathExpression(expr2);
-				VariableSet varset = expression.getVariables();
-				String[] varnames = new String[varset.getVariableCount()];
-				varset.getVariableNames().toArray(varnames);
-				Arrays.sort(varnames);
-				variables = new Variable[varnames.length];
-				for (int i = 0; i < varnames.length; ++i) {
-					variables[i] = varset.getVariable(varnames[i]);
-				}
+				variables = getVariables(expression);
 				expressionString = expr;
+				expressionSource = expr2;
 			}
 			catch (Throwable t) {
                 throw new RatingException(t);
@@ -128,6 +129,45 @@ public class ExpressionRating extends AbstractRating {
 		}
 	}
 
+	/**
+	 * Retrieves the variables of an expression, one for each independent parameter
+	 * @param expression The expression
+	 * @return The variables of the expression, sorted by name
+	 */
+	private static Variable[] getVariables(MathExpression expression) {
+		VariableSet varset = expression.getVariables();
+		String[] varnames = new String[varset.getVariableCount()];
+		varset.getVariableNames().toArray(varnames);
+		Arrays.sort(varnames);
+		Variable[] variables = new Variable[varnames.length];
+		for (int i = 0; i < varnames.length; ++i) {
+			variables[i] = varset.getVariable(varnames[i]);
+		}
+		return variables;
+	}
+	/**
+	 * Retrieves the calling thread's copy of the expression, parsing it if the expression has changed
+	 * @return The calling thread's copy of the expression
+	 * @throws RatingException if the rating has no expression or the expression cannot be parsed
+	 */
+	private Evaluator getEvaluator() throws RatingException {
+		String source = expressionSource;
+		if (source == null) {
+			throw new RatingException("Rating has no expression.");
+		}
+		Evaluator evaluator = evaluators.get();
+		if (evaluator == null || evaluator.source != source) {
+			try {
+				evaluator = new Evaluator(source);
+			}
+			catch (ComputationException e) {
+				throw new RatingException(e);
+			}
+			evaluators.set(evaluator);
+		}
+		return evaluator;
+	}
+
 	/* (non-Javadoc)
 	 * @see IRating#getRatingExtents(long)
 	 */
@@ -173,34 +213,25 @@ public class ExpressionRating extends AbstractRating {
 	@Override
 	public double[] rate(double[] pIndVals) throws RatingException
 	{
-		synchronized(this) {
-			if (variables.length != 1) {
-				throw new RatingException(String.format("Data has 1 independent parameter; rating %s requires %d",  ratingSpecId, this.getIndParamCount()));
-			}
-			try {
-				String[] dataUnits = getDataUnits();
-				String[] ratingUnits = getRatingUnits();
-				for (int i = 0; i < ratingUnits.length; ++i) {
-					if (TextUtil.equals(dataUnits[i], ratingUnits[i])) {
-						dataUnits[i] = ratingUnits[i] = null;
-					}
-					else if(!UnitUtil.canConvertBetweenUnits(dataUnits[i], ratingUnits[i])) {
-						String msg = String.format("Cannot convert from \"%s\" to \"%s\".", dataUnits[i], ratingUnits[i]);
-						if (!allowUnsafe) throw new RatingException(msg);
-						if (warnUnsafe) logger.warning(msg + "  Rating will be performed on unconverted values.");
-					}
-				}
-				double[] rated = new double[pIndVals.length];
-				for (int i = 0; i < pIndVals.length; ++i) {
-					variables[0].setValue(convertUnits(pIndVals[i], dataUnits[0], ratingUnits[0]));
-					rated[i] = convertUnits(expression.evaluate(), ratingUnits[1], dataUnits[1]);
-				}
-				return rated;
-			}
-			catch (Throwable t) {
-				if (t instanceof RatingException) throw (RatingException)t;
-				throw new RatingException(t);
+		Evaluator evaluator = getEvaluator();
+		Variable[] variables = evaluator.variables;
+		if (variables.length != 1) {
+			throw new RatingException(String.format("Data has 1 independent parameter; rating %s requires %d",  ratingSpecId, variables.length));
+		}
+		try {
+			UnitConversion[][] conversions = getUnitConversions();
+			UnitConversion indConversion = conversions[0][0];
+			UnitConversion depConversion = conversions[1][1];
+			double[] rated = new double[pIndVals.length];
+			for (int i = 0; i < pIndVals.length; ++i) {
+				variables[0].setValue(indConversion.convert(pIndVals[i]));
+				rated[i] = depConversion.convert(evaluator.expression.evaluate());
 			}
+			return rated;
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException)t;
+			throw new RatingException(t);
 		}
 	}
 	/* (non-Javadoc)
@@ -208,54 +239,37 @@ public class ExpressionRating extends AbstractRating {
 	 */
 	@Override
 	public double[] rate(double[][] pIndVals) throws RatingException {
-		synchronized(this) {
-			for (int i = 1; i < pIndVals.length; ++i) {
-				if (pIndVals[i].length != pIndVals[0].length) {
-					throw new RatingException("Independent value sets have varying lengths.");
-				}
+		for (int i = 1; i < pIndVals.length; ++i) {
+			if (pIndVals[i].length != pIndVals[0].length) {
+				throw new RatingException("Independent value sets have varying lengths.");
 			}
-			if (pIndVals[0].length != variables.length) {
-				throw new RatingException(String.format("Data has %d independent parameters; rating %s requires %d", pIndVals[0].length, this.ratingSpecId, variables.length));
-			}
-			try {
-				String[] ratingUnits = getRatingUnits();
-				if (ratingUnits == null) {
-					throw new RatingException("Rating units have not been set");
-				}
-				String[] dataUnits = getDataUnits();
-				if (dataUnits == null) {
-					dataUnits = new String[ratingUnits.length];
-					Arrays.fill(dataUnits, null);
-				}
-				for (int i = 0; i < ratingUnits.length; ++i) {
-					if (dataUnits[i] == null || TextUtil.equals(dataUnits[i], ratingUnits[i])) {
-						dataUnits[i] = ratingUnits[i] = null;
-					}
-					else if(!UnitUtil.canConvertBetweenUnits(dataUnits[i], ratingUnits[i])) {
-						String msg = String.format("Cannot convert from \"%s\" to \"%s\".", dataUnits[i], ratingUnits[i]);
-						if (!allowUnsafe) throw new RatingException(msg);
-						if (warnUnsafe) logger.warning(msg + "  Rating will be performed on unconverted values.");
+		}
+		Evaluator evaluator = getEvaluator();
+		Variable[] variables = evaluator.variables;
+		if (pIndVals[0].length != variables.length) {
+			throw new RatingException(String.format("Data has %d independent parameters; rating %s requires %d", pIndVals[0].length, this.ratingSpecId, variables.length));
+		}
+		try {
+			UnitConversion[][] conversions = getUnitConversions();
+			UnitConversion depConversion = conversions[1][variables.length];
+			double[] rated = new double[pIndVals.length];
+			for (int i = 0; i < pIndVals.length; ++i) {
+				for (int j = 0; j < variables.length; ++j) {
+					if (pIndVals[i][j] == UNDEFINED_DOUBLE) {
+						rated[i] = UNDEFINED_DOUBLE;
+						break;
 					}
+					variables[j].setValue(conversions[0][j].convert(pIndVals[i][j]));
 				}
-				double[] rated = new double[pIndVals.length];
-				for (int i = 0; i < pIndVals.length; ++i) {
-					for (int j = 0; j < variables.length; ++j) {
-						if (pIndVals[i][j] == UNDEFINED_DOUBLE) {
-							rated[i] = UNDEFINED_DOUBLE;
-							break;
-						}
-						variables[j].setValue(convertUnits(pIndVals[i][j], dataUnits[j], ratingUnits[j]));
-					}
-					if (rated[i] != UNDEFINED_DOUBLE) {
-						rated[i] = convertUnits(expression.evaluate(), ratingUnits[variables.length], dataUnits[variables.length]);
-					}
+				if (rated[i] != UNDEFINED_DOUBLE) {
+					rated[i] = depConversion.convert(evaluator.expression.evaluate());
 				}
-				return rated;
-			}
-			catch (Throwable t) {
-				if (t instanceof RatingException) throw (RatingException)t;
-				throw new RatingException(t);
 			}
+			return rated;
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException)t;
+			throw new RatingException(t);
 		}
 	}
 
@@ -447,4 +461,18 @@ public class ExpressionRating extends AbstractRating {
 	public int hashCode() {
 		return getClass().getName().hashCode() + getData().hashCode();
 	}
+	/**
+	 * A copy of the expression and its variables for use by a single thread
+	 */
+	private static final class Evaluator {
+		final String source;
+		final MathExpression expression;
+		final Variable[] variables;
+
+		Evaluator(String source) throws ComputationException {
+			this.source = source;
+			expression = new MathExpression(source);
+			variables = getVariables(expression);
+		}
+	}
 }
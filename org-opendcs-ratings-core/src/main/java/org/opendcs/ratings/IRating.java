@@ -3,6 +3,8 @@ package org.opendcs.ratings;
 import hec.hecmath.TimeSeriesMath;
 import hec.io.TimeSeriesContainer;
 
+import java.util.Arrays;
+
 /**
  * Generalized rating interface
  *
@@ -222,6 +224,136 @@ public interface IRating {
 	 * @throws RatingException on error
 	 */
 	double[] rate(long[] valTimes, double[][] indVals) throws RatingException;
+
+	/**
+	 * Finds multiple dependent values for a range of single independent values and times, writing the dependent values
+	 * into a caller-supplied buffer. The rating must be for a single independent parameter.
+	 * <p>
+	 * Implementations resolve units once per call and, where possible, allocate nothing per value so that buffers may be
+	 * reused across calls. This default implementation delegates to {@link #rate(long[], double[])}.
+	 * @param indVals The independent values. The values from <code>offset</code> to <code>offset+length-1</code> are rated.
+	 * @param offset The position in indVals (and in valTimes) of the first value to rate
+	 * @param length The number of values to rate
+	 * @param valTimes The times associated with the values, in Java milliseconds, indexed the same as indVals,
+	 *        or null to use the default value time
+	 * @param out The buffer to receive the dependent values
+	 * @param outOffset The position in out of the first dependent value
+	 * @throws RatingException on error
+	 */
+	default void rate(double[] indVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(indVals.length, offset, length, valTimes, out, outOffset);
+		double[] values = Arrays.copyOfRange(indVals, offset, offset + length);
+		double[] rated = valTimes == null
+				? rate(getDefaultValueTime(), values)
+				: rate(Arrays.copyOfRange(valTimes, offset, offset + length), values);
+		System.arraycopy(rated, 0, out, outOffset, length);
+	}
+
+	/**
+	 * Finds multiple dependent values for a range of sets of independent values and times, writing the dependent values
+	 * into a caller-supplied buffer. The rating must be for as many independent parameters as the length of each
+	 * independent parameter set.
+	 * <p>
+	 * Implementations resolve units once per call and, where possible, allocate nothing per value so that buffers may be
+	 * reused across calls. This default implementation delegates to {@link #rate(long[], double[][])}.
+	 * @param indVals The independent value sets. The sets from <code>offset</code> to <code>offset+length-1</code> are rated.
+	 * @param offset The position in indVals (and in valTimes) of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param valTimes The times associated with the value sets, in Java milliseconds, indexed the same as indVals,
+	 *        or null to use the default value time
+	 * @param out The buffer to receive the dependent values
+	 * @param outOffset The position in out of the first dependent value
+	 * @throws RatingException on error
+	 */
+	default void rate(double[][] indVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(indVals.length, offset, length, valTimes, out, outOffset);
+		double[][] values = Arrays.copyOfRange(indVals, offset, offset + length);
+		double[] rated = valTimes == null
+				? rate(getDefaultValueTime(), values)
+				: rate(Arrays.copyOfRange(valTimes, offset, offset + length), values);
+		System.arraycopy(rated, 0, out, outOffset, length);
+	}
+
+	/**
+	 * Finds the dependent values for a range of the value sets of a batch, writing the dependent values into a
+	 * caller-supplied buffer. The rating must be for as many independent parameters as the batch has.
+	 * <p>
+	 * Implementations read the columns of the batch in place where possible. This default implementation copies the
+	 * value sets into rows and delegates to {@link #rate(double[][], int, int, long[], double[], int)}.
+	 * @param batch The batch. The value sets from <code>offset</code> to <code>offset+length-1</code> are rated.
+	 * @param offset The position in the batch of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param out The buffer to receive the dependent values
+	 * @param outOffset The position in out of the first dependent value
+	 * @throws RatingException on error
+	 */
+	default void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		long[] times = batch.getTimes();
+		rate(batch.toRows(offset, length), 0, length, times == null ? null : Arrays.copyOfRange(times, offset, offset + length), out, outOffset);
+	}
+
+	/**
+	 * Finds the dependent values for the value sets of a batch
+	 * @param batch The batch
+	 * @return The dependent values, one for each value set
+	 * @throws RatingException on error
+	 * @see #rate(RatingBatch, int, int, double[], int)
+	 */
+	default double[] rate(RatingBatch batch) throws RatingException {
+		double[] depVals = new double[batch.size()];
+		rate(batch, 0, batch.size(), depVals, 0);
+		return depVals;
+	}
+
+	/**
+	 * Finds the dependent values for a range of the value sets of a batch, reporting the outcome of each value set in a
+	 * parallel status array instead of throwing an exception for it. A value set that is out of range of a rating whose
+	 * method is ERROR, falls outside the effective dates of a rating set whose method is ERROR, or cannot be rated for
+	 * another reason of its own gets an undefined dependent value and a status from {@link RatingStatus} saying why;
+	 * the other value sets are rated as usual. Exceptions are still thrown for conditions of the call itself, such as
+	 * invalid ranges or a batch with the wrong number of parameters.
+	 * <p>
+	 * This default implementation rates the whole range with {@link #rate(RatingBatch, int, int, double[], int)} and,
+	 * if that throws, rates the value sets one at a time to find the ones that can't be rated. It reports a value set
+	 * that is rated by extrapolation as OK; ratings that can tell extrapolation apart override it.
+	 * @param batch The batch. The value sets from <code>offset</code> to <code>offset+length-1</code> are rated.
+	 * @param offset The position in the batch of the first value set to rate
+	 * @param length The number of value sets to rate
+	 * @param out The buffer to receive the dependent values
+	 * @param status The buffer to receive the status of each dependent value, indexed the same as out
+	 * @param outOffset The position in out and status of the first dependent value
+	 * @throws RatingException if the call itself is invalid
+	 */
+	default void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+		RatingUtil.rateWithStatus(this, batch, offset, length, out, status, outOffset);
+	}
+
+	/**
+	 * Finds multiple dependent values for multiple sets of independent values and times, using the units, times and
+	 * unsafe flags of a context instead of those of this rating. The settings of this rating are not changed, so any
+	 * number of threads may rate with their own contexts at once.
+	 * <p>
+	 * This default implementation converts the values between the units of the context and the data units of this
+	 * rating and delegates to {@link #rate(long[], double[][])}. It does not apply the rating time of the context;
+	 * rating sets, which select among ratings by creation date, override it to do so.
+	 * @param context The context to rate with
+	 * @param valTimes The times associated with the value sets, in Java milliseconds, or null to use the default value
+	 *        time of the context
+	 * @param indVals The independent value sets, in the units of the context
+	 * @return The dependent values, in the unit of the context
+	 * @throws RatingException on error
+	 */
+	default double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+		String[] units = getDataUnits();
+		if (units == null) {
+			units = getRatingUnits();
+		}
+		long[] times = context.valueTimes(valTimes, indVals.length);
+		double[] depVals = rate(times, context.toUnits(indVals, units));
+		context.fromUnits(getIndParamCount(), units).convert(depVals, 0, depVals.length);
+		return depVals;
+	}
 	
 	/**
 	 * Rates the values in the specified TimeSeriesContainer to generate a resulting TimeSeriesContainer. The rating must be for a single independent parameter.
@@ -298,6 +430,35 @@ public interface IRating {
 	 */
 	double[] reverseRate(long[] valTimes, double[] depVals) throws RatingException;
 
+	/**
+	 * Finds multiple independent values for multiple single dependent values and times, using the units, times and
+	 * unsafe flags of a context instead of those of this rating. The rating must be for a single independent parameter.
+	 * The settings of this rating are not changed, so any number of threads may reverse rate with their own contexts
+	 * at once.
+	 * <p>
+	 * This default implementation converts the values between the units of the context and the data units of this
+	 * rating and delegates to {@link #reverseRate(long[], double[])}. It does not apply the rating time of the context;
+	 * rating sets, which select among ratings by creation date, override it to do so.
+	 * @param context The context to reverse rate with
+	 * @param valTimes The times associated with the values, in Java milliseconds, or null to use the default value
+	 *        time of the context
+	 * @param depVals The dependent values, in the unit of the context
+	 * @return The independent values, in the unit of the context
+	 * @throws RatingException on error
+	 */
+	default double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+		String[] units = getDataUnits();
+		if (units == null) {
+			units = getRatingUnits();
+		}
+		long[] times = context.valueTimes(valTimes, depVals.length);
+		double[] vals = Arrays.copyOf(depVals, depVals.length);
+		context.toUnits(1, units).convert(vals, 0, vals.length);
+		double[] indVals = reverseRate(times, vals);
+		context.fromUnits(0, units).convert(indVals, 0, indVals.length);
+		return indVals;
+	}
+
 	/**
 	 * Rates the values in the specified TimeSeriesContainer to generate a resulting TimeSeriesContainer. The rating must be for a single independent parameter.
 	 * @param tsc The TimeSeriesContainer of dependent values.
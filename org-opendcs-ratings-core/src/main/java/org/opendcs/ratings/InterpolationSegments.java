@@ -0,0 +1,199 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+/**
+ * Immutable per-segment interpolation coefficients for a table of independent and dependent values. Segment
+ * <code>s</code> spans table positions <code>s</code> and <code>s+1</code> and is stored in point-slope form in the
+ * (possibly logarithmic) interpolation space, so interpolating a value requires no logarithms of the table values.
+ * Segments whose end points cannot be transformed into logarithmic space fall back to linear interpolation, as do
+ * individual values that cannot be transformed.
+ */
+final class InterpolationSegments {
+	/**
+	 * Flag specifying whether the independent values are interpolated logarithmically
+	 */
+	private final boolean indLog;
+	/**
+	 * Flag specifying whether the dependent values are interpolated logarithmically
+	 */
+	private final boolean depLog;
+	/**
+	 * The per-segment offsets subtracted from the independent values before taking logarithms, or null for no offsets
+	 */
+	private final double[] offsets;
+	/**
+	 * The transformed independent value of the first point of each segment
+	 */
+	private final double[] x1;
+	/**
+	 * The transformed dependent value of the first point of each segment
+	 */
+	private final double[] y1;
+	/**
+	 * The slope of each segment in the transformed space
+	 */
+	private final double[] slope;
+	/**
+	 * Flags specifying which segments fall back to linear interpolation, or null if none do
+	 */
+	private final boolean[] fallback;
+	/**
+	 * The linear segments used for fall back, or null if these segments are linear
+	 */
+	private final InterpolationSegments linear;
+
+	private InterpolationSegments(double[] ind, double[] dep, boolean indLog, boolean depLog, double[] offsets, InterpolationSegments linear) {
+		int count = Math.max(ind.length - 1, 0);
+		this.indLog = indLog;
+		this.depLog = depLog;
+		this.offsets = indLog ? offsets : null;
+		this.linear = linear;
+		x1 = new double[count];
+		y1 = new double[count];
+		slope = new double[count];
+		boolean[] fallback = null;
+		for (int s = 0; s < count; ++s) {
+			double xa = ind[s];
+			double xb = ind[s+1];
+			double ya = dep[s];
+			double yb = dep[s+1];
+			boolean transformed = true;
+			if (indLog) {
+				double offset = this.offsets == null ? 0. : this.offsets[s];
+				xa = Math.log10(xa - offset);
+				xb = Math.log10(xb - offset);
+				transformed = isFinite(xa) && isFinite(xb);
+			}
+			if (transformed && depLog) {
+				ya = Math.log10(ya);
+				yb = Math.log10(yb);
+				transformed = isFinite(ya) && isFinite(yb);
+			}
+			if (!transformed) {
+				//-------------------------------------------//
+				// fall back to LINEAR for the whole segment //
+				//-------------------------------------------//
+				if (fallback == null) fallback = new boolean[count];
+				fallback[s] = true;
+				xa = ind[s];
+				xb = ind[s+1];
+				ya = dep[s];
+				yb = dep[s+1];
+			}
+			x1[s] = xa;
+			y1[s] = ya;
+			slope[s] = (yb - ya) / (xb - xa);
+		}
+		this.fallback = fallback;
+	}
+	/**
+	 * Builds the interpolation segments for a table
+	 * @param ind The independent values, in table order
+	 * @param dep The dependent values, in table order
+	 * @param indLog Specifies whether the independent values are interpolated logarithmically
+	 * @param depLog Specifies whether the dependent values are interpolated logarithmically
+	 * @param offsets The per-segment offsets to subtract from independent values before taking logarithms, or null for none
+	 * @return The interpolation segments
+	 */
+	static InterpolationSegments build(double[] ind, double[] dep, boolean indLog, boolean depLog, double[] offsets) {
+		if (!indLog && !depLog) {
+			return new InterpolationSegments(ind, dep, false, false, null, null);
+		}
+		InterpolationSegments linear = new InterpolationSegments(ind, dep, false, false, null, null);
+		return new InterpolationSegments(ind, dep, indLog, depLog, offsets, linear);
+	}
+	/**
+	 * Interpolates (or extrapolates) a value along a segment
+	 * @param s The segment, identified by the lower of its two table positions
+	 * @param x The untransformed independent value
+	 * @return The untransformed dependent value
+	 */
+	double interpolate(int s, double x) {
+		if (linear != null) {
+			if (fallback != null && fallback[s]) {
+				return linear.interpolate(s, x);
+			}
+			if (indLog) {
+				double lx = Math.log10(offsets == null ? x : x - offsets[s]);
+				if (!isFinite(lx)) {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
+					//-------------------------------------------------//
+					return linear.interpolate(s, x);
+				}
+				x = lx;
+			}
+		}
+		double y = y1[s] + slope[s] * (x - x1[s]);
+		return depLog ? Math.pow(10, y) : y;
+	}
+
+	/**
+	 * Interpolates (or extrapolates) a value between two points without pre-computed coefficients
+	 * @param x The untransformed independent value
+	 * @param x1 The independent value of the first point
+	 * @param x2 The independent value of the second point
+	 * @param y1 The dependent value of the first point
+	 * @param y2 The dependent value of the second point
+	 * @param indLog Specifies whether the independent values are interpolated logarithmically
+	 * @param depLog Specifies whether the dependent values are interpolated logarithmically
+	 * @return The untransformed dependent value
+	 */
+	static double interpolate(double x, double x1, double x2, double y1, double y2, boolean indLog, boolean depLog) {
+		double ind_val = x;
+		double lo_ind_val = x1;
+		double hi_ind_val = x2;
+		double lo_dep_val = y1;
+		double hi_dep_val = y2;
+		if (indLog) {
+			x  = Math.log10(x);
+			x1 = Math.log10(x1);
+			x2 = Math.log10(x2);
+			if (!isFinite(x) || !isFinite(x1) || !isFinite(x2)) {
+				//-------------------------------------------------//
+				// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
+				//-------------------------------------------------//
+				x = ind_val;
+				x1 = lo_ind_val;
+				x2 = hi_ind_val;
+				depLog = false;
+			}
+		}
+		if (depLog) {
+			y1 = Math.log10(y1);
+			y2 = Math.log10(y2);
+			if (!isFinite(y1) || !isFinite(y2)) {
+				//-------------------------------------------------//
+				// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
+				//-------------------------------------------------//
+				x = ind_val;
+				x1 = lo_ind_val;
+				x2 = hi_ind_val;
+				y1 = lo_dep_val;
+				y2 = hi_dep_val;
+				depLog = false;
+			}
+		}
+		double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
+		return depLog ? Math.pow(10, y) : y;
+	}
+
+	private static boolean isFinite(double v) {
+		return !Double.isNaN(v) && !Double.isInfinite(v);
+	}
+}
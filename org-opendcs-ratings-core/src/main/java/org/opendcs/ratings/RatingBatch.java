@@ -0,0 +1,264 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import java.util.Arrays;
+
+/**
+ * A batch of independent value sets held by parameter: the value times and one column of values for each independent
+ * parameter. Ratings that support batches read the columns in place, so rating a batch with several independent
+ * parameters doesn't allocate an array for each value set the way rating value sets held as rows does. Every
+ * {@link IRating} accepts a batch through {@link IRating#rate(RatingBatch, int, int, double[], int)}.
+ * <p>
+ * A batch either wraps existing columns without copying them ({@link #ofColumns(long[], double[]...)}) or owns its
+ * columns, in which case it may be filled, rated and refilled any number of times, reusing its columns and its results
+ * buffer ({@link #rate(IRating)}). A batch is not thread-safe while it is being filled, but once filled it may be rated
+ * by any number of threads at once.
+ */
+public final class RatingBatch {
+	/**
+	 * The value times, in Java milliseconds, or null to use the default value time of the rating
+	 */
+	private long[] times;
+	/**
+	 * The independent values of each parameter
+	 */
+	private double[][] columns;
+	/**
+	 * The number of value sets in the batch
+	 */
+	private int size;
+	/**
+	 * The buffer returned by {@link #rate(IRating)}
+	 */
+	private double[] results = null;
+
+	/**
+	 * Creates an empty batch that owns its columns
+	 * @param paramCount The number of independent parameters
+	 * @param capacity The number of value sets the batch holds before it must grow
+	 */
+	public RatingBatch(int paramCount, int capacity) {
+		if (paramCount < 1) {
+			throw new IllegalArgumentException("A batch must have at least one parameter");
+		}
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		this.times = new long[capacity];
+		this.columns = new double[paramCount][capacity];
+		this.size = 0;
+	}
+	private RatingBatch(long[] times, double[][] columns, int size) {
+		this.times = times;
+		this.columns = columns;
+		this.size = size;
+	}
+	/**
+	 * Creates a batch that wraps existing columns. The columns are not copied, so changes to them are seen by the batch.
+	 * @param times The value times, in Java milliseconds, or null to use the default value time of the rating
+	 * @param columns The independent values of each parameter
+	 * @return The batch
+	 * @throws RatingException if there are no columns or the columns and times have different lengths
+	 */
+	public static RatingBatch ofColumns(long[] times, double[]... columns) throws RatingException {
+		if (columns == null || columns.length == 0) {
+			throw new RatingException("A batch must have at least one parameter");
+		}
+		int size = columns[0].length;
+		for (double[] column : columns) {
+			if (column.length != size) {
+				throw new RatingException("Independent value sets have varying lengths.");
+			}
+		}
+		if (times != null && times.length != size) {
+			throw new RatingException("Values and times have different lengths");
+		}
+		return new RatingBatch(times, columns.clone(), size);
+	}
+	/**
+	 * Creates a batch from value sets held as rows, copying the values into columns
+	 * @param times The value times, in Java milliseconds, or null to use the default value time of the rating
+	 * @param valueSets The value sets, each holding one value for each parameter
+	 * @return The batch
+	 * @throws RatingException if there are no value sets, the value sets have different lengths, or the value sets and
+	 *         times have different lengths
+	 */
+	public static RatingBatch ofRows(long[] times, double[][] valueSets) throws RatingException {
+		if (valueSets == null || valueSets.length == 0) {
+			throw new RatingException("No value sets");
+		}
+		if (times != null && times.length != valueSets.length) {
+			throw new RatingException("Values and times have different lengths");
+		}
+		int paramCount = valueSets[0].length;
+		double[][] columns = new double[paramCount][valueSets.length];
+		for (int i = 0; i < valueSets.length; ++i) {
+			if (valueSets[i].length != paramCount) {
+				throw new RatingException("Independent value sets have varying lengths.");
+			}
+			for (int p = 0; p < paramCount; ++p) {
+				columns[p][i] = valueSets[i][p];
+			}
+		}
+		return new RatingBatch(times, columns, valueSets.length);
+	}
+	/**
+	 * Retrieves the number of independent parameters
+	 * @return The number of independent parameters
+	 */
+	public int getParamCount() {
+		return columns.length;
+	}
+	/**
+	 * Retrieves the number of value sets in the batch
+	 * @return The number of value sets
+	 */
+	public int size() {
+		return size;
+	}
+	/**
+	 * Sets the number of value sets in the batch, growing the columns if necessary. Growing a batch that wraps
+	 * existing columns copies them, after which changes to the batch are not seen in the wrapped columns.
+	 * @param size The number of value sets
+	 */
+	public void setSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Size must not be negative");
+		}
+		int capacity = columns[0].length;
+		if (size > capacity) {
+			capacity = Math.max(size, 2 * capacity);
+			if (times != null) {
+				times = Arrays.copyOf(times, capacity);
+			}
+			for (int p = 0; p < columns.length; ++p) {
+				columns[p] = Arrays.copyOf(columns[p], capacity);
+			}
+		}
+		this.size = size;
+	}
+	/**
+	 * Empties the batch, keeping its columns for reuse
+	 */
+	public void clear() {
+		size = 0;
+	}
+	/**
+	 * Adds a value set to a batch with a single independent parameter
+	 * @param time The value time, in Java milliseconds
+	 * @param value The independent value
+	 * @return The position of the value set
+	 */
+	public int add(long time, double value) {
+		if (columns.length != 1) {
+			throw new IllegalStateException("Batch has " + columns.length + " independent parameters");
+		}
+		int index = size;
+		setSize(size + 1);
+		setTime(index, time);
+		columns[0][index] = value;
+		return index;
+	}
+	/**
+	 * Sets the time of a value set
+	 * @param index The position of the value set
+	 * @param time The value time, in Java milliseconds
+	 */
+	public void setTime(int index, long time) {
+		if (times == null) {
+			throw new IllegalStateException("Batch has no value times");
+		}
+		checkIndex(index);
+		times[index] = time;
+	}
+	/**
+	 * Sets an independent value of a value set
+	 * @param param The position of the independent parameter
+	 * @param index The position of the value set
+	 * @param value The independent value
+	 */
+	public void setValue(int param, int index, double value) {
+		checkIndex(index);
+		columns[param][index] = value;
+	}
+	/**
+	 * Retrieves the value times. The array is not copied and may be longer than the batch.
+	 * @return The value times, in Java milliseconds, or null if the default value time of the rating is used
+	 */
+	public long[] getTimes() {
+		return times;
+	}
+	/**
+	 * Retrieves the independent values of a parameter. The array is not copied and may be longer than the batch.
+	 * @param param The position of the independent parameter
+	 * @return The independent values
+	 */
+	public double[] getColumn(int param) {
+		return columns[param];
+	}
+	/**
+	 * Rates the batch into a results buffer owned by the batch, which is reused by later calls. The buffer may be
+	 * longer than the batch, and its values are only valid until the next call.
+	 * @param rating The rating to rate the batch with
+	 * @return The results buffer, holding the dependent value of each value set
+	 * @throws RatingException on error
+	 */
+	public double[] rate(IRating rating) throws RatingException {
+		if (results == null || results.length < size) {
+			results = new double[columns[0].length];
+		}
+		rating.rate(this, 0, size, results, 0);
+		return results;
+	}
+	/**
+	 * Retrieves the independent values of every parameter. The arrays are not copied.
+	 * @return The independent values of each parameter
+	 */
+	double[][] columns() {
+		return columns;
+	}
+	/**
+	 * Creates a batch that shares the columns of this one with other value times
+	 * @param times The value times, in Java milliseconds
+	 * @return The batch
+	 */
+	RatingBatch withTimes(long[] times) {
+		return times == this.times ? this : new RatingBatch(times, columns, size);
+	}
+	/**
+	 * Copies a range of value sets into rows, for ratings that rate value sets held as rows
+	 * @param offset The position of the first value set
+	 * @param length The number of value sets
+	 * @return The value sets, each holding one value for each parameter
+	 */
+	double[][] toRows(int offset, int length) {
+		double[][] rows = new double[length][columns.length];
+		for (int p = 0; p < columns.length; ++p) {
+			double[] column = columns[p];
+			for (int i = 0; i < length; ++i) {
+				rows[i][p] = column[offset + i];
+			}
+		}
+		return rows;
+	}
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is outside batch of " + size);
+		}
+	}
+}
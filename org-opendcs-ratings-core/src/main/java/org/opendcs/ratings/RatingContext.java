@@ -0,0 +1,284 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import hec.lang.Const;
+import mil.army.usace.hec.metadata.UnitUtil;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+/**
+ * The settings for a single call to {@link IRating#rate(RatingContext, long[], double[][])} or
+ * {@link IRating#reverseRate(RatingContext, long[], double[])}: the units of the values passed and returned, the rating
+ * time, the default value time and the unsafe flags.
+ * <p>
+ * Rating with a context leaves the settings of the rating object alone, so callers that need different units or times
+ * don't have to change the rating, rate, and change it back, and any number of threads can rate the same rating with
+ * their own contexts. A context is immutable and may itself be shared.
+ * <p>
+ * A context may also specify a pool for rating sets to rate large batches in parallel (see
+ * {@link #withParallelism(ForkJoinPool, int)}). The results are identical to rating on the calling thread.
+ */
+public final class RatingContext {
+
+	private static final Logger LOGGER = Logger.getLogger(RatingContext.class.getPackage().getName());
+	/**
+	 * The default smallest number of values that are rated together when a batch is rated in parallel
+	 */
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 8192;
+
+	/**
+	 * The units of the values passed and returned, one for each parameter, or null to use the data units of the rating
+	 */
+	private final String[] dataUnits;
+	/**
+	 * The rating time. No rating information with a creation date later than this is used.
+	 */
+	private final long ratingTime;
+	/**
+	 * The time associated with values that don't specify their own times
+	 */
+	private final long defaultValueTime;
+	/**
+	 * Flag specifying whether "risky" behavior such as using mismatched units is allowed
+	 */
+	private final boolean allowUnsafe;
+	/**
+	 * Flag specifying whether messages are output about "risky" behavior such as using mismatched units
+	 */
+	private final boolean warnUnsafe;
+	/**
+	 * The pool to rate large batches in, or null to rate on the calling thread
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * The smallest number of values that are rated together when a batch is rated in parallel
+	 */
+	private final int minChunkSize;
+
+	/**
+	 * Creates a context that rates in the data units of the rating, with no rating time or default value time,
+	 * allowing and warning about "risky" behavior
+	 */
+	public RatingContext() {
+		this(null, Long.MAX_VALUE, Const.UNDEFINED_TIME, true, true);
+	}
+	/**
+	 * Creates a context
+	 * @param dataUnits The units of the values passed and returned, one for each parameter, or null to use the data
+	 *        units of the rating. A null unit for a parameter also uses the data unit of the rating.
+	 * @param ratingTime The rating time in Java milliseconds, or Long.MAX_VALUE to use all rating information
+	 * @param defaultValueTime The time in Java milliseconds associated with values that don't specify their own times,
+	 *        or Const.UNDEFINED_TIME if all values must specify times
+	 * @param allowUnsafe Flag specifying whether "risky" behavior such as using mismatched units is allowed
+	 * @param warnUnsafe Flag specifying whether messages are output about "risky" behavior
+	 */
+	public RatingContext(String[] dataUnits, long ratingTime, long defaultValueTime, boolean allowUnsafe, boolean warnUnsafe) {
+		this(dataUnits, ratingTime, defaultValueTime, allowUnsafe, warnUnsafe, null, DEFAULT_MIN_CHUNK_SIZE);
+	}
+	private RatingContext(String[] dataUnits, long ratingTime, long defaultValueTime, boolean allowUnsafe, boolean warnUnsafe,
+			ForkJoinPool pool, int minChunkSize) {
+		this.dataUnits = dataUnits == null ? null : Arrays.copyOf(dataUnits, dataUnits.length);
+		this.ratingTime = ratingTime;
+		this.defaultValueTime = defaultValueTime;
+		this.allowUnsafe = allowUnsafe;
+		this.warnUnsafe = warnUnsafe;
+		this.pool = pool;
+		this.minChunkSize = minChunkSize;
+	}
+	/**
+	 * Creates a context with the same settings as this one that lets rating sets rate large batches in parallel. A
+	 * batch is divided into chunks of at least {@link #DEFAULT_MIN_CHUNK_SIZE} values, which are rated in the pool.
+	 * Batches too small to divide are rated on the calling thread.
+	 * @param pool The pool to rate in, or null to rate on the calling thread
+	 * @return The new context
+	 */
+	public RatingContext withParallelism(ForkJoinPool pool) {
+		return withParallelism(pool, DEFAULT_MIN_CHUNK_SIZE);
+	}
+	/**
+	 * Creates a context with the same settings as this one that lets rating sets rate large batches in parallel.
+	 * Batches too small to divide into chunks of the specified size are rated on the calling thread.
+	 * @param pool The pool to rate in, or null to rate on the calling thread
+	 * @param minChunkSize The smallest number of values to rate together
+	 * @return The new context
+	 */
+	public RatingContext withParallelism(ForkJoinPool pool, int minChunkSize) {
+		if (minChunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		return new RatingContext(dataUnits, ratingTime, defaultValueTime, allowUnsafe, warnUnsafe, pool, minChunkSize);
+	}
+	/**
+	 * Retrieves the units of the values passed and returned
+	 * @return The units, one for each parameter, or null if the data units of the rating are used
+	 */
+	public String[] getDataUnits() {
+		return dataUnits == null ? null : Arrays.copyOf(dataUnits, dataUnits.length);
+	}
+	/**
+	 * Determines whether this context specifies a unit for every parameter, so that values can be converted to the
+	 * units of each rating even when the ratings don't share units
+	 * @return Whether a unit is specified for every parameter
+	 */
+	boolean specifiesUnits() {
+		if (dataUnits == null) {
+			return false;
+		}
+		for (String unit : dataUnits) {
+			if (unit == null) return false;
+		}
+		return true;
+	}
+	/**
+	 * Retrieves the rating time
+	 * @return The rating time in Java milliseconds
+	 */
+	public long getRatingTime() {
+		return ratingTime;
+	}
+	/**
+	 * Retrieves the default value time
+	 * @return The default value time in Java milliseconds
+	 */
+	public long getDefaultValueTime() {
+		return defaultValueTime;
+	}
+	/**
+	 * Retrieves whether "risky" behavior such as using mismatched units is allowed
+	 * @return A flag specifying whether "risky" behavior is allowed
+	 */
+	public boolean doesAllowUnsafe() {
+		return allowUnsafe;
+	}
+	/**
+	 * Retrieves whether messages are output about "risky" behavior such as using mismatched units
+	 * @return A flag specifying whether messages are output about "risky" behavior
+	 */
+	public boolean doesWarnUnsafe() {
+		return warnUnsafe;
+	}
+	/**
+	 * Retrieves the pool that large batches are rated in
+	 * @return The pool, or null if values are rated on the calling thread
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+	/**
+	 * Retrieves the smallest number of values that are rated together when a batch is rated in parallel
+	 * @return The number of values
+	 */
+	public int getMinChunkSize() {
+		return minChunkSize;
+	}
+	/**
+	 * Retrieves the times of the values to rate
+	 * @param valTimes The times of the values, or null to use the default value time
+	 * @param count The number of values
+	 * @return The times of the values
+	 * @throws RatingException if the times and values have different lengths, or no times are specified and the
+	 *         default value time is not set
+	 */
+	long[] valueTimes(long[] valTimes, int count) throws RatingException {
+		if (valTimes != null) {
+			if (valTimes.length != count) {
+				throw new RatingException("Values and times have different lengths");
+			}
+			return valTimes;
+		}
+		if (defaultValueTime == Const.UNDEFINED_TIME) {
+			throw new RatingException("Default value time is not set");
+		}
+		long[] times = new long[count];
+		Arrays.fill(times, defaultValueTime);
+		return times;
+	}
+	/**
+	 * Retrieves the conversion of a parameter from the units of this context to the units a rating is called with
+	 * @param param The position of the parameter
+	 * @param units The units the rating is called with, one for each parameter
+	 * @return The conversion
+	 * @throws RatingException if the units cannot be converted and "risky" behavior isn't allowed
+	 */
+	UnitConversion toUnits(int param, String[] units) throws RatingException {
+		return conversion(dataUnits == null ? null : dataUnits[param], units == null ? null : units[param]);
+	}
+	/**
+	 * Retrieves the conversion of a parameter from the units a rating is called with to the units of this context
+	 * @param param The position of the parameter
+	 * @param units The units the rating is called with, one for each parameter
+	 * @return The conversion
+	 * @throws RatingException if the units cannot be converted and "risky" behavior isn't allowed
+	 */
+	UnitConversion fromUnits(int param, String[] units) throws RatingException {
+		return conversion(units == null ? null : units[param], dataUnits == null ? null : dataUnits[param]);
+	}
+	/**
+	 * Converts independent value sets from the units of this context to the units a rating is called with
+	 * @param indVals The independent value sets. These are not modified.
+	 * @param units The units the rating is called with, one for each parameter
+	 * @return The converted value sets, or indVals itself if no conversion is required
+	 * @throws RatingException if the units cannot be converted and "risky" behavior isn't allowed
+	 */
+	double[][] toUnits(double[][] indVals, String[] units) throws RatingException {
+		if (dataUnits == null || indVals.length == 0) {
+			return indVals;
+		}
+		int indParamCount = indVals[0].length;
+		UnitConversion[] conversions = new UnitConversion[indParamCount];
+		boolean identity = true;
+		for (int i = 0; i < indParamCount; ++i) {
+			conversions[i] = toUnits(i, units);
+			identity &= conversions[i].isIdentity();
+		}
+		if (identity) {
+			return indVals;
+		}
+		double[][] converted = new double[indVals.length][];
+		for (int i = 0; i < indVals.length; ++i) {
+			converted[i] = Arrays.copyOf(indVals[i], indVals[i].length);
+			for (int j = 0; j < indParamCount && j < converted[i].length; ++j) {
+				if (converted[i][j] != Const.UNDEFINED_DOUBLE) {
+					converted[i][j] = conversions[j].convert(converted[i][j]);
+				}
+			}
+		}
+		return converted;
+	}
+	/**
+	 * Retrieves the conversion between two units, honoring the unsafe flags if the units are not convertible
+	 * @param fromUnit The unit to convert from, or null for no conversion
+	 * @param toUnit The unit to convert to, or null for no conversion
+	 * @return The conversion
+	 * @throws RatingException if the units cannot be converted and "risky" behavior isn't allowed
+	 */
+	private UnitConversion conversion(String fromUnit, String toUnit) throws RatingException {
+		if (fromUnit == null || toUnit == null || fromUnit.equals(toUnit)) {
+			return UnitConversion.IDENTITY;
+		}
+		if (!UnitUtil.canConvertBetweenUnits(fromUnit, toUnit)) {
+			String msg = String.format("Cannot convert from \"%s\" to \"%s\".", fromUnit, toUnit);
+			if (!allowUnsafe) throw new RatingException(msg);
+			if (warnUnsafe) LOGGER.warning(msg + "  Rating will be performed on unconverted values.");
+			return UnitConversion.IDENTITY;
+		}
+		return UnitConversion.get(fromUnit, toUnit);
+	}
+}
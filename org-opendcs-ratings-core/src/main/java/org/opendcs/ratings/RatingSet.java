@@ -1161,6 +1161,35 @@ public class RatingSet implements IRating, Observer, VerticalDatum {
         return this.composedRatingSet.rate(valueSets, valueTimes);
     }
 
+    /**
+     * Rates the members of an ensemble, which are sequences of values of the single independent parameter that share
+     * the same value times
+     *
+     * @param valueTimes The times shared by the members, in Java milliseconds
+     * @param members    The values of each member, one for each time
+     * @return the rated values of each member, one for each time
+     * @throws RatingException on error
+     * @see AbstractRatingSet#rateEnsemble(long[], double[][])
+     */
+    public double[][] rateEnsemble(long[] valueTimes, double[][] members) throws RatingException {
+        return this.composedRatingSet.rateEnsemble(valueTimes, members);
+    }
+
+    /**
+     * Rates the members of an ensemble with a context
+     *
+     * @param context  The context to rate with
+     * @param valTimes The times shared by the members, in Java milliseconds, or null to use the default value time of
+     *                 the context
+     * @param members  The values of each member, one for each time, in the unit of the context
+     * @return the rated values of each member, in the unit of the context
+     * @throws RatingException on error
+     * @see AbstractRatingSet#rateEnsemble(RatingContext, long[], double[][])
+     */
+    public double[][] rateEnsemble(RatingContext context, long[] valTimes, double[][] members) throws RatingException {
+        return this.composedRatingSet.rateEnsemble(context, valTimes, members);
+    }
+
     /**
      * Rates the values in a TimeSeriesContainer and returns the results in a new TimeSeriesContainer.
      * The rating must be for a single independent parameter.
@@ -1349,6 +1378,17 @@ public class RatingSet implements IRating, Observer, VerticalDatum {
         return this.composedRatingSet.getActiveRatingCount();
     }
 
+    /**
+     * Compiles the active ratings of this set into an immutable rating set that can rate values from any number of
+     * threads without locking. Later changes to this set do not affect the compiled rating set.
+     *
+     * @return The compiled rating set
+     * @throws RatingException if there are no active ratings or a rating cannot be copied
+     */
+    public CompiledRatingSet compile() throws RatingException {
+        return this.composedRatingSet.compile();
+    }
+
     /**
      * Retrieves the default value time. This is used for rating values that have no inherent times.
      *
@@ -1641,6 +1681,30 @@ public class RatingSet implements IRating, Observer, VerticalDatum {
         return this.composedRatingSet.rate(valTimes, indVals);
     }
 
+    /* (non-Javadoc)
+     * @see org.opendcs.ratings.IRating#rate(org.opendcs.ratings.RatingBatch, int, int, double[], int)
+     */
+    @Override
+    public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+        this.composedRatingSet.rate(batch, offset, length, out, outOffset);
+    }
+
+    /* (non-Javadoc)
+     * @see org.opendcs.ratings.IRating#rateWithStatus(org.opendcs.ratings.RatingBatch, int, int, double[], byte[], int)
+     */
+    @Override
+    public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+        this.composedRatingSet.rateWithStatus(batch, offset, length, out, status, outOffset);
+    }
+
+    /* (non-Javadoc)
+     * @see org.opendcs.ratings.IRating#rate(org.opendcs.ratings.RatingContext, long[], double[][])
+     */
+    @Override
+    public double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+        return this.composedRatingSet.rate(context, valTimes, indVals);
+    }
+
     /* (non-Javadoc)
      * @see org.opendcs.ratings.IRating#reverseRate(double)
      */
@@ -1681,6 +1745,14 @@ public class RatingSet implements IRating, Observer, VerticalDatum {
         return this.composedRatingSet.reverseRate(valTimes, depVals);
     }
 
+    /* (non-Javadoc)
+     * @see org.opendcs.ratings.IRating#reverseRate(org.opendcs.ratings.RatingContext, long[], double[])
+     */
+    @Override
+    public double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+        return this.composedRatingSet.reverseRate(context, valTimes, depVals);
+    }
+
     /* (non-Javadoc)
      * @see org.opendcs.ratings.IRating#reverseRate(hec.io.TimeSeriesContainer)
      */
@@ -0,0 +1,88 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+/**
+ * The outcome of rating a single value with
+ * {@link IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)}. The codes are ordered by severity, so
+ * that when several conditions apply to a value (for instance in different independent parameters, or in the two
+ * ratings a value is interpolated between) the most severe is reported.
+ */
+public final class RatingStatus {
+	/**
+	 * The value was rated within the range of the rating
+	 */
+	public static final byte OK = 0;
+	/**
+	 * The value was rated outside the range of the rating by a method that still produces a value, such as
+	 * extrapolation or the nearest value in the table
+	 */
+	public static final byte EXTRAPOLATED = 1;
+	/**
+	 * The rated value is undefined because an independent value is undefined or the rating method produces no value
+	 */
+	public static final byte UNDEFINED = 2;
+	/**
+	 * The value is below the range of the rating, and the rating method doesn't allow rating it. The rated value is
+	 * undefined.
+	 */
+	public static final byte OUT_OF_RANGE_LOW = 3;
+	/**
+	 * The value is above the range of the rating, and the rating method doesn't allow rating it. The rated value is
+	 * undefined.
+	 */
+	public static final byte OUT_OF_RANGE_HIGH = 4;
+	/**
+	 * The value could not be rated for another reason. The rated value is undefined.
+	 */
+	public static final byte ERROR = 5;
+
+	private RatingStatus() {
+	}
+	/**
+	 * Retrieves the name of a status code
+	 * @param status The status code
+	 * @return The name of the code
+	 */
+	public static String toString(byte status) {
+		switch (status) {
+		case OK :
+			return "OK";
+		case EXTRAPOLATED :
+			return "EXTRAPOLATED";
+		case UNDEFINED :
+			return "UNDEFINED";
+		case OUT_OF_RANGE_LOW :
+			return "OUT_OF_RANGE_LOW";
+		case OUT_OF_RANGE_HIGH :
+			return "OUT_OF_RANGE_HIGH";
+		case ERROR :
+			return "ERROR";
+		default :
+			return "UNKNOWN(" + status + ")";
+		}
+	}
+	/**
+	 * Combines two status codes
+	 * @param a A status code
+	 * @param b Another status code
+	 * @return The more severe code
+	 */
+	static byte worse(byte a, byte b) {
+		return a >= b ? a : b;
+	}
+}
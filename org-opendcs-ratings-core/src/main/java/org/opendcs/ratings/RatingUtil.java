@@ -18,10 +18,10 @@ package org.opendcs.ratings;
 
 
 import hec.heclib.util.HecTime;
+import hec.lang.Const;
 import hec.io.Conversion;
 import hec.io.TimeSeriesContainer;
 import hec.io.TimeSeriesContainerAligner;
-import mil.army.usace.hec.metadata.UnitUtil;
 import org.opendcs.ratings.io.IndependentValuesContainer;
 
 import java.text.SimpleDateFormat;
@@ -51,16 +51,16 @@ final class RatingUtil {
             List<Integer> commonTimes = new Vector<>();
             List<double[]> indVals = new Vector<>();
             TimeSeriesContainerAligner tsca = new TimeSeriesContainerAligner(tscs);
+            UnitConversion[] conversions = new UnitConversion[indParamCount];
+            for (int i = 0; i < indParamCount; ++i) {
+                conversions[i] = UnitConversion.get(tscs[i].units, units[i]);
+            }
             while (tsca.hasCurrent()) {
                 if (tsca.getAlignedCount() == indParamCount) {
                     commonTimes.add(tsca.getTime());
                     double[] v = new double[indParamCount];
                     for (int i = 0; i < indParamCount; ++i) {
-                        if (!tscs[i].units.equals(units[i])) {
-                            v[i] = UnitUtil.convertUnits(tsca.getValue(i), tscs[i].units, units[i]);
-                        } else {
-                            v[i] = tsca.getValue(i);
-                        }
+                        v[i] = conversions[i].convert(tsca.getValue(i));
                     }
                     indVals.add(v);
                 }
@@ -96,4 +96,99 @@ final class RatingUtil {
             throw new RatingException(t);
         }
     }
+
+    /**
+     * Validates the arguments of a bulk rate or reverse rate call that writes into a caller-supplied buffer
+     *
+     * @param valueCount The number of values (or value sets) in the input array
+     * @param offset     The position in the input array of the first value to rate
+     * @param length     The number of values to rate
+     * @param valTimes   The value times, indexed the same as the input values, or null
+     * @param out        The buffer to receive the rated values
+     * @param outOffset  The position in the buffer of the first rated value
+     * @throws RatingException if any of the ranges are invalid
+     */
+    static void checkBulkRange(int valueCount, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+        if (out == null) {
+            throw new RatingException("Output buffer is null.");
+        }
+        if (offset < 0 || length < 0 || offset + length > valueCount) {
+            throw new RatingException(String.format(
+                    "Invalid range: offset %d, length %d for %d values.", offset, length, valueCount));
+        }
+        if (valTimes != null && offset + length > valTimes.length) {
+            throw new RatingException(String.format(
+                    "Invalid range: offset %d, length %d for %d times.", offset, length, valTimes.length));
+        }
+        if (outOffset < 0 || outOffset + length > out.length) {
+            throw new RatingException(String.format(
+                    "Invalid output range: offset %d, length %d for buffer of %d values.", outOffset, length, out.length));
+        }
+    }
+
+    /**
+     * Validates the status buffer of a call to {@link IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)}
+     *
+     * @param status    The buffer to receive the status of each rated value
+     * @param outOffset The position in the buffer of the status of the first rated value
+     * @param length    The number of values to rate
+     * @throws RatingException if the buffer is null or too short
+     */
+    static void checkStatusRange(byte[] status, int outOffset, int length) throws RatingException {
+        if (status == null) {
+            throw new RatingException("Status buffer is null.");
+        }
+        if (outOffset < 0 || outOffset + length > status.length) {
+            throw new RatingException(String.format(
+                    "Invalid status range: offset %d, length %d for buffer of %d values.", outOffset, length, status.length));
+        }
+    }
+
+    /**
+     * Rates a range of the value sets of a batch with a rating that doesn't report the status of each value set
+     * itself, by rating the whole range and, if that throws, rating the value sets one at a time
+     *
+     * @param rating    The rating
+     * @param batch     The batch
+     * @param offset    The position in the batch of the first value set to rate
+     * @param length    The number of value sets to rate
+     * @param out       The buffer to receive the dependent values
+     * @param status    The buffer to receive the status of each dependent value
+     * @param outOffset The position in out and status of the first dependent value
+     * @throws RatingException if the call itself is invalid
+     * @see IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+     */
+    static void rateWithStatus(IRating rating, RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset)
+            throws RatingException {
+        checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+        checkStatusRange(status, outOffset, length);
+        if (batch.getParamCount() != rating.getIndParamCount()) {
+            throw new RatingException(String.format(
+                    "Data has %d independent parameters; rating %s requires %d",
+                    batch.getParamCount(), rating.getName(), rating.getIndParamCount()));
+        }
+        try {
+            rating.rate(batch, offset, length, out, outOffset);
+            for (int i = outOffset; i < outOffset + length; ++i) {
+                status[i] = out[i] == Const.UNDEFINED_DOUBLE ? RatingStatus.UNDEFINED : RatingStatus.OK;
+            }
+            return;
+        } catch (RatingException e) {
+            // at least one value set can't be rated; find which
+        }
+        for (int i = 0; i < length; ++i) {
+            int j = outOffset + i;
+            try {
+                rating.rate(batch, offset + i, 1, out, j);
+                status[j] = out[j] == Const.UNDEFINED_DOUBLE ? RatingStatus.UNDEFINED : RatingStatus.OK;
+            } catch (RatingOutOfRangeException e) {
+                out[j] = Const.UNDEFINED_DOUBLE;
+                status[j] = e.getOutOfRangeType() == RatingOutOfRangeException.OutOfRangeEnum.OUT_OF_RANGE_LOW
+                        ? RatingStatus.OUT_OF_RANGE_LOW : RatingStatus.OUT_OF_RANGE_HIGH;
+            } catch (RatingException e) {
+                out[j] = Const.UNDEFINED_DOUBLE;
+                status[j] = RatingStatus.ERROR;
+            }
+        }
+    }
 }
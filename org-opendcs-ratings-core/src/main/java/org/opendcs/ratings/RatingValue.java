@@ -90,6 +90,7 @@ public class RatingValue implements Observer {
 		this.depTable = depValues;
 		observationTarget = new Observable();
 		this.hasDepTable = true;
+		if (depValues != null) depValues.addObserver(this);
 	}
 	/**
 	 * Public Constructor from RatingValueContainer object
@@ -108,6 +109,7 @@ public class RatingValue implements Observer {
 			depValue = UNDEFINED_DOUBLE;
 			note = null;
 			depTable = new TableRating(rvc.depTable);
+			depTable.addObserver(this);
 			hasDepTable = true;
 		}
 		observationTarget = new Observable();
@@ -233,6 +235,7 @@ public class RatingValue implements Observer {
 			depValue = UNDEFINED_DOUBLE;
 			note = null;
 			depTable = new TableRating(rvc.depTable);
+			depTable.addObserver(this);
 			hasDepTable = true;
 		}
 		observationTarget.setChanged();
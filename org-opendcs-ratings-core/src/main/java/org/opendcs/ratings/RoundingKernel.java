@@ -0,0 +1,85 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import hec.data.RoundingException;
+import hec.data.UsgsRounder;
+
+/**
+ * The rounding of a rating's values by a {@link UsgsRounder}, for rounding values in bulk. The rounding itself is done
+ * by the rounder, so the values are exactly those the rounder produces. Values are often rounded in runs of equal
+ * values (the shifts of a steady stage, or of stages shifted by a flat shift table), so each run of equal values in an
+ * array is rounded only once.
+ * <p>
+ * A kernel belongs to a single rating and holds no state of its own beyond its rounder, so it is as safe to use from
+ * several threads as the rounder is.
+ */
+final class RoundingKernel {
+	/**
+	 * The rounder
+	 */
+	private final UsgsRounder rounder;
+
+	/**
+	 * Creates a kernel that rounds with a rounder
+	 * @param rounder The rounder
+	 */
+	RoundingKernel(UsgsRounder rounder) {
+		this.rounder = rounder;
+	}
+	/**
+	 * Retrieves whether this kernel rounds with a rounder
+	 * @param rounder The rounder
+	 * @return Whether the kernel was created for the rounder
+	 */
+	boolean isFor(UsgsRounder rounder) {
+		return this.rounder == rounder;
+	}
+	/**
+	 * Rounds a value
+	 * @param value The value to round
+	 * @return The rounded value
+	 * @throws RatingException on error
+	 */
+	double round(double value) throws RatingException {
+		try {
+			return rounder.round(value, true);
+		}
+		catch (RoundingException e) {
+			throw new RatingException(e);
+		}
+	}
+	/**
+	 * Rounds a range of values in place
+	 * @param values The values to round
+	 * @param offset The position of the first value to round
+	 * @param length The number of values to round
+	 * @throws RatingException on error
+	 */
+	void round(double[] values, int offset, int length) throws RatingException {
+		double previous = Double.NaN;
+		double rounded = Double.NaN;
+		for (int i = offset; i < offset + length; ++i) {
+			double value = values[i];
+			if (i == offset || Double.doubleToLongBits(value) != Double.doubleToLongBits(previous)) {
+				previous = value;
+				rounded = round(value);
+			}
+			values[i] = rounded;
+		}
+	}
+}
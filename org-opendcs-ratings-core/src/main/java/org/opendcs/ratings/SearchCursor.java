@@ -0,0 +1,143 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the segment last found in each of a number of tables so that lookups of slowly varying values can
+ * search outward from that segment (exponential search) instead of bisecting the whole table. The segment found
+ * for a value is the same as the one found by {@link #bisect(double[], int, int, double, boolean)}, provided the
+ * table is monotonic. A cursor is not thread-safe and is meant to be used for the duration of a single bulk lookup.
+ */
+final class SearchCursor {
+	/**
+	 * The segment last found in each table, or -1 if none
+	 */
+	private final int[] segment;
+
+	/**
+	 * Creates a cursor for the specified number of tables
+	 * @param tables The number of tables
+	 */
+	SearchCursor(int tables) {
+		segment = new int[tables];
+		Arrays.fill(segment, -1);
+	}
+	/**
+	 * Finds the segment containing a value in a monotonic range of table values, searching outward from the
+	 * segment last found in the same table. The value must not be out of range of the table values.
+	 * @param table The table the range belongs to
+	 * @param ind The table values
+	 * @param first The position of the first value in the range
+	 * @param last The position of the last value in the range
+	 * @param v The value to find
+	 * @param ascending Specifies whether the table values increase (true) or decrease (false)
+	 * @return The position of the lower end of the segment, which is <code>first</code> for a range of one value
+	 */
+	int find(int table, double[] ind, int first, int last, double v, boolean ascending) {
+		if (last - first < 2) return first;
+		int h = segment[table];
+		if (h < first || h >= last) {
+			return segment[table] = bisect(ind, first, last, v, ascending);
+		}
+		int lo;
+		int hi;
+		int step = 1;
+		if (!before(v, ind[h], ascending)) {
+			//----------------//
+			// gallop upwards //
+			//----------------//
+			lo = h;
+			hi = h + 1;
+			while (hi < last && !before(v, ind[hi], ascending)) {
+				lo = hi;
+				step <<= 1;
+				hi = lo + step;
+			}
+			if (hi > last) hi = last;
+		}
+		else {
+			//------------------//
+			// gallop downwards //
+			//------------------//
+			hi = h;
+			lo = h - 1;
+			while (lo > first && before(v, ind[lo], ascending)) {
+				hi = lo;
+				step <<= 1;
+				lo = hi - step;
+			}
+			if (lo < first) lo = first;
+		}
+		return segment[table] = narrow(ind, lo, hi, v, ascending);
+	}
+	/**
+	 * Finds the segment containing a value in a range of table values by bisecting the whole range. The value must
+	 * not be out of range of the table values.
+	 * @param ind The table values
+	 * @param first The position of the first value in the range
+	 * @param last The position of the last value in the range
+	 * @param v The value to find
+	 * @param ascending Specifies whether the table values increase (true) or decrease (false)
+	 * @return The position of the lower end of the segment, which is <code>first</code> for a range of one value
+	 */
+	static int bisect(double[] ind, int first, int last, double v, boolean ascending) {
+		return narrow(ind, first, last, v, ascending);
+	}
+	/**
+	 * Bisects a range of table values that is known to contain the segment for a value
+	 * @param ind The table values
+	 * @param lo A position that the value does not precede, or the first position in the table range
+	 * @param hi A position that the value precedes, or the last position in the table range
+	 * @param v The value to find
+	 * @param ascending Specifies whether the table values increase (true) or decrease (false)
+	 * @return The position of the lower end of the segment
+	 */
+	static int narrow(double[] ind, int lo, int hi, double v, boolean ascending) {
+		int mid;
+		while (hi - lo > 1) {
+			mid = (lo + hi) >>> 1;
+			if (before(v, ind[mid], ascending)) hi = mid; else lo = mid;
+		}
+		return lo;
+	}
+	/**
+	 * Determines whether a range of table values never reverses the specified direction, which is required for a
+	 * search that doesn't bisect the whole range to find the same segment as one that does
+	 * @param ind The table values
+	 * @param first The position of the first value in the range
+	 * @param last The position of the last value in the range
+	 * @param ascending Specifies whether the table values should increase (true) or decrease (false)
+	 * @return Whether the range of values is monotonic in the specified direction
+	 */
+	static boolean isMonotonic(double[] ind, int first, int last, boolean ascending) {
+		for (int i = first + 1; i <= last; ++i) {
+			if (!(ascending ? ind[i] >= ind[i-1] : ind[i] <= ind[i-1])) return false;
+		}
+		return true;
+	}
+	/**
+	 * Determines whether a value precedes a table value in table order
+	 */
+	static boolean before(double v, double tableValue, boolean ascending) {
+		return !eq(v, tableValue) && (ascending ? v < tableValue : v > tableValue);
+	}
+	private static boolean eq(double v1, double v2) {
+		return Math.abs(v2-v1) < 1.e-8;
+	}
+}
@@ -0,0 +1,692 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import org.opendcs.ratings.RatingConst.RatingMethod;
+
+import java.util.Arrays;
+
+import static hec.lang.Const.UNDEFINED_DOUBLE;
+
+/**
+ * The shifts of a {@link UsgsStreamTableRating} in flat form: the active shift tables in effective date order, the
+ * grid and unit conversions of each, and the times from which each pair of adjacent shifts is interpolated. Looking up
+ * a shift selects the shift tables by the effective date methods of the shift rating set and blends them exactly as
+ * the rating set does, without locking the rating set, checking the values or allocating arrays for each value.
+ * <p>
+ * Shift tables that interpolate linearly are also kept as piecewise-linear curves in data units, so that the
+ * unshifted stage for a shifted stage can be solved for directly ({@link #unshifted(long, double, Scan)}) instead of
+ * by repeatedly shifting trial stages. The breakpoints of each curve, and of each pair of adjacent curves that are
+ * blended in time, are worked out when the timeline is compiled. A shift table that shifts every stage by the same amount (such as a
+ * single-point shift, or the zero shift at the base effective date) is reduced to that shift when the timeline is
+ * compiled, so the stages it applies to are shifted with no lookup per stage.
+ * <p>
+ * A timeline is a snapshot of the shifts when it was compiled. {@link #isCurrent(RatingSet)} tells whether the active
+ * shifts, their values, their units or the effective date methods have changed since. Shifts that can't be compiled
+ * (a rating set that only wraps another, or shifts that aren't simple tables) leave the timeline uncompiled, and the
+ * shifts must be rated through the rating set instead.
+ */
+final class ShiftTimeline {
+	/**
+	 * The shift rating set the timeline was compiled from
+	 */
+	private final RatingSet source;
+	/**
+	 * The active shifts of the rating set when the timeline was compiled, or null if the source isn't an
+	 * {@link AbstractRatingSet} or its active shifts couldn't be determined
+	 */
+	private final EffectiveDateIndex index;
+	/**
+	 * Whether the shifts are rated by this timeline
+	 */
+	private final boolean compiled;
+	/**
+	 * The method for times before the earliest shift
+	 */
+	private final RatingMethod outRangeLow;
+	/**
+	 * The method for times between shifts
+	 */
+	private final RatingMethod inRange;
+	/**
+	 * The method for times after the latest shift
+	 */
+	private final RatingMethod outRangeHigh;
+	/**
+	 * The shift table for each effective date
+	 */
+	private final TableRating[] tables;
+	/**
+	 * The grid of each shift table
+	 */
+	private final CompiledGrid[] grids;
+	/**
+	 * The unit conversions of each shift table, as returned by {@link AbstractRating#getUnitConversions()}
+	 */
+	private final UnitConversion[][][] conversions;
+	/**
+	 * The time from which values are interpolated between each shift and the one before it, or 0 for the first
+	 */
+	private final long[] interpolationStarts;
+	/**
+	 * The piecewise-linear form of each shift table, or null for a table that doesn't interpolate linearly
+	 */
+	private final ShiftCurve[] curves;
+	/**
+	 * Whether every shift table has a piecewise-linear form, so that the shifts can be inverted directly
+	 */
+	private final boolean invertible;
+	/**
+	 * The inversion of each shift curve alone, or null if the shifts can't be inverted directly
+	 */
+	private final Inversion[] singles;
+	/**
+	 * The inversion of each shift curve blended with the one before it (the first is unused), or null if the shifts
+	 * can't be inverted directly
+	 */
+	private final Inversion[] pairs;
+	/**
+	 * The (unrounded) shift of every stage for each shift table, or NaN for a table whose shift varies with the stage
+	 */
+	private final double[] flatShifts;
+
+	private ShiftTimeline(RatingSet source, EffectiveDateIndex index) {
+		this.source = source;
+		this.index = index;
+		this.compiled = false;
+		this.outRangeLow = null;
+		this.inRange = null;
+		this.outRangeHigh = null;
+		this.tables = null;
+		this.grids = null;
+		this.conversions = null;
+		this.interpolationStarts = null;
+		this.curves = null;
+		this.invertible = false;
+		this.singles = null;
+		this.pairs = null;
+		this.flatShifts = null;
+	}
+	private ShiftTimeline(AbstractRatingSet source, EffectiveDateIndex index, RatingSpec spec, TableRating[] tables) throws RatingException {
+		int count = tables.length;
+		this.source = source;
+		this.index = index;
+		this.compiled = true;
+		this.outRangeLow = spec.getOutRangeLowMethod();
+		this.inRange = spec.getInRangeMethod();
+		this.outRangeHigh = spec.getOutRangeHighMethod();
+		this.tables = tables;
+		this.grids = new CompiledGrid[count];
+		this.conversions = new UnitConversion[count][][];
+		this.interpolationStarts = new long[count];
+		this.flatShifts = new double[count];
+		this.curves = new ShiftCurve[count];
+		boolean invertible = true;
+		for (int i = 0; i < count; ++i) {
+			grids[i] = tables[i].grid();
+			conversions[i] = tables[i].getUnitConversions();
+			if (i > 0) {
+				interpolationStarts[i] = index.interpolationStart(i - 1, i);
+			}
+			curves[i] = ShiftCurve.of(tables[i], conversions[i]);
+			if (curves[i] == null) {
+				invertible = false;
+				flatShifts[i] = Double.NaN;
+			}
+			else {
+				flatShifts[i] = curves[i].flatShift();
+			}
+		}
+		this.invertible = invertible;
+		if (invertible) {
+			singles = new Inversion[count];
+			pairs = new Inversion[count];
+			for (int i = 0; i < count; ++i) {
+				singles[i] = new Inversion(curves[i], null);
+				if (i > 0) {
+					pairs[i] = new Inversion(curves[i - 1], curves[i]);
+				}
+			}
+		}
+		else {
+			singles = null;
+			pairs = null;
+		}
+	}
+	/**
+	 * Compiles the active shifts of a shift rating set
+	 * @param shifts The shift rating set
+	 * @return The timeline, which is not compiled if the shifts can't be rated without the rating set
+	 */
+	static ShiftTimeline compile(RatingSet shifts) {
+		if (!(shifts instanceof AbstractRatingSet)) {
+			return new ShiftTimeline(shifts, null);
+		}
+		AbstractRatingSet set = (AbstractRatingSet) shifts;
+		try {
+			synchronized(set) {
+				RatingSpec spec = set.ratingSpec;
+				EffectiveDateIndex index = set.getActiveRatingIndex();
+				if (spec == null || index.size() == 0) {
+					return new ShiftTimeline(shifts, index);
+				}
+				set.checkDataUnits();
+				TableRating[] tables = new TableRating[index.size()];
+				for (int i = 0; i < tables.length; ++i) {
+					AbstractRating rating = index.ratings[i];
+					if (rating.getClass() != TableRating.class || rating.getIndParamCount() != 1) {
+						return new ShiftTimeline(shifts, index);
+					}
+					tables[i] = (TableRating) rating;
+				}
+				return new ShiftTimeline(set, index, spec, tables);
+			}
+		}
+		catch (RatingException e) {
+			//---------------------------------------------------//
+			// leave the error to be raised by the shift ratings //
+			//---------------------------------------------------//
+			return new ShiftTimeline(shifts, null);
+		}
+	}
+	/**
+	 * Retrieves whether the shifts are rated by this timeline or must be rated through the rating set
+	 * @return Whether the timeline is compiled
+	 */
+	boolean isCompiled() {
+		return compiled;
+	}
+	/**
+	 * Retrieves whether this timeline still describes a shift rating set
+	 * @param shifts The shift rating set
+	 * @return Whether the timeline was compiled from the rating set and nothing it depends on has changed since
+	 */
+	boolean isCurrent(RatingSet shifts) {
+		if (shifts != source) {
+			return false;
+		}
+		if (!(shifts instanceof AbstractRatingSet)) {
+			return true;
+		}
+		AbstractRatingSet set = (AbstractRatingSet) shifts;
+		if (index == null || set.getActiveRatingIndex() != index) {
+			return false;
+		}
+		if (!compiled) {
+			return true;
+		}
+		try {
+			RatingSpec spec;
+			synchronized(set) {
+				spec = set.ratingSpec;
+			}
+			if (spec == null
+					|| spec.getOutRangeLowMethod() != outRangeLow
+					|| spec.getInRangeMethod() != inRange
+					|| spec.getOutRangeHighMethod() != outRangeHigh) {
+				return false;
+			}
+			for (int i = 0; i < tables.length; ++i) {
+				if (tables[i].grid() != grids[i] || tables[i].getUnitConversions() != conversions[i]) {
+					return false;
+				}
+				if (curves[i] != null && !curves[i].isFor(tables[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		catch (RatingException e) {
+			return false;
+		}
+	}
+	/**
+	 * Creates the search state for looking up the shifts of a sequence of values
+	 * @return The search state
+	 */
+	Scan newScan() {
+		return new Scan();
+	}
+	/**
+	 * Retrieves the (unrounded) shift for an unshifted stage at a specified time
+	 * @param valTime The time of the stage, in Java milliseconds
+	 * @param height The unshifted stage
+	 * @param scan The search state from {@link #newScan()}
+	 * @return The shift, or UNDEFINED_DOUBLE if the shifts rate the stage as undefined
+	 * @throws RatingException if the effective date methods or the shift tables don't allow rating the stage
+	 */
+	double shift(long valTime, double height, Scan scan) throws RatingException {
+		long pair = index.ratingsFor(outRangeLow, inRange, outRangeHigh, valTime, scan.dates);
+		if (pair == EffectiveDateIndex.NO_RATING) {
+			return UNDEFINED_DOUBLE;
+		}
+		int lower = (int) (pair >> 32);
+		int upper = (int) pair;
+		double y1 = rate(lower, height, scan);
+		if (lower == upper) {
+			return y1;
+		}
+		//------------------------------------------------//
+		// adjacent shifts are interpolated as in the set //
+		//------------------------------------------------//
+		double y2 = rate(upper, height, scan);
+		if (y1 == UNDEFINED_DOUBLE || y2 == UNDEFINED_DOUBLE) {
+			return UNDEFINED_DOUBLE;
+		}
+		long t1 = interpolationStarts[upper];
+		long t2 = index.effectiveDates[upper];
+		if (valTime > t1) {
+			y1 = y1 + (((double) valTime - t1) / (t2 - t1)) * (y2 - y1);
+		}
+		return y1;
+	}
+	/**
+	 * Solves for the unshifted stage that a shifted stage was produced from at a specified time, that is the stage u
+	 * for which u plus the (unrounded) shift of u is the shifted stage. The blended shift of the one or two shift
+	 * tables in effect is piecewise linear, so the stage is found directly on the segment that contains it. If more
+	 * than one stage shifts to the shifted stage, the one nearest the shifted stage less its own shift is returned.
+	 * @param valTime The time of the stage, in Java milliseconds
+	 * @param height The shifted stage
+	 * @param scan The search state from {@link #newScan()}
+	 * @return The unshifted stage, or NaN if the shifts can't be inverted directly
+	 * @throws RatingException if the effective date methods don't allow rating the stage
+	 */
+	double unshifted(long valTime, double height, Scan scan) throws RatingException {
+		if (!invertible || height == UNDEFINED_DOUBLE) {
+			return Double.NaN;
+		}
+		long pair = index.ratingsFor(outRangeLow, inRange, outRangeHigh, valTime, scan.dates);
+		if (pair == EffectiveDateIndex.NO_RATING) {
+			return Double.NaN;
+		}
+		int lower = (int) (pair >> 32);
+		int upper = (int) pair;
+		if (lower != upper) {
+			long t1 = interpolationStarts[upper];
+			long t2 = index.effectiveDates[upper];
+			if (valTime > t1) {
+				return pairs[upper].unshifted(height, ((double) valTime - t1) / (t2 - t1));
+			}
+		}
+		return singles[lower].unshifted(height, 0.);
+	}
+	/**
+	 * Evaluates the blended shift of one or two shift curves, as the shift tables are blended in time
+	 * @param a The lower shift curve
+	 * @param b The upper shift curve, or null if only the lower one is in effect
+	 * @param w The weight of the upper shift curve
+	 * @param stage The unshifted stage
+	 * @return The shift
+	 */
+	private static double blend(ShiftCurve a, ShiftCurve b, double w, double stage) {
+		double y1 = a.shift(stage);
+		return b == null ? y1 : y1 + w * (b.shift(stage) - y1);
+	}
+	/**
+	 * Retrieves the slope of the blended shift beyond an end of the curves
+	 * @param a The lower shift curve
+	 * @param b The upper shift curve, or null
+	 * @param w The weight of the upper shift curve
+	 * @param low Whether the slope below the lowest breakpoint (true) or above the highest one (false) is wanted
+	 * @return The slope
+	 */
+	private static double blendSlope(ShiftCurve a, ShiftCurve b, double w, boolean low) {
+		double s1 = low ? a.lowSlope : a.highSlope;
+		return b == null ? s1 : s1 + w * ((low ? b.lowSlope : b.highSlope) - s1);
+	}
+	/**
+	 * Solves a linear piece that extends without bound from one breakpoint
+	 * @param x0 The breakpoint
+	 * @param g0 The shifted stage at the breakpoint
+	 * @param slope The rate of change of the shifted stage with the unshifted stage
+	 * @param height The shifted stage to solve for
+	 * @param below Whether the piece extends below the breakpoint
+	 * @param above Whether the piece extends above the breakpoint
+	 * @return The unshifted stage, or NaN if the piece doesn't reach the shifted stage
+	 */
+	private static double solve(double x0, double g0, double slope, double height, boolean below, boolean above) {
+		if (slope == 0.) {
+			return Double.NaN;
+		}
+		double u = x0 + (height - g0) / slope;
+		return (below && u <= x0) || (above && u >= x0) ? u : Double.NaN;
+	}
+	/**
+	 * Chooses between two candidate stages
+	 * @param best The best candidate so far, or NaN
+	 * @param candidate Another candidate, or NaN
+	 * @param guess The stage the candidates are compared to
+	 * @return The candidate nearer the guess
+	 */
+	private static double nearer(double best, double candidate, double guess) {
+		if (Double.isNaN(candidate)) {
+			return best;
+		}
+		if (Double.isNaN(best) || Math.abs(candidate - guess) < Math.abs(best - guess)) {
+			return candidate;
+		}
+		return best;
+	}
+	/**
+	 * Rates a stage with a single shift table, as the table rates it in bulk. A table that shifts every stage by the
+	 * same amount is not looked up.
+	 * @param table The position of the shift table
+	 * @param height The stage
+	 * @param scan The search state
+	 * @return The shift
+	 * @throws RatingException on error
+	 */
+	private double rate(int table, double height, Scan scan) throws RatingException {
+		if (height == UNDEFINED_DOUBLE) {
+			return UNDEFINED_DOUBLE;
+		}
+		if (!Double.isNaN(flatShifts[table]) && !Double.isNaN(height)) {
+			return flatShifts[table];
+		}
+		UnitConversion[][] units = conversions[table];
+		double shift = grids[table].rate(units[0][0].convert(height), scan.cursor(table, grids[table]));
+		return shift == UNDEFINED_DOUBLE ? shift : units[1][1].convert(shift);
+	}
+
+	/**
+	 * A shift table that interpolates linearly, in data units: the stages and shifts of its breakpoints and the slopes
+	 * beyond its ends
+	 */
+	private static final class ShiftCurve {
+		/**
+		 * The stages of the breakpoints, in ascending order
+		 */
+		final double[] stages;
+		/**
+		 * The shift at each breakpoint
+		 */
+		final double[] shifts;
+		/**
+		 * The slope below the lowest breakpoint
+		 */
+		final double lowSlope;
+		/**
+		 * The slope above the highest breakpoint
+		 */
+		final double highSlope;
+		/**
+		 * The methods of the table when the curve was built
+		 */
+		private final RatingMethod inRange;
+		private final RatingMethod outRangeLow;
+		private final RatingMethod outRangeHigh;
+
+		private ShiftCurve(TableRating table, double[] stages, double[] shifts, double lowSlope, double highSlope) {
+			this.stages = stages;
+			this.shifts = shifts;
+			this.lowSlope = lowSlope;
+			this.highSlope = highSlope;
+			this.inRange = table.inRangeMethod;
+			this.outRangeLow = table.outRangeLowMethod;
+			this.outRangeHigh = table.outRangeHighMethod;
+		}
+		/**
+		 * Builds the curve of a shift table
+		 * @param table The shift table
+		 * @param conversions The unit conversions of the table
+		 * @return The curve, or null if the table doesn't interpolate linearly between ascending stages, or extends
+		 *         beyond its ends other than linearly or with its end values
+		 */
+		static ShiftCurve of(TableRating table, UnitConversion[][] conversions) throws RatingException {
+			CompiledTable compiled = table.getCompiled();
+			int count = compiled.size();
+			if (count == 0 || compiled.depTables != null || table.inRangeMethod != RatingMethod.LINEAR) {
+				return null;
+			}
+			double[] stages = new double[count];
+			double[] shifts = new double[count];
+			for (int i = 0; i < count; ++i) {
+				stages[i] = conversions[1][0].convert(compiled.ind[i]);
+				shifts[i] = conversions[1][1].convert(compiled.dep[i]);
+				if (i > 0 && !(stages[i] > stages[i - 1])) {
+					return null;
+				}
+			}
+			double lowSlope;
+			switch (table.outRangeLowMethod) {
+			case LINEAR:
+				if (count < 2) return null;
+				lowSlope = (shifts[1] - shifts[0]) / (stages[1] - stages[0]);
+				break;
+			case NEXT:
+			case NEAREST:
+			case CLOSEST:
+				lowSlope = 0.;
+				break;
+			default:
+				return null;
+			}
+			double highSlope;
+			switch (table.outRangeHighMethod) {
+			case LINEAR:
+				if (count < 2) return null;
+				highSlope = (shifts[count - 1] - shifts[count - 2]) / (stages[count - 1] - stages[count - 2]);
+				break;
+			case PREVIOUS:
+			case NEAREST:
+			case CLOSEST:
+				highSlope = 0.;
+				break;
+			default:
+				return null;
+			}
+			return new ShiftCurve(table, stages, shifts, lowSlope, highSlope);
+		}
+		/**
+		 * Retrieves the shift of a curve that shifts every stage by the same amount
+		 * @return The shift, or NaN if the shift varies with the stage or is undefined
+		 */
+		double flatShift() {
+			double shift = shifts[0];
+			if (shift == UNDEFINED_DOUBLE || Double.isNaN(shift) || Double.isInfinite(shift)) {
+				return Double.NaN;
+			}
+			for (int i = 1; i < shifts.length; ++i) {
+				if (shifts[i] != shift) {
+					return Double.NaN;
+				}
+			}
+			return shift;
+		}
+		/**
+		 * Retrieves whether the curve still describes a shift table whose values haven't changed
+		 * @param table The shift table
+		 * @return Whether the methods of the table are those the curve was built for
+		 */
+		boolean isFor(TableRating table) {
+			return table.inRangeMethod == inRange && table.outRangeLowMethod == outRangeLow && table.outRangeHighMethod == outRangeHigh;
+		}
+		/**
+		 * Evaluates the curve
+		 * @param stage The unshifted stage
+		 * @return The shift
+		 */
+		double shift(double stage) {
+			int last = stages.length - 1;
+			if (stage <= stages[0]) {
+				return shifts[0] + lowSlope * (stage - stages[0]);
+			}
+			if (stage >= stages[last]) {
+				return shifts[last] + highSlope * (stage - stages[last]);
+			}
+			int lo = SearchCursor.bisect(stages, 0, last, stage, true);
+			return shifts[lo] + (stage - stages[lo]) * (shifts[lo + 1] - shifts[lo]) / (stages[lo + 1] - stages[lo]);
+		}
+		/**
+		 * Merges the breakpoints of two curves
+		 * @param a The stages of one curve, in ascending order
+		 * @param b The stages of another curve, in ascending order
+		 * @return The distinct stages of both, in ascending order
+		 */
+		static double[] merge(double[] a, double[] b) {
+			double[] merged = new double[a.length + b.length];
+			int i = 0;
+			int j = 0;
+			int n = 0;
+			while (i < a.length || j < b.length) {
+				double next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+				if (n == 0 || next != merged[n - 1]) {
+					merged[n++] = next;
+				}
+			}
+			return n == merged.length ? merged : Arrays.copyOf(merged, n);
+		}
+	}
+
+	/**
+	 * The breakpoints of g(u) = u + shift(u) for one shift curve, or for two adjacent shift curves blended in time. The
+	 * blended shift is piecewise linear between the breakpoints of both curves and beyond the end ones, so each piece
+	 * is solved directly. If g increases throughout, the piece containing the shifted stage is found by bisection.
+	 */
+	private static final class Inversion {
+		/**
+		 * The lower shift curve
+		 */
+		private final ShiftCurve a;
+		/**
+		 * The upper shift curve, or null if only the lower one is in effect
+		 */
+		private final ShiftCurve b;
+		/**
+		 * The breakpoints of both curves, in ascending order
+		 */
+		private final double[] stages;
+		/**
+		 * The shift of the lower curve at each breakpoint
+		 */
+		private final double[] lowerShifts;
+		/**
+		 * The shift of the upper curve at each breakpoint, or null
+		 */
+		private final double[] upperShifts;
+		/**
+		 * Whether g increases throughout for every weight from 0 to 1
+		 */
+		private final boolean increasing;
+
+		Inversion(ShiftCurve a, ShiftCurve b) {
+			this.a = a;
+			this.b = b;
+			stages = b == null ? a.stages : ShiftCurve.merge(a.stages, b.stages);
+			lowerShifts = new double[stages.length];
+			upperShifts = b == null ? null : new double[stages.length];
+			boolean rising = 1. + a.lowSlope > 0. && 1. + a.highSlope > 0.
+					&& (b == null || (1. + b.lowSlope > 0. && 1. + b.highSlope > 0.));
+			for (int k = 0; k < stages.length; ++k) {
+				lowerShifts[k] = a.shift(stages[k]);
+				if (b != null) {
+					upperShifts[k] = b.shift(stages[k]);
+				}
+				if (k > 0) {
+					rising = rising && stages[k] + lowerShifts[k] > stages[k - 1] + lowerShifts[k - 1];
+					if (b != null) {
+						rising = rising && stages[k] + upperShifts[k] > stages[k - 1] + upperShifts[k - 1];
+					}
+				}
+			}
+			increasing = rising;
+		}
+		/**
+		 * Evaluates g at a breakpoint
+		 * @param k The position of the breakpoint
+		 * @param w The weight of the upper curve
+		 * @return The shifted stage
+		 */
+		private double g(int k, double w) {
+			double y1 = lowerShifts[k];
+			return stages[k] + (upperShifts == null ? y1 : y1 + w * (upperShifts[k] - y1));
+		}
+		/**
+		 * Solves for the unshifted stage of a shifted stage. If more than one stage shifts to the shifted stage, the
+		 * one nearest the shifted stage less its own shift is returned.
+		 * @param height The shifted stage
+		 * @param w The weight of the upper curve
+		 * @return The unshifted stage, or NaN if no stage shifts to the shifted stage
+		 */
+		double unshifted(double height, double w) {
+			int last = stages.length - 1;
+			double g0 = g(0, w);
+			double gLast = g(last, w);
+			if (increasing && w >= 0. && w <= 1.) {
+				//------------------------------------------------//
+				// g increases, so only one piece holds the stage //
+				//------------------------------------------------//
+				if (height <= g0) {
+					return solve(stages[0], g0, 1. + blendSlope(a, b, w, true), height, true, false);
+				}
+				if (height >= gLast) {
+					return solve(stages[last], gLast, 1. + blendSlope(a, b, w, false), height, false, true);
+				}
+				int lo = 0;
+				int hi = last;
+				while (hi - lo > 1) {
+					int mid = (lo + hi) >>> 1;
+					if (g(mid, w) <= height) {
+						lo = mid;
+					}
+					else {
+						hi = mid;
+					}
+				}
+				double gLo = g(lo, w);
+				return stages[lo] + (height - gLo) * (stages[hi] - stages[lo]) / (g(hi, w) - gLo);
+			}
+			//-------------------------------------------------------//
+			// otherwise each piece is solved and the nearest chosen //
+			//-------------------------------------------------------//
+			double guess = height - blend(a, b, w, height);
+			double best = nearer(Double.NaN, solve(stages[0], g0, 1. + blendSlope(a, b, w, true), height, true, false), guess);
+			for (int k = 0; k < last; ++k) {
+				double g1 = g(k + 1, w);
+				if ((g0 <= height && height <= g1) || (g1 <= height && height <= g0)) {
+					double u = g1 == g0 ? stages[k] : stages[k] + (height - g0) * (stages[k + 1] - stages[k]) / (g1 - g0);
+					best = nearer(best, u, guess);
+				}
+				g0 = g1;
+			}
+			return nearer(best, solve(stages[last], gLast, 1. + blendSlope(a, b, w, false), height, false, true), guess);
+		}
+	}
+
+	/**
+	 * The search state for looking up the shifts of a sequence of values: a cursor over the effective dates and one
+	 * over each shift table. A scan is not thread-safe and is meant to be used for a single bulk rating.
+	 */
+	final class Scan {
+		/**
+		 * The cursor over the effective dates
+		 */
+		private final EffectiveDateIndex.Cursor dates = index.new Cursor();
+		/**
+		 * The cursor over each shift table, created when the table is first used
+		 */
+		private final SearchCursor[] cursors = new SearchCursor[tables.length];
+
+		private SearchCursor cursor(int table, CompiledGrid grid) {
+			SearchCursor cursor = cursors[table];
+			if (cursor == null) {
+				cursor = cursors[table] = grid.newCursor();
+			}
+			return cursor;
+		}
+	}
+}
@@ -822,6 +822,36 @@ public class SourceRating implements IRating, VerticalDatum, Observer {
 			}
 			return results;
 		}
+		/* (non-Javadoc)
+		 * @see org.opendcs.ratings.IRating#rate(org.opendcs.ratings.RatingBatch, int, int, double[], int)
+		 */
+		@Override
+		public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+			if (ratings != null) {
+				ratings.rate(batch, offset, length, out, outOffset);
+			}
+			else if (mathExpression != null) {
+				IRating.super.rate(batch, offset, length, out, outOffset);
+			}
+			else {
+				throw new RatingException("Source rating has no information.");
+			}
+		}
+		/* (non-Javadoc)
+		 * @see org.opendcs.ratings.IRating#rateWithStatus(org.opendcs.ratings.RatingBatch, int, int, double[], byte[], int)
+		 */
+		@Override
+		public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+			if (ratings != null) {
+				ratings.rateWithStatus(batch, offset, length, out, status, outOffset);
+			}
+			else if (mathExpression != null) {
+				IRating.super.rateWithStatus(batch, offset, length, out, status, outOffset);
+			}
+			else {
+				throw new RatingException("Source rating has no information.");
+			}
+		}
 		/* (non-Javadoc)
 		 * @see org.opendcs.IRating#rate(hec.io.TimeSeriesContainer)
 		 */
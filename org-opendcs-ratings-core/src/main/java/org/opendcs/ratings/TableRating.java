@@ -10,7 +10,6 @@ package org.opendcs.ratings;
 
 import hec.lang.Observable;
 import hec.util.TextUtil;
-import mil.army.usace.hec.metadata.UnitUtil;
 import org.opendcs.ratings.RatingConst.RatingMethod;
 import org.opendcs.ratings.io.*;
 import org.w3c.dom.Document;
@@ -28,10 +27,7 @@ import java.util.Vector;
 import static hec.lang.Const.UNDEFINED_DOUBLE;
 import static hec.lang.Const.UNDEFINED_LONG;
 import static hec.util.TextUtil.join;
-import static hec.util.TextUtil.split;
 import static org.opendcs.ratings.RatingConst.SEPARATOR2;
-import static org.opendcs.ratings.RatingOutOfRangeException.OutOfRangeEnum.OUT_OF_RANGE_HIGH;
-import static org.opendcs.ratings.RatingOutOfRangeException.OutOfRangeEnum.OUT_OF_RANGE_LOW;
 import static org.opendcs.ratings.XmlUtil.getChildElementText;
 
 /**
@@ -40,6 +36,11 @@ import static org.opendcs.ratings.XmlUtil.getChildElementText;
  * @author Mike Perryman
  */
 public class TableRating extends AbstractRating {
+	/**
+	 * The minimum number of values in a table for lookups to use an index instead of bisecting the whole table,
+	 * defaulting to the "org.opendcs.ratings.TableRating.lookupIndexThreshold" system property
+	 */
+	private static volatile int lookupIndexThreshold = Integer.getInteger("org.opendcs.ratings.TableRating.lookupIndexThreshold", 1024);
 	/**
 	 * The rating values
 	 */
@@ -55,7 +56,7 @@ public class TableRating extends AbstractRating {
 	/**
 	 * A permutation of this rating used to perform reverseRate() methods
 	 */
-	protected TableRating reversed = null;
+	protected volatile TableRating reversed = null;
 	/**
 	 * The rating behavior for when the value to be rated is in the range of the independent values of the rating.
 	 */
@@ -72,9 +73,38 @@ public class TableRating extends AbstractRating {
 	 * Holds properties of the sequence of independent values
 	 */
 	protected SequenceProperties props = null;
+	/**
+	 * The primitive form of the effective values used to perform lookups, rebuilt when the values change
+	 */
+	private volatile CompiledTable compiled = null;
+	/**
+	 * The state read by lookups, published as a unit so that lookups don't lock the rating
+	 */
+	private volatile Lookup lookup = null;
 
 	protected TableRating() {}
 
+	/**
+	 * Returns the minimum number of values in a table for lookups to use an index instead of bisecting the whole table
+	 *
+	 * @return The minimum number of values in a table for lookups to use an index
+	 */
+	public static int getLookupIndexThreshold() {
+		return lookupIndexThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of values in a table for lookups to use an index instead of bisecting the whole table.
+	 * The threshold is read when a table is compiled, so it only affects tables compiled after it is set, which
+	 * includes any table whose values are modified afterward. Tables already compiled keep their existing lookups.
+	 *
+	 * @param lookupIndexThreshold The minimum number of values in a table for lookups to use an index. Use
+	 *        Integer.MAX_VALUE to never use an index.
+	 */
+	public static void setLookupIndexThreshold(int lookupIndexThreshold) {
+		TableRating.lookupIndexThreshold = lookupIndexThreshold;
+	}
+
 	static void setBehaviors(
 			TableRatingContainer trc,
 			RatingMethod[] inRangeMethods,
@@ -317,7 +347,7 @@ public class TableRating extends AbstractRating {
 	public double[] rate(double[] pIndVals) throws RatingException {
 
 		double[] rated = new double[pIndVals.length];
-		for (int i = 0; i < pIndVals.length; ++i) rated[i] = this.rate(pIndVals[i]);
+		rate(pIndVals, 0, pIndVals.length, null, rated, 0);
 		return rated;
 	}
 	/* (non-Javadoc)
@@ -331,319 +361,244 @@ public class TableRating extends AbstractRating {
 				throw new RatingException("Independent value sets have varying lengths.");
 			}
 		}
-		if (pIndVals[0].length != getIndParamCount()) {
+		int indParamCount = getLookup().indParamCount;
+		if (pIndVals[0].length != indParamCount) {
 			throw new RatingException(String.format(
 					"Data has %d independent parameters; rating %s requires %d",
-					pIndVals.length, ratingSpecId, getIndParamCount()));
+					pIndVals.length, ratingSpecId, indParamCount));
 		}
 		double[] rated = new double[pIndVals.length];
-		for (int i = 0; i < pIndVals.length; ++i) rated[i] = this.rate(pIndVals[i], 0);
+		rate(pIndVals, 0, pIndVals.length, null, rated, 0);
 		return rated;
 	}
-
-	protected double rate(double[] pIndVals, int p_offset) throws RatingException {
-		String[] ratingUnits = getRatingUnits();
-		if (ratingUnits == null) {
-			throw new RatingException("Rating units have not been set");
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(double[], int, int, long[], double[], int)
+	 */
+	@Override
+	public void rate(double[] pIndVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		// ignores times
+		RatingUtil.checkBulkRange(pIndVals.length, offset, length, valTimes, out, outOffset);
+		Lookup lookup = getLookup();
+		if (lookup.indParamCount != 1) {
+			throw new RatingException(String.format(
+					"Data has 1 independent parameter; rating %s requires %d",
+					lookup.ratingSpecId, lookup.indParamCount));
 		}
-		String[] dataUnits = getDataUnits();
-		if (dataUnits == null) {
-			return rate(pIndVals, ratingUnits, ratingUnits, p_offset);
+		UnitConversion[][] conversions = getUnitConversions();
+		UnitConversion indConversion = conversions[0][0];
+		UnitConversion depConversion = conversions[1][1];
+		CompiledGrid grid = lookup.grid;
+		SearchCursor cursor = length > 1 ? grid.newCursor() : null;
+		for (int i = 0; i < length; ++i) {
+			double ind_val = pIndVals[offset + i];
+			double dep_val = ind_val == UNDEFINED_DOUBLE ? UNDEFINED_DOUBLE : grid.rate(indConversion.convert(ind_val), cursor);
+			if (dep_val != UNDEFINED_DOUBLE) {
+				dep_val = depConversion.convert(dep_val);
+			}
+			out[outOffset + i] = dep_val;
 		}
-		else {
-			for (int i = 0; i < ratingUnits.length; ++i) {
-				if (TextUtil.equals(dataUnits[i], ratingUnits[i])) {
-					dataUnits[i] = ratingUnits[i] = null;
-				}
-				else if(!UnitUtil.canConvertBetweenUnits(dataUnits[i], ratingUnits[i])){
-					String msg = String.format("Cannot convert from \"%s\" to \"%s\".", dataUnits[i], ratingUnits[i]);
-					if (!allowUnsafe) throw new RatingException(msg);
-					if (warnUnsafe) logger.warning(msg + "  Rating will be performed on unconverted values.");
-				}
+	}
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.IRating#rate(double[][], int, int, long[], double[], int)
+	 */
+	@Override
+	public void rate(double[][] pIndVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		// ignores times
+		RatingUtil.checkBulkRange(pIndVals.length, offset, length, valTimes, out, outOffset);
+		Lookup lookup = getLookup();
+		int indParamCount = lookup.indParamCount;
+		UnitConversion[][] conversions = getUnitConversions();
+		UnitConversion depConversion = conversions[1][indParamCount];
+		CompiledGrid grid = lookup.grid;
+		CompiledGrid.Workspace workspace = grid.newWorkspace();
+		for (int i = 0; i < length; ++i) {
+			double[] indVals = pIndVals[offset + i];
+			if (indVals.length != indParamCount) {
+				throw new RatingException(String.format(
+						"Data has %d independent parameters; rating %s requires %d",
+						indVals.length, lookup.ratingSpecId, indParamCount));
 			}
-			return rate(pIndVals, dataUnits, ratingUnits, p_offset);
+			double dep_val = grid.rate(indVals, conversions[0], 0, workspace);
+			if (dep_val != UNDEFINED_DOUBLE) {
+				dep_val = depConversion.convert(dep_val);
+			}
+			out[outOffset + i] = dep_val;
+		}
+	}
+	/**
+	 * Rates a range of the value sets of a batch, reading the independent values from the columns of the batch
+	 * without copying them into a value set for each value.
+	 *
+	 * @see IRating#rate(RatingBatch, int, int, double[], int)
+	 */
+	@Override
+	public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+		// ignores times
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		Lookup lookup = getLookup();
+		int indParamCount = lookup.indParamCount;
+		if (batch.getParamCount() != indParamCount) {
+			throw new RatingException(String.format(
+					"Data has %d independent parameters; rating %s requires %d",
+					batch.getParamCount(), lookup.ratingSpecId, indParamCount));
+		}
+		if (indParamCount == 1) {
+			rate(batch.getColumn(0), offset, length, batch.getTimes(), out, outOffset);
+			return;
+		}
+		UnitConversion[][] conversions = getUnitConversions();
+		UnitConversion depConversion = conversions[1][indParamCount];
+		CompiledGrid grid = lookup.grid;
+		CompiledGrid.Workspace workspace = grid.newWorkspace();
+		double[][] columns = batch.columns();
+		for (int i = 0; i < length; ++i) {
+			double dep_val = grid.rate(columns, offset + i, conversions[0], workspace, null);
+			if (dep_val != UNDEFINED_DOUBLE) {
+				dep_val = depConversion.convert(dep_val);
+			}
+			out[outOffset + i] = dep_val;
+		}
+	}
+	/**
+	 * Rates a range of the value sets of a batch, reporting values that are out of range of the table, extrapolated,
+	 * or undefined in the status array instead of throwing exceptions for them.
+	 *
+	 * @see IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+	 */
+	@Override
+	public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+		// ignores times
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		RatingUtil.checkStatusRange(status, outOffset, length);
+		Lookup lookup = getLookup();
+		int indParamCount = lookup.indParamCount;
+		if (batch.getParamCount() != indParamCount) {
+			throw new RatingException(String.format(
+					"Data has %d independent parameters; rating %s requires %d",
+					batch.getParamCount(), lookup.ratingSpecId, indParamCount));
+		}
+		UnitConversion[][] conversions = getUnitConversions();
+		UnitConversion depConversion = conversions[1][indParamCount];
+		CompiledGrid grid = lookup.grid;
+		CompiledGrid.Workspace workspace = grid.newWorkspace();
+		double[][] columns = batch.columns();
+		byte[] holder = new byte[1];
+		for (int i = 0; i < length; ++i) {
+			holder[0] = RatingStatus.OK;
+			double dep_val = grid.rate(columns, offset + i, conversions[0], workspace, holder);
+			if (dep_val != UNDEFINED_DOUBLE) {
+				dep_val = depConversion.convert(dep_val);
+			}
+			else if (holder[0] == RatingStatus.OK) {
+				holder[0] = RatingStatus.UNDEFINED;
+			}
+			out[outOffset + i] = dep_val;
+			status[outOffset + i] = holder[0];
 		}
 	}
 
+	protected double rate(double[] pIndVals, int p_offset) throws RatingException {
+		return rate(pIndVals, getUnitConversions(), p_offset);
+	}
+
 	protected double rate(double[] pIndVals, String[] dataUnits, String[] ratingUnits, int p_offset) throws RatingException {
-		synchronized(this) {
-			double ind_val = pIndVals[p_offset];
-			if (ind_val == UNDEFINED_DOUBLE) return UNDEFINED_DOUBLE;
-			ind_val = convertUnits(ind_val, dataUnits[p_offset], ratingUnits[p_offset]);
-			boolean out_range_low = false;
-			boolean out_range_high = false;
-			int lo = 0;
-			int hi = effectiveValues.length-1;
-			int mid;
-			double mid_ind_val;
-			RatingMethod extrap_method = null;
-			double dep_val;
-			comps: do {
-				//--------------------------------------------------- //
-				// find the interpolation/extrapolation value indices //
-				//--------------------------------------------------- //
-				if (props.hasIncreasing() || values.length == 1) {
-					if (lt(ind_val, effectiveValues[lo].getIndValue())) {
-						out_range_low = true;
-						hi = lo + 1;
-					}
-					else if (gt(ind_val, effectiveValues[hi].getIndValue())) {
-						out_range_high = true;
-						lo = hi - 1;
-					}
-					else {
-						while (hi - lo > 1) {
-							mid = (lo + hi) / 2;
-							mid_ind_val = effectiveValues[mid].getIndValue();
-							if (lt(ind_val, mid_ind_val)) hi = mid; else lo = mid;
-						}
-					}
-				}
-				else if (props.hasDecreasing()) {
-					if (gt(ind_val, effectiveValues[lo].getIndValue())) {
-						out_range_low = true;
-						hi = lo;
-						lo = hi + 1;
-					}
-					else if (lt(ind_val, effectiveValues[hi].getIndValue())) {
-						out_range_high = true;
-						lo = hi;
-						hi = lo - 1;
-					}
-					else {
-						while (hi - lo > 1) {
-							mid = (lo + hi) / 2;
-							mid_ind_val = effectiveValues[mid].getIndValue();
-							if (gt(ind_val, mid_ind_val)) hi = mid; else lo = mid;
-						}
-					}
-				}
-				else {
-					throw new RatingException("Table does not monotonically increase or decrease");
-				}
-				//-------------------------//
-				// handle out of range low //
-				//-------------------------//
-				if (out_range_low) {
-					switch (outRangeLowMethod) {
-					case NULL:
-						dep_val = UNDEFINED_DOUBLE;
-						break comps;
-					case ERROR:
-						throw new RatingOutOfRangeException(OUT_OF_RANGE_LOW);
-					case LINEAR:
-					case LOGARITHMIC:
-					case LIN_LOG:
-					case LOG_LIN:
-						extrap_method = outRangeLowMethod;
-						break;
-					case PREVIOUS:
-						throw new RatingException("No previous value in table.");
-					case NEXT:
-					case NEAREST:
-					case CLOSEST:
-						if (effectiveValues[0].hasDepValue()) {
-							dep_val = effectiveValues[0].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[0].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					case LOWER:
-						if (props.hasIncreasing()) throw new RatingException("No lower value in table.");
-						if (effectiveValues[0].hasDepValue()) {
-							dep_val = effectiveValues[0].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[0].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					case HIGHER:
-						if (props.hasDecreasing()) throw new RatingException("No higher value in table.");
-						if (effectiveValues[0].hasDepValue()) {
-							dep_val = effectiveValues[0].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[0].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					default:
-						throw new RatingException(
-								"Unexpected behavior specified : "
-										+ outRangeLowMethod
-										+ " : "
-										+ outRangeLowMethod.description());
-					}
-				}
-				//--------------------------//
-				// handle out of range high //
-				//--------------------------//
-				else if (out_range_high) {
-					switch (outRangeHighMethod) {
-					case NULL:
-						dep_val = UNDEFINED_DOUBLE;
-						break comps;
-					case ERROR:
-						throw new RatingOutOfRangeException(OUT_OF_RANGE_HIGH);
-					case LINEAR:
-					case LOGARITHMIC:
-					case LIN_LOG:
-					case LOG_LIN:
-						extrap_method = outRangeHighMethod;
-						break;
-					case NEXT:
-						throw new RatingException("No next value in table.");
-					case PREVIOUS:
-					case NEAREST:
-					case CLOSEST:
-						if (effectiveValues[effectiveValues.length-1].hasDepValue()) {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					case LOWER:
-						if (props.hasDecreasing()) throw new RatingException("No lower value in table.");
-						if (effectiveValues[effectiveValues.length-1].hasDepValue()) {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					case HIGHER:
-						if (props.hasIncreasing()) throw new RatingException("No higher value in table.");
-						if (effectiveValues[effectiveValues.length-1].hasDepValue()) {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValue();
-							break comps;
-						}
-						else {
-							dep_val = effectiveValues[effectiveValues.length-1].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-							break comps;
-						}
-					default:
-						throw new RatingException(
-								"Unexpected behavior specified : "
-										+ outRangeHighMethod
-										+ " : "
-										+ outRangeHighMethod.description());
-					}
-				}
-				//-----------------------------------//
-				// handle in-range and extrapolation //
-				//-----------------------------------//
-				double lo_ind_val = effectiveValues[lo].getIndValue();
-				double hi_ind_val = effectiveValues[hi].getIndValue();
-				//----------------------------------------------------------//
-				// use specific rating (prevent interpolation) if ind value //
-				// matches the ind value of one of the bounding ratings     //
-				//----------------------------------------------------------//
-				if (eq(ind_val, lo_ind_val)) {
-					if (effectiveValues[lo].hasDepValue()) {
-						dep_val = effectiveValues[lo].getDepValue();
-					}
-					else {
-						dep_val = effectiveValues[lo].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-					}
-					break;
-				}
-				else if (eq(ind_val, hi_ind_val)) {
-					if (effectiveValues[hi].hasDepValue()) {
-						dep_val = effectiveValues[hi].getDepValue();
-					}
-					else {
-						dep_val = effectiveValues[hi].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-					}
-					break;
-				}
-				//-----------------------------------------------------------------//
-				// can't use specific rating, use in-range behavior or extrapolate //
-				//-----------------------------------------------------------------//
-				double lo_dep_val = effectiveValues[lo].hasDepValue() ? effectiveValues[lo].getDepValue() : effectiveValues[lo].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-				double hi_dep_val = effectiveValues[hi].hasDepValue() ? effectiveValues[hi].getDepValue() : effectiveValues[hi].getDepValues().rate(pIndVals, dataUnits, ratingUnits, p_offset+1);
-				if (lo_dep_val == UNDEFINED_DOUBLE || hi_dep_val == UNDEFINED_DOUBLE) {
-					return UNDEFINED_DOUBLE;
-				}
-				RatingMethod method = (out_range_low || out_range_high) ? extrap_method : inRangeMethod;
-				switch (method) {
-				case NULL:
-					return UNDEFINED_DOUBLE;
-				case ERROR:
-					throw new RatingException("No such value in table.");
-				case PREVIOUS:
-					dep_val = lo_dep_val;
-					break comps;
-				case NEXT:
-					dep_val = hi_dep_val;
-					break comps;
-				case LOWER:
-					dep_val = props.hasIncreasing() ? lo_dep_val : hi_dep_val;
-					break comps;
-				case HIGHER:
-					dep_val = props.hasDecreasing() ? lo_dep_val : hi_dep_val;
-					break comps;
-				case CLOSEST:
-					dep_val = lt(Math.abs(ind_val - lo_ind_val), Math.abs(hi_ind_val - ind_val)) ? lo_dep_val : hi_dep_val;
-					break comps;
-				default:
-					break;
-				}
-				//---------------------------//
-				// interpolate / extrapolate //
-				//---------------------------//
-				boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
-				boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
-				double x  = ind_val;
-				double x1 = lo_ind_val;
-				double x2 = hi_ind_val;
-				double y1 = lo_dep_val;
-				double y2 = hi_dep_val;
-				if (ind_log) {
-					x  = Math.log10(x);
-					x1 = Math.log10(x1);
-					x2 = Math.log10(x2);
-					if (Double.isNaN(x) || Double.isInfinite(x)
-							|| Double.isNaN(x1) || Double.isInfinite(x1)
-							|| Double.isNaN(x2) || Double.isInfinite(x2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
-						//-------------------------------------------------//
-						x = ind_val;
-						x1 = lo_ind_val;
-						x2 = hi_ind_val;
-						dep_log = false;
-					}
-				}
-				if (dep_log) {
-					y1 = Math.log10(y1);
-					y2 = Math.log10(y2);
-					if (Double.isNaN(y1) || Double.isInfinite(y1) || Double.isNaN(y2) || Double.isInfinite(y2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
-						//-------------------------------------------------//
-						x = ind_val;
-						x1 = lo_ind_val;
-						x2 = hi_ind_val;
-						y1 = lo_dep_val;
-						y2 = hi_dep_val;
-						dep_log = false;
-					}
+		UnitConversion[][] conversions = new UnitConversion[2][ratingUnits.length];
+		for (int i = 0; i < ratingUnits.length; ++i) {
+			conversions[0][i] = UnitConversion.get(dataUnits[i], ratingUnits[i]);
+			conversions[1][i] = UnitConversion.get(ratingUnits[i], dataUnits[i]);
+		}
+		return rate(pIndVals, conversions, p_offset);
+	}
+	/**
+	 * Rates a set of independent values
+	 * @param pIndVals The independent values
+	 * @param conversions The unit conversions, as returned by {@link #getUnitConversions()}
+	 * @param p_offset The position of the first independent value for this rating
+	 * @return The dependent value, converted to data units if p_offset is zero
+	 * @throws RatingException on error
+	 */
+	double rate(double[] pIndVals, UnitConversion[][] conversions, int p_offset) throws RatingException {
+		//--------------------------------------------------------------//
+		// rate all independent parameters against the flattened tables //
+		//--------------------------------------------------------------//
+		double dep_val = getCompiled().grid(this).rate(pIndVals, conversions[0], p_offset);
+		if (p_offset == 0 && dep_val != UNDEFINED_DOUBLE) {
+			dep_val = conversions[1][conversions[1].length-1].convert(dep_val);
+		}
+		return dep_val;
+	}
+	/**
+	 * Builds the interpolation segments for the compiled form of the rating values
+	 * @param table The compiled table
+	 * @param indLog Specifies whether the independent values are interpolated logarithmically
+	 * @param depLog Specifies whether the dependent values are interpolated logarithmically
+	 * @return The interpolation segments, or null if they cannot be pre-computed
+	 * @throws RatingException on error
+	 */
+	InterpolationSegments buildSegments(CompiledTable table, boolean indLog, boolean depLog) throws RatingException {
+		return InterpolationSegments.build(table.ind, table.dep, indLog, depLog, null);
+	}
+	/**
+	 * Retrieves the compiled form of the effective values, building it if the values have changed. Only building
+	 * the compiled form locks the rating.
+	 * @return The compiled form of the effective values
+	 */
+	CompiledTable getCompiled() {
+		CompiledTable table = compiled;
+		if (table == null) {
+			synchronized(this) {
+				if (compiled == null) {
+					compiled = new CompiledTable(effectiveValues, props, values.length);
 				}
-				double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
-				if (dep_log) y = Math.pow(10, y);
-				dep_val = y;
-				break;
-			} while(false);
-			if (p_offset == 0 && dep_val != UNDEFINED_DOUBLE) {
-				dep_val = convertUnits(dep_val, ratingUnits[ratingUnits.length-1], dataUnits[dataUnits.length-1]);
+				table = compiled;
 			}
-			return dep_val;
+		}
+		return table;
+	}
+	/**
+	 * Retrieves the state read by lookups, rebuilding it if the values or the rating specification have changed.
+	 * Only rebuilding the state locks the rating.
+	 * @return The state read by lookups
+	 * @throws RatingException on error
+	 */
+	private Lookup getLookup() throws RatingException {
+		Lookup current = lookup;
+		if (current != null && current.table == compiled && current.ratingSpecId == ratingSpecId) {
+			return current;
+		}
+		synchronized(this) {
+			CompiledTable table = getCompiled();
+			current = new Lookup(table, table.grid(this), ratingSpecId, getIndParamCount());
+			lookup = current;
+			return current;
+		}
+	}
+	/**
+	 * Retrieves the grid that lookups are made in, rebuilding it if the values or the rating specification have changed
+	 * @return The grid
+	 * @throws RatingException on error
+	 */
+	CompiledGrid grid() throws RatingException {
+		return getLookup().grid;
+	}
+	/**
+	 * Discards the compiled form of the effective values so that it is rebuilt on the next lookup
+	 */
+	void invalidateCompiled() {
+		synchronized(this) {
+			compiled = null;
+			lookup = null;
+			reversed = null;
+		}
+	}
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.AbstractRating#update(java.util.Observable, java.lang.Object)
+	 */
+	@Override
+	public void update(java.util.Observable o, Object arg) {
+		synchronized(this) {
+			invalidateCompiled();
+			super.update(o, arg);
 		}
 	}
 	/* (non-Javadoc)
@@ -708,24 +663,26 @@ public class TableRating extends AbstractRating {
 	 */
 	@Override
 	public double[] reverseRate(long[] valTimes, double[] depVals) throws RatingException {
-		synchronized(this) {
-			long[] times;
-			if (valTimes == null) {
-				times = new long[depVals.length];
-				Arrays.fill(times, defaultValueTime);
-			}
-			else {
-				times = valTimes;
-			}
-			if (times.length != depVals.length) {
-				throw new RatingException("Different numbers of times and values.");
-			}
-			double[] indVals = new double[times.length];
-			for (int i = 0; i < times.length; ++i) {
-				indVals[i] = reverseRate(times[i], depVals[i]);
-			}
-			return indVals;
+		long[] times;
+		if (valTimes == null) {
+			times = new long[depVals.length];
+			Arrays.fill(times, defaultValueTime);
 		}
+		else {
+			times = valTimes;
+		}
+		if (times.length != depVals.length) {
+			throw new RatingException("Different numbers of times and values.");
+		}
+		double[] indVals = new double[times.length];
+		// ignores times
+		TableRating rating = getReversed();
+		CompiledGrid grid = rating.getCompiled().grid(rating);
+		SearchCursor cursor = indVals.length > 1 ? grid.newCursor() : null;
+		for (int i = 0; i < indVals.length; ++i) {
+			indVals[i] = grid.rate(depVals[i], cursor);
+		}
+		return indVals;
 	}
 
 	/* (non-Javadoc)
@@ -824,6 +781,7 @@ public class TableRating extends AbstractRating {
 					inRangeMethod = RatingMethod.fromString(getChildElementText(elem, "in-range"));
 					outRangeLowMethod = RatingMethod.fromString(getChildElementText(elem, "out-range-low"));
 					outRangeHighMethod = RatingMethod.fromString(getChildElementText(elem, "out-range-high"));
+					reversed = null;
 				}
 			}
 			catch (Exception e) {
@@ -835,8 +793,8 @@ public class TableRating extends AbstractRating {
 	 */
 	@Override
 	public double reverseRate(long valTime, double depVal) throws RatingException {
-		if (reversed == null) reverse();
-		return reversed.rate(valTime, depVal);
+		TableRating rating = getReversed();
+		return rating.getCompiled().grid(rating).rate(depVal, null);
 	}
 
 	/* (non-Javadoc)
@@ -969,7 +927,9 @@ public class TableRating extends AbstractRating {
 		return indParamCount;
 	}
 	/**
-	 * Generates the reversed permutation of this rating - used for reverseRate() methods
+	 * Generates the reversed permutation of this rating - used for reverseRate() methods. The reversed rating is
+	 * built from the compiled effective values and the current lookup methods, and is discarded whenever either
+	 * changes.
 	 * @throws RatingException on error
 	 */
 	protected void reverse() throws RatingException {
@@ -977,37 +937,65 @@ public class TableRating extends AbstractRating {
 			if (getIndParamCount() > 1) {
 				throw new RatingException("Cannot reverse a TableRating with more than one independent parameter");
 			}
-			TableRatingContainer trc = getData();
-			if (trc.values != null) {
-				double temp;
-				for (RatingValueContainer rvc : trc.values) {
-					temp = rvc.indValue;
-					rvc.indValue = rvc.depValue;
-					rvc.depValue = temp;
-				}
-			}
-			String[] units = split(trc.unitsId, SEPARATOR2, "L");
-			trc.unitsId = join(SEPARATOR2, units[1], units[0]);
-			if (trc.inRangeMethod.equals(RatingMethod.LIN_LOG.toString())) {
-				trc.inRangeMethod = RatingMethod.LOG_LIN.toString();
-			}
-			else if (trc.inRangeMethod.equals(RatingMethod.LOG_LIN.toString())) {
-				trc.inRangeMethod = RatingMethod.LIN_LOG.toString();
-			}
-			if (trc.outRangeLowMethod.equals(RatingMethod.LIN_LOG.toString())) {
-				trc.outRangeLowMethod = RatingMethod.LOG_LIN.toString();
+			CompiledTable table = getCompiled();
+			RatingValue[] swapped = new RatingValue[table.size()];
+			for (int i = 0; i < swapped.length; ++i) {
+				swapped[i] = new RatingValue(table.dep[i], table.ind[i]);
 			}
-			else if (trc.outRangeLowMethod.equals(RatingMethod.LOG_LIN.toString())) {
-				trc.outRangeLowMethod = RatingMethod.LIN_LOG.toString();
-			}
-			if (trc.outRangeHighMethod.equals(RatingMethod.LIN_LOG.toString())) {
-				trc.outRangeHighMethod = RatingMethod.LOG_LIN.toString();
-			}
-			else if (trc.outRangeHighMethod.equals(RatingMethod.LOG_LIN.toString())) {
-				trc.outRangeHighMethod = RatingMethod.LIN_LOG.toString();
+			TableRating rating = new TableRating(
+					swapped,
+					null,
+					reverseMethod(inRangeMethod),
+					reverseMethod(outRangeLowMethod),
+					reverseMethod(outRangeHighMethod));
+			String[] units = getRatingUnits();
+			rating.officeId = officeId;
+			rating.ratingSpecId = ratingSpecId;
+			rating.ratingUnitsId = units == null ? null : join(SEPARATOR2, units[1], units[0]);
+			reversed = rating;
+		}
+	}
+	/**
+	 * Retrieves the rating method to use for the reversed permutation of this rating
+	 * @param method The rating method of this rating
+	 * @return The rating method with the roles of the independent and dependent values exchanged
+	 */
+	private static RatingMethod reverseMethod(RatingMethod method) {
+		switch (method) {
+		case LIN_LOG:
+			return RatingMethod.LOG_LIN;
+		case LOG_LIN:
+			return RatingMethod.LIN_LOG;
+		default:
+			return method;
+		}
+	}
+	/**
+	 * Retrieves the reversed permutation of this rating, generating it if necessary. The reversed rating is never
+	 * modified once it is published; if this rating's lookup methods have changed since it was generated, a new one
+	 * is generated instead. Only generating the reversed rating locks this rating.
+	 * @return The reversed rating
+	 * @throws RatingException on error
+	 */
+	TableRating getReversed() throws RatingException {
+		TableRating rating = reversed;
+		if (rating == null || !isReversalOf(rating)) {
+			synchronized(this) {
+				if (reversed == null || !isReversalOf(reversed)) reverse();
+				rating = reversed;
 			}
-			reversed = new TableRating(trc);
 		}
+		return rating;
+	}
+	/**
+	 * Retrieves whether a reversed rating has the lookup methods that this rating's current lookup methods reverse to
+	 * @param rating The reversed rating
+	 * @return Whether the reversed rating is current
+	 */
+	private boolean isReversalOf(TableRating rating) {
+		return rating.inRangeMethod == reverseMethod(inRangeMethod)
+				&& rating.outRangeLowMethod == reverseMethod(outRangeLowMethod)
+				&& rating.outRangeHighMethod == reverseMethod(outRangeHighMethod);
 	}
 	/**
 	 * Initialization method used by constructors
@@ -1149,6 +1137,7 @@ public class TableRating extends AbstractRating {
 			this.values = values;
 			this.extensionValues = extensionValues;
 			this.effectiveValues = effectiveValues == null ? values : effectiveValues;
+			this.compiled = values == null ? null : new CompiledTable(this.effectiveValues, props, values.length);
 			this.reversed = null;
 			this.inRangeMethod = inRangeMethod;
 			this.outRangeLowMethod = outRangeLowMethod;
@@ -1270,4 +1259,20 @@ public class TableRating extends AbstractRating {
 	public int hashCode() {
 		return getClass().getName().hashCode() + getData().hashCode();
 	}
+	/**
+	 * The compiled table and rating specification information read by lookups
+	 */
+	private static final class Lookup {
+		final CompiledTable table;
+		final CompiledGrid grid;
+		final String ratingSpecId;
+		final int indParamCount;
+
+		Lookup(CompiledTable table, CompiledGrid grid, String ratingSpecId, int indParamCount) {
+			this.table = table;
+			this.grid = grid;
+			this.ratingSpecId = ratingSpecId;
+			this.indParamCount = indParamCount;
+		}
+	}
 }
@@ -30,15 +30,20 @@ public class TransitionalRating extends AbstractRating {
 	/**
 	 * The selection conditions to evaluate
 	 */
-	protected Condition[] conditions = null;
+	protected volatile Condition[] conditions = null;
 	/**
 	 * The evaluations - one for each condition plus one for the default condition 
 	 */
-	protected MathExpression[] evaluations = null;
+	protected volatile MathExpression[] evaluations = null;
 	/**
 	 * Source ratings referenced in conditions and/or evaluations
 	 */
-	protected SourceRating[] sourceRatings = null;
+	protected volatile SourceRating[] sourceRatings = null;
+	/**
+	 * Each thread's copies of the conditions and evaluations, so that rating neither locks this rating nor shares
+	 * variable values between threads
+	 */
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
 	/**
 	 * Default constructor
 	 */
@@ -379,120 +384,148 @@ public class TransitionalRating extends AbstractRating {
 	 */
 	@Override
 	public double[] rate(long[] valTimes, double[][] indVals) throws RatingException {
-		synchronized(this) {
-			if (indVals.length != getIndParamCount()) {
-				throw new RatingException(String.format("Expected %d value sets, got %d", getIndParamCount(), indVals.length));
-			}
-			if (valTimes == null) {
-				throw new RatingException("No value times supplied");
-			}
-            for (double[] indVal : indVals) {
-                if (indVal.length != valTimes.length) {
-                    throw new RatingException("Inconsistent times and values arrays");
-                }
+		Workspace workspace = getWorkspace();
+		Condition[] conditions = workspace.conditions;
+		MathExpression[] evaluations = workspace.evaluations;
+		SourceRating[] sourceRatings = this.sourceRatings;
+		int indParamCount = workspace.indParamCount;
+		if (indVals.length != indParamCount) {
+			throw new RatingException(String.format("Expected %d value sets, got %d", indParamCount, indVals.length));
+		}
+		if (valTimes == null) {
+			throw new RatingException("No value times supplied");
+		}
+        for (double[] indVal : indVals) {
+            if (indVal.length != valTimes.length) {
+                throw new RatingException("Inconsistent times and values arrays");
             }
-			double[] depVals = new double[valTimes.length];
-			int indParamCount = this.getIndParamCount();
-			double[] _indVals = null;
-			int inputNumber;
-			int ratingNumber = -1;
-			int conditionNumber;
-			try {
-				//-----------------------------------//
-				// for each independent variable set //
-				//-----------------------------------//
-				for (int i = 0; i < valTimes.length; ++i) {
-					int evaluationNumber;
-					//----------------------------//
-					// for each condition to test //
-					//----------------------------//
-					for (conditionNumber = 0; conditionNumber < conditions.length; ++conditionNumber) {
-						//-----------------------------//
-						// set the condition variables //
-						//-----------------------------//
-						VariableSet cvs = conditions[conditionNumber].getVariables();
-						for (String cvname : cvs.getVariableNames()) {
-							switch (cvname.charAt(1)) {
-							case 'I' :
-								inputNumber = Integer.parseInt(cvname.substring(2)) - 1;
-								if (inputNumber < 0 || inputNumber >= indParamCount) {
-									throw new RatingException(String.format("Variable \"%s\" specifies invalid independent parameter number", cvname));
-								}
-								break;
-							case 'R' :
-								inputNumber = -1;
-								ratingNumber = Integer.parseInt(cvname.substring(2)) - 1;
-								if (sourceRatings == null || ratingNumber < 0 || ratingNumber >= sourceRatings.length) {
-									throw new RatingException(String.format("Variable \"%s\" specifies invalid rating number", cvname));
-								}
-								break;
-							default :
-								throw new RatingException("Unexpected variable name in condition: " + cvname);
-							}
-							if (inputNumber == -1) {
-								if (_indVals == null) _indVals = new double[indParamCount];
-								for (int ip = 0; ip < indParamCount; ++ip) {
-									_indVals[ip] = indVals[ip][i];
-									cvs.setValue(cvname, sourceRatings[ratingNumber].rateOne2(valTimes[i], _indVals));
-								}
-							}
-							else {
-								cvs.setValue(cvname, indVals[inputNumber][i]);
-							}
-						}
-						//--------------------//
-						// test the condition //
-						//--------------------//
-						if (conditions[conditionNumber].test()) {
-							break;
-						}
-					}
-					//---------------------------------------------------//
-					// set the matched (or default) evaluation variables //
-					//---------------------------------------------------//
-					evaluationNumber = conditionNumber;
-					VariableSet evs = evaluations[evaluationNumber].getVariables();
-					for (String evname : evs.getVariableNames()) {
-						switch (evname.charAt(1)) {
+        }
+		double[] depVals = new double[valTimes.length];
+		double[] _indVals = null;
+		int inputNumber;
+		int ratingNumber = -1;
+		int conditionNumber;
+		try {
+			//-----------------------------------//
+			// for each independent variable set //
+			//-----------------------------------//
+			for (int i = 0; i < valTimes.length; ++i) {
+				int evaluationNumber;
+				//----------------------------//
+				// for each condition to test //
+				//----------------------------//
+				for (conditionNumber = 0; conditionNumber < conditions.length; ++conditionNumber) {
+					//-----------------------------//
+					// set the condition variables //
+					//-----------------------------//
+					VariableSet cvs = conditions[conditionNumber].getVariables();
+					for (String cvname : cvs.getVariableNames()) {
+						switch (cvname.charAt(1)) {
 						case 'I' :
-							inputNumber = Integer.parseInt(evname.substring(2)) - 1;
+							inputNumber = Integer.parseInt(cvname.substring(2)) - 1;
 							if (inputNumber < 0 || inputNumber >= indParamCount) {
-								throw new RatingException(String.format("Variable \"%s\" specifies invalid independent parameter number", evname));
+								throw new RatingException(String.format("Variable \"%s\" specifies invalid independent parameter number", cvname));
 							}
 							break;
 						case 'R' :
 							inputNumber = -1;
-							ratingNumber = Integer.parseInt(evname.substring(2)) - 1;
+							ratingNumber = Integer.parseInt(cvname.substring(2)) - 1;
 							if (sourceRatings == null || ratingNumber < 0 || ratingNumber >= sourceRatings.length) {
-								throw new RatingException(String.format("Variable \"%s\" specifies invalid rating number", evname));
+								throw new RatingException(String.format("Variable \"%s\" specifies invalid rating number", cvname));
 							}
 							break;
 						default :
-							throw new RatingException("Unexpected variable name in condition: " + evname);
+							throw new RatingException("Unexpected variable name in condition: " + cvname);
 						}
 						if (inputNumber == -1) {
 							if (_indVals == null) _indVals = new double[indParamCount];
 							for (int ip = 0; ip < indParamCount; ++ip) {
 								_indVals[ip] = indVals[ip][i];
-								evs.setValue(evname, sourceRatings[ratingNumber].rateOne2(valTimes[i], _indVals));
+								cvs.setValue(cvname, sourceRatings[ratingNumber].rateOne2(valTimes[i], _indVals));
 							}
 						}
 						else {
-							evs.setValue(evname, indVals[inputNumber][i]);
+							cvs.setValue(cvname, indVals[inputNumber][i]);
 						}
 					}
-					//----------------------------------//
-					// finally, evaluate the expression //
-					//----------------------------------//
-					depVals[i] = evaluations[evaluationNumber].evaluate();
+					//--------------------//
+					// test the condition //
+					//--------------------//
+					if (conditions[conditionNumber].test()) {
+						break;
+					}
+				}
+				//---------------------------------------------------//
+				// set the matched (or default) evaluation variables //
+				//---------------------------------------------------//
+				evaluationNumber = conditionNumber;
+				VariableSet evs = evaluations[evaluationNumber].getVariables();
+				for (String evname : evs.getVariableNames()) {
+					switch (evname.charAt(1)) {
+					case 'I' :
+						inputNumber = Integer.parseInt(evname.substring(2)) - 1;
+						if (inputNumber < 0 || inputNumber >= indParamCount) {
+							throw new RatingException(String.format("Variable \"%s\" specifies invalid independent parameter number", evname));
+						}
+						break;
+					case 'R' :
+						inputNumber = -1;
+						ratingNumber = Integer.parseInt(evname.substring(2)) - 1;
+						if (sourceRatings == null || ratingNumber < 0 || ratingNumber >= sourceRatings.length) {
+							throw new RatingException(String.format("Variable \"%s\" specifies invalid rating number", evname));
+						}
+						break;
+					default :
+						throw new RatingException("Unexpected variable name in condition: " + evname);
+					}
+					if (inputNumber == -1) {
+						if (_indVals == null) _indVals = new double[indParamCount];
+						for (int ip = 0; ip < indParamCount; ++ip) {
+							_indVals[ip] = indVals[ip][i];
+							evs.setValue(evname, sourceRatings[ratingNumber].rateOne2(valTimes[i], _indVals));
+						}
+					}
+					else {
+						evs.setValue(evname, indVals[inputNumber][i]);
+					}
 				}
+				//----------------------------------//
+				// finally, evaluate the expression //
+				//----------------------------------//
+				depVals[i] = evaluations[evaluationNumber].evaluate();
 			}
-			catch (Throwable t) {
-				if (t instanceof RatingException) throw (RatingException)t;
-				throw new RatingException(t);
+		}
+		catch (Throwable t) {
+			if (t instanceof RatingException) throw (RatingException)t;
+			throw new RatingException(t);
+		}
+		return depVals;
+	}
+
+	/**
+	 * Retrieves the calling thread's copies of the conditions and evaluations, making new copies if the conditions,
+	 * evaluations, or rating specification have changed
+	 * @return The calling thread's copies of the conditions and evaluations
+	 * @throws RatingException on error
+	 */
+	private Workspace getWorkspace() throws RatingException {
+		Condition[] conditions = this.conditions;
+		MathExpression[] evaluations = this.evaluations;
+		String ratingSpecId = this.ratingSpecId;
+		Workspace workspace = workspaces.get();
+		if (workspace == null
+				|| workspace.sharedConditions != conditions
+				|| workspace.sharedEvaluations != evaluations
+				|| workspace.ratingSpecId != ratingSpecId) {
+			try {
+				workspace = new Workspace(conditions, evaluations, ratingSpecId, getIndParamCount());
+			}
+			catch (ComputationException e) {
+				throw new RatingException(e);
 			}
-			return depVals;
+			workspaces.set(workspace);
 		}
+		return workspace;
 	}
 
 	/* (non-Javadoc)
@@ -543,9 +576,9 @@ public class TransitionalRating extends AbstractRating {
 				}
 			}
 			super._setData(trrc);
-			conditions = null;
-			evaluations = null;
-			sourceRatings = null;
+			Condition[] conditions = null;
+			MathExpression[] evaluations = null;
+			SourceRating[] sourceRatings = null;
 			if (trrc.conditions != null && trrc.conditions.length > 0) {
 				conditions = new Condition[trrc.conditions.length];
 				try {
@@ -574,6 +607,12 @@ public class TransitionalRating extends AbstractRating {
 					sourceRatings[i] = new SourceRating(trrc.sourceRatings[i]);
 				}
 			}
+			//---------------------------------------------------------------//
+			// publish the arrays only once filled since rating doesn't lock //
+			//---------------------------------------------------------------//
+			this.conditions = conditions;
+			this.evaluations = evaluations;
+			this.sourceRatings = sourceRatings;
 			findCycles();
 		}
 	}
@@ -618,4 +657,45 @@ public class TransitionalRating extends AbstractRating {
 	public int hashCode() {
 		return getClass().getName().hashCode() + getData().hashCode();
 	}
+	/**
+	 * Copies of the conditions and evaluations for use by a single thread. The copies are parsed from the text of
+	 * the shared conditions and evaluations, which is the same text the rating is stored as.
+	 */
+	private static final class Workspace {
+		final Condition[] sharedConditions;
+		final MathExpression[] sharedEvaluations;
+		final String ratingSpecId;
+		final int indParamCount;
+		final Condition[] conditions;
+		final MathExpression[] evaluations;
+
+		Workspace(
+				Condition[] sharedConditions,
+				MathExpression[] sharedEvaluations,
+				String ratingSpecId,
+				int indParamCount) throws ComputationException {
+			this.sharedConditions = sharedConditions;
+			this.sharedEvaluations = sharedEvaluations;
+			this.ratingSpecId = ratingSpecId;
+			this.indParamCount = indParamCount;
+			if (sharedConditions == null) {
+				conditions = null;
+			}
+			else {
+				conditions = new Condition[sharedConditions.length];
+				for (int i = 0; i < conditions.length; ++i) {
+					conditions[i] = new Condition(sharedConditions[i].toString());
+				}
+			}
+			if (sharedEvaluations == null) {
+				evaluations = null;
+			}
+			else {
+				evaluations = new MathExpression[sharedEvaluations.length];
+				for (int i = 0; i < evaluations.length; ++i) {
+					evaluations[i] = new MathExpression(sharedEvaluations[i].toString());
+				}
+			}
+		}
+	}
 }
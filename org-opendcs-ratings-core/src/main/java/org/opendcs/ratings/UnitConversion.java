@@ -0,0 +1,150 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import mil.army.usace.hec.metadata.UnitUtil;
+import mil.army.usace.hec.metadata.UnitsConversionException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static hec.lang.Const.UNDEFINED_DOUBLE;
+
+/**
+ * A conversion between a pair of units, resolved once so that converting a value doesn't look up the units again.
+ * Conversions that are linear (a scale factor and offset) are applied directly; any other conversion, including one
+ * the unit library cannot perform, is delegated to the unit library for each value so that it behaves exactly as
+ * converting by unit names does.
+ */
+final class UnitConversion {
+	/**
+	 * The conversion that leaves values unchanged
+	 */
+	static final UnitConversion IDENTITY = new UnitConversion(null, null, true, 1., 0.);
+	/**
+	 * The relative tolerance for a conversion to be considered linear
+	 */
+	private static final double LINEAR_TOLERANCE = 1.e-12;
+	/**
+	 * The values the unit library is asked to convert to verify that a conversion is linear
+	 */
+	private static final double[] PROBES = {-1000., 0.3048, 1000., 12345.678};
+	/**
+	 * The conversions that have been resolved, keyed by unit pair
+	 */
+	private static final Map<String, UnitConversion> conversions = new ConcurrentHashMap<>();
+	/**
+	 * The unit to convert from
+	 */
+	private final String fromUnit;
+	/**
+	 * The unit to convert to
+	 */
+	private final String toUnit;
+	/**
+	 * Flag specifying whether the conversion is applied as a scale factor and offset
+	 */
+	private final boolean linear;
+	/**
+	 * The scale factor of a linear conversion
+	 */
+	private final double scale;
+	/**
+	 * The offset of a linear conversion
+	 */
+	private final double offset;
+
+	private UnitConversion(String fromUnit, String toUnit, boolean linear, double scale, double offset) {
+		this.fromUnit = fromUnit;
+		this.toUnit = toUnit;
+		this.linear = linear;
+		this.scale = scale;
+		this.offset = offset;
+	}
+	/**
+	 * Retrieves the conversion between two units
+	 * @param fromUnit The unit to convert from. If null, values are not converted.
+	 * @param toUnit The unit to convert to. If null, values are not converted.
+	 * @return The conversion
+	 */
+	static UnitConversion get(String fromUnit, String toUnit) {
+		if (fromUnit == null || toUnit == null || fromUnit.equals(toUnit)) {
+			return IDENTITY;
+		}
+		return conversions.computeIfAbsent(fromUnit + "\u0000" + toUnit, k -> resolve(fromUnit, toUnit));
+	}
+	private static UnitConversion resolve(String fromUnit, String toUnit) {
+		try {
+			double offset = UnitUtil.convertUnits(0., fromUnit, toUnit);
+			double scale = UnitUtil.convertUnits(1., fromUnit, toUnit) - offset;
+			boolean linear = isFinite(offset) && isFinite(scale) && scale != 0.;
+			for (int i = 0; linear && i < PROBES.length; ++i) {
+				double expected = UnitUtil.convertUnits(PROBES[i], fromUnit, toUnit);
+				double actual = PROBES[i] * scale + offset;
+				linear = Math.abs(actual - expected) <= LINEAR_TOLERANCE * Math.max(1., Math.abs(expected));
+			}
+			if (linear) {
+				return new UnitConversion(fromUnit, toUnit, true, scale, offset);
+			}
+		}
+		catch (UnitsConversionException e) {
+			//-----------------------------------------------------//
+			// report the error when a value is actually converted //
+			//-----------------------------------------------------//
+		}
+		return new UnitConversion(fromUnit, toUnit, false, Double.NaN, Double.NaN);
+	}
+	/**
+	 * Determines whether this conversion leaves values unchanged
+	 * @return Whether this conversion leaves values unchanged
+	 */
+	boolean isIdentity() {
+		return this == IDENTITY;
+	}
+	/**
+	 * Converts a value
+	 * @param val The value to convert
+	 * @return The converted value
+	 * @throws RatingException if the unit library cannot convert between the units
+	 */
+	double convert(double val) throws RatingException {
+		if (this == IDENTITY) return val;
+		if (linear) return val * scale + offset;
+		try {
+			return UnitUtil.convertUnits(val, fromUnit, toUnit);
+		}
+		catch (UnitsConversionException e) {
+			throw new RatingException(e);
+		}
+	}
+	/**
+	 * Converts a range of values in place, leaving undefined values unchanged
+	 * @param vals The values to convert
+	 * @param start The position of the first value to convert
+	 * @param end The position after the last value to convert
+	 * @throws RatingException if the unit library cannot convert between the units
+	 */
+	void convert(double[] vals, int start, int end) throws RatingException {
+		if (this == IDENTITY) return;
+		for (int i = start; i < end; ++i) {
+			if (vals[i] != UNDEFINED_DOUBLE) vals[i] = convert(vals[i]);
+		}
+	}
+	private static boolean isFinite(double v) {
+		return !Double.isNaN(v) && !Double.isInfinite(v);
+	}
+}
@@ -34,15 +34,23 @@ public class UsgsStreamTableRating extends TableRating {
 	/**
 	 * The time series of shift ratings
 	 */
-	protected RatingSet shifts = null;
+	protected volatile RatingSet shifts = null;
 	/**
 	 * The log interpolation offsets
 	 */
-	protected TableRating offsets = null;
+	protected volatile TableRating offsets = null;
 	/**
 	 * The rounder for shift values
 	 */
-	protected UsgsRounder shiftRounder = null;
+	protected volatile UsgsRounder shiftRounder = null;
+	/**
+	 * The shifts in flat form, compiled when the shifts are first used and recompiled whenever they change
+	 */
+	private volatile ShiftTimeline shiftTimeline = null;
+	/**
+	 * The bulk rounding of shifts by the shift rounder
+	 */
+	private volatile RoundingKernel shiftRounding = null;
 
 	/**
 	 * Public Constructor
@@ -221,6 +229,7 @@ public class UsgsStreamTableRating extends TableRating {
 	 */
 	@Override
 	public double[] rate(long valTime, double[] indVals) throws RatingException {
+		RatingSet shifts = this.shifts;
 		if (shifts != null && shifts.getRatingCount() > 1) {
 			if (valTime == UNDEFINED_TIME) {
 				throw new RatingException("Value times must be specified or default time must be set when shifts are present.");
@@ -236,292 +245,131 @@ public class UsgsStreamTableRating extends TableRating {
 	 */
 	@Override
 	public double[] rate(long[] valTimes, double[] indVals) throws RatingException {
-		synchronized(this) {
-			if (valTimes.length != indVals.length) {
-				throw new RatingException("Different numbers of values and times.");
-			}
-			double[] Y = new double[indVals.length];
-			for (int i = 0; i < indVals.length; ++i) {
-				if (valTimes[i] == UNDEFINED_TIME && shifts != null && shifts.getRatingCount() > 0) {
-					throw new RatingException("Value time is undefined in the presence of dated shifts - cannot rate.");
-				}
-//				System.out.println("usgs-rate : height = " + indVals[i]);
-				double shift = getShiftFromUnshifted(valTimes[i], indVals[i]);
-				double ind_val = indVals[i] + shift;
-//				System.out.println("usgs-rate : height = " + ind_val);
-				boolean out_range_low = false;
-				boolean out_range_high = false;
-				int lo = 0;
-				int hi = effectiveValues.length-1;
-				int mid;
-				double mid_ind_val;
-				RatingMethod extrap_method = null;
-				//--------------------------------------------------- //
-				// find the interpolation/extrapolation value indices //
-				//--------------------------------------------------- //
-				if (lt(ind_val, effectiveValues[lo].getIndValue())) {
-					out_range_low = true;
-				}
-				else if (gt(ind_val, effectiveValues[hi].getIndValue())) {
-					out_range_high = true;
-				}
-				else {
-					while (hi - lo > 1) {
-						mid = (lo + hi) / 2;
-						mid_ind_val = effectiveValues[mid].getIndValue();
-						if (lt(ind_val, mid_ind_val)) {
-							hi = mid;
-						}
-						else {
-							lo = mid;
-						}
-					}
-				}
-				//-------------------------//
-				// handle out of range low //
-				//-------------------------//
-				if (out_range_low) {
-					switch (outRangeLowMethod) {
-					case NULL:
-						Y[i] = UNDEFINED_DOUBLE;
-//						System.out.println("usgs-rate : dep_val 1 = " + Y[i]);
-						continue;
-					case ERROR:
-						throw new RatingException("Value is out of range low.");
-					case LINEAR:
-					case LOGARITHMIC:
-					case LIN_LOG:
-					case LOG_LIN:
-						extrap_method = outRangeLowMethod;
-						break;
-					case PREVIOUS:
-						throw new RatingException("No previous value in table.");
-					case NEXT:
-					case NEAREST:
-					case HIGHER:
-					case CLOSEST:
-						Y[i] = effectiveValues[0].getDepValue();
-//						System.out.println("usgs-rate : dep_val 2 = " + Y[i]);
-						continue;
-					case LOWER:
-						throw new RatingException("No lower value in table.");
-					default:
-						throw new RatingException(
-								"Unexpected behavior specified : "
-										+ outRangeLowMethod
-										+ " : "
-										+ outRangeLowMethod.description());
-					}
-				}
-				//--------------------------//
-				// handle out of range high //
-				//--------------------------//
-				else if (out_range_high) {
-					switch (outRangeHighMethod) {
-					case NULL:
-						Y[i] = UNDEFINED_DOUBLE;
-//						System.out.println("usgs-rate : dep_val 3 = " + Y[i]);
-						continue;
-					case ERROR:
-						throw new RatingException("Value is out of range high.");
-					case LINEAR:
-					case LOGARITHMIC:
-					case LIN_LOG:
-					case LOG_LIN:
-						extrap_method = outRangeHighMethod;
-						break;
-					case NEXT:
-						throw new RatingException("No next value in table.");
-					case PREVIOUS:
-					case NEAREST:
-					case CLOSEST:
-					case LOWER:
-						Y[i] =  effectiveValues[effectiveValues.length - 1].getDepValue();
-//						System.out.println("usgs-rate : dep_val 4 = " + Y[i]);
-						continue;
-					case HIGHER:
-						throw new RatingException("No higher value in table.");
-					default:
-						throw new RatingException(
-								"Unexpected behavior specified : "
-										+ outRangeHighMethod
-										+ " : "
-										+ outRangeHighMethod.description());
-					}
-				}
-				//-----------------------------------//
-				// handle in range and extrapolation //
-				//-----------------------------------//
-				double lo_ind_val = effectiveValues[lo].getIndValue();
-				double hi_ind_val = effectiveValues[hi].getIndValue();
-				RatingMethod method = (out_range_low || out_range_high) ? extrap_method : inRangeMethod;
-				switch (method) {
-				case NULL:
-					Y[i] = UNDEFINED_DOUBLE;
-//					System.out.println("usgs-rate : dep_val 5 = " + Y[i]);
-					continue;
-				case ERROR:
-					throw new RatingException("No such value in table.");
-				default:
-					break;
-				}
-				double lo_dep_val = effectiveValues[lo].getDepValue();
-				double hi_dep_val = effectiveValues[hi].getDepValue();
-				if (eq(ind_val, lo_ind_val)) {
-					Y[i] = lo_dep_val;
-//					System.out.println("usgs-rate : dep_val 6 = " + Y[i]);
-					continue;
-				}
-				if (eq(ind_val, hi_ind_val)) {
-					Y[i] = hi_dep_val;
-//					System.out.println("usgs-rate : dep_val = 7 " + Y[i]);
-					continue;
-				}
-				switch (method) {
-				case PREVIOUS:
-				case LOWER:
-					Y[i] = lo_dep_val;
-//					System.out.println("usgs-rate : dep_val = 8 " + Y[i]);
-					continue;
-				case NEXT:
-				case HIGHER:
-					Y[i] = hi_dep_val;
-//					System.out.println("usgs-rate : dep_val 9 = " + Y[i]);
-					continue;
-				case CLOSEST:
-					Y[i] =  lt(Math.abs(ind_val - lo_ind_val), Math.abs(hi_ind_val - ind_val)) ? lo_dep_val : hi_dep_val;
-//					System.out.println("usgs-rate : dep_val 10 = " + Y[i]);
-					continue;
-				default:
-					break;
-				}
-				//---------------------------//
-				// interpolate / extrapolate //
-				//---------------------------//
-				boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
-				boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
-				double x  = ind_val;
-				double x1 = lo_ind_val;
-				double x2 = hi_ind_val;
-				double y1 = lo_dep_val;
-				double y2 = hi_dep_val;
-				if (ind_log) {
-					double offset = getOffset(Math.min(x, x1));
-					x  = Math.log10(x - offset);
-					x1 = Math.log10(x1 - offset);
-					x2 = Math.log10(x2 - offset);
-					if (Double.isNaN(x) || Double.isInfinite(x)
-							|| Double.isNaN(x1) || Double.isInfinite(x1)
-							|| Double.isNaN(x2) || Double.isInfinite(x2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
-						//-------------------------------------------------//
-						x = ind_val;
-						x1 = lo_ind_val;
-						x2 = hi_ind_val;
-						dep_log = false;
-					}
-				}
-				if (dep_log) {
-					y1 = Math.log10(y1);
-					y2 = Math.log10(y2);
-					if (Double.isNaN(y1) || Double.isInfinite(y1) || Double.isNaN(y2) || Double.isInfinite(y2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
-						//-------------------------------------------------//
-						x = ind_val;
-						x1 = lo_ind_val;
-						x2 = hi_ind_val;
-						y1 = lo_dep_val;
-						y2 = hi_dep_val;
-						dep_log = false;
-					}
-				}
-				double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
-				if (dep_log) y = Math.pow(10, y);
-				Y[i] = y;
-//				System.out.println("usgs-rate : dep_val 11 = " + Y[i]);
-			}
-			return Y;
+		if (valTimes.length != indVals.length) {
+			throw new RatingException("Different numbers of values and times.");
 		}
+		double[] Y = new double[indVals.length];
+		rate(valTimes, UNDEFINED_TIME, indVals, 0, indVals.length, Y, null, 0);
+		return Y;
 	}
 
 	/* (non-Javadoc)
-	 * @see org.opendcs.ratings.RatingTable#rate(long, double[][])
+	 * @see org.opendcs.ratings.TableRating#rate(double[], int, int, long[], double[], int)
 	 */
 	@Override
-	public double[] rate(long valTime, double[][] indVals) throws RatingException {
-		if (shifts != null && shifts.getRatingCount() > 1) {
-			if (valTime == UNDEFINED_TIME) {
-				throw new RatingException("Value times must be specified or default time must be set when shifts are present.");
-			}
-		}
-		long[] valTimes = new long[indVals.length];
-		Arrays.fill(valTimes, valTime);
-		return rate(valTimes, indVals);
+	public void rate(double[] indVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(indVals.length, offset, length, valTimes, out, outOffset);
+		rate(valTimes, defaultValueTime, indVals, offset, length, out, null, outOffset);
 	}
 
 	/* (non-Javadoc)
-	 * @see org.opendcs.ratings.RatingTable#rate(long[], double[][])
+	 * @see org.opendcs.ratings.TableRating#rate(double[][], int, int, long[], double[], int)
 	 */
 	@Override
-	public double[] rate(long[] valTimes, double[][] indVals) throws RatingException {
-		double[] vals = new double[indVals.length];
-		for (int i = 1; i < indVals.length; ++i) {
-			if (indVals[i].length != 1) {
+	public void rate(double[][] indVals, int offset, int length, long[] valTimes, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(indVals.length, offset, length, valTimes, out, outOffset);
+		//----------------------------------------------------------//
+		// rate the stages as one column so they share the search   //
+		// cursor and the shift lookups of the bulk rating          //
+		//----------------------------------------------------------//
+		double[] stages = new double[length];
+		for (int i = 0; i < length; ++i) {
+			if (indVals[offset + i].length != 1) {
 				throw new RatingException("UsgsStreamTableRating objects allow only one indendent parameter.");
 			}
-			vals[i] = indVals[i][0];
+			stages[i] = indVals[offset + i][0];
 		}
-		return rate(valTimes, vals);
+		long[] times = valTimes == null || offset == 0 ? valTimes : Arrays.copyOfRange(valTimes, offset, offset + length);
+		rate(times, defaultValueTime, stages, 0, length, out, null, outOffset);
 	}
-	/* (non-Javadoc)
-	 * @see org.opendcs.ratings.TableRating#reverseRate(long, double)
+
+	/**
+	 * Rates a range of the stages of a batch, reporting stages that are out of range of the table, extrapolated, or
+	 * undefined in the status array instead of throwing exceptions for them. The shifts and offsets are applied as
+	 * in {@link #rate(RatingBatch, int, int, double[], int)}.
+	 *
+	 * @see IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
 	 */
 	@Override
-	public double reverseRate(long valTime, double depVal) throws RatingException {
-		synchronized(this) {
-			double flow = depVal;
+	public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		RatingUtil.checkStatusRange(status, outOffset, length);
+		if (batch.getParamCount() != 1) {
+			throw new RatingException("UsgsStreamTableRating objects allow only one indendent parameter.");
+		}
+		rate(batch.getTimes(), defaultValueTime, batch.getColumn(0), offset, length, out, status, outOffset);
+		for (int i = outOffset; i < outOffset + length; ++i) {
+			if (out[i] == UNDEFINED_DOUBLE && status[i] == RatingStatus.OK) {
+				status[i] = RatingStatus.UNDEFINED;
+			}
+		}
+	}
+
+	/**
+	 * Rates a range of stages into a buffer
+	 * @param valTimes The times of the stages, indexed the same as the stages, or null to use valTime for all stages
+	 * @param valTime The time of all the stages if valTimes is null
+	 * @param indVals The stages
+	 * @param start The position of the first stage to rate
+	 * @param count The number of stages to rate
+	 * @param out The buffer to receive the flows
+	 * @param status The buffer to receive the {@link RatingStatus} of each flow, indexed the same as out, or null to
+	 *        throw exceptions for stages that can't be rated
+	 * @param outOffset The position in the buffers of the first flow
+	 * @throws RatingException on error, or if status is null and a stage can't be rated
+	 */
+	private void rate(long[] valTimes, long valTime, double[] indVals, int start, int count, double[] out, byte[] status, int outOffset)
+			throws RatingException {
+		CompiledTable table = getCompiled();
+		RatingSet shifts = this.shifts;
+		double[] ind = table.ind;
+		double[] dep = table.dep;
+		//-----------------------------------------------------------//
+		// successive values search outward from the last segment if //
+		// that finds the same segment as bisecting the whole table  //
+		//-----------------------------------------------------------//
+		boolean indexable = table.ascending && table.monotonic;
+		SearchCursor cursor = count > 1 && indexable ? new SearchCursor(1) : null;
+		BucketIndex index = count == 1 && indexable ? table.index() : null;
+		double[] stageShifts = getShifts(valTimes, valTime, indVals, start, count, shifts);
+		for (int i = 0; i < count; ++i) {
+			double height = indVals[start + i];
+//				System.out.println("usgs-rate : height = " + height);
+			if (status != null) {
+				status[outOffset + i] = RatingStatus.OK;
+				if (height == UNDEFINED_DOUBLE) {
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
+				}
+			}
+			double shift = stageShifts == null ? 0. : stageShifts[i];
+			double ind_val = height + shift;
+//				System.out.println("usgs-rate : height = " + ind_val);
 			boolean out_range_low = false;
 			boolean out_range_high = false;
 			int lo = 0;
-			int hi = values.length-1;
-			int mid;
-			double midFlow;
-			double shifted = UNDEFINED_DOUBLE;
+			int hi = ind.length-1;
 			RatingMethod extrap_method = null;
 			//--------------------------------------------------- //
 			// find the interpolation/extrapolation value indices //
 			//--------------------------------------------------- //
-			if (props.hasIncreasing()) {
-				if (lt(flow, effectiveValues[lo].getDepValue())) {
-					out_range_low = true;
-				}
-				else if (gt(flow, effectiveValues[hi].getDepValue())) {
-					out_range_high = true;
-				}
-				else {
-					while (hi - lo > 1) {
-						mid = (lo + hi) / 2;
-						midFlow = effectiveValues[mid].getDepValue();
-						if (lt(flow, midFlow)) hi = mid; else lo = mid;
-					}
-				}
+			if (lt(ind_val, ind[lo])) {
+				out_range_low = true;
+			}
+			else if (gt(ind_val, ind[hi])) {
+				out_range_high = true;
 			}
 			else {
-				if (gt(flow, effectiveValues[lo].getDepValue())) {
-					out_range_low = true;
+				if (cursor != null) {
+					lo = cursor.find(0, ind, lo, hi, ind_val, true);
 				}
-				else if (lt(flow, effectiveValues[hi].getDepValue())) {
-					out_range_high = true;
+				else if (index != null) {
+					lo = index.find(ind_val);
 				}
 				else {
-					while (hi - lo > 1) {
-						mid = (lo + hi) / 2;
-						midFlow = effectiveValues[mid].getDepValue();
-						if (gt(flow, midFlow)) hi = mid; else lo = mid;
-					}
+					lo = SearchCursor.bisect(ind, lo, hi, ind_val, true);
 				}
+				hi = Math.min(lo + 1, hi);
 			}
 			//-------------------------//
 			// handle out of range low //
@@ -529,33 +377,37 @@ public class UsgsStreamTableRating extends TableRating {
 			if (out_range_low) {
 				switch (outRangeLowMethod) {
 				case NULL:
-					return UNDEFINED_DOUBLE;
+					mark(status, outOffset + i, RatingStatus.OUT_OF_RANGE_LOW);
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+//						System.out.println("usgs-rate : dep_val 1 = " + out[outOffset + i]);
+					continue;
 				case ERROR:
-					throw new RatingException("Value is out of range low.");
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_LOW, "Value is out of range low.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				case LINEAR:
 				case LOGARITHMIC:
 				case LIN_LOG:
 				case LOG_LIN:
+					mark(status, outOffset + i, RatingStatus.EXTRAPOLATED);
 					extrap_method = outRangeLowMethod;
 					break;
 				case PREVIOUS:
-					throw new RatingException("No previous value in table.");
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_LOW, "No previous value in table.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				case NEXT:
 				case NEAREST:
+				case HIGHER:
 				case CLOSEST:
-					flow = effectiveValues[0].getDepValue();
-					extrap_method = outRangeLowMethod;
-					break;
+					mark(status, outOffset + i, RatingStatus.EXTRAPOLATED);
+					out[outOffset + i] = dep[0];
+//						System.out.println("usgs-rate : dep_val 2 = " + out[outOffset + i]);
+					continue;
 				case LOWER:
-					if (props.hasIncreasing()) throw new RatingException("No lower value in table.");
-					flow = effectiveValues[0].getDepValue();
-					extrap_method = outRangeLowMethod;
-					break;
-				case HIGHER:
-					if (props.hasDecreasing()) throw new RatingException("No higher value in table.");
-					flow = effectiveValues[0].getDepValue();
-					extrap_method = outRangeLowMethod;
-					break;
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_LOW, "No lower value in table.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				default:
 					throw new RatingException(
 							"Unexpected behavior specified : "
@@ -570,33 +422,37 @@ public class UsgsStreamTableRating extends TableRating {
 			else if (out_range_high) {
 				switch (outRangeHighMethod) {
 				case NULL:
-					return UNDEFINED_DOUBLE;
+					mark(status, outOffset + i, RatingStatus.OUT_OF_RANGE_HIGH);
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+//						System.out.println("usgs-rate : dep_val 3 = " + out[outOffset + i]);
+					continue;
 				case ERROR:
-					throw new RatingException("Value is out of range high.");
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_HIGH, "Value is out of range high.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				case LINEAR:
 				case LOGARITHMIC:
 				case LIN_LOG:
 				case LOG_LIN:
+					mark(status, outOffset + i, RatingStatus.EXTRAPOLATED);
 					extrap_method = outRangeHighMethod;
 					break;
 				case NEXT:
-					throw new RatingException("No next value in table.");
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_HIGH, "No next value in table.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				case PREVIOUS:
 				case NEAREST:
 				case CLOSEST:
-					flow = effectiveValues[effectiveValues.length-1].getDepValue();
-					extrap_method = outRangeHighMethod;
-					break;
 				case LOWER:
-					if (props.hasDecreasing()) throw new RatingException("No lower value in table.");
-					flow = effectiveValues[effectiveValues.length-1].getDepValue();
-					extrap_method = outRangeHighMethod;
-					break;
+					mark(status, outOffset + i, RatingStatus.EXTRAPOLATED);
+					out[outOffset + i] =  dep[ind.length - 1];
+//						System.out.println("usgs-rate : dep_val 4 = " + out[outOffset + i]);
+					continue;
 				case HIGHER:
-					if (props.hasIncreasing()) throw new RatingException("No higher value in table.");
-					flow = effectiveValues[effectiveValues.length-1].getDepValue();
-					extrap_method = outRangeHighMethod;
-					break;
+					fail(status, outOffset + i, RatingStatus.OUT_OF_RANGE_HIGH, "No higher value in table.");
+					out[outOffset + i] = UNDEFINED_DOUBLE;
+					continue;
 				default:
 					throw new RatingException(
 							"Unexpected behavior specified : "
@@ -608,94 +464,382 @@ public class UsgsStreamTableRating extends TableRating {
 			//-----------------------------------//
 			// handle in range and extrapolation //
 			//-----------------------------------//
-			double loHeight = effectiveValues[lo].getIndValue();
-			double hiHeight = effectiveValues[hi].getIndValue();
-			double loFlow = effectiveValues[lo].getDepValue();
-			double hiFlow = effectiveValues[hi].getDepValue();
+			double lo_ind_val = ind[lo];
+			double hi_ind_val = ind[hi];
 			RatingMethod method = (out_range_low || out_range_high) ? extrap_method : inRangeMethod;
-			if(method == null) {
-				throw new RatingException("Internal error, cannot determine rating method for reverse rate function with value: " + depVal);
+			switch (method) {
+			case NULL:
+				out[outOffset + i] = UNDEFINED_DOUBLE;
+//					System.out.println("usgs-rate : dep_val 5 = " + out[outOffset + i]);
+				continue;
+			case ERROR:
+				fail(status, outOffset + i, RatingStatus.ERROR, "No such value in table.");
+				out[outOffset + i] = UNDEFINED_DOUBLE;
+				continue;
+			default:
+				break;
+			}
+			double lo_dep_val = dep[lo];
+			double hi_dep_val = dep[hi];
+			if (eq(ind_val, lo_ind_val)) {
+				out[outOffset + i] = lo_dep_val;
+//					System.out.println("usgs-rate : dep_val 6 = " + out[outOffset + i]);
+				continue;
+			}
+			if (eq(ind_val, hi_ind_val)) {
+				out[outOffset + i] = hi_dep_val;
+//					System.out.println("usgs-rate : dep_val = 7 " + out[outOffset + i]);
+				continue;
 			}
 			switch (method) {
+			case PREVIOUS:
+			case LOWER:
+				out[outOffset + i] = lo_dep_val;
+//					System.out.println("usgs-rate : dep_val = 8 " + out[outOffset + i]);
+				continue;
+			case NEXT:
+			case HIGHER:
+				out[outOffset + i] = hi_dep_val;
+//					System.out.println("usgs-rate : dep_val 9 = " + out[outOffset + i]);
+				continue;
+			case CLOSEST:
+				out[outOffset + i] =  lt(Math.abs(ind_val - lo_ind_val), Math.abs(hi_ind_val - ind_val)) ? lo_dep_val : hi_dep_val;
+//					System.out.println("usgs-rate : dep_val 10 = " + out[outOffset + i]);
+				continue;
+			default:
+				break;
+			}
+			//---------------------------//
+			// interpolate / extrapolate //
+			//---------------------------//
+			boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
+			boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
+			if (!out_range_low && !out_range_high) {
+				InterpolationSegments segments = table.segments(this, ind_log, dep_log);
+				if (segments != null) {
+					out[outOffset + i] = segments.interpolate(lo, ind_val);
+					continue;
+				}
+			}
+			double x  = ind_val;
+			double x1 = lo_ind_val;
+			double x2 = hi_ind_val;
+			double y1 = lo_dep_val;
+			double y2 = hi_dep_val;
+			if (ind_log) {
+				double offset = getOffset(Math.min(x, x1));
+				x  = Math.log10(x - offset);
+				x1 = Math.log10(x1 - offset);
+				x2 = Math.log10(x2 - offset);
+				if (Double.isNaN(x) || Double.isInfinite(x)
+						|| Double.isNaN(x1) || Double.isInfinite(x1)
+						|| Double.isNaN(x2) || Double.isInfinite(x2))  {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
+					//-------------------------------------------------//
+					x = ind_val;
+					x1 = lo_ind_val;
+					x2 = hi_ind_val;
+					dep_log = false;
+				}
+			}
+			if (dep_log) {
+				y1 = Math.log10(y1);
+				y2 = Math.log10(y2);
+				if (Double.isNaN(y1) || Double.isInfinite(y1) || Double.isNaN(y2) || Double.isInfinite(y2))  {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
+					//-------------------------------------------------//
+					x = ind_val;
+					x1 = lo_ind_val;
+					x2 = hi_ind_val;
+					y1 = lo_dep_val;
+					y2 = hi_dep_val;
+					dep_log = false;
+				}
+			}
+			double y = y1 + ((x - x1) / (x2 - x1)) * (y2 - y1);
+			if (dep_log) y = Math.pow(10, y);
+			out[outOffset + i] = y;
+//				System.out.println("usgs-rate : dep_val 11 = " + out[outOffset + i]);
+		}
+	}
+
+	/**
+	 * Reports a stage that can't be rated
+	 * @param status The buffer that receives the status of the stage, or null to throw an exception
+	 * @param index The position in the buffer of the status of the stage
+	 * @param code The {@link RatingStatus} of the condition
+	 * @param message The message of the exception
+	 * @throws RatingException if status is null
+	 */
+	private static void fail(byte[] status, int index, byte code, String message) throws RatingException {
+		if (status == null) throw new RatingException(message);
+		mark(status, index, code);
+	}
+
+	/**
+	 * Records a condition of a stage if it is more severe than those already recorded
+	 * @param status The buffer that receives the status of the stage, or null
+	 * @param index The position in the buffer of the status of the stage
+	 * @param code The {@link RatingStatus} of the condition
+	 */
+	private static void mark(byte[] status, int index, byte code) {
+		if (status != null && code > status[index]) status[index] = code;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.RatingTable#rate(long, double[][])
+	 */
+	@Override
+	public double[] rate(long valTime, double[][] indVals) throws RatingException {
+		RatingSet shifts = this.shifts;
+		if (shifts != null && shifts.getRatingCount() > 1) {
+			if (valTime == UNDEFINED_TIME) {
+				throw new RatingException("Value times must be specified or default time must be set when shifts are present.");
+			}
+		}
+		long[] valTimes = new long[indVals.length];
+		Arrays.fill(valTimes, valTime);
+		return rate(valTimes, indVals);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.RatingTable#rate(long[], double[][])
+	 */
+	@Override
+	public double[] rate(long[] valTimes, double[][] indVals) throws RatingException {
+		double[] vals = new double[indVals.length];
+		for (int i = 1; i < indVals.length; ++i) {
+			if (indVals[i].length != 1) {
+				throw new RatingException("UsgsStreamTableRating objects allow only one indendent parameter.");
+			}
+			vals[i] = indVals[i][0];
+		}
+		return rate(valTimes, vals);
+	}
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.TableRating#reverseRate(long[], double[])
+	 */
+	@Override
+	public double[] reverseRate(long[] valTimes, double[] depVals) throws RatingException {
+		if (valTimes != null && valTimes.length != depVals.length) {
+			throw new RatingException("Different numbers of times and values.");
+		}
+		double[] indVals = new double[depVals.length];
+		for (int i = 0; i < depVals.length; ++i) {
+			indVals[i] = reverseRate(valTimes == null ? defaultValueTime : valTimes[i], depVals[i]);
+		}
+		return indVals;
+	}
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.TableRating#reverseRate(long, double)
+	 */
+	@Override
+	public double reverseRate(long valTime, double depVal) throws RatingException {
+		CompiledTable table = getCompiled();
+		double[] ind = table.ind;
+		double[] dep = table.dep;
+		double flow = depVal;
+		boolean out_range_low = false;
+		boolean out_range_high = false;
+		int lo = 0;
+		int hi = table.valueCount-1;
+		BucketIndex index = table.depIndex(hi, table.increasing);
+		double shifted = UNDEFINED_DOUBLE;
+		RatingMethod extrap_method = null;
+		//--------------------------------------------------- //
+		// find the interpolation/extrapolation value indices //
+		//--------------------------------------------------- //
+		if (table.increasing) {
+			if (lt(flow, dep[lo])) {
+				out_range_low = true;
+			}
+			else if (gt(flow, dep[hi])) {
+				out_range_high = true;
+			}
+			else {
+				lo = index == null ? SearchCursor.bisect(dep, lo, hi, flow, true) : index.find(flow);
+				hi = Math.min(lo + 1, hi);
+			}
+		}
+		else {
+			if (gt(flow, dep[lo])) {
+				out_range_low = true;
+			}
+			else if (lt(flow, dep[hi])) {
+				out_range_high = true;
+			}
+			else {
+				lo = index == null ? SearchCursor.bisect(dep, lo, hi, flow, false) : index.find(flow);
+				hi = Math.min(lo + 1, hi);
+			}
+		}
+		//-------------------------//
+		// handle out of range low //
+		//-------------------------//
+		if (out_range_low) {
+			switch (outRangeLowMethod) {
 			case NULL:
 				return UNDEFINED_DOUBLE;
 			case ERROR:
-				throw new RatingException("No such value in table.");
-			case PREVIOUS:
-				shifted = loHeight;
+				throw new RatingException("Value is out of range low.");
+			case LINEAR:
+			case LOGARITHMIC:
+			case LIN_LOG:
+			case LOG_LIN:
+				extrap_method = outRangeLowMethod;
 				break;
+			case PREVIOUS:
+				throw new RatingException("No previous value in table.");
 			case NEXT:
-				shifted = hiHeight;
+			case NEAREST:
+			case CLOSEST:
+				flow = dep[0];
+				extrap_method = outRangeLowMethod;
 				break;
 			case LOWER:
-				shifted = props.hasIncreasing() ? loHeight : hiHeight;
+				if (table.increasing) throw new RatingException("No lower value in table.");
+				flow = dep[0];
+				extrap_method = outRangeLowMethod;
 				break;
 			case HIGHER:
-				shifted = props.hasIncreasing() ? hiHeight : loHeight;
+				if (table.decreasing) throw new RatingException("No higher value in table.");
+				flow = dep[0];
+				extrap_method = outRangeLowMethod;
 				break;
+			default:
+				throw new RatingException(
+						"Unexpected behavior specified : "
+								+ outRangeLowMethod
+								+ " : "
+								+ outRangeLowMethod.description());
+			}
+		}
+		//--------------------------//
+		// handle out of range high //
+		//--------------------------//
+		else if (out_range_high) {
+			switch (outRangeHighMethod) {
+			case NULL:
+				return UNDEFINED_DOUBLE;
+			case ERROR:
+				throw new RatingException("Value is out of range high.");
+			case LINEAR:
+			case LOGARITHMIC:
+			case LIN_LOG:
+			case LOG_LIN:
+				extrap_method = outRangeHighMethod;
+				break;
+			case NEXT:
+				throw new RatingException("No next value in table.");
+			case PREVIOUS:
+			case NEAREST:
 			case CLOSEST:
-				shifted = lt(Math.abs(flow - loFlow), Math.abs(hiHeight - hiFlow)) ? loHeight : hiHeight;
+				flow = dep[ind.length-1];
+				extrap_method = outRangeHighMethod;
 				break;
-			default:
+			case LOWER:
+				if (table.decreasing) throw new RatingException("No lower value in table.");
+				flow = dep[ind.length-1];
+				extrap_method = outRangeHighMethod;
 				break;
+			case HIGHER:
+				if (table.increasing) throw new RatingException("No higher value in table.");
+				flow = dep[ind.length-1];
+				extrap_method = outRangeHighMethod;
+				break;
+			default:
+				throw new RatingException(
+						"Unexpected behavior specified : "
+								+ outRangeHighMethod
+								+ " : "
+								+ outRangeHighMethod.description());
 			}
-			//---------------------------//
-			// interpolate / extrapolate //
-			//---------------------------//
-			if (shifted == UNDEFINED_DOUBLE) {
-				boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
-				boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
-				double y  = flow;
-				double x1 = loHeight;
-				double x2 = hiHeight;
-				double y1 = loFlow;
-				double y2 = hiFlow;
-				double offset = 0.;
-				if (ind_log) {
-					if (offsets != null && offsets.values != null && offsets.values.length > 0) {
-						if (offsets.values.length == 1) {
-							offset = offsets.values[0].getDepValue();
-						}
-						else {
-							offset = offsets.rate(loHeight);
-						}
-					}
-					x1 = Math.log10(x1 - offset);
-					x2 = Math.log10(x2 - offset);
-					if (Double.isNaN(x1) || Double.isInfinite(x1) || Double.isNaN(x2) || Double.isInfinite(x2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
-						//-------------------------------------------------//
-						x1 = loHeight;
-						x2 = hiHeight;
-						ind_log = false;
-						dep_log = false;
-					}
+		}
+		//-----------------------------------//
+		// handle in range and extrapolation //
+		//-----------------------------------//
+		double loHeight = ind[lo];
+		double hiHeight = ind[hi];
+		double loFlow = dep[lo];
+		double hiFlow = dep[hi];
+		RatingMethod method = (out_range_low || out_range_high) ? extrap_method : inRangeMethod;
+		if(method == null) {
+			throw new RatingException("Internal error, cannot determine rating method for reverse rate function with value: " + depVal);
+		}
+		switch (method) {
+		case NULL:
+			return UNDEFINED_DOUBLE;
+		case ERROR:
+			throw new RatingException("No such value in table.");
+		case PREVIOUS:
+			shifted = loHeight;
+			break;
+		case NEXT:
+			shifted = hiHeight;
+			break;
+		case LOWER:
+			shifted = table.increasing ? loHeight : hiHeight;
+			break;
+		case HIGHER:
+			shifted = table.increasing ? hiHeight : loHeight;
+			break;
+		case CLOSEST:
+			shifted = lt(Math.abs(flow - loFlow), Math.abs(hiHeight - hiFlow)) ? loHeight : hiHeight;
+			break;
+		default:
+			break;
+		}
+		//---------------------------//
+		// interpolate / extrapolate //
+		//---------------------------//
+		if (shifted == UNDEFINED_DOUBLE) {
+			boolean ind_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LIN_LOG;
+			boolean dep_log = method == RatingMethod.LOGARITHMIC || method == RatingMethod.LOG_LIN;
+			double y  = flow;
+			double x1 = loHeight;
+			double x2 = hiHeight;
+			double y1 = loFlow;
+			double y2 = hiFlow;
+			double offset = 0.;
+			if (ind_log) {
+				offset = getOffset(loHeight);
+				x1 = Math.log10(x1 - offset);
+				x2 = Math.log10(x2 - offset);
+				if (Double.isNaN(x1) || Double.isInfinite(x1) || Double.isNaN(x2) || Double.isInfinite(x2))  {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LOG_LIN to LINEAR //
+					//-------------------------------------------------//
+					x1 = loHeight;
+					x2 = hiHeight;
+					ind_log = false;
+					dep_log = false;
 				}
-				if (dep_log) {
-					y = Math.log10(y);
-					y1 = Math.log10(y1);
-					y2 = Math.log10(y2);
-					if (Double.isNaN(y)  || Double.isInfinite(y)  ||
-						Double.isNaN(y1) || Double.isInfinite(y1) ||
-						Double.isNaN(y2) || Double.isInfinite(y2))  {
-						//-------------------------------------------------//
-						// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
-						//-------------------------------------------------//
-						y  = flow;
-						x1 = loHeight;
-						x2 = hiHeight;
-						y1 = loFlow;
-						y2 = hiFlow;
-						ind_log = false;
-					}
+			}
+			if (dep_log) {
+				y = Math.log10(y);
+				y1 = Math.log10(y1);
+				y2 = Math.log10(y2);
+				if (Double.isNaN(y)  || Double.isInfinite(y)  ||
+					Double.isNaN(y1) || Double.isInfinite(y1) ||
+					Double.isNaN(y2) || Double.isInfinite(y2))  {
+					//-------------------------------------------------//
+					// fall back from LOGARITHMIC or LIN_LOG to LINEAR //
+					//-------------------------------------------------//
+					y  = flow;
+					x1 = loHeight;
+					x2 = hiHeight;
+					y1 = loFlow;
+					y2 = hiFlow;
+					ind_log = false;
 				}
-				shifted = x1 + ((y - y1) / (y2 - y1)) * (x2 - x1);
-				if (ind_log) shifted = Math.pow(10, shifted) + offset;
 			}
-			double shift = getShiftFromShifted(valTime, shifted);
-            return shifted - shift;
+			shifted = x1 + ((y - y1) / (y2 - y1)) * (x2 - x1);
+			if (ind_log) shifted = Math.pow(10, shifted) + offset;
 		}
+		double shift = getShiftFromShifted(valTime, shifted);
+        return shifted - shift;
 	}
 	/**
 	 * Retrieves the current shifts, can return null
@@ -788,6 +932,7 @@ public class UsgsStreamTableRating extends TableRating {
 	public void setOffsets(TableRating offsets) {
 		synchronized(this) {
 			this.offsets = offsets;
+			invalidateCompiled();
 		}
 	}
 	/**
@@ -923,30 +1068,128 @@ public class UsgsStreamTableRating extends TableRating {
 	 * @throws RatingException on error
 	 */
 	protected double getShiftFromUnshifted(long valTime, double height) throws RatingException {
-		synchronized(this) {
-			double shift = 0;
+		RatingSet shifts = this.shifts;
+		ShiftTimeline timeline = getShiftTimeline(shifts);
+		return getShiftFromUnshifted(valTime, height, shifts, timeline, timeline == null ? null : timeline.newScan());
+	}
+	/**
+	 * Retrieves the stage shift for an unshifted stage at a specified time, looking the shift up in the compiled
+	 * shifts if possible
+	 * @param valTime The time to get the shift for
+	 * @param height The unshifted stage to get the shift for
+	 * @param shifts The shifts
+	 * @param timeline The compiled shifts from {@link #getShiftTimeline(RatingSet)}, or null to rate the shifts
+	 * @param scan The search state of the compiled shifts, or null if timeline is null
+	 * @return The stage shift
+	 * @throws RatingException on error
+	 */
+	private double getShiftFromUnshifted(long valTime, double height, RatingSet shifts, ShiftTimeline timeline, ShiftTimeline.Scan scan)
+			throws RatingException {
+		double shift = 0;
 //			System.out.println("getShift : height = " + height);
+		if (timeline != null || (shifts != null && shifts.getActiveRatingCount() > 0)) {
+			shift = getShiftRounding().round(getUnroundedShift(valTime, height, shifts, timeline, scan));
+		}
+//			System.out.println("getShift : shift  = " + shift);
+		return shift;
+	}
+	/**
+	 * Retrieves the stage shifts for a range of unshifted stages. The shifts are looked up first and then rounded
+	 * together, so that runs of equal shifts are rounded once.
+	 * @param valTimes The times of the stages, indexed the same as the stages, or null to use valTime for all stages
+	 * @param valTime The time of all the stages if valTimes is null
+	 * @param indVals The unshifted stages
+	 * @param start The position of the first stage
+	 * @param count The number of stages
+	 * @param shifts The shifts
+	 * @return The stage shift of each stage, or null if no shifts are active
+	 * @throws RatingException on error
+	 */
+	private double[] getShifts(long[] valTimes, long valTime, double[] indVals, int start, int count, RatingSet shifts)
+			throws RatingException {
+		if (shifts == null || shifts.getRatingCount() == 0) {
+			return null;
+		}
+		ShiftTimeline timeline = getShiftTimeline(shifts);
+		ShiftTimeline.Scan scan = timeline == null ? null : timeline.newScan();
+		boolean active = timeline != null || shifts.getActiveRatingCount() > 0;
+		double[] stageShifts = active ? new double[count] : null;
+		for (int i = 0; i < count; ++i) {
+			long time = valTimes == null ? valTime : valTimes[start + i];
+			if (time == UNDEFINED_TIME) {
+				throw new RatingException("Value time is undefined in the presence of dated shifts - cannot rate.");
+			}
+			if (active) {
+				stageShifts[i] = getUnroundedShift(time, indVals[start + i], shifts, timeline, scan);
+			}
+		}
+		if (active) {
+			getShiftRounding().round(stageShifts, 0, count);
+		}
+		return stageShifts;
+	}
+	/**
+	 * Retrieves the stage shift for an unshifted stage at a specified time before it is rounded, looking the shift up
+	 * in the compiled shifts if possible
+	 * @param valTime The time to get the shift for
+	 * @param height The unshifted stage to get the shift for
+	 * @param shifts The shifts, which must have active shifts if timeline is null
+	 * @param timeline The compiled shifts from {@link #getShiftTimeline(RatingSet)}, or null to rate the shifts
+	 * @param scan The search state of the compiled shifts, or null if timeline is null
+	 * @return The unrounded stage shift
+	 * @throws RatingException on error
+	 */
+	private double getUnroundedShift(long valTime, double height, RatingSet shifts, ShiftTimeline timeline, ShiftTimeline.Scan scan)
+			throws RatingException {
+		if (timeline == null) {
+			return shifts.rate(height, valTime);
+		}
+		return timeline.shift(valTime, height, scan);
+	}
+	/**
+	 * Retrieves the rounding kernel for shifts, resolving the shift rounder from the rating specification if it hasn't
+	 * been set
+	 * @return The rounding kernel
+	 * @throws RatingException on error
+	 */
+	private RoundingKernel getShiftRounding() throws RatingException {
+		UsgsRounder rounder = this.shiftRounder;
+		if (rounder == null) {
 			try {
-				if (this.shiftRounder == null) {
-					if (ratingSpec == null) {
-						shiftRounder = new UsgsRounder("2223456782");
-					}
-					else {
-						shiftRounder = ratingSpec.getIndRoundingSpecs()[0];
-					}
+				if (ratingSpec == null) {
+					rounder = new UsgsRounder("2223456782");
 				}
-			if (shifts != null && shifts.getActiveRatingCount() > 0) {
-				shift = shifts.rate(height, valTime);
-//					System.out.println("getShift : shift  = " + shift);
-					shift = shiftRounder.round(shift, true);
+				else {
+					rounder = ratingSpec.getIndRoundingSpecs()[0];
 				}
 			}
 			catch (RoundingException e) {
 				throw new RatingException(e);
 			}
-//			System.out.println("getShift : shift  = " + shift);
-			return shift;
+			shiftRounder = rounder;
+		}
+		RoundingKernel kernel = shiftRounding;
+		if (kernel == null || !kernel.isFor(rounder)) {
+			kernel = new RoundingKernel(rounder);
+			shiftRounding = kernel;
 		}
+		return kernel;
+	}
+	/**
+	 * Retrieves the compiled form of the shifts, recompiling it if the shifts have changed
+	 * @param shifts The shifts
+	 * @return The compiled shifts, or null if there are no active shifts or they must be rated through the rating set
+	 */
+	private ShiftTimeline getShiftTimeline(RatingSet shifts) {
+		if (shifts == null) {
+			return null;
+		}
+		ShiftTimeline timeline = shiftTimeline;
+		if (timeline == null || !timeline.isCurrent(shifts)) {
+			timeline = ShiftTimeline.compile(shifts);
+			shiftTimeline = timeline;
+		}
+		return timeline.isCompiled() ? timeline : null;
 	}
 	/**
 	 * Retrieves the stage shift for an shifted stage at a specified time
@@ -956,55 +1199,104 @@ public class UsgsStreamTableRating extends TableRating {
 	 * @throws RatingException on error
 	 */
 	protected double getShiftFromShifted(long valTime, double height) throws RatingException {
-		synchronized(this) {
-			double shift = 0;
-			if (shifts != null && shifts.getActiveRatingCount() > 0) {
-				double shift1 = getShiftFromUnshifted(valTime, height);
-				double unshifted = height - shift1;
-				double shift2 = getShiftFromUnshifted(valTime, unshifted);
-				double mean = (shift1 + shift2) / 2;
-				double diff = Math.abs(shift2 - shift1);
-				int i;
-				int limit = 100;
-				for (i = 0; i < limit && diff * 1E8 > Math.abs(mean); ++i) {
-					shift1 = shift2;
-					unshifted = height - shift1;
-					shift2 = getShiftFromUnshifted(valTime, unshifted);
-					mean = (shift1 + shift2) / 2;
-					diff = Math.abs(shift2 - shift1);
-				}
-				shift = mean;
-				if (i == limit) {
-					logger.warning("Could not converge on shift for shifted value " + height + " in " + limit + " iterations.");
+		double shift = 0;
+		RatingSet shifts = this.shifts;
+		if (shifts != null && shifts.getActiveRatingCount() > 0) {
+			ShiftTimeline timeline = getShiftTimeline(shifts);
+			ShiftTimeline.Scan scan = timeline == null ? null : timeline.newScan();
+			double unshifted = timeline == null ? Double.NaN : timeline.unshifted(valTime, height, scan);
+			if (Double.isNaN(unshifted)) {
+				//---------------------------------------------//
+				// no direct solution, iterate from the height //
+				//---------------------------------------------//
+				unshifted = height;
+			}
+			//---------------------------------------------------------//
+			// a direct solution normally converges with no iterations //
+			//---------------------------------------------------------//
+			double shift1 = getShiftFromUnshifted(valTime, unshifted, shifts, timeline, scan);
+			unshifted = height - shift1;
+			double shift2 = getShiftFromUnshifted(valTime, unshifted, shifts, timeline, scan);
+			double mean = (shift1 + shift2) / 2;
+			double diff = Math.abs(shift2 - shift1);
+			int i;
+			int limit = 100;
+			for (i = 0; i < limit && diff * 1E8 > Math.abs(mean); ++i) {
+				shift1 = shift2;
+				unshifted = height - shift1;
+				shift2 = getShiftFromUnshifted(valTime, unshifted, shifts, timeline, scan);
+				mean = (shift1 + shift2) / 2;
+				diff = Math.abs(shift2 - shift1);
+			}
+			shift = mean;
+			if (i == limit) {
+				logger.warning("Could not converge on shift for shifted value " + height + " in " + limit + " iterations.");
+			}
+		}
+		return shift;
+	}
+	/* (non-Javadoc)
+	 * @see org.opendcs.ratings.TableRating#buildSegments(org.opendcs.ratings.CompiledTable, boolean, boolean)
+	 */
+	@Override
+	InterpolationSegments buildSegments(CompiledTable table, boolean indLog, boolean depLog) throws RatingException {
+		double[] segmentOffsets = null;
+		if (indLog && offsets != null) {
+			//------------------------------------------------------------//
+			// in-range segments use the offset for their lower end point //
+			//------------------------------------------------------------//
+			segmentOffsets = new double[Math.max(table.size() - 1, 0)];
+			try {
+				for (int s = 0; s < segmentOffsets.length; ++s) {
+					segmentOffsets[s] = getOffset(table.ind[s]);
 				}
 			}
-			return shift;
+			catch (RatingException e) {
+				//---------------------------------------------------------------//
+				// leave offsets that can't be determined to be raised per value //
+				//---------------------------------------------------------------//
+				return null;
+			}
 		}
+		return InterpolationSegments.build(table.ind, table.dep, indLog, depLog, segmentOffsets);
 	}
 	/**
-	 * Retrieves the log interpolation offset for a specified stage
+	 * Retrieves the log interpolation offset for a specified stage. The offsets are read from the offsets table
+	 * directly, or looked up in its compiled form as the table rates a value, so that neither the table is copied
+	 * nor the rating locked per stage.
 	 * @param indVal The stage to retrieve the offset for
 	 * @return The log interpolation offset
 	 * @throws RatingException on error
 	 */
 	protected double getOffset(double indVal) throws RatingException {
-		synchronized(this) {
-			double offset = 0.;
-			if (offsets != null && offsets.values != null && offsets.values.length > 0) {
-				TableRatingContainer trc = offsets.getData();
-				if (trc.values.length == 1) {
-					offset = trc.values[0].depValue;
+		double offset = 0.;
+		TableRating offsets = this.offsets;
+		RatingValue[] values = offsets == null ? null : offsets.values;
+		if (values != null && values.length > 0) {
+			if (values.length == 1) {
+				offset = values[0].getDepValue();
+			}
+			else {
+				if (offsets.ratingUnitsId == null) {
+					offsets.ratingUnitsId = ratingUnitsId;
+				}
+				if (offsets.getClass() != TableRating.class) {
+					offset = offsets.rate(indVal);
+				}
+				else if (indVal == UNDEFINED_DOUBLE) {
+					offset = UNDEFINED_DOUBLE;
 				}
 				else {
-					if (offsets.ratingUnitsId == null) {
-						offsets.ratingUnitsId = ratingUnitsId;
+					UnitConversion[][] conversions = offsets.getUnitConversions();
+					offset = offsets.grid().rate(conversions[0][0].convert(indVal), null);
+					if (offset != UNDEFINED_DOUBLE) {
+						offset = conversions[1][1].convert(offset);
 					}
-					offset = offsets.rate(indVal);
 				}
 			}
-//			System.out.println("getOffset : offset = " + offset);
-			return offset;
 		}
+//			System.out.println("getOffset : offset = " + offset);
+		return offset;
 	}
 
 	/* (non-Javadoc)
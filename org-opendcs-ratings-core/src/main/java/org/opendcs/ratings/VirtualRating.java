@@ -10,8 +10,6 @@ package org.opendcs.ratings;
 
 import hec.lang.Observable;
 import hec.util.TextUtil;
-import mil.army.usace.hec.metadata.UnitUtil;
-import mil.army.usace.hec.metadata.UnitsConversionException;
 import org.opendcs.ratings.io.AbstractRatingContainer;
 import org.opendcs.ratings.io.RatingContainerXmlCompatUtil;
 import org.opendcs.ratings.io.SourceRatingContainer;
@@ -53,6 +51,11 @@ public class VirtualRating extends AbstractRating {
 	String[][]inputs = null;
 
 	String[] outputs = null;
+	/**
+	 * The connections and source ratings read by rating methods, published as a unit so that rating doesn't lock
+	 * this rating
+	 */
+	private volatile Wiring wiring = null;
 
 	protected static void parseConnectionPoint(String connectionPoint, int[] results) {
         //-------------------------------------------------------------------//
@@ -358,6 +361,7 @@ public class VirtualRating extends AbstractRating {
 				connectionsString = connections;
 				isNormalized = false;
 			}
+			wiring = null;
 		}
 	}
 	/**
@@ -517,6 +521,7 @@ public class VirtualRating extends AbstractRating {
 			connectionsMap = newConnectionsMap;
 			depParamConn = newDepParamConn;
 			isNormalized = true;
+			wiring = null;
 		}
 	}
 	/**
@@ -603,6 +608,7 @@ public class VirtualRating extends AbstractRating {
 				sourceRatings = clonedSources;
 			}
 			isNormalized = false;
+			wiring = null;
 		}
 	}
 	/**
@@ -860,121 +866,167 @@ public class VirtualRating extends AbstractRating {
 		return rate(valTimes, indVals);
 	}
 
+	/**
+	 * Rates a range of the value sets of a batch. The columns of the batch are passed to the source ratings as they are
+	 * when the whole batch is rated, and otherwise the range of each column is copied.
+	 *
+	 * @see IRating#rate(RatingBatch, int, int, double[], int)
+	 */
+	@Override
+	public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+		RatingUtil.checkBulkRange(batch.size(), offset, length, batch.getTimes(), out, outOffset);
+		long[] valTimes = batch.getTimes();
+		if (valTimes == null) {
+			valTimes = new long[length];
+			Arrays.fill(valTimes, getDefaultValueTime());
+		}
+		else if (offset != 0 || valTimes.length != length) {
+			valTimes = Arrays.copyOfRange(valTimes, offset, offset + length);
+		}
+		double[][] columns = new double[batch.getParamCount()][];
+		for (int p = 0; p < columns.length; ++p) {
+			double[] column = batch.getColumn(p);
+			columns[p] = offset == 0 && column.length == length ? column : Arrays.copyOfRange(column, offset, offset + length);
+		}
+		System.arraycopy(rate(valTimes, columns), 0, out, outOffset, length);
+	}
+
 	/* (non-Javadoc)
 	 * @see org.opendcs.IRating#rate(long[], double[][])
 	 */
 	@Override
 	public double[] rate(long[] valTimes, double[][] indVals) throws RatingException {
-		synchronized(this) {
-			if (indVals.length != getIndParamCount()) {
-				throw new RatingException(String.format("Expected %d value sets, got %d", getIndParamCount(), indVals.length));
-			}
-			if (valTimes == null) {
-				throw new RatingException("No value times supplied");
+		Wiring wiring = getWiring();
+		SourceRating[] sourceRatings = wiring.sourceRatings;
+		Map<String, Set<String>> connectionsMap = wiring.connectionsMap;
+		String depParamConn = wiring.depParamConn;
+		String[][] inputs = wiring.inputs;
+		String[] outputs = wiring.outputs;
+		if (indVals.length != wiring.indParamCount) {
+			throw new RatingException(String.format("Expected %d value sets, got %d", wiring.indParamCount, indVals.length));
+		}
+		if (valTimes == null) {
+			throw new RatingException("No value times supplied");
+		}
+		//------------------------------------------------------------------------//
+		// populate connection point values with the independent parameter values //
+		//------------------------------------------------------------------------//
+		Map<String, double[]> cpValues = new HashMap<>();
+		String[] dataUnits = wiring.dataUnits;
+		int[] cpInfo = {-1, -1};
+		int r;
+		int p;
+		for (int i = 0; i < indVals.length; ++i) {
+			if (indVals[i] == null) {
+				throw new RatingException(String.format("Independent paramter %d has no values", i+1));
 			}
-			//------------------------------------------------------------------------//
-			// populate connection point values with the independent parameter values //
-			//------------------------------------------------------------------------//
-			Map<String, double[]> cpValues = new HashMap<>();
-			String[] dataUnits = this.dataUnits == null ? getRatingUnits() : this.dataUnits;
-			int[] cpInfo = {-1, -1};
-			int r;
-			int p;
-			for (int i = 0; i < indVals.length; ++i) {
-				if (indVals[i] == null) {
-					throw new RatingException(String.format("Independent paramter %d has no values", i+1));
-				}
-				if (indVals[i].length != valTimes.length) {
-					throw new RatingException("Inconsistent times and values arrays");
-				}
-				cpValues.put("I"+(i+1), indVals[i]);
+			if (indVals[i].length != valTimes.length) {
+				throw new RatingException("Inconsistent times and values arrays");
 			}
-			//-----------------------------------------------------------------------//
-			// process the map until we are left with the dependent parameter values //
-			//-----------------------------------------------------------------------//
-			Set<String> sources = new HashSet<>(cpValues.keySet());
-			while (!cpValues.containsKey(depParamConn)) {
-				//---------------------------------------------------------------------//
-				// populate connected connection points, converting units if necessary //
-				//---------------------------------------------------------------------//
-				String[] populated = cpValues.keySet().toArray(new String[0]);
-				for (String source : populated) {
-					VirtualRating.parseConnectionPoint(source, cpInfo);
+			cpValues.put("I"+(i+1), indVals[i]);
+		}
+		//-----------------------------------------------------------------------//
+		// process the map until we are left with the dependent parameter values //
+		//-----------------------------------------------------------------------//
+		Set<String> sources = new HashSet<>(cpValues.keySet());
+		while (!cpValues.containsKey(depParamConn)) {
+			//---------------------------------------------------------------------//
+			// populate connected connection points, converting units if necessary //
+			//---------------------------------------------------------------------//
+			String[] populated = cpValues.keySet().toArray(new String[0]);
+			for (String source : populated) {
+				VirtualRating.parseConnectionPoint(source, cpInfo);
+				r = cpInfo[0];
+				p = cpInfo[1] < 0 ? sourceRatings[r].dataUnits.length-1 : cpInfo[1];
+				String srcUnit = r < 0 ? dataUnits[p] : sourceRatings[r].dataUnits[p];
+				Set<String> dests = connectionsMap.get(source);
+				for (String dest : dests) {
+					if (sources.contains(dest)) {
+						continue; // prevent reversing onto a previous source
+					}
+					sources.add(source);
+					VirtualRating.parseConnectionPoint(dest, cpInfo);
 					r = cpInfo[0];
 					p = cpInfo[1] < 0 ? sourceRatings[r].dataUnits.length-1 : cpInfo[1];
-					String srcUnit = r < 0 ? dataUnits[p] : sourceRatings[r].dataUnits[p];
-					Set<String> dests = connectionsMap.get(source);
-					for (String dest : dests) {
-						if (sources.contains(dest)) {
-							continue; // prevent reversing onto a previous source
-						}
-						sources.add(source);
-						VirtualRating.parseConnectionPoint(dest, cpInfo);
-						r = cpInfo[0];
-						p = cpInfo[1] < 0 ? sourceRatings[r].dataUnits.length-1 : cpInfo[1];
-						String dstUnit = sourceRatings[r].dataUnits[p];
-						if (dstUnit.equals(srcUnit)) {
-							cpValues.put(dest, cpValues.get(source));
-						}
-						else {
-							double[] srcVals = cpValues.get(source);
-							double[] dstVals = Arrays.copyOf(srcVals, srcVals.length);
-							try {
-								UnitUtil.convertUnits(dstVals, srcUnit, dstUnit);
-							}
-							catch (UnitsConversionException e) {
-								throw new RatingException(e);
-							}
-							cpValues.put(dest, dstVals);
-						}
+					String dstUnit = sourceRatings[r].dataUnits[p];
+					if (dstUnit.equals(srcUnit)) {
+						cpValues.put(dest, cpValues.get(source));
+					}
+					else {
+						double[] srcVals = cpValues.get(source);
+						double[] dstVals = Arrays.copyOf(srcVals, srcVals.length);
+						UnitConversion.get(srcUnit, dstUnit).convert(dstVals, 0, dstVals.length);
+						cpValues.put(dest, dstVals);
 					}
 				}
-				//---------------------------------------------------------------//
-				// remove the source connection point values from the population //
-				//---------------------------------------------------------------//
-				for (String source : sources) {
-					cpValues.remove(source);
+			}
+			//---------------------------------------------------------------//
+			// remove the source connection point values from the population //
+			//---------------------------------------------------------------//
+			for (String source : sources) {
+				cpValues.remove(source);
+			}
+			//-----------------------------------------------------------------//
+			// process any source ratings that have all their inputs populated //
+			//-----------------------------------------------------------------//
+			for (r = 0; r < sourceRatings.length; ++r) {
+				int paramCount = sourceRatings[r].getIndParamCount();
+				for (p = 0; p < paramCount; ++p) {
+					if (!cpValues.containsKey("R"+(r+1)+"I"+(p+1))) {
+						break;
+					}
 				}
-				//-----------------------------------------------------------------//
-				// process any source ratings that have all their inputs populated //
-				//-----------------------------------------------------------------//
-				for (r = 0; r < sourceRatings.length; ++r) {
-					int paramCount = sourceRatings[r].getIndParamCount();
+				if (p == paramCount) {
+					//------------------------------------------------------------------//
+					// forward rate and remove source rating inputs from the population //
+					//------------------------------------------------------------------//
+					double[][] columns = new double[paramCount][];
 					for (p = 0; p < paramCount; ++p) {
-						if (!cpValues.containsKey("R"+(r+1)+"I"+(p+1))) {
-							break;
-						}
+						columns[p] = cpValues.get(inputs[r][p]);
 					}
-					if (p == paramCount) {
-						//------------------------------------------------------------------//
-						// forward rate and remove source rating inputs from the population //
-						//------------------------------------------------------------------//
-						int len = cpValues.get(inputs[r][0]).length;
-						double[][] _indVals = new double[len][];
-						for (int i = 0; i < len; ++i) {
-							_indVals[i] = new double[paramCount];
-							for (p = 0; p < paramCount; ++p) {
-								double[] vals = cpValues.get(inputs[r][p]);
-								_indVals[i][p] = vals[i];
-							}
-						}
-						double[] results = sourceRatings[r].rate(valTimes, _indVals);
-						cpValues.put(outputs[r], results);
-						for (p = 0; p < paramCount; ++p) {
-							cpValues.remove(inputs[r][p]);
-						}
-					}
-					else if (cpValues.containsKey(outputs[r])) {
-						//------------------------------------------------------------------//
-						// reverse rate and remove source rating inputs from the population //
-						//------------------------------------------------------------------//
-						double[] depVals = cpValues.get(outputs[r]);
-						cpValues.put(inputs[r][0], sourceRatings[r].reverseRate(valTimes, depVals));
-						cpValues.remove(outputs[r]);
+					double[] results = sourceRatings[r].rate(RatingBatch.ofColumns(valTimes, columns));
+					cpValues.put(outputs[r], results);
+					for (p = 0; p < paramCount; ++p) {
+						cpValues.remove(inputs[r][p]);
 					}
 				}
+				else if (cpValues.containsKey(outputs[r])) {
+					//------------------------------------------------------------------//
+					// reverse rate and remove source rating inputs from the population //
+					//------------------------------------------------------------------//
+					double[] depVals = cpValues.get(outputs[r]);
+					cpValues.put(inputs[r][0], sourceRatings[r].reverseRate(valTimes, depVals));
+					cpValues.remove(outputs[r]);
+				}
 			}
-			return cpValues.get(depParamConn);
+		}
+		return cpValues.get(depParamConn);
+	}
+
+	/**
+	 * Retrieves the connections and source ratings read by rating methods, rebuilding them if they have changed.
+	 * Only rebuilding them locks this rating.
+	 * @return The connections and source ratings
+	 * @throws RatingException on error
+	 */
+	private Wiring getWiring() throws RatingException {
+		Wiring current = wiring;
+		if (current != null && current.ratingSpecId == ratingSpecId && current.ratingUnitsId == ratingUnitsId) {
+			return current;
+		}
+		synchronized(this) {
+			current = new Wiring(
+					ratingSpecId,
+					ratingUnitsId,
+					getIndParamCount(),
+					dataUnits == null ? getRatingUnits() : dataUnits,
+					sourceRatings,
+					connectionsMap,
+					depParamConn,
+					inputs,
+					outputs);
+			wiring = current;
+			return current;
 		}
 	}
 
@@ -1036,129 +1088,121 @@ public class VirtualRating extends AbstractRating {
 	 */
 	@Override
 	public double[] reverseRate(long[] valTimes, double[] depVals) throws RatingException {
-		synchronized(this) {
-			if (getIndParamCount() > 1) {
-				throw new RatingException("Cannot reverse through a rating with more than one independent paramter");
-			}
-            for (SourceRating sourceRating : sourceRatings) {
-                if (sourceRating.mathExpression != null) {
-                    throw new RatingException("Cannot reverse through a virtual rating that contains a math expression for a source rating");
-                }
-                if (sourceRating.getIndParamCount() > 1) {
-                    throw new RatingException("Cannot reverse through a virutual rating that contains a source rating with more than one independent paramter");
-                }
+		Wiring wiring = getWiring();
+		SourceRating[] sourceRatings = wiring.sourceRatings;
+		Map<String, Set<String>> connectionsMap = wiring.connectionsMap;
+		String depParamConn = wiring.depParamConn;
+		if (wiring.indParamCount > 1) {
+			throw new RatingException("Cannot reverse through a rating with more than one independent paramter");
+		}
+        for (SourceRating sourceRating : sourceRatings) {
+            if (sourceRating.mathExpression != null) {
+                throw new RatingException("Cannot reverse through a virtual rating that contains a math expression for a source rating");
             }
-			//-------------------//
-			// prime the process //
-			//-------------------//
-			double[][] cpValues = new double[2][];
-			int unrated = 1;
-			int rated = 0;
-			int[] cpInfo = {-1, -1};
-			int r;
-			int p;
-			String ratedConn = depParamConn;
-			String unratedConn;
-			String terminus = connectionsMap.get("I1").iterator().next();
-			String[] dataUnits = this.dataUnits == null ? getRatingUnits() : this.dataUnits;
-			String ratedUnit;
-			String unratedUnit;
-			cpValues[0] = depVals;
-			boolean first = true;
-			//--------------------------------------------------------------------------------//
-			// This is a simpler version of the the process used in rate(long[], double[][]). //
-			// In reverse rating we know that there is only one independent value for any/all //
-			// source ratings and for the virtual rating as a whole.                          //
-			//--------------------------------------------------------------------------------//
-			//--------------------------------------------------------------------//
-			// assign values and rate until we get to the ending connection point //
-			//--------------------------------------------------------------------//
-			while (!ratedConn.equals(terminus)) {
-				//------------------------------------//
-				// swap the rated and unrated indexes //
-				//------------------------------------//
-				rated = ++rated % 2;
-				unrated = ++unrated % 2;
-				//---------------------------------------------//
-				// get the unrated connection points and units //
-				//---------------------------------------------//
-				if (first) {
-					//---------------------------------------//
-					// special operation for first pass only //
-					//---------------------------------------//
-					first = false;
-                    parseConnectionPoint(depParamConn, cpInfo);
-					r = cpInfo[0];
-					p = cpInfo[1];
-					unratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
-					ratedUnit = dataUnits[dataUnits.length-1];
-				}
-				else {
-					//------------------//
-					// normal operation //
-					//------------------//
-					parseConnectionPoint(ratedConn, cpInfo);
-					r = cpInfo[0];
-					p = cpInfo[1];
-					if (r < 0) {
-						ratedUnit = dataUnits[p];
-					}
-					else {
-						ratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
-					}
-					unratedConn = connectionsMap.get(ratedConn).iterator().next();
-					parseConnectionPoint(unratedConn, cpInfo);
-					r = cpInfo[0];
-					p = cpInfo[1];
-					unratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
-				}
-				//----------------------------------------------//
-				// convert the unrated values unit if necessary //
-				//----------------------------------------------//
-				if (!unratedUnit.equals(ratedUnit)) {
-					double[] values = Arrays.copyOf(cpValues[unrated], cpValues[unrated].length);
-					try {
-						UnitUtil.convertUnits(values, ratedUnit, unratedUnit);
-					}
-					catch (UnitsConversionException e) {
-						throw new RatingException(e);
-					}
-					cpValues[unrated] = values;
-				}
-				//----------------------------------------------------------------//
-				// rate the unrated values and updated the rated connection point //
-				//----------------------------------------------------------------//
-				if (p < 0) {
-					cpValues[rated] = sourceRatings[r].reverseRate(valTimes, cpValues[unrated]);
-					ratedConn = "R"+(r+1)+"I1";
+            if (sourceRating.getIndParamCount() > 1) {
+                throw new RatingException("Cannot reverse through a virutual rating that contains a source rating with more than one independent paramter");
+            }
+        }
+		//-------------------//
+		// prime the process //
+		//-------------------//
+		double[][] cpValues = new double[2][];
+		int unrated = 1;
+		int rated = 0;
+		int[] cpInfo = {-1, -1};
+		int r;
+		int p;
+		String ratedConn = depParamConn;
+		String unratedConn;
+		String terminus = connectionsMap.get("I1").iterator().next();
+		String[] dataUnits = wiring.dataUnits;
+		String ratedUnit;
+		String unratedUnit;
+		cpValues[0] = depVals;
+		boolean first = true;
+		//--------------------------------------------------------------------------------//
+		// This is a simpler version of the the process used in rate(long[], double[][]). //
+		// In reverse rating we know that there is only one independent value for any/all //
+		// source ratings and for the virtual rating as a whole.                          //
+		//--------------------------------------------------------------------------------//
+		//--------------------------------------------------------------------//
+		// assign values and rate until we get to the ending connection point //
+		//--------------------------------------------------------------------//
+		while (!ratedConn.equals(terminus)) {
+			//------------------------------------//
+			// swap the rated and unrated indexes //
+			//------------------------------------//
+			rated = ++rated % 2;
+			unrated = ++unrated % 2;
+			//---------------------------------------------//
+			// get the unrated connection points and units //
+			//---------------------------------------------//
+			if (first) {
+				//---------------------------------------//
+				// special operation for first pass only //
+				//---------------------------------------//
+				first = false;
+                parseConnectionPoint(depParamConn, cpInfo);
+				r = cpInfo[0];
+				p = cpInfo[1];
+				unratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
+				ratedUnit = dataUnits[dataUnits.length-1];
+			}
+			else {
+				//------------------//
+				// normal operation //
+				//------------------//
+				parseConnectionPoint(ratedConn, cpInfo);
+				r = cpInfo[0];
+				p = cpInfo[1];
+				if (r < 0) {
+					ratedUnit = dataUnits[p];
 				}
 				else {
-					double[][] values = new double[cpValues[unrated].length][];
-					for (int i = 0; i < cpValues[unrated].length; ++i) {
-						values[i] = new double[] {cpValues[unrated][i]};
-					}
-					cpValues[rated] = sourceRatings[r].rate(valTimes, values);
-					ratedConn = "R"+(r+1)+"D";
+					ratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
 				}
+				unratedConn = connectionsMap.get(ratedConn).iterator().next();
+				parseConnectionPoint(unratedConn, cpInfo);
+				r = cpInfo[0];
+				p = cpInfo[1];
+				unratedUnit = sourceRatings[r].dataUnits[p < 0 ? 1 : p];
 			}
-			//-------------------------------------------------//
-			// perform the final units conversion if necessary //
-			//-------------------------------------------------//
-			VirtualRating.parseConnectionPoint(terminus, cpInfo);
-			r = cpInfo[0];
-			p = cpInfo[1];
-			ratedUnit = sourceRatings[r].dataUnits[p < 0 ? sourceRatings[r].dataUnits.length-1 : p];
-			unratedUnit = dataUnits[0];
-			if (!ratedUnit.equals(unratedUnit)) {
-				try {
-					UnitUtil.convertUnits(cpValues[rated], ratedUnit, unratedUnit);
-				}
-				catch (UnitsConversionException e) {
-					throw new RatingException(e);
+			//----------------------------------------------//
+			// convert the unrated values unit if necessary //
+			//----------------------------------------------//
+			if (!unratedUnit.equals(ratedUnit)) {
+				double[] values = Arrays.copyOf(cpValues[unrated], cpValues[unrated].length);
+				UnitConversion.get(ratedUnit, unratedUnit).convert(values, 0, values.length);
+				cpValues[unrated] = values;
+			}
+			//----------------------------------------------------------------//
+			// rate the unrated values and updated the rated connection point //
+			//----------------------------------------------------------------//
+			if (p < 0) {
+				cpValues[rated] = sourceRatings[r].reverseRate(valTimes, cpValues[unrated]);
+				ratedConn = "R"+(r+1)+"I1";
+			}
+			else {
+				double[][] values = new double[cpValues[unrated].length][];
+				for (int i = 0; i < cpValues[unrated].length; ++i) {
+					values[i] = new double[] {cpValues[unrated][i]};
 				}
+				cpValues[rated] = sourceRatings[r].rate(valTimes, values);
+				ratedConn = "R"+(r+1)+"D";
 			}
-			return cpValues[rated];
 		}
+		//-------------------------------------------------//
+		// perform the final units conversion if necessary //
+		//-------------------------------------------------//
+		VirtualRating.parseConnectionPoint(terminus, cpInfo);
+		r = cpInfo[0];
+		p = cpInfo[1];
+		ratedUnit = sourceRatings[r].dataUnits[p < 0 ? sourceRatings[r].dataUnits.length-1 : p];
+		unratedUnit = dataUnits[0];
+		if (!ratedUnit.equals(unratedUnit)) {
+			UnitConversion.get(ratedUnit, unratedUnit).convert(cpValues[rated], 0, cpValues[rated].length);
+		}
+		return cpValues[rated];
 	}
 
 	/* (non-Javadoc)
@@ -1187,6 +1231,7 @@ public class VirtualRating extends AbstractRating {
 		synchronized(this) {
 			super.setDataUnitsId(dataUnitsId);
 			dataUnits = TextUtil.split(dataUnitsId.replace(SEPARATOR2, SEPARATOR3), SEPARATOR3);
+			wiring = null;
 		}
 	}
 	/* (non-Javadoc)
@@ -1197,6 +1242,7 @@ public class VirtualRating extends AbstractRating {
 		synchronized(this) {
 			super.setDataUnits(units);
 			dataUnits = units == null ? null : Arrays.copyOf(units, units.length);
+			wiring = null;
 		}
 	}
 	/* (non-Javadoc)
@@ -1225,4 +1271,40 @@ public class VirtualRating extends AbstractRating {
 			super.storeToDatabase(conn, overwriteExisting);
 		}
 	}
+	/**
+	 * The connections and source ratings of a virtual rating as of a single configuration. The connections map is
+	 * replaced, never modified, when the configuration changes.
+	 */
+	private static final class Wiring {
+		final String ratingSpecId;
+		final String ratingUnitsId;
+		final int indParamCount;
+		final String[] dataUnits;
+		final SourceRating[] sourceRatings;
+		final Map<String, Set<String>> connectionsMap;
+		final String depParamConn;
+		final String[][] inputs;
+		final String[] outputs;
+
+		Wiring(
+				String ratingSpecId,
+				String ratingUnitsId,
+				int indParamCount,
+				String[] dataUnits,
+				SourceRating[] sourceRatings,
+				Map<String, Set<String>> connectionsMap,
+				String depParamConn,
+				String[][] inputs,
+				String[] outputs) {
+			this.ratingSpecId = ratingSpecId;
+			this.ratingUnitsId = ratingUnitsId;
+			this.indParamCount = indParamCount;
+			this.dataUnits = dataUnits;
+			this.sourceRatings = sourceRatings;
+			this.connectionsMap = connectionsMap;
+			this.depParamConn = depParamConn;
+			this.inputs = inputs;
+			this.outputs = outputs;
+		}
+	}
 }
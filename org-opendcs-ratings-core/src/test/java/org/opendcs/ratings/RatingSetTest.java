@@ -1,16 +1,27 @@
 package org.opendcs.ratings;
 
 import hec.data.RoundingException;
+import hec.io.Conversion;
+import hec.io.TimeSeriesContainer;
+import hec.lang.Const;
+import org.opendcs.ratings.RatingConst.RatingMethod;
 import mil.army.usace.hec.metadata.VerticalDatumContainer;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RatingSetTest
 {
+    private static final long DAY = 86_400_000L;
+
     private static RatingSpec getRatingSpec() throws RatingException, RoundingException {
         RatingSpec ratingSpec = new RatingSpec();
         ratingSpec.setLocationId("LOCATION1");
@@ -27,6 +38,15 @@ public class RatingSetTest
         return ratingSpec;
     }
 
+    private static RatingSpec linearSpec(RatingMethod low, RatingMethod high) throws RatingException, RoundingException
+    {
+        RatingSpec ratingSpec = getRatingSpec();
+        ratingSpec.setInRangeMethod(RatingMethod.LINEAR);
+        ratingSpec.setOutRangeLowMethod(low);
+        ratingSpec.setOutRangeHighMethod(high);
+        return ratingSpec;
+    }
+
     @Test
     void testAddRatingsPreservesCurrentVerticalDatum() throws Exception
     {
@@ -65,4 +85,318 @@ public class RatingSetTest
         ratingSet.addRating(rating);
         assertTrue(ratingSet.getData().getVerticalDatumContainer().toNativeVerticalDatum());
     }
+
+    @Test
+    void testRatingAcrossEffectiveDates() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.PREVIOUS);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 5);
+        // hourly from 5 days before the first effective date to 5 days after the last
+        long[] times = new long[50 * 24 + 1];
+        double[][] valueSets = new double[times.length][];
+        double[] expected = new double[times.length];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = -5 * DAY + i * 3_600_000L;
+            valueSets[i] = new double[]{50};
+            int lower = (int) Math.max(0, Math.min(4, Math.floorDiv(times[i], 10 * DAY)));
+            int upper = Math.min(4, lower + 1);
+            if (times[i] <= lower * 10 * DAY || lower == upper)
+            {
+                expected[i] = 50 * (lower + 1);
+            }
+            else
+            {
+                expected[i] = 50 * (lower + 1) + 50 * (times[i] - lower * 10 * DAY) / (10. * DAY);
+            }
+        }
+        assertArrayEquals(expected, ratingSet.rate(valueSets, times), 1.e-9);
+        // values out of time order find the same ratings
+        Random random = new Random(1);
+        for (int i = times.length - 1; i > 0; --i)
+        {
+            int j = random.nextInt(i + 1);
+            long t = times[i]; times[i] = times[j]; times[j] = t;
+            double e = expected[i]; expected[i] = expected[j]; expected[j] = e;
+        }
+        assertArrayEquals(expected, ratingSet.rate(valueSets, times), 1.e-9);
+        // removing a rating is reflected in the next rating
+        ratingSet.removeRating(40 * DAY);
+        assertEquals(200, ratingSet.rateOne(new double[]{50}, 45 * DAY), 1.e-9);
+    }
+
+    @Test
+    void testCompiledRatingSet() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.PREVIOUS);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 3);
+        long[] times = new long[40 * 4 + 1];
+        double[][] valueSets = new double[times.length][];
+        double[] areas = new double[times.length];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = -5 * DAY + i * 6 * 3_600_000L;
+            valueSets[i] = new double[]{25 + i % 50};
+            areas[i] = 100 + i % 200;
+        }
+        CompiledRatingSet compiled = ratingSet.compile();
+        assertEquals(3, compiled.getRatingCount());
+        assertArrayEquals(ratingSet.getEffectiveDates(), compiled.getEffectiveDates());
+        double[] expected = ratingSet.rate(valueSets, times);
+        assertArrayEquals(expected, compiled.rate(times, valueSets), 0.);
+        assertArrayEquals(ratingSet.reverseRate(times, areas), compiled.reverseRate(times, areas), 0.);
+        // changes to the rating set don't affect the compiled rating set
+        ratingSet.removeRating(20 * DAY);
+        ratingSet.setDefaultValueTime(15 * DAY);
+        assertArrayEquals(expected, compiled.rate(times, valueSets), 0.);
+        assertThrows(RatingException.class, () -> compiled.rate(50.));
+        assertThrows(RatingException.class, () -> compiled.setDataUnits(new String[]{"m", "m2"}));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.setRatingTime(0L));
+    }
+
+    private static AbstractRatingSet newRatingSet(RatingSpec ratingSpec, int count) throws Exception
+    {
+        TableRating[] ratings = new TableRating[count];
+        for (int i = 0; i < count; ++i)
+        {
+            RatingValue[] values = TestTableRating.newValues(new double[]{0, 100}, new double[]{0, 100 * (i + 1)});
+            ratings[i] = new TableRating(values, null, RatingMethod.LINEAR, RatingMethod.LINEAR, RatingMethod.LINEAR,
+                    "SPK", "LOCATION1.Elev;Area.Standard.Production", "ft;acre", i * 10 * DAY, i * 10 * DAY, true, "unit testing");
+        }
+        return RatingSetFactory.ratingSet(ratingSpec, ratings);
+    }
+
+    @Test
+    void testRateWithContext() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.PREVIOUS);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 3);
+        long[] times = new long[40];
+        double[][] valueSets = new double[times.length][];
+        double[][] metricSets = new double[times.length][];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = i * DAY;
+            valueSets[i] = new double[]{25 + i};
+            metricSets[i] = new double[]{(25 + i) * 0.3048};
+        }
+        String[] dataUnits = ratingSet.getDataUnits();
+        double[] expected = ratingSet.rate(valueSets, times);
+        // rating in other units converts at the call and leaves the rating set's units alone
+        RatingContext metric = new RatingContext(new String[]{"m", "m2"}, Long.MAX_VALUE, 5 * DAY, false, false);
+        double[] rated = ratingSet.rate(metric, times, metricSets);
+        for (int i = 0; i < times.length; ++i)
+        {
+            assertEquals(expected[i] * 4046.8564224, rated[i], 1e-6 * rated[i]);
+        }
+        assertArrayEquals(dataUnits, ratingSet.getDataUnits());
+        assertArrayEquals(expected, ratingSet.rate(new RatingContext(), times, valueSets), 0.);
+        assertArrayEquals(expected, ratingSet.compile().rate(new RatingContext(), times, valueSets), 0.);
+        double[] expectedReversed = ratingSet.reverseRate(times, expected);
+        double[] reversed = ratingSet.reverseRate(metric, times, rated);
+        for (int i = 0; i < times.length; ++i)
+        {
+            assertEquals(expectedReversed[i] * 0.3048, reversed[i], 1e-9);
+        }
+        // the default value time of the context is used for values without times
+        assertEquals(ratingSet.rateOne(valueSets[0], 5 * DAY), ratingSet.rate(metric, null, new double[][]{metricSets[0]})[0] / 4046.8564224, 1e-9);
+        // the rating time of the context excludes ratings created after it
+        RatingContext past = new RatingContext(null, 15 * DAY, Const.UNDEFINED_TIME, true, false);
+        double[] pastExpected = newRatingSet(ratingSpec, 2).rate(valueSets, times);
+        assertArrayEquals(pastExpected, ratingSet.rate(past, times, valueSets), 0.);
+        assertArrayEquals(pastExpected, ratingSet.compile().rate(past, times, valueSets), 0.);
+        assertThrows(RatingException.class, () -> ratingSet.rate(past, null, valueSets));
+    }
+
+    @Test
+    void testTimeSeriesRaterWithMixedRatingUnits() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.PREVIOUS);
+        RatingValue[] values = TestTableRating.newValues(new double[]{0, 100}, new double[]{0, 100});
+        TableRating english = new TableRating(values, null, RatingMethod.LINEAR, RatingMethod.LINEAR, RatingMethod.LINEAR,
+                "SPK", "LOCATION1.Elev;Area.Standard.Production", "ft;acre", 0, 0, true, "unit testing");
+        TableRating metric = new TableRating(values, null, RatingMethod.LINEAR, RatingMethod.LINEAR, RatingMethod.LINEAR,
+                "SPK", "LOCATION1.Elev;Area.Standard.Production", "m;m2", 10 * DAY, 10 * DAY, true, "unit testing");
+        AbstractRatingSet ratingSet = RatingSetFactory.ratingSet(ratingSpec, new AbstractRating[]{english, metric});
+        TimeSeriesContainer tsc = new TimeSeriesContainer();
+        tsc.fullName = "LOCATION1.Elev.Inst.~1Day.0.Test";
+        tsc.parameter = "Elev";
+        tsc.units = "ft";
+        tsc.times = new int[]{Conversion.toMinutes(0L), Conversion.toMinutes(5 * DAY), Conversion.toMinutes(20 * DAY)};
+        tsc.values = new double[]{50, 50, 50};
+        tsc.numberValues = tsc.values.length;
+        // the time series is rated in its own units, converted directly to the units of each rating
+        TimeSeriesContainer rated = new TimeSeriesRater(ratingSet, false, false).rate(new TimeSeriesContainer[]{tsc});
+        double metricArea = 50 * 0.3048 / 4046.8564224;
+        assertEquals("acre", rated.units);
+        assertEquals(50, rated.values[0], 1e-9);
+        assertEquals((50 + metricArea) / 2, rated.values[1], 1e-9);
+        assertEquals(metricArea, rated.values[2], 1e-12);
+        RatingContext context = new RatingContext(new String[]{"ft", "acre"}, Long.MAX_VALUE, Const.UNDEFINED_TIME, false, false);
+        assertArrayEquals(rated.values, ratingSet.compile().rate(context, new long[]{0, 5 * DAY, 20 * DAY},
+                new double[][]{{50}, {50}, {50}}), 1e-12);
+    }
+
+    @Test
+    void testRateBatch() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.PREVIOUS);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 3);
+        long[] times = new long[40];
+        double[] stages = new double[times.length];
+        double[][] valueSets = new double[times.length][];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = i * DAY;
+            stages[i] = 25 + i;
+            valueSets[i] = new double[]{stages[i]};
+        }
+        double[] expected = ratingSet.rate(valueSets, times);
+        RatingBatch batch = RatingBatch.ofColumns(times, stages);
+        assertArrayEquals(expected, ratingSet.rate(batch), 0.);
+        assertArrayEquals(expected, ratingSet.compile().rate(batch), 0.);
+        double[] out = new double[10];
+        ratingSet.rate(batch, 15, 10, out, 0);
+        assertArrayEquals(Arrays.copyOfRange(expected, 15, 25), out, 0.);
+    }
+
+    @Test
+    void testRateWithStatus() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.ERROR, RatingMethod.LINEAR);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 2);
+        long[] times = {-DAY, 5 * DAY, 5 * DAY, 20 * DAY};
+        double[] stages = {50, 50, 150, 50};
+        assertThrows(RatingException.class, () -> ratingSet.rate(new double[][]{{50}}, new long[]{-DAY}));
+        RatingBatch batch = RatingBatch.ofColumns(times, stages);
+        for (IRating rating : new IRating[]{ratingSet, ratingSet.compile()})
+        {
+            double[] out = new double[times.length];
+            byte[] status = new byte[times.length];
+            rating.rateWithStatus(batch, 0, times.length, out, status, 0);
+            assertEquals(Const.UNDEFINED_DOUBLE, out[0], 0.);
+            for (int i = 1; i < times.length; ++i)
+            {
+                assertEquals(ratingSet.rateOne(new double[]{stages[i]}, times[i]), out[i], 0.);
+            }
+            assertArrayEquals(new byte[]{RatingStatus.OUT_OF_RANGE_LOW, RatingStatus.OK, RatingStatus.EXTRAPOLATED,
+                    RatingStatus.EXTRAPOLATED}, status);
+        }
+    }
+
+    @Test
+    void testValueSetChecks() throws Exception
+    {
+        AbstractRatingSet ratingSet = newRatingSet(getRatingSpec(), 2);
+        assertEquals(100., ratingSet.rateOne(new double[]{50}, 10 * DAY), 1e-9);
+        // a single value set is checked against the ratings as well
+        assertThrows(RatingException.class, () -> ratingSet.rate(new double[][]{{50, 1}}, new long[]{5 * DAY}));
+        assertThrows(RatingException.class, () -> ratingSet.rate(new double[][]{{50}}, new long[]{5 * DAY, 6 * DAY}));
+        // the compiled set checks value sets the same way
+        CompiledRatingSet compiled = ratingSet.compile();
+        assertThrows(RatingException.class, () -> compiled.rate(new long[]{5 * DAY}, new double[][]{{50, 1}}));
+        assertThrows(RatingException.class, () -> compiled.rate(new long[]{5 * DAY, 6 * DAY}, new double[][]{{50}}));
+        // the checks follow changes to the ratings
+        ratingSet.removeRating(10 * DAY);
+        assertEquals(50., ratingSet.rateOne(new double[]{50}, 0L), 1e-9);
+    }
+
+    @Test
+    void testActiveRatingsFollowRatingTime() throws Exception
+    {
+        AbstractRatingSet ratingSet = newRatingSet(getRatingSpec(), 2);
+        assertEquals(100., ratingSet.rateOne(new double[]{50}, 10 * DAY), 1e-9);
+        // the rating created after the rating time is no longer used
+        ratingSet.setRatingTime(5 * DAY);
+        assertEquals(50., ratingSet.rateOne(new double[]{50}, 10 * DAY), 1e-9);
+        ratingSet.resetRatingTime();
+        assertEquals(100., ratingSet.rateOne(new double[]{50}, 10 * DAY), 1e-9);
+    }
+
+    @Test
+    void testParallelRating() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.ERROR, RatingMethod.PREVIOUS);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 3);
+        Random random = new Random(42);
+        long[] times = new long[5000];
+        double[][] valueSets = new double[times.length][];
+        double[] areas = new double[times.length];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = i * 3_600_000L / 5;
+            valueSets[i] = new double[]{random.nextDouble() * 100};
+            areas[i] = random.nextDouble() * 100;
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RatingContext sequential = new RatingContext();
+            RatingContext parallel = sequential.withParallelism(pool, 16);
+            CompiledRatingSet compiled = ratingSet.compile();
+            // parallel results are bit-identical to sequential results
+            assertArrayEquals(ratingSet.rate(valueSets, times), ratingSet.rate(parallel, times, valueSets), 0.);
+            assertArrayEquals(compiled.rate(times, valueSets), compiled.rate(parallel, times, valueSets), 0.);
+            assertArrayEquals(ratingSet.reverseRate(sequential, times, areas), ratingSet.reverseRate(parallel, times, areas), 0.);
+            assertArrayEquals(compiled.reverseRate(times, areas), compiled.reverseRate(parallel, times, areas), 0.);
+            // errors in any chunk are reported
+            times[times.length - 1] = -DAY;
+            assertThrows(RatingException.class, () -> ratingSet.rate(parallel, times, valueSets));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testRateEnsemble() throws Exception
+    {
+        RatingSpec ratingSpec = linearSpec(RatingMethod.NEXT, RatingMethod.LINEAR);
+        AbstractRatingSet ratingSet = newRatingSet(ratingSpec, 3);
+        Random random = new Random(7);
+        long[] times = new long[200];
+        for (int i = 0; i < times.length; ++i)
+        {
+            times[i] = -5 * DAY + i * DAY / 5;
+        }
+        double[][] members = new double[12][times.length];
+        for (double[] member : members)
+        {
+            for (int i = 0; i < times.length; ++i)
+            {
+                member[i] = random.nextDouble() * 100;
+            }
+        }
+        members[3][17] = Const.UNDEFINED_DOUBLE;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RatingContext parallel = new RatingContext().withParallelism(pool, 16);
+            CompiledRatingSet compiled = ratingSet.compile();
+            double[][] rated = ratingSet.rateEnsemble(times, members);
+            double[][] ratedInParallel = ratingSet.rateEnsemble(parallel, times, members);
+            double[][] compiledInParallel = compiled.rateEnsemble(parallel, times, members);
+            // each member is rated exactly as it would be on its own
+            for (int m = 0; m < members.length; ++m)
+            {
+                double[][] valueSets = new double[times.length][];
+                for (int i = 0; i < times.length; ++i)
+                {
+                    valueSets[i] = new double[]{members[m][i]};
+                }
+                double[] expected = ratingSet.rate(valueSets, times);
+                assertArrayEquals(expected, rated[m], 0.);
+                assertArrayEquals(expected, ratedInParallel[m], 0.);
+                assertArrayEquals(expected, compiledInParallel[m], 0.);
+            }
+            assertEquals(Const.UNDEFINED_DOUBLE, rated[3][17], 0.);
+            double[][] ragged = {members[0], new double[1]};
+            assertThrows(RatingException.class, () -> ratingSet.rateEnsemble(times, ragged));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,381 @@
+/*
+* Where Applicable, Copyright 2026 OpenDCS Consortium and/or its contributors
+*
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License. You may obtain a copy
+* of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+* WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+* License for the specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.opendcs.ratings;
+
+import org.junit.jupiter.api.Test;
+import org.opendcs.ratings.RatingConst.RatingMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static hec.lang.Const.UNDEFINED_DOUBLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTableRating
+{
+	private static final double TOLERANCE = 1.e-9;
+
+	static TableRating newRating(RatingValue[] values, RatingMethod method) throws RatingException
+	{
+		return new TableRating(
+				values,
+				null,
+				method,
+				method,
+				method,
+				"SWT",
+				"Test.Stage;Flow.Test.Test",
+				"ft;cfs",
+				0L,
+				0L,
+				true,
+				"unit testing");
+	}
+
+	static RatingValue[] newValues(double[] ind, double[] dep)
+	{
+		RatingValue[] values = new RatingValue[ind.length];
+		for (int i = 0; i < ind.length; ++i)
+		{
+			values[i] = new RatingValue(ind[i], dep[i]);
+		}
+		return values;
+	}
+
+	@Test
+	public void testCompiledLookups() throws RatingException
+	{
+		TableRating rating = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.LINEAR);
+		assertEquals(50, rating.rate(5), TOLERANCE);
+		assertEquals(250, rating.rate(15), TOLERANCE);
+		assertEquals(550, rating.rate(25), TOLERANCE);
+		assertEquals(-50, rating.rate(-5), TOLERANCE);
+	}
+
+	@Test
+	public void testCompiledLookupsFollowValueChanges() throws RatingException
+	{
+		RatingValue[] values = newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400});
+		TableRating rating = newRating(values, RatingMethod.LINEAR);
+		assertEquals(250, rating.rate(15), TOLERANCE);
+		values[2].setDepValue(200);
+		assertEquals(150, rating.rate(15), TOLERANCE);
+		rating.setRatingValues(newValues(new double[]{0, 20}, new double[]{0, 20}));
+		assertEquals(15, rating.rate(15), TOLERANCE);
+	}
+
+	@Test
+	public void testLogarithmicSegments() throws RatingException
+	{
+		TableRating rating = newRating(newValues(new double[]{0, 10, 100}, new double[]{0, 100, 10_000}), RatingMethod.LOGARITHMIC);
+		// first segment can't be transformed and falls back to linear
+		assertEquals(50, rating.rate(5), TOLERANCE);
+		assertEquals(2_500, rating.rate(50), 1.e-6);
+		assertEquals(40_000, rating.rate(200), 1.e-6);
+		rating.inRangeMethod = RatingMethod.LIN_LOG;
+		assertEquals(Math.pow(10, 2 + 2 * 40. / 90.), rating.rate(50), 1.e-6);
+		rating.inRangeMethod = RatingMethod.LOG_LIN;
+		assertEquals(100 + 9_900 * Math.log10(5), rating.rate(50), 1.e-6);
+	}
+
+	@Test
+	public void testMultipleIndependentParameters() throws RatingException
+	{
+		RatingValue[] lowGate = newValues(new double[]{0, 10}, new double[]{0, 100});
+		RatingValue[] highGate = newValues(new double[]{0, 10, 20}, new double[]{0, 200, 400});
+		RatingValue[] values = new RatingValue[]{
+				new RatingValue(1, newRating(lowGate, RatingMethod.LINEAR)),
+				new RatingValue(2, newRating(highGate, RatingMethod.LINEAR))};
+		TableRating rating = new TableRating(
+				values,
+				null,
+				RatingMethod.LINEAR,
+				RatingMethod.LINEAR,
+				RatingMethod.LINEAR,
+				"SWT",
+				"Test.Opening,Elev;Flow.Test.Test",
+				"ft,ft;cfs",
+				0L,
+				0L,
+				true,
+				"unit testing");
+		assertEquals(75, rating.rateOne(1.5, 5.), TOLERANCE);
+		assertEquals(100, rating.rateOne(1., 10.), TOLERANCE);
+		assertEquals(300, rating.rateOne(2., 15.), TOLERANCE);
+		assertEquals(225, rating.rateOne(1.5, 15.), TOLERANCE);
+		assertEquals(125, rating.rateOne(2.5, 5.), TOLERANCE);
+		highGate[1].setDepValue(100);
+		assertEquals(50, rating.rateOne(1.5, 5.), TOLERANCE);
+	}
+
+	@Test
+	public void testRateBatch() throws RatingException
+	{
+		RatingValue[] lowGate = newValues(new double[]{0, 10}, new double[]{0, 100});
+		RatingValue[] highGate = newValues(new double[]{0, 10, 20}, new double[]{0, 200, 400});
+		RatingValue[] values = new RatingValue[]{
+				new RatingValue(1, newRating(lowGate, RatingMethod.LINEAR)),
+				new RatingValue(2, newRating(highGate, RatingMethod.LINEAR))};
+		TableRating rating = new TableRating(
+				values,
+				null,
+				RatingMethod.LINEAR,
+				RatingMethod.LINEAR,
+				RatingMethod.LINEAR,
+				"SWT",
+				"Test.Opening,Elev;Flow.Test.Test",
+				"ft,ft;cfs",
+				0L,
+				0L,
+				true,
+				"unit testing");
+		double[] openings = {1.5, 1., 2., 1.5, UNDEFINED_DOUBLE};
+		double[] elevations = {5., 10., 15., 15., 5.};
+		double[][] rows = new double[openings.length][];
+		for (int i = 0; i < rows.length; ++i)
+		{
+			rows[i] = new double[]{openings[i], elevations[i]};
+		}
+		double[] expected = rating.rate(rows);
+		RatingBatch batch = RatingBatch.ofColumns(null, openings, elevations);
+		assertArrayEquals(expected, rating.rate(batch), 0.);
+		assertArrayEquals(expected, RatingBatch.ofRows(null, rows).rate(rating), 0.);
+		double[] out = new double[4];
+		rating.rate(batch, 1, 3, out, 1);
+		assertArrayEquals(new double[]{0, expected[1], expected[2], expected[3]}, out, 0.);
+		assertThrows(RatingException.class, () -> rating.rate(RatingBatch.ofColumns(null, openings)));
+		// a batch owned by its caller is refilled and rated again without allocating
+		RatingBatch single = new RatingBatch(1, 2);
+		TableRating flow = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.LINEAR);
+		for (double stage : new double[]{5, 15, 25})
+		{
+			single.add(0L, stage);
+		}
+		assertArrayEquals(new double[]{50, 250, 550}, Arrays.copyOf(single.rate(flow), single.size()), TOLERANCE);
+		single.clear();
+		single.add(0L, 10);
+		assertEquals(100, single.rate(flow)[0], TOLERANCE);
+	}
+
+	@Test
+	public void testBulkRateIntoBuffer() throws RatingException
+	{
+		TableRating rating = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.LINEAR);
+		double[] values = {-5, 5, 15, 25, UNDEFINED_DOUBLE};
+		double[] out = new double[8];
+		Arrays.fill(out, Double.NaN);
+		rating.rate(values, 1, 4, null, out, 3);
+		assertTrue(Double.isNaN(out[2]));
+		assertEquals(50, out[3], TOLERANCE);
+		assertEquals(250, out[4], TOLERANCE);
+		assertEquals(550, out[5], TOLERANCE);
+		assertEquals(UNDEFINED_DOUBLE, out[6], 0.);
+		assertTrue(Double.isNaN(out[7]));
+		assertThrows(RatingException.class, () -> rating.rate(values, 2, 4, null, out, 0));
+		assertThrows(RatingException.class, () -> rating.rate(values, 0, 4, null, out, 6));
+	}
+
+	@Test
+	public void testUnitConversionsFollowDataUnits() throws RatingException
+	{
+		TableRating rating = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.LINEAR);
+		assertEquals(250, rating.rate(15), TOLERANCE);
+		rating.setDataUnits(new String[]{"m", "cfs"});
+		assertEquals(250, rating.rate(15 * .3048), TOLERANCE);
+		rating.setDataUnits(new String[]{"ft", "cms"});
+		assertEquals(250 * 0.028316846592, rating.rate(15), TOLERANCE);
+		assertEquals(250 * 0.028316846592, rating.rate(new double[]{15})[0], TOLERANCE);
+		rating.setRatingUnitsId("m;cms");
+		assertEquals(150 * .3048, rating.rate(15), TOLERANCE);
+		rating.setDataUnits(null);
+		assertEquals(250, rating.rate(15), TOLERANCE);
+	}
+
+	@Test
+	public void testReverseRateFollowsValueChanges() throws RatingException
+	{
+		RatingValue[] values = newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400});
+		TableRating rating = newRating(values, RatingMethod.LINEAR);
+		double[] flows = {-50, 50, 100, 250, 550, UNDEFINED_DOUBLE};
+		double[] stages = rating.reverseRate(flows);
+		double[] expected = {-5, 5, 10, 15, 25, UNDEFINED_DOUBLE};
+		for (int i = 0; i < flows.length; ++i)
+		{
+			assertEquals(expected[i], stages[i], TOLERANCE);
+			assertEquals(expected[i], rating.reverseRate(flows[i]), TOLERANCE);
+		}
+		values[2].setDepValue(200);
+		assertEquals(15, rating.reverseRate(150), TOLERANCE);
+		rating.outRangeHighMethod = RatingMethod.NULL;
+		assertEquals(UNDEFINED_DOUBLE, rating.reverseRate(new double[]{250})[0], 0.);
+	}
+
+	@Test
+	public void testBulkRateSearchesFromPreviousSegment() throws RatingException
+	{
+		int count = 200;
+		double[] ind = new double[count];
+		double[] dep = new double[count];
+		double[] reversed = new double[count];
+		for (int i = 0; i < count; ++i)
+		{
+			ind[i] = i * 0.5;
+			dep[i] = ind[i] * ind[i];
+			reversed[count - 1 - i] = dep[i];
+		}
+		double[] values = new double[1_000];
+		for (int i = 0; i < values.length; ++i)
+		{
+			// a slowly varying series with occasional jumps across the table
+			values[i] = i % 97 == 0 ? (i * 7) % count * 0.5 : 50 + 45 * Math.sin(i / 40.);
+		}
+		values[500] = ind[10];
+		values[501] = ind[11];
+		TableRating ascending = newRating(newValues(ind, dep), RatingMethod.LINEAR);
+		TableRating descending = newRating(newValues(reversed, ind), RatingMethod.LINEAR);
+		double[] flows = ascending.rate(values);
+		double[] stages = descending.rate(flows);
+		for (int i = 0; i < values.length; ++i)
+		{
+			assertEquals(ascending.rate(values[i]), flows[i], 0., "value " + i);
+			assertEquals(descending.rate(flows[i]), stages[i], 0., "value " + i);
+		}
+	}
+
+	@Test
+	public void testLookupIndexMatchesBisection() throws RatingException
+	{
+		int count = 3_000;
+		double[] ind = new double[count];
+		double[] dep = new double[count];
+		for (int i = 0; i < count; ++i)
+		{
+			// unevenly spaced so buckets hold differing numbers of values
+			ind[i] = 0.001 * i * i;
+			dep[i] = 10 * i + Math.sqrt(i);
+		}
+		int threshold = TableRating.getLookupIndexThreshold();
+		TableRating indexed;
+		TableRating bisected;
+		try
+		{
+			TableRating.setLookupIndexThreshold(100);
+			indexed = newRating(newValues(ind, dep), RatingMethod.LINEAR);
+			// compile the table and its reverse while the threshold applies
+			indexed.rate(ind[1]);
+			indexed.reverseRate(dep[1]);
+			TableRating.setLookupIndexThreshold(Integer.MAX_VALUE);
+			bisected = newRating(newValues(ind, dep), RatingMethod.LINEAR);
+			for (int i = 0; i < 20_000; ++i)
+			{
+				double v = ind[count - 1] * i / 20_000.;
+				assertEquals(bisected.rate(v), indexed.rate(v), 0., "value " + v);
+				double flow = dep[count - 1] * i / 20_000.;
+				assertEquals(bisected.reverseRate(flow), indexed.reverseRate(flow), 0., "flow " + flow);
+			}
+			for (int i = 0; i < count; ++i)
+			{
+				for (double v : new double[]{ind[i], ind[i] - 5.e-9, ind[i] + 5.e-9})
+				{
+					assertEquals(bisected.rate(v), indexed.rate(v), 0., "value " + v);
+				}
+			}
+		}
+		finally
+		{
+			TableRating.setLookupIndexThreshold(threshold);
+		}
+	}
+
+	@Test
+	public void testConcurrentLookupsMatchSequentialLookups() throws Exception
+	{
+		int count = 500;
+		double[] ind = new double[count];
+		double[] dep = new double[count];
+		for (int i = 0; i < count; ++i)
+		{
+			ind[i] = i * 0.1;
+			dep[i] = 3 * ind[i] * ind[i] + ind[i];
+		}
+		TableRating rating = newRating(newValues(ind, dep), RatingMethod.LINEAR);
+		rating.setDataUnits(new String[]{"m", "cms"});
+		double[] values = new double[2_000];
+		for (int i = 0; i < values.length; ++i)
+		{
+			values[i] = (i * 7919 % values.length) * ind[count - 1] * .3048 / values.length;
+		}
+		double[] expected = rating.rate(values);
+		double[] expectedReversed = rating.reverseRate(dep);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < 8; ++t)
+			{
+				results.add(executor.submit(() -> {
+					for (int n = 0; n < 20; ++n)
+					{
+						assertTrue(Arrays.equals(expected, rating.rate(values)));
+						assertTrue(Arrays.equals(expectedReversed, rating.reverseRate(dep)));
+						for (int i = n; i < values.length; i += 97)
+						{
+							assertEquals(expected[i], rating.rate(values[i]), 0.);
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results)
+			{
+				result.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testRateWithStatusReportsValuesInsteadOfThrowing() throws RatingException
+	{
+		TableRating strict = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.ERROR);
+		assertThrows(RatingOutOfRangeException.class, () -> strict.rate(new double[]{10, -5}));
+		RatingBatch batch = RatingBatch.ofColumns(null, new double[]{-5, 10, 5, UNDEFINED_DOUBLE, 25});
+		double[] out = new double[6];
+		byte[] status = new byte[6];
+		strict.rateWithStatus(batch, 0, 5, out, status, 1);
+		assertArrayEquals(new double[]{0, UNDEFINED_DOUBLE, 100, UNDEFINED_DOUBLE, UNDEFINED_DOUBLE, UNDEFINED_DOUBLE}, out, 0.);
+		assertArrayEquals(new byte[]{RatingStatus.OK, RatingStatus.OUT_OF_RANGE_LOW, RatingStatus.OK, RatingStatus.ERROR,
+				RatingStatus.UNDEFINED, RatingStatus.OUT_OF_RANGE_HIGH}, status);
+
+		TableRating linear = newRating(newValues(new double[]{0, 10, 20}, new double[]{0, 100, 400}), RatingMethod.LINEAR);
+		linear.rateWithStatus(batch, 0, 5, out, status, 0);
+		assertArrayEquals(new double[]{-50, 100, 50, UNDEFINED_DOUBLE, 550}, Arrays.copyOf(out, 5), TOLERANCE);
+		assertArrayEquals(new byte[]{RatingStatus.EXTRAPOLATED, RatingStatus.OK, RatingStatus.OK, RatingStatus.UNDEFINED,
+				RatingStatus.EXTRAPOLATED}, Arrays.copyOf(status, 5));
+		assertThrows(RatingException.class, () -> linear.rateWithStatus(batch, 0, 5, out, new byte[4], 0));
+	}
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.opendcs.ratings.io.RatingValueContainer;
+import org.opendcs.ratings.io.TableRatingContainer;
 import org.opendcs.ratings.io.UsgsStreamTableRatingContainer;
 
 import java.io.BufferedReader;
@@ -23,21 +24,29 @@ import java.io.FileReader;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 
+import static hec.lang.Const.UNDEFINED_DOUBLE;
 import static org.junit.jupiter.api.Assertions.*;
 
 
 public class TestUsgsStreamTableRating
 {
 
+	private static final long DAY = 86_400_000L;
+
 	private static UsgsStreamTableRating _rating;
 
 	@BeforeAll
 	public static void setup() throws RatingException {
+		_rating = new UsgsStreamTableRating(newContainer());
+	}
+
+	private static UsgsStreamTableRatingContainer newContainer() {
 		long millis = ZonedDateTime.of(2022, 10, 6, 16, 0, 0, 0, ZoneId.of("UTC")).toInstant().toEpochMilli();
 		UsgsStreamTableRatingContainer urc = new UsgsStreamTableRatingContainer();
 		urc.active = true;
@@ -60,7 +69,7 @@ public class TestUsgsStreamTableRating
 		v3.indValue = 1_000;
 		v3.depValue = 1_000_000;
 		urc.values = new RatingValueContainer[]{v1, v2, v3};
-		_rating = new UsgsStreamTableRating(urc);
+		return urc;
 	}
 
 	@ParameterizedTest
@@ -117,6 +126,216 @@ public class TestUsgsStreamTableRating
 		assertThrows(RatingException.class, () -> _rating.reverseRate(-500));
 	}
 
+	@Test
+	public void testBulkRateMatchesRate() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		rating.inRangeMethod = RatingConst.RatingMethod.LOGARITHMIC;
+		double[] stages = {-5, 0, 5, 50, 100, 500, 1_000, 2_000};
+		double[] expected = rating.rate(stages);
+		double[] out = new double[stages.length + 2];
+		rating.rate(stages, 0, stages.length, null, out, 2);
+		for (int i = 0; i < stages.length; ++i) {
+			assertEquals(expected[i], out[i + 2], 0.);
+		}
+		double[][] sets = new double[stages.length][];
+		for (int i = 0; i < stages.length; ++i) {
+			sets[i] = new double[]{stages[i]};
+		}
+		rating.rate(sets, 3, 4, null, out, 0);
+		for (int i = 0; i < 4; ++i) {
+			assertEquals(expected[i + 3], out[i], 0.);
+		}
+	}
+
+	@Test
+	public void testRateWithStatusReportsShiftedStages() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		long base = rating.getEffectiveDate();
+		rating.addShift(new Date(base + 10 * DAY), shiftValues(0, 0.5, 1_000, 0.5), true);
+		rating.outRangeLowMethod = RatingConst.RatingMethod.ERROR;
+		rating.outRangeHighMethod = RatingConst.RatingMethod.ERROR;
+		long time = base + 20 * DAY;
+		long[] times = {time, time, time, time, time};
+		// the last stage is only out of range once it is shifted
+		double[] stages = {-5, 50, UNDEFINED_DOUBLE, 999.2, 999.8};
+		RatingBatch batch = RatingBatch.ofColumns(times, stages);
+		assertThrows(RatingException.class, () -> rating.rate(batch, 0, stages.length, new double[stages.length], 0));
+		double[] out = new double[stages.length + 1];
+		byte[] status = new byte[stages.length + 1];
+		rating.rateWithStatus(batch, 0, stages.length, out, status, 1);
+		assertArrayEquals(new double[]{0, UNDEFINED_DOUBLE, rating.rate(time, 50), UNDEFINED_DOUBLE, rating.rate(time, 999.2),
+				UNDEFINED_DOUBLE}, out, 0.);
+		assertArrayEquals(new byte[]{RatingStatus.OK, RatingStatus.OUT_OF_RANGE_LOW, RatingStatus.OK, RatingStatus.UNDEFINED,
+				RatingStatus.OK, RatingStatus.OUT_OF_RANGE_HIGH}, status);
+
+		rating.outRangeLowMethod = RatingConst.RatingMethod.LINEAR;
+		rating.outRangeHighMethod = RatingConst.RatingMethod.LINEAR;
+		rating.rateWithStatus(batch, 0, stages.length, out, status, 0);
+		assertArrayEquals(new double[]{rating.rate(time, -5), rating.rate(time, 50), UNDEFINED_DOUBLE, rating.rate(time, 999.2),
+				rating.rate(time, 999.8)}, Arrays.copyOf(out, stages.length), 0.);
+		assertArrayEquals(new byte[]{RatingStatus.EXTRAPOLATED, RatingStatus.OK, RatingStatus.UNDEFINED, RatingStatus.OK,
+				RatingStatus.EXTRAPOLATED}, Arrays.copyOf(status, stages.length));
+	}
+
+	@Test
+	public void testRatingSetBulkRateMatchesRateOne() throws Exception {
+		UsgsStreamTableRating first = newRating();
+		long base = first.getEffectiveDate();
+		first.addShift(new Date(base + 10 * DAY), shiftValues(0, 0.5, 1_000, 1.5), true);
+		UsgsStreamTableRatingContainer urc = newContainer();
+		urc.effectiveDateMillis = base + 20 * DAY;
+		urc.createDateMillis = base + 20 * DAY;
+		UsgsStreamTableRating second = new UsgsStreamTableRating(urc);
+		second.addShift(new Date(base + 30 * DAY), shiftValues(50, 0.37), true);
+		RatingSpec ratingSpec = new RatingSpec();
+		ratingSpec.setOfficeId("SWT");
+		ratingSpec.setLocationId("Test");
+		ratingSpec.setTemplateId("Stage;Flow.Test");
+		ratingSpec.setVersion("Test");
+		ratingSpec.setParametersId("Stage;Flow");
+		ratingSpec.setIndRoundingSpecs(new String[]{"2223456782"});
+		ratingSpec.setDepRoundingSpec("2223456782");
+		ratingSpec.setInRangeMethod(RatingConst.RatingMethod.LINEAR);
+		ratingSpec.setOutRangeLowMethod(RatingConst.RatingMethod.NEXT);
+		ratingSpec.setOutRangeHighMethod(RatingConst.RatingMethod.PREVIOUS);
+		AbstractRatingSet ratingSet = RatingSetFactory.ratingSet(ratingSpec, new AbstractRating[]{first, second});
+		double[] stages = stages(200);
+		long[] times = times(base, stages.length);
+		double[][] valueSets = new double[stages.length][];
+		for (int i = 0; i < stages.length; ++i) {
+			valueSets[i] = new double[]{stages[i]};
+		}
+		double[] rated = ratingSet.rate(valueSets, times);
+		for (int i = 0; i < stages.length; ++i) {
+			assertEquals(ratingSet.rateOne(valueSets[i], times[i]), rated[i], 0., "value " + i);
+		}
+	}
+
+	@Test
+	public void testCompiledShiftsMatchShiftRatingSet() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		long base = rating.getEffectiveDate();
+		rating.addShift(new Date(base + 10 * DAY), shiftValues(0, 0.5, 1_000, 1.5), true);
+		double[] stages = stages(200);
+		long[] times = times(base, stages.length);
+		assertShiftsMatch(rating, times, stages);
+		// changing the shifts recompiles them
+		rating.addShift(new Date(base + 30 * DAY), shiftValues(0, -1, 1_000, 2), true);
+		assertShiftsMatch(rating, times, stages);
+		rating.shifts.getRatings()[1].setActive(false);
+		assertShiftsMatch(rating, times, stages);
+	}
+
+	@Test
+	public void testFlatShiftsMatchShiftRatingSet() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		long base = rating.getEffectiveDate();
+		rating.addShift(new Date(base + 10 * DAY), shiftValues(50, 0.37), true);
+		double[] stages = stages(200);
+		long[] times = times(base, stages.length);
+		assertShiftsMatch(rating, times, stages);
+		// replacing the shifts recompiles the flat shifts
+		rating.setShifts(rating.getShifts());
+		rating.shifts.getRatings()[1].setActive(false);
+		assertShiftsMatch(rating, times, stages);
+	}
+
+	@Test
+	public void testShiftFromShiftedInvertsShifts() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		long base = rating.getEffectiveDate();
+		rating.addShift(new Date(base + 10 * DAY), shiftValues(0, 0.5, 100, 0.75, 1_000, 1.5), true);
+		rating.addShift(new Date(base + 30 * DAY), shiftValues(0, -1, 1_000, 2), true);
+		double[] stages = stages(200);
+		long[] times = times(base, stages.length);
+		for (int i = 0; i < stages.length; ++i) {
+			double shift = rating.getShiftFromUnshifted(times[i], stages[i]);
+			assertEquals(shift, rating.getShiftFromShifted(times[i], stages[i] + shift), 1e-9, "value " + i);
+		}
+	}
+
+	@Test
+	public void testOffsetsMatchOffsetsRating() throws RatingException {
+		UsgsStreamTableRating rating = newRating();
+		TableRatingContainer trc = new TableRatingContainer();
+		trc.ratingSpecId = "Test.Stage;Stage-Offset.Test.Test";
+		trc.unitsId = "ft;ft";
+		trc.effectiveDateMillis = rating.getEffectiveDate();
+		trc.active = true;
+		trc.inRangeMethod = RatingConst.RatingMethod.PREVIOUS.toString();
+		trc.outRangeLowMethod = RatingConst.RatingMethod.NEXT.toString();
+		trc.outRangeHighMethod = RatingConst.RatingMethod.PREVIOUS.toString();
+		trc.values = shiftValues(0, -0.5, 100, 2, 500, 10).toArray(new RatingValueContainer[0]);
+		TableRating offsets = new TableRating(trc);
+		rating.setOffsets(offsets);
+		for (int i = 0; i < 100; ++i) {
+			double stage = i * 7.5 - 20;
+			assertEquals(offsets.rate(stage), rating.getOffset(stage), 0., "stage " + stage);
+		}
+		trc.values = shiftValues(0, 1.25).toArray(new RatingValueContainer[0]);
+		rating.setOffsets(new TableRating(trc));
+		assertEquals(1.25, rating.getOffset(300), 0.);
+	}
+
+	@Test
+	public void testRoundingKernelMatchesRounder() throws Exception {
+		hec.data.UsgsRounder rounder = new hec.data.UsgsRounder("2223456782");
+		RoundingKernel kernel = new RoundingKernel(rounder);
+		double[] values = {0.123456, 0.123456, 0.123456, -1.98765, 12.3456, 12.3456, 0.000123456, 1234.5678, -1.98765};
+		double[] rounded = values.clone();
+		kernel.round(rounded, 0, rounded.length);
+		for (int i = 0; i < values.length; ++i) {
+			assertEquals(rounder.round(values[i], true), rounded[i], 0., "value " + i);
+			assertEquals(rounder.round(values[i], true), kernel.round(values[i]), 0., "value " + i);
+		}
+	}
+
+	private static UsgsStreamTableRating newRating() throws RatingException {
+		return new UsgsStreamTableRating(newContainer());
+	}
+
+	private static double[] stages(int count) {
+		double[] stages = new double[count];
+		for (int i = 0; i < count; ++i) {
+			stages[i] = (i * 37 % 101) * 9.5;
+		}
+		return stages;
+	}
+
+	private static long[] times(long base, int count) {
+		long[] times = new long[count];
+		for (int i = 0; i < count; ++i) {
+			times[i] = base + i * DAY / 4;
+		}
+		return times;
+	}
+
+	private static List<RatingValueContainer> shiftValues(double... pairs) {
+		List<RatingValueContainer> values = new ArrayList<>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			RatingValueContainer rvc = new RatingValueContainer();
+			rvc.indValue = pairs[i];
+			rvc.depValue = pairs[i + 1];
+			values.add(rvc);
+		}
+		return values;
+	}
+
+	private static void assertShiftsMatch(UsgsStreamTableRating rating, long[] times, double[] stages) throws RatingException {
+		double[] flows = rating.rate(times, stages);
+		RatingSet shifts = rating.shifts;
+		for (int i = 0; i < stages.length; ++i) {
+			double shift = rating.getShiftFromUnshifted(times[i], stages[i]);
+			try {
+				assertEquals(rating.shiftRounder.round(shifts.rate(stages[i], times[i]), true), shift, 0., "value " + i);
+			}
+			catch (hec.data.RoundingException e) {
+				throw new RatingException(e);
+			}
+			assertEquals(rating.rate(times[i], stages[i]), flows[i], 0., "value " + i);
+		}
+	}
+
     @Disabled
 	@Test
 	public final void testStreamRatingLessThanMinExtent() throws Exception
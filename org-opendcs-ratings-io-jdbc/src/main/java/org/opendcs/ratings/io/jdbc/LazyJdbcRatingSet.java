@@ -30,6 +30,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.TimeZone;
 import java.util.logging.Level;
@@ -78,6 +79,18 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
         }
     }
 
+    /**
+     * Loads all rating values that haven't already been loaded and compiles the active ratings.
+     *
+     * @return The compiled rating set
+     * @throws RatingException on error
+     */
+    @Override
+    public synchronized CompiledRatingSet compile() throws RatingException {
+        getConcreteRatings();
+        return super.compile();
+    }
+
     private synchronized Entry<Long, AbstractRating> getConcreteRating(Entry<Long, AbstractRating> ratingEntry) throws RatingException {
         Entry<Long, AbstractRating> newEntry = ratingEntry;
         try {
@@ -107,15 +120,14 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
                                 sdf.format(rating.getEffectiveDate()) + " UTC. Removing effective date from rating set");
                             ratings.remove(rating.getEffectiveDate());
                             activeRatings.remove(rating.getEffectiveDate());
+                            invalidateActiveRatingIndex();
                         } else {
                             AbstractRating newRating = RatingXmlFactory.abstractRating(xmlText);
                             if (newRating == null) {
                                 throw new RatingException("Unexpected rating type: \n" + xmlText);
                             }
                             replaceRating(newRating);
-
                         }
-                        refreshRatings();
                         if (observationTarget != null) {
                             observationTarget.setChanged();
                             observationTarget.notifyObservers();
@@ -150,28 +162,8 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
         if (activeRatingCount == 0) {
             throw new RatingException("No active ratings.");
         }
-        if (valueSets.length != valueTimes.length) {
-            throw new RatingException("Values and times have different lengths");
-        }
-        for (int i = 1; i < valueSets.length; ++i) {
-            if (valueSets[i].length != valueSets[0].length) {
-                throw new RatingException("Value sets are not all of same length.");
-            }
-            if (valueSets[i].length != ratings.firstEntry().getValue().getIndParamCount()) {
-                throw new RatingException("Value sets have different parameter counts than ratings.");
-            }
-        }
-        if (getDataUnits() == null) {
-            Entry<Long, AbstractRating> entry1 = ratings.firstEntry();
-            Entry<Long, AbstractRating> entry2 = ratings.higherEntry(entry1.getKey());
-            while (entry2 != null) {
-                if (!(entry1.getValue().getRatingUnitsId().equalsIgnoreCase(entry2.getValue().getRatingUnitsId()))) {
-                    throw new RatingException("Data units must be specified when rating set has multiple rating units.");
-                }
-                entry1 = entry2;
-                entry2 = ratings.higherEntry(entry1.getKey());
-            }
-        }
+        checkValueSets(valueSets, valueTimes);
+        checkDataUnits();
 
         Entry<Long, AbstractRating> lowerRating;
         Entry<Long, AbstractRating> upperRating;
@@ -346,6 +338,113 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
         return rating.getValue().getRatingExtents();
     }
 
+    /**
+     * Loads the ratings that may be used to rate values at the specified times and rates the values with a context.
+     *
+     * @see AbstractRatingSet#rate(RatingContext, long[], double[][])
+     */
+    @Override
+    public double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+        getConcreteRatings(valTimes == null ? new long[] {context.getDefaultValueTime()} : valTimes);
+        return super.rate(context, valTimes, indVals);
+    }
+
+    /**
+     * Loads the ratings that may be used to reverse rate values at the specified times and reverse rates the values
+     * with a context.
+     *
+     * @see AbstractRatingSet#reverseRate(RatingContext, long[], double[])
+     */
+    @Override
+    public double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+        getConcreteRatings(valTimes == null ? new long[] {context.getDefaultValueTime()} : valTimes);
+        return super.reverseRate(context, valTimes, depVals);
+    }
+
+    /**
+     * Loads the ratings that may be used to rate a range of the value sets of a batch and rates them.
+     *
+     * @see AbstractRatingSet#rate(RatingBatch, int, int, double[], int)
+     */
+    @Override
+    public void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+        long[] times = batch.getTimes();
+        if (times != null && offset >= 0 && length >= 0 && offset + length <= times.length) {
+            getConcreteRatings(Arrays.copyOfRange(times, offset, offset + length));
+        }
+        else {
+            getConcreteRatings(new long[] {getDefaultValueTime()});
+        }
+        super.rate(batch, offset, length, out, outOffset);
+    }
+
+    /**
+     * Loads the ratings that may be used to rate a range of the value sets of a batch and rates them, reporting value
+     * sets that can't be rated in a status array.
+     *
+     * @see AbstractRatingSet#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+     */
+    @Override
+    public void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset) throws RatingException {
+        long[] times = batch.getTimes();
+        if (times != null && offset >= 0 && length >= 0 && offset + length <= times.length) {
+            getConcreteRatings(Arrays.copyOfRange(times, offset, offset + length));
+        }
+        else {
+            getConcreteRatings(new long[] {getDefaultValueTime()});
+        }
+        super.rateWithStatus(batch, offset, length, out, status, outOffset);
+    }
+
+    /**
+     * Loads the ratings that may be used to rate the members of an ensemble at the specified times and rates them.
+     *
+     * @see AbstractRatingSet#rateEnsemble(long[], double[][])
+     */
+    @Override
+    public double[][] rateEnsemble(long[] valueTimes, double[][] members) throws RatingException {
+        getConcreteRatings(valueTimes);
+        return super.rateEnsemble(valueTimes, members);
+    }
+
+    /**
+     * Loads the ratings that may be used to rate the members of an ensemble at the specified times and rates them
+     * with a context.
+     *
+     * @see AbstractRatingSet#rateEnsemble(RatingContext, long[], double[][])
+     */
+    @Override
+    public double[][] rateEnsemble(RatingContext context, long[] valTimes, double[][] members) throws RatingException {
+        getConcreteRatings(valTimes == null ? new long[] {context.getDefaultValueTime()} : valTimes);
+        return super.rateEnsemble(context, valTimes, members);
+    }
+
+    /**
+     * Loads the rating values of the active ratings that may be used to rate values at the specified times: the
+     * ratings on either side of each time, and the two earliest or latest ratings for times outside the effective
+     * dates, which extrapolating methods use.
+     *
+     * @param valueTimes The times of the values to rate, in Java milliseconds
+     * @throws RatingException on error
+     */
+    private synchronized void getConcreteRatings(long[] valueTimes) throws RatingException {
+        for (int i = 0; i < valueTimes.length; ++i) {
+            if (i > 0 && valueTimes[i] == valueTimes[i - 1]) {
+                continue;
+            }
+            Entry<Long, AbstractRating> lowerRating = activeRatings.floorEntry(valueTimes[i]);
+            Entry<Long, AbstractRating> upperRating = activeRatings.ceilingEntry(valueTimes[i]);
+            if (lowerRating == null && upperRating != null) {
+                lowerRating = activeRatings.higherEntry(upperRating.getKey());
+            }
+            else if (upperRating == null && lowerRating != null) {
+                upperRating = activeRatings.lowerEntry(lowerRating.getKey());
+            }
+            getConcreteRating(lowerRating);
+            getConcreteRating(upperRating);
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.opendcs.ratings.IRating#reverseRate(long[], double[])
      */
@@ -355,17 +454,7 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
         if (activeRatings.isEmpty()) {
             throw new RatingException("No active ratings.");
         }
-        if (getDataUnits() == null) {
-            Entry<Long, AbstractRating> entry1 = ratings.firstEntry();
-            Entry<Long, AbstractRating> entry2 = ratings.higherEntry(entry1.getKey());
-            while (entry2 != null) {
-                if (!(entry1.getValue().getRatingUnitsId().equalsIgnoreCase(entry2.getValue().getRatingUnitsId()))) {
-                    throw new RatingException("Data units must be specified when rating set has multiple rating units.");
-                }
-                entry1 = entry2;
-                entry2 = ratings.higherEntry(entry1.getKey());
-            }
-        }
+        checkDataUnits();
         Entry<Long, AbstractRating> lowerRating;
         Entry<Long, AbstractRating> upperRating;
         IRating lastUsedRating = null;
@@ -555,7 +644,7 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
      */
     @Override
     public void update(java.util.Observable arg0, Object arg1) {
-        refreshRatings();
+        refreshActiveRatings();
         observationTarget.setChanged();
         observationTarget.notifyObservers();
     }
@@ -674,34 +763,4 @@ public final class LazyJdbcRatingSet extends JdbcRatingSet {
             }
         }
     }
-
-    private synchronized void refreshRatings() {
-        //-------------------------------------------------------------------//
-        // first update ratings from active ratings (if rating still exists) //
-        //-------------------------------------------------------------------//
-        for (Long key : activeRatings.keySet()) {
-            if (ratings.containsKey(key)) {
-                ratings.put(key, activeRatings.get(key));
-            }
-        }
-        //---------------------------------------------//
-        // now rebuild both ratings and active ratings //
-        //---------------------------------------------//
-        AbstractRating[] ratingArray = ratings.values().toArray(new AbstractRating[0]);
-        ratings.clear();
-        activeRatings.clear();
-        for (AbstractRating rating : ratingArray) {
-            long effectiveDate = rating.getEffectiveDate();
-            ratings.put(effectiveDate, rating);
-            if (rating.isActive() && rating.getCreateDate() < ratingTime) {
-                activeRatings.put(effectiveDate, rating);
-            }
-            rating.deleteObserver(this);
-            rating.addObserver(this);
-        }
-        if (observationTarget != null) {
-            observationTarget.setChanged();
-            observationTarget.notifyObservers();
-        }
-    }
 }
\ No newline at end of file
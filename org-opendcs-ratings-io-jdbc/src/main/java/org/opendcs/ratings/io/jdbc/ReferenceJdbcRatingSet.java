@@ -21,6 +21,9 @@ import hec.io.TextContainer;
 import mil.army.usace.hec.metadata.VerticalDatumContainer;
 import mil.army.usace.hec.metadata.VerticalDatumException;
 import org.opendcs.ratings.AbstractRating;
+import org.opendcs.ratings.CompiledRatingSet;
+import org.opendcs.ratings.RatingBatch;
+import org.opendcs.ratings.RatingContext;
 import org.opendcs.ratings.RatingException;
 import org.opendcs.ratings.RatingSpec;
 import org.opendcs.ratings.io.RatingSetContainer;
@@ -73,6 +76,16 @@ public final class ReferenceJdbcRatingSet extends JdbcRatingSet {
         throw new RatingException("Cannot add to a reference rating");
     }
 
+    /**
+     * Reference ratings are rated by the database and cannot be compiled.
+     *
+     * @throws RatingException always
+     */
+    @Override
+    public CompiledRatingSet compile() throws RatingException {
+        throw new RatingException("Cannot compile a reference rating");
+    }
+
     /**
      * Retrieves rated values for specified multiple input value Sets and times. The rating set must
      * be for as many independent parameter as each value set
@@ -87,6 +100,39 @@ public final class ReferenceJdbcRatingSet extends JdbcRatingSet {
         return dbrating.rate(valueTimes, valueSets);
     }
 
+    /**
+     * Rates a range of the value sets of a batch. The rating is performed by the database.
+     *
+     * @see org.opendcs.ratings.IRating#rate(RatingBatch, int, int, double[], int)
+     */
+    @Override
+    public synchronized void rate(RatingBatch batch, int offset, int length, double[] out, int outOffset) throws RatingException {
+        dbrating.rate(batch, offset, length, out, outOffset);
+    }
+
+    /**
+     * Rates a range of the value sets of a batch, reporting value sets that can't be rated in a status array. The
+     * rating is performed by the database.
+     *
+     * @see org.opendcs.ratings.IRating#rateWithStatus(RatingBatch, int, int, double[], byte[], int)
+     */
+    @Override
+    public synchronized void rateWithStatus(RatingBatch batch, int offset, int length, double[] out, byte[] status, int outOffset)
+            throws RatingException {
+        dbrating.rateWithStatus(batch, offset, length, out, status, outOffset);
+    }
+
+    /**
+     * Rates values with a context. The rating is performed by the database, which selects the ratings by the
+     * database's own rating time, so the rating time of the context is not used.
+     *
+     * @see org.opendcs.ratings.IRating#rate(RatingContext, long[], double[][])
+     */
+    @Override
+    public synchronized double[] rate(RatingContext context, long[] valTimes, double[][] indVals) throws RatingException {
+        return dbrating.rate(context, valTimes, indVals);
+    }
+
     /* (non-Javadoc)
      * @see org.opendcs.ratings.IRating#getRatingUnits()
      */
@@ -150,6 +196,84 @@ public final class ReferenceJdbcRatingSet extends JdbcRatingSet {
         return dbrating.getCreateDates();
     }
 
+    /**
+     * Rates the members of an ensemble. All the members are sent to the database in a single call.
+     *
+     * @see org.opendcs.ratings.AbstractRatingSet#rateEnsemble(long[], double[][])
+     */
+    @Override
+    public synchronized double[][] rateEnsemble(long[] valueTimes, double[][] members) throws RatingException {
+        return split(dbrating.rate(ensembleTimes(valueTimes, members), ensembleValueSets(valueTimes, members)), members.length);
+    }
+
+    /**
+     * Rates the members of an ensemble with a context. All the members are sent to the database in a single call, and
+     * the rating time of the context is not used.
+     *
+     * @see org.opendcs.ratings.AbstractRatingSet#rateEnsemble(RatingContext, long[], double[][])
+     */
+    @Override
+    public synchronized double[][] rateEnsemble(RatingContext context, long[] valTimes, double[][] members) throws RatingException {
+        long[] valueTimes = valTimes;
+        if (valueTimes == null) {
+            valueTimes = new long[members.length == 0 ? 0 : members[0].length];
+            Arrays.fill(valueTimes, context.getDefaultValueTime());
+        }
+        return split(dbrating.rate(context, ensembleTimes(valueTimes, members), ensembleValueSets(valueTimes, members)), members.length);
+    }
+
+    /**
+     * Repeats the times of an ensemble for each member
+     *
+     * @param valueTimes The times shared by the members
+     * @param members    The values of each member
+     * @return the times of all the members, member by member
+     * @throws RatingException if a member doesn't have a value for each time
+     */
+    private static long[] ensembleTimes(long[] valueTimes, double[][] members) throws RatingException {
+        long[] times = new long[members.length * valueTimes.length];
+        for (int m = 0; m < members.length; ++m) {
+            if (members[m].length != valueTimes.length) {
+                throw new RatingException("Ensemble members and times have different lengths");
+            }
+            System.arraycopy(valueTimes, 0, times, m * valueTimes.length, valueTimes.length);
+        }
+        return times;
+    }
+
+    /**
+     * Arranges the values of an ensemble as single-value value sets, member by member
+     *
+     * @param valueTimes The times shared by the members
+     * @param members    The values of each member
+     * @return the value sets of all the members
+     */
+    private static double[][] ensembleValueSets(long[] valueTimes, double[][] members) {
+        double[][] valueSets = new double[members.length * valueTimes.length][];
+        for (int m = 0; m < members.length; ++m) {
+            for (int i = 0; i < valueTimes.length; ++i) {
+                valueSets[m * valueTimes.length + i] = new double[] {members[m][i]};
+            }
+        }
+        return valueSets;
+    }
+
+    /**
+     * Splits the rated values of all the members of an ensemble into the values of each member
+     *
+     * @param values      The rated values, member by member
+     * @param memberCount The number of members
+     * @return the rated values of each member
+     */
+    private static double[][] split(double[] values, int memberCount) {
+        double[][] members = new double[memberCount][];
+        int length = memberCount == 0 ? 0 : values.length / memberCount;
+        for (int m = 0; m < memberCount; ++m) {
+            members[m] = Arrays.copyOfRange(values, m * length, (m + 1) * length);
+        }
+        return members;
+    }
+
     /* (non-Javadoc)
      * @see org.opendcs.ratings.IRating#reverseRate(long[], double[])
      */
@@ -158,6 +282,17 @@ public final class ReferenceJdbcRatingSet extends JdbcRatingSet {
         return dbrating.reverseRate(valTimes, depVals);
     }
 
+    /**
+     * Reverse rates values with a context. The rating is performed by the database, which selects the ratings by the
+     * database's own rating time, so the rating time of the context is not used.
+     *
+     * @see org.opendcs.ratings.IRating#reverseRate(RatingContext, long[], double[])
+     */
+    @Override
+    public synchronized double[] reverseRate(RatingContext context, long[] valTimes, double[] depVals) throws RatingException {
+        return dbrating.reverseRate(context, valTimes, depVals);
+    }
+
     /**
      * Sets the data from this object from a RatingSetContainer
      *